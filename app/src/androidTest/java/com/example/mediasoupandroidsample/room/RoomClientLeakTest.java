@@ -0,0 +1,168 @@
+package com.example.mediasoupandroidsample.room;
+
+import android.Manifest;
+import android.content.Context;
+import android.os.Debug;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.rule.GrantPermissionRule;
+
+import com.example.mediasoupandroidsample.media.MediaCapturer;
+import com.example.mediasoupandroidsample.socket.EchoSocket;
+import com.example.mediasoupandroidsample.socket.MockSfuServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mediasoup.droid.Device;
+import org.mediasoup.droid.MediasoupClient;
+import org.webrtc.EglBase;
+import org.webrtc.SurfaceViewRenderer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs repeated join/leave cycles with audio and camera video and checks that threads and heap do not grow
+ */
+@RunWith(AndroidJUnit4.class)
+public class RoomClientLeakTest {
+	private static final int CYCLES = 20;
+	private static final int THREAD_SLACK = 2;
+	private static final long HEAP_SLACK_BYTES = 4 * 1024 * 1024;
+	private static final long NATIVE_HEAP_SLACK_BYTES = 8 * 1024 * 1024;
+
+	@Rule
+	public GrantPermissionRule mPermissionRule = GrantPermissionRule.grant(Manifest.permission.RECORD_AUDIO, Manifest.permission.CAMERA);
+
+	private MockSfuServer mServer;
+	private String mServerUrl;
+	// Shared by the cycles like the app's, it is not what is checked for leaks
+	private EglBase mEglBase;
+
+	@BeforeClass
+	public static void initializeMediasoup() {
+		Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+		MediasoupClient.initialize(context);
+	}
+
+	@Before
+	public void startServer()
+	throws Exception {
+		mServer = new MockSfuServer();
+		// One connection per cycle plus warm up
+		mServerUrl = mServer.start();
+		mEglBase = EglBase.create();
+	}
+
+	@After
+	public void stopServer()
+	throws Exception {
+		mEglBase.release();
+		mServer.shutdown();
+	}
+
+	@Test
+	public void joinLeaveCyclesDoNotLeak()
+	throws Exception {
+		// Warm up so lazily created pools and native threads are part of the baseline
+		runCycle();
+
+		int baselineThreads = threadCount();
+		long baselineHeap = usedHeap();
+		long baselineNativeHeap = Debug.getNativeHeapAllocatedSize();
+
+		for (int i = 0; i < CYCLES; i++) {
+			runCycle();
+		}
+
+		int threads = threadCount();
+		long heap = usedHeap();
+		long nativeHeap = Debug.getNativeHeapAllocatedSize();
+
+		assertTrue("threads grew from " + baselineThreads + " to " + threads, threads <= baselineThreads + THREAD_SLACK);
+		assertTrue("heap grew from " + baselineHeap + " to " + heap, heap <= baselineHeap + HEAP_SLACK_BYTES);
+		assertTrue("native heap grew from " + baselineNativeHeap + " to " + nativeHeap, nativeHeap <= baselineNativeHeap + NATIVE_HEAP_SLACK_BYTES);
+	}
+
+	/**
+	 * Connect, join, create both transports, open the camera, produce audio and video then tear everything down
+	 */
+	private void runCycle()
+	throws Exception {
+		EchoSocket socket = new EchoSocket();
+		socket.connect(mServerUrl).get(10, TimeUnit.SECONDS);
+
+		Device device = new Device();
+		device.load(MockSfuServer.ROUTER_RTP_CAPABILITIES);
+
+		MediaCapturer mediaCapturer = new MediaCapturer();
+		RoomClient client = new RoomClient(socket, MediasoupMedia.device(device), "leak-test", MediasoupMedia.localMedia(mediaCapturer),
+				MediasoupMedia.mainThreadScheduler(), consumer -> { });
+
+		client.join();
+		client.createRecvTransport();
+		client.createSendTransport();
+
+		SurfaceViewRenderer localView = prepareVideo(mediaCapturer);
+		client.produceAudio();
+		client.produceVideo();
+
+		client.leave();
+		mediaCapturer.dispose();
+		InstrumentationRegistry.getInstrumentation().runOnMainSync(localView::release);
+		device.dispose();
+		socket.disconnect();
+	}
+
+	/**
+	 * Open the camera into a local renderer, on the main thread as the renderer requires
+	 * @return Renderer, the caller releases it
+	 */
+	private SurfaceViewRenderer prepareVideo(MediaCapturer mediaCapturer)
+	throws Exception {
+		Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+		AtomicReference<SurfaceViewRenderer> localView = new AtomicReference<>();
+		AtomicReference<Exception> failure = new AtomicReference<>();
+
+		InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+			SurfaceViewRenderer renderer = new SurfaceViewRenderer(context);
+			renderer.init(mEglBase.getEglBaseContext(), null);
+			localView.set(renderer);
+			try {
+				mediaCapturer.prepareVideo(context, renderer, mEglBase.getEglBaseContext());
+			} catch (Exception e) {
+				failure.set(e);
+			}
+		});
+
+		if (failure.get() != null) {
+			localView.get().release();
+			throw failure.get();
+		}
+
+		return localView.get();
+	}
+
+	private static int threadCount()
+	throws InterruptedException {
+		// Give shut down executors a moment to let their threads exit
+		Thread.sleep(1000);
+		return Thread.getAllStackTraces().size();
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		runtime.gc();
+		runtime.runFinalization();
+		runtime.gc();
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
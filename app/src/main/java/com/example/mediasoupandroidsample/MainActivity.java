@@ -3,44 +3,120 @@ package com.example.mediasoupandroidsample;
 import androidx.appcompat.app.AppCompatActivity;
 
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.widget.ImageButton;
 import android.widget.Toast;
 
+import com.example.mediasoupandroidsample.log.AndroidLogSink;
+import com.example.mediasoupandroidsample.media.AudioProfile;
+import com.example.mediasoupandroidsample.media.DecimatingVideoSink;
+import com.example.mediasoupandroidsample.media.EncodingLadder;
+import com.example.mediasoupandroidsample.media.FrameTimingSink;
+import com.example.mediasoupandroidsample.media.HardwareCodecs;
+import com.example.mediasoupandroidsample.media.MediaCapturer;
 import com.example.mediasoupandroidsample.permission.PermissionFragment;
 import com.example.mediasoupandroidsample.request.Request;
+import com.example.mediasoupandroidsample.room.MediaConsumer;
+import com.example.mediasoupandroidsample.room.MediasoupMedia;
 import com.example.mediasoupandroidsample.room.RoomClient;
 import com.example.mediasoupandroidsample.room.RoomListener;
-import com.example.mediasoupandroidsample.socket.ActionEvent;
+import com.example.mediasoupandroidsample.room.RoomRoster;
+import com.example.mediasoupandroidsample.room.RoomSession;
+import com.example.mediasoupandroidsample.room.RosterChange;
 import com.example.mediasoupandroidsample.socket.EchoSocket;
-import com.example.mediasoupandroidsample.socket.MessageObserver;
+import com.example.mediasoupandroidsample.socket.LinkEstimate;
+import com.example.mediasoupandroidsample.socket.LinkProbe;
+import com.example.mediasoupandroidsample.startup.StartupPipeline;
+import com.example.mediasoupandroidsample.startup.StartupTrace;
+import com.example.mediasoupandroidsample.trace.Trace;
+import com.example.mediasoupandroidsample.trace.TraceRecorder;
+import com.example.mediasoupandroidsample.utils.ConnectTimer;
+import com.example.mediasoupandroidsample.utils.NetworkMonitor;
+import com.example.mediasoupandroidsample.utils.SignalingHttpClient;
 
-import org.mediasoup.droid.Consumer;
-import org.mediasoup.droid.Device;
 import org.mediasoup.droid.Logger;
 import org.mediasoup.droid.MediasoupClient;
 
-import org.json.JSONException;
 import org.json.JSONObject;
 import org.webrtc.EglBase;
+import org.webrtc.RendererCommon;
 import org.webrtc.SurfaceViewRenderer;
 import org.webrtc.VideoTrack;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Arrays;
 
-public class MainActivity extends AppCompatActivity implements MessageObserver.Observer, RoomListener {
+public class MainActivity extends AppCompatActivity implements RoomListener {
     private static final String TAG = "MainActivity";
+    private static final int TRACE_CAPACITY = 4096;
+    private static final long HEARTBEAT_INTERVAL_MS = 5000;
+    private static final int HEARTBEAT_MISSED_LIMIT = 3;
+    private static final long PROBE_BUDGET_MS = 1500;
+    private static final String ROOM_ID = "android";
+    // Room the switch button moves to and back from
+    private static final String OTHER_ROOM_ID = "android2";
+
+	// Startup stages
+	private static final String STAGE_CONNECT = "connect";
+	private static final String STAGE_INITIALIZE = "initialize";
+	private static final String STAGE_PERMISSION = "permission";
+	private static final String STAGE_LOCAL_VIEW = "localView";
+	private static final String STAGE_CAMERA = "camera";
+	private static final String STAGE_CAPABILITIES = "capabilities";
+	private static final String STAGE_PROBE = "probe";
+	private static final String STAGE_DEVICE = "device";
+	private static final String STAGE_JOIN = "join";
+	private static final String STAGE_RECV_TRANSPORT = "recvTransport";
+	private static final String STAGE_SEND_TRANSPORT = "sendTransport";
+	private static final String STAGE_PRODUCE = "produce";
 
 	private SurfaceViewRenderer mVideoView;
     private SurfaceViewRenderer mRemoteVideoView;
     private PermissionFragment mPermissionFragment;
-    private RoomClient mClient;
+    private EglBase mEglBase;
+    private EglBase.Context mEglBaseContext;
+    private EchoSocket mSocket;
+    private NetworkMonitor mNetworkMonitor;
+    private StartupPipeline mPipeline;
+    // Replaced for a full rejoin, which runs the startup stages again
+    private volatile StartupTrace mTrace = new StartupTrace();
+    private volatile RoomSession mSession;
+    private volatile RoomClient mClient;
+    private volatile MediaCapturer mMediaCapturer;
+    private volatile JSONObject mRoomRtpCapabilities;
+    private volatile EncodingLadder mEncodingLadder = EncodingLadder.DEFAULT;
+    private volatile boolean mPermissionGranted;
+    private volatile String mRemoteConsumerId;
+    private volatile String mRoomId = ROOM_ID;
+    private volatile long mLastSwitchMs = -1;
+    // Room a switch is moving to, null when none is running
+    private volatile String mSwitchRoomId;
+    // SystemClock.elapsedRealtime() when a full rejoin started, -1 when none is running
+    private volatile long mRejoinStartMs = -1;
+    // Batched roster changes are delivered on the main thread, ready for a participant list
+    private final RoomRoster mRoster = new RoomRoster(this::runOnUiThread);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        // Route signaling logs to logcat, release builds only keep warnings and errors
+        com.example.mediasoupandroidsample.log.Log.setSink(new AndroidLogSink());
+        com.example.mediasoupandroidsample.log.Log.setMinPriority(BuildConfig.DEBUG
+                ? com.example.mediasoupandroidsample.log.Log.DEBUG
+                : com.example.mediasoupandroidsample.log.Log.WARN);
+
+        // Keep recent signaling/transport/producer/consumer events for diagnosis in every build
+        Trace.start(new TraceRecorder(TRACE_CAPACITY), Trace.ALL);
+
+        // One signaling client for the process, the server is trusted by its pinned keys
+        String[] pins = getResources().getStringArray(R.array.server_certificate_pins);
+        SignalingHttpClient.configure(Arrays.asList(pins), SignalingHttpClient.DEFAULT_PING_INTERVAL_MS);
+        if (pins.length == 0 && getString(R.string.server_socket_url).startsWith("wss://")) {
+            Log.w(TAG, "No server_certificate_pins, a server with a self-signed certificate will be refused");
+        }
+
         // Initialize Mediasoup
         mVideoView = findViewById(R.id.local_video_view);
         mRemoteVideoView = findViewById(R.id.remote_video_view);
@@ -48,6 +124,8 @@ public class MainActivity extends AppCompatActivity implements MessageObserver.O
 	    ImageButton localPlayButton = findViewById(R.id.local_play_button);
 	    ImageButton remotePauseButton = findViewById(R.id.remote_pause_button);
 	    ImageButton remotePlayButton = findViewById(R.id.remote_play_button);
+	    ImageButton switchCameraButton = findViewById(R.id.switch_camera_button);
+	    ImageButton switchRoomButton = findViewById(R.id.switch_room_button);
 
 	    // local play button
         localPlayButton.setOnClickListener(view -> {
@@ -75,6 +153,26 @@ public class MainActivity extends AppCompatActivity implements MessageObserver.O
 	        }
         });
 
+        // switch camera button, the producer keeps sending the same track
+        switchCameraButton.setOnClickListener(view -> {
+	        MediaCapturer mediaCapturer = mMediaCapturer;
+	        if (mediaCapturer == null || mediaCapturer.getVideoTrack() == null) {
+		        return;
+	        }
+
+	        mediaCapturer.switchCamera(new MediaCapturer.SwitchListener() {
+		        @Override
+		        public void onCameraSwitched(boolean isFrontFacing, long latencyMs) {
+			        Log.d(TAG, "Camera switched front=" + isFrontFacing + " latencyMs=" + latencyMs);
+		        }
+
+		        @Override
+		        public void onCameraSwitchFailed(String error) {
+			        runOnUiThread(() -> Toast.makeText(getBaseContext(), "Failed to switch camera", Toast.LENGTH_LONG).show());
+		        }
+	        });
+        });
+
         // remote play button
 	    remotePlayButton.setOnClickListener(view -> {
 	    	if (mClient != null) {
@@ -101,55 +199,305 @@ public class MainActivity extends AppCompatActivity implements MessageObserver.O
 		    }
 	    });
 
-	    EglBase.Context eglBaseContext = EglBase.create().getEglBaseContext();
-	    runOnUiThread(() -> mRemoteVideoView.init(eglBaseContext, null));
+	    // switch room button, a long press does a full rejoin instead to compare the two
+	    switchRoomButton.setOnClickListener(view -> switchRoom(otherRoomId()));
+	    switchRoomButton.setOnLongClickListener(view -> {
+		    rejoinRoom(otherRoomId());
+		    return true;
+	    });
+
+	    mEglBase = EglBase.create();
+	    mEglBaseContext = mEglBase.getEglBaseContext();
+	    runOnUiThread(() -> mRemoteVideoView.init(mEglBaseContext, new FirstFrameEvents(StartupTrace.FIRST_REMOTE_FRAME)));
 
         addPermissionFragment();
         // FIX: race problem, asking for permissions before fragment is full attached..
         getSupportFragmentManager().executePendingTransactions();
 
+        // Restart ICE as soon as the device changes network instead of waiting for the transports to time out
+        mNetworkMonitor = new NetworkMonitor(this, () -> {
+	        if (mClient != null) {
+		        mClient.restartIce();
+	        }
+        });
+        mNetworkMonitor.start();
+
+        // The roster outlives the socket, a full rejoin registers it on the new one
+        mRoster.addListener(changes -> {
+	        for (RosterChange change : changes) {
+		        Log.d(TAG, "Roster " + change);
+	        }
+	        Log.d(TAG, "Roster participants=" + mRoster.getParticipantCount());
+        });
+
         // Connect to the websocket server
         this.connectWebSocket();
     }
 
-    private void connectWebSocket() {
-        EchoSocket socket = new EchoSocket();
-        socket.register(this);
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
 
-        try {
-            // Connect to server
-            socket.connect(getString(R.string.server_socket_url)).get(3000, TimeUnit.SECONDS);
+		mNetworkMonitor.stop();
+
+		if (mPipeline != null) {
+			mPipeline.cancel();
+		}
+
+		// Release in dependency order: room -> capture -> socket -> renderers,
+		// leaving waits for in-flight room work so keep it off the main thread
+		final RoomSession session = mSession;
+		final RoomClient client = mClient;
+		final MediaCapturer mediaCapturer = mMediaCapturer;
+		final EchoSocket socket = mSocket;
+		new Thread(() -> {
+			releaseRoom(session, client, mediaCapturer, socket);
+
+			runOnUiThread(() -> {
+				mVideoView.release();
+				mRemoteVideoView.release();
+				mEglBase.release();
+			});
+		}, "RoomTeardown").start();
+	}
 
-            // Initialize mediasoup client
-            initializeMediasoupClient();
+	/**
+	 * Leave the rooms and release the capture and socket, blocks until the room's media is released
+	 */
+	private void releaseRoom(RoomSession session, RoomClient client, MediaCapturer mediaCapturer, EchoSocket socket) {
+		if (client != null && mRemoteConsumerId != null) {
+			Log.d(TAG, client.getRenderMetrics(mRemoteConsumerId).toString());
+		}
 
-            // Get router rtp capabilities
-            JSONObject getRoomRtpCapabilitiesResponse = Request.sendGetRoomRtpCapabilitiesRequest(socket, "android");
-            JSONObject roomRtpCapabilities = getRoomRtpCapabilitiesResponse.getJSONObject("roomRtpCapabilities");
+		if (session != null) {
+			session.dispose();
+		}
 
-            // Initialize mediasoup device
-            Device device = new Device();
-            device.load(roomRtpCapabilities.toString());
+		if (mediaCapturer != null) {
+			Log.d(TAG, mediaCapturer.getPreviewMetrics().toString());
+			if (mediaCapturer.getProcessingChain() != null) {
+				Log.d(TAG, mediaCapturer.getProcessingChain().toString());
+			}
+			mediaCapturer.dispose();
+		}
 
-            // Create a new room client
-            mClient = new RoomClient(socket, device, "android", this);
+		if (socket != null) {
+			socket.unregister(mRoster);
+			socket.disconnect();
+		}
+	}
 
-            // Join the room
+	/**
+	 * Connect, join the current room and start producing as a graph of startup stages,
+	 * stages without a dependency between them run concurrently
+	 */
+    private void connectWebSocket() {
+        String roomId = mRoomId;
+        EchoSocket socket = new EchoSocket();
+        socket.register(roomId, mRoster);
+        mSocket = socket;
+
+        mPipeline = new StartupPipeline(mTrace);
+        mPipeline.setListener(new StartupPipeline.Listener() {
+	        @Override
+	        public void onPipelineCompleted() {
+		        Log.d(TAG, mTrace.report());
+
+		        long rejoinStart = mRejoinStartMs;
+		        if (rejoinStart >= 0) {
+			        mRejoinStartMs = -1;
+			        long rejoinMs = SystemClock.elapsedRealtime() - rejoinStart;
+			        long lastSwitchMs = mLastSwitchMs;
+			        reportRoomChange("Rejoined " + roomId + " in " + rejoinMs + "ms"
+					        + (lastSwitchMs >= 0 ? ", last switch took " + lastSwitchMs + "ms" : ""));
+		        }
+	        }
+
+	        @Override
+	        public void onStageFailed(String stage, Throwable t) {
+		        Log.e(TAG, "Failed to start room stage=" + stage, t);
+		        mRejoinStartMs = -1;
+		        dumpTrace();
+	        }
+        });
+
+        // Connect to server
+        mPipeline.addStage(STAGE_CONNECT, () -> {
+	        // The connect future fails on its own once the socket's connect deadline passes
+	        socket.connect(getString(R.string.server_socket_url)).get();
+	        socket.startHeartbeat(HEARTBEAT_INTERVAL_MS, HEARTBEAT_MISSED_LIMIT);
+
+	        ConnectTimer.ConnectTiming timing = ConnectTimer.getLastTiming();
+	        if (timing != null) {
+		        mTrace.addMetric("dns", timing.getDnsMs());
+		        mTrace.addMetric("tcp", timing.getTcpMs());
+		        mTrace.addMetric("tls", timing.getTlsMs());
+	        }
+        });
+
+        // Initialize mediasoup client and the local media factory
+        mPipeline.addStage(STAGE_INITIALIZE, () -> {
+	        initializeMediasoupClient();
+	        mMediaCapturer = new MediaCapturer();
+        });
+
+        // Ask for camera/mic permission while signaling is in progress
+        mPipeline.addAsyncStage(STAGE_PERMISSION, this::requestPermission);
+
+        // Initialize the local renderer
+        mPipeline.addAsyncStage(STAGE_LOCAL_VIEW, completion -> runOnUiThread(() -> {
+	        mVideoView.init(mEglBaseContext, new FirstFrameEvents(StartupTrace.FIRST_LOCAL_FRAME));
+	        completion.complete();
+        }));
+
+        // Open the camera into the local preview while signaling is still in progress
+        mPipeline.addStage(STAGE_CAMERA, this::prepareLocalVideo, STAGE_INITIALIZE, STAGE_PERMISSION, STAGE_LOCAL_VIEW);
+
+        // Get router rtp capabilities
+        mPipeline.addStage(STAGE_CAPABILITIES, () -> {
+	        JSONObject getRoomRtpCapabilitiesResponse = Request.sendGetRoomRtpCapabilitiesRequest(socket, roomId);
+	        mRoomRtpCapabilities = getRoomRtpCapabilitiesResponse.getJSONObject("roomRtpCapabilities");
+        }, STAGE_CONNECT);
+
+        // Measure the link to seed the encoder, after the capabilities so the probe does not delay them
+        mPipeline.addStage(STAGE_PROBE, () -> {
+	        LinkEstimate estimate = new LinkProbe(socket).run(PROBE_BUDGET_MS);
+	        mEncodingLadder = EncodingLadder.forLink(estimate);
+	        Log.d(TAG, estimate + " -> " + mEncodingLadder);
+        }, STAGE_CAPABILITIES);
+
+        // Initialize mediasoup device and open the room, more rooms can be opened on the same session
+        mPipeline.addStage(STAGE_DEVICE, () -> {
+	        // The session puts the codecs with a hardware encoder first when it loads the device
+	        mSession = new RoomSession(socket, mMediaCapturer, HardwareCodecs.query().rank());
+	        mClient = mSession.open(roomId, mRoomRtpCapabilities, this);
+        }, STAGE_INITIALIZE, STAGE_CAPABILITIES);
+
+        // Join the room
+        mPipeline.addStage(STAGE_JOIN, () -> {
 	        mClient.join();
+	        mTrace.mark(StartupTrace.JOINED);
+        }, STAGE_DEVICE);
 
-	        // Create recv WebRtcTransport
-	        mClient.createRecvTransport();
+        // Create recv WebRtcTransport
+        mPipeline.addStage(STAGE_RECV_TRANSPORT, () -> mClient.createRecvTransport(), STAGE_JOIN);
 
-	        // Create send WebRtcTransport
-	        mClient.createSendTransport();
+        // Create send WebRtcTransport
+        mPipeline.addStage(STAGE_SEND_TRANSPORT, () -> mClient.createSendTransport(), STAGE_JOIN);
 
-	        // Produce local media
-	        displayLocalVideo();
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to connect to socket server error=", e);
-        }
+        // Produce local media
+        mPipeline.addStage(STAGE_PRODUCE, this::displayLocalVideo, STAGE_SEND_TRANSPORT, STAGE_CAMERA, STAGE_PROBE);
+
+        mPipeline.start();
     }
 
+	/**
+	 * Move to another room on the running session, the socket, device and camera are kept.
+	 * The switch time is logged next to the last measured {@link #rejoinRoom(String)}.
+	 * @param roomId Room to switch to
+	 */
+	public void switchRoom(String roomId) {
+		RoomSession session = mSession;
+		if (session == null || mSwitchRoomId != null || mRejoinStartMs >= 0 || roomId.equals(mRoomId)) {
+			return;
+		}
+
+		// Taps until the switch ends are ignored
+		mSwitchRoomId = roomId;
+		final String fromRoomId = mRoomId;
+		final EchoSocket socket = mSocket;
+		new Thread(() -> {
+			long start = SystemClock.elapsedRealtime();
+
+			socket.unregister(mRoster);
+			mRoster.clear();
+			mRemoteConsumerId = null;
+			socket.register(roomId, mRoster);
+
+			RoomClient client;
+			try {
+				client = session.switchRoom(fromRoomId, roomId, this);
+			} catch (Exception e) {
+				Log.e(TAG, "Failed to switch to room " + roomId, e);
+				dumpTrace();
+
+				// The old room is already left, start over in it
+				reportRoomChange("Switch to " + roomId + " failed, rejoining " + fromRoomId);
+				runOnUiThread(() -> {
+					restartInRoom(fromRoomId);
+					mSwitchRoomId = null;
+				});
+				return;
+			}
+
+			mClient = client;
+			mRoomId = roomId;
+			mSwitchRoomId = null;
+			mLastSwitchMs = SystemClock.elapsedRealtime() - start;
+			reportRoomChange("Switched " + fromRoomId + " -> " + roomId + " in " + mLastSwitchMs + "ms");
+		}, "RoomSwitch").start();
+	}
+
+	/**
+	 * Move to another room the way it was done before room switching: leave, release the device,
+	 * camera and socket, then run every startup stage again for the new room. Timed until producing
+	 * in the new room, for comparison with {@link #switchRoom(String)}.
+	 * @param roomId Room to rejoin in
+	 */
+	public void rejoinRoom(String roomId) {
+		if (mSession == null || mSwitchRoomId != null || mRejoinStartMs >= 0 || roomId.equals(mRoomId)) {
+			return;
+		}
+
+		mRejoinStartMs = SystemClock.elapsedRealtime();
+		restartInRoom(roomId);
+	}
+
+	/**
+	 * Release the session, capture and socket, then run every startup stage again for the room.
+	 * Runs on the main thread, the session is cleared right away so no switch or rejoin starts on it.
+	 * @param roomId Room to start in
+	 */
+	private void restartInRoom(String roomId) {
+		if (mPipeline != null) {
+			mPipeline.cancel();
+		}
+
+		final RoomSession session = mSession;
+		final RoomClient client = mClient;
+		final MediaCapturer mediaCapturer = mMediaCapturer;
+		final EchoSocket socket = mSocket;
+		mSession = null;
+		mClient = null;
+		mMediaCapturer = null;
+		new Thread(() -> {
+			releaseRoom(session, client, mediaCapturer, socket);
+			mRoster.clear();
+			mRemoteConsumerId = null;
+			mRoomId = roomId;
+
+			runOnUiThread(() -> {
+				// The startup stages initialize the local view again
+				mVideoView.release();
+				mTrace = new StartupTrace();
+				connectWebSocket();
+			});
+		}, "RoomRejoin").start();
+	}
+
+	/**
+	 * Log and show how long moving to another room took
+	 * @param message Timing message
+	 */
+	private void reportRoomChange(String message) {
+		Log.d(TAG, message);
+		runOnUiThread(() -> Toast.makeText(getBaseContext(), message, Toast.LENGTH_LONG).show());
+	}
+
+	private String otherRoomId() {
+		return ROOM_ID.equals(mRoomId) ? OTHER_ROOM_ID : ROOM_ID;
+	}
+
 	/**
 	 * Initialize Mediasoup Client
 	 */
@@ -157,37 +505,100 @@ public class MainActivity extends AppCompatActivity implements MessageObserver.O
         MediasoupClient.initialize(getApplicationContext());
         Log.d(TAG, "Mediasoup client initialized");
 
-        // Set mediasoup log
-        Logger.setLogLevel(Logger.LogLevel.LOG_TRACE);
+        // Set mediasoup log, native trace logging is too costly outside debug builds
+        Logger.setLogLevel(BuildConfig.DEBUG ? Logger.LogLevel.LOG_DEBUG : Logger.LogLevel.LOG_WARN);
         Logger.setDefaultHandler();
     }
 
 	/**
-	 * Capture and start producing local video/audio
+	 * Write the recorded trace events to logcat
 	 */
-	private void displayLocalVideo () {
-        mPermissionFragment.setPermissionCallback(new PermissionFragment.PermissionCallback() {
-            @Override
-            public void onPermissionGranted() {
-                try {
-                    EglBase.Context context = EglBase.create().getEglBaseContext();
-                    runOnUiThread(() -> mVideoView.init(context, null));
-
-                    mClient.produceAudio();
-                    mClient.produceVideo(getBaseContext(), mVideoView, context);
-                    mVideoView.bringToFront();
-                } catch (Exception e) {
-                    Log.e(TAG, "Failed to initialize local stream e=" + e.getLocalizedMessage());
-                }
-            }
-
-            @Override
-            public void onPermissionDenied() {
-                Log.w(TAG, "User denied camera/mic permission");
-            }
-        });
+	public void dumpTrace() {
+		TraceRecorder recorder = Trace.getRecorder();
+		if (recorder == null) {
+			return;
+		}
+
+		StringBuilder dump = new StringBuilder();
+		recorder.dump(dump);
+		Log.w(TAG, "Trace (" + recorder.getRecordedCount() + " events recorded)\n" + dump);
+	}
+
+	/**
+	 * Ask for camera/mic permission, the stage completes on either answer
+	 * @param completion Stage completion
+	 */
+	private void requestPermission(StartupPipeline.Completion completion) {
+		runOnUiThread(() -> {
+			mPermissionFragment.setPermissionCallback(new PermissionFragment.PermissionCallback() {
+				@Override
+				public void onPermissionGranted() {
+					mPermissionGranted = true;
+					completion.complete();
+				}
+
+				@Override
+				public void onPermissionDenied() {
+					Log.w(TAG, "User denied camera/mic permission");
+					completion.complete();
+				}
+			});
+
+			mPermissionFragment.checkCameraMicPermission();
+		});
+	}
+
+	/**
+	 * Start capturing into the local preview ahead of the send transport
+	 * @throws Exception Failed to open the camera
+	 */
+	private void prepareLocalVideo()
+	throws Exception {
+		if (!mPermissionGranted) {
+			return;
+		}
+
+		mMediaCapturer.setListener(() -> mTrace.mark(StartupTrace.FIRST_CAMERA_FRAME));
+		mMediaCapturer.prepareVideo(getBaseContext(), mVideoView, mEglBaseContext);
+	}
 
-        mPermissionFragment.checkCameraMicPermission();
+	/**
+	 * Record how much of the camera warm-up was hidden behind signaling
+	 */
+	private void traceCameraOverlap() {
+		long cameraStart = mTrace.getStageStart(STAGE_CAMERA);
+		long cameraReady = mTrace.getMilestone(StartupTrace.FIRST_CAMERA_FRAME);
+		long signalingStart = mTrace.getStageStart(STAGE_CONNECT);
+		long signalingEnd = mTrace.getStageEnd(STAGE_SEND_TRANSPORT);
+
+		// Camera still warming up, it overlaps until the end of signaling
+		if (cameraReady < 0) {
+			cameraReady = Long.MAX_VALUE;
+		}
+
+		mTrace.addMetric("camera-signaling-overlap", StartupTrace.overlap(cameraStart, cameraReady, signalingStart, signalingEnd));
+	}
+
+	/**
+	 * Start producing local audio and the video prepared by the camera stage
+	 */
+	private void displayLocalVideo()
+	throws Exception {
+		if (!mPermissionGranted) {
+			Log.w(TAG, "Camera/mic permission not granted, not producing");
+			return;
+		}
+
+		traceCameraOverlap();
+
+		// Nothing has been encoded yet, fit the capture and encoder to the measured link
+		EncodingLadder encodingLadder = mEncodingLadder;
+		mMediaCapturer.changeCaptureFormat(encodingLadder.getCaptureWidth(), encodingLadder.getCaptureHeight(), encodingLadder.getCaptureFps());
+		mClient.setEncodingLadder(encodingLadder);
+
+		mClient.produceAudio();
+		mClient.produceVideo();
+		runOnUiThread(() -> mVideoView.bringToFront());
     }
 
 	/**
@@ -206,63 +617,65 @@ public class MainActivity extends AppCompatActivity implements MessageObserver.O
     }
 
 	@Override
-	public void on(@ActionEvent.Event String event, JSONObject data) {
-		Log.d(TAG, "Received event " + event);
-
-		try {
-			switch(event) {
-				case ActionEvent.NEW_USER:
-					// data.userId
-					Log.d(TAG, "NEW_USER id=" + data.getString("userId"));
-					break;
-				case ActionEvent.NEW_CONSUMER:
-					// data.consumerData.consumerUserId - consumer user id
-					// data.consumerData.producerUserId - producer user id
-					// data.consumerData.producerId - producer id
-					// data.consumerData.id // consumer id
-					// data.consumerData.kind // consumer kind
-					// data.consumerData.rtpParameters // consumer rtpParameters
-					// data.consumerData.type // consumer type
-					// data.consumerData.producerPaused // producer paused status
-					Log.d(TAG, "NEW_CONSUMER data=" + data);
-					handleNewConsumerEvent(data.getJSONObject("consumerData"));
-					break;
-			}
-		} catch (JSONException je) {
-			Log.e(TAG, "Failed to handle event", je);
+	public void onNewConsumer(MediaConsumer consumer) {
+		// Consumers of the room being switched to arrive before the switch returns and sets mClient
+		RoomSession session = mSession;
+		String switchRoomId = mSwitchRoomId;
+		RoomClient client = session != null ? session.getClient(switchRoomId != null ? switchRoomId : mRoomId) : null;
+		if (client == null) {
+			return;
+		}
+
+		// If the remote consumer is video attach to the remote video renderer
+		if (consumer != null && consumer.getKind().equals("video")) {
+			mRemoteConsumerId = consumer.getId();
+			VideoTrack videoTrack = (VideoTrack) MediasoupMedia.unwrap(consumer.getTrack());
+			videoTrack.setEnabled(true);
+			// Decimated before the metrics, so they show what the renderer got
+			FrameTimingSink timingSink = new FrameTimingSink(mRemoteVideoView, client.getRenderMetrics(consumer.getId()));
+			videoTrack.addSink(new DecimatingVideoSink(timingSink,
+					getResources().getInteger(R.integer.remote_video_target_fps),
+					getResources().getInteger(R.integer.remote_video_max_size)));
 		}
+
+		// Resume the remote consumer
+		if (consumer.getKind().equals("video"))
+			client.resumeRemoteVideo();
+		else if (consumer.getKind().equals("audio"))
+			client.resumeRemoteAudio();
+	}
+
+	@Override
+	public void onTransportRecovered(String direction, long recoveryMs) {
+		Log.d(TAG, direction + " transport recovered after ICE restart in " + recoveryMs + "ms");
+	}
+
+	@Override
+	public void onAudioProfileChanged(AudioProfile profile) {
+		Log.d(TAG, "Audio link advises " + profile);
 	}
 
 	/**
-	 * Handle remote newconsumer event
-	 * @param consumerInfo ConsumerInfo
+	 * Marks a startup milestone when the renderer draws its first frame
 	 */
-	private void handleNewConsumerEvent(JSONObject consumerInfo) {
-    	try {
-    		Log.d(TAG, "handleNewConsumerEvent info =" + consumerInfo);
-		    mClient.consumeTrack(consumerInfo);
-	    } catch (Exception e) {
-    		Log.e(TAG, "Failed to consume remote track", e);
-	    }
-    }
+	private class FirstFrameEvents implements RendererCommon.RendererEvents {
+		private final String mMilestone;
 
-	@Override
-	public void onNewConsumer(Consumer consumer) {
-		// If the remote consumer is video attach to the remote video renderer
-		if (consumer != null && consumer.getKind().equals("video")) {
-			VideoTrack videoTrack = (VideoTrack) consumer.getTrack();
-			videoTrack.setEnabled(true);
-			videoTrack.addSink(mRemoteVideoView);
+		FirstFrameEvents(String milestone) {
+			mMilestone = milestone;
+		}
+
+		@Override
+		public void onFirstFrameRendered() {
+			mTrace.mark(mMilestone);
+
+			if (StartupTrace.FIRST_REMOTE_FRAME.equals(mMilestone)) {
+				Log.d(TAG, mTrace.report());
+			}
 		}
 
-		try {
-			// Resume the remote consumer
-			if (consumer.getKind().equals("video"))
-				mClient.resumeRemoteVideo();
-			else if (consumer.getKind().equals("audio"))
-				mClient.resumeRemoteAudio();
-		} catch (JSONException je) {
-			Log.e(TAG, "Failed to send resume consumer request", je);
+		@Override
+		public void onFrameResolutionChanged(int videoWidth, int videoHeight, int rotation) {
 		}
 	}
 }
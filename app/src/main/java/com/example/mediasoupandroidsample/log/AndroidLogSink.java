@@ -0,0 +1,20 @@
+package com.example.mediasoupandroidsample.log;
+
+/**
+ * Forwards signaling log messages to logcat
+ */
+public class AndroidLogSink implements Log.Sink {
+	@Override
+	public void log(int priority, String tag, String message, Throwable t) {
+		switch (priority) {
+			case Log.ERROR:
+				android.util.Log.e(tag, message, t);
+				break;
+			case Log.WARN:
+				android.util.Log.w(tag, message, t);
+				break;
+			default:
+				android.util.Log.d(tag, message, t);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.example.mediasoupandroidsample.media;
+
+import org.webrtc.VideoFrame;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Box blur of the luma plane, chroma is copied as is. Blurring only the background needs a
+ * segmentation mask, this stage blurs the whole picture, e.g. to hide the room behind the user.
+ * Each pass keeps a running sum, so the cost does not grow with the radius.
+ */
+public class BlurStage extends I420Stage {
+	private static final String NAME = "blur";
+
+	private volatile int mRadius;
+	// Horizontal pass output, only touched on the capture thread
+	private byte[] mScratch = new byte[0];
+
+	/**
+	 * @param radius Blur radius in pixels, 0 to pass frames through
+	 */
+	public void setRadius(int radius) {
+		mRadius = Math.max(0, radius);
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public boolean isActive() {
+		return mRadius > 0;
+	}
+
+	@Override
+	protected void process(VideoFrame.I420Buffer input, VideoFrame.I420Buffer output) {
+		int width = input.getWidth();
+		int height = input.getHeight();
+		int radius = mRadius;
+		if (mScratch.length < width * height) {
+			mScratch = new byte[width * height];
+		}
+
+		blurRows(input.getDataY(), input.getStrideY(), mScratch, width, height, radius);
+		blurColumns(mScratch, output.getDataY(), output.getStrideY(), width, height, radius);
+
+		int chromaWidth = I420BufferPool.chromaWidth(width);
+		int chromaHeight = I420BufferPool.chromaHeight(height);
+		copyPlane(input.getDataU(), input.getStrideU(), output.getDataU(), output.getStrideU(), chromaWidth, chromaHeight);
+		copyPlane(input.getDataV(), input.getStrideV(), output.getDataV(), output.getStrideV(), chromaWidth, chromaHeight);
+	}
+
+	private static void blurRows(ByteBuffer src, int srcStride, byte[] dst, int width, int height, int radius) {
+		int window = 2 * radius + 1;
+		for (int y = 0; y < height; y++) {
+			int row = y * srcStride;
+
+			// Edge pixels repeat outside the frame
+			int sum = 0;
+			for (int i = -radius; i <= radius; i++) {
+				sum += src.get(row + clamp(i, width)) & 0xff;
+			}
+
+			for (int x = 0; x < width; x++) {
+				dst[y * width + x] = (byte) (sum / window);
+				sum += (src.get(row + clamp(x + radius + 1, width)) & 0xff) - (src.get(row + clamp(x - radius, width)) & 0xff);
+			}
+		}
+	}
+
+	private static void blurColumns(byte[] src, ByteBuffer dst, int dstStride, int width, int height, int radius) {
+		int window = 2 * radius + 1;
+		for (int x = 0; x < width; x++) {
+			int sum = 0;
+			for (int i = -radius; i <= radius; i++) {
+				sum += src[clamp(i, height) * width + x] & 0xff;
+			}
+
+			for (int y = 0; y < height; y++) {
+				dst.put(y * dstStride + x, (byte) (sum / window));
+				sum += (src[clamp(y + radius + 1, height) * width + x] & 0xff) - (src[clamp(y - radius, height) * width + x] & 0xff);
+			}
+		}
+	}
+
+	private static int clamp(int index, int size) {
+		return index < 0 ? 0 : index >= size ? size - 1 : index;
+	}
+}
@@ -0,0 +1,66 @@
+package com.example.mediasoupandroidsample.media;
+
+import org.webrtc.VideoFrame;
+
+/**
+ * Center-crops frames to an aspect ratio and scales them to a size. On a texture frame, the camera's
+ * usual output, this only changes the texture transform so the encoder samples the cropped region
+ * and no pixels are touched.
+ */
+public class CropScaleStage implements FrameStage {
+	private static final String NAME = "cropScale";
+
+	private volatile int mWidth;
+	private volatile int mHeight;
+
+	/**
+	 * @param width Output width in buffer coordinates, before rotation, 0 to pass frames through
+	 * @param height Output height in buffer coordinates, before rotation, 0 to pass frames through
+	 */
+	public synchronized void setOutput(int width, int height) {
+		mWidth = width;
+		mHeight = height;
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public boolean isActive() {
+		return mWidth > 0 && mHeight > 0;
+	}
+
+	@Override
+	public VideoFrame process(VideoFrame frame, I420BufferPool pool) {
+		int outWidth;
+		int outHeight;
+		synchronized (this) {
+			outWidth = mWidth;
+			outHeight = mHeight;
+		}
+
+		VideoFrame.Buffer buffer = frame.getBuffer();
+		int width = buffer.getWidth();
+		int height = buffer.getHeight();
+		if (width == outWidth && height == outHeight) {
+			return frame;
+		}
+
+		// Largest centered region with the output's aspect ratio
+		int cropWidth = width;
+		int cropHeight = height;
+		if ((long) width * outHeight > (long) height * outWidth) {
+			cropWidth = (int) ((long) height * outWidth / outHeight);
+		} else {
+			cropHeight = (int) ((long) width * outHeight / outWidth);
+		}
+		// Even offsets keep the chroma planes aligned
+		int cropX = ((width - cropWidth) / 2) & ~1;
+		int cropY = ((height - cropHeight) / 2) & ~1;
+
+		VideoFrame.Buffer cropped = buffer.cropAndScale(cropX, cropY, cropWidth, cropHeight, outWidth, outHeight);
+		return new VideoFrame(cropped, frame.getRotation(), frame.getTimestampNs());
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.mediasoupandroidsample.media;
+
+import org.webrtc.VideoFrame;
+import org.webrtc.VideoSink;
+
+/**
+ * Sits between a remote video track and a small renderer, e.g. a grid tile. Forwards frames at a
+ * target rate and drops the rest before the renderer uploads or draws them. Texture frames larger
+ * than the tile are scaled down on the way, which only changes the texture transform, so the
+ * renderer samples a smaller image and the GPU does no extra pass.
+ *
+ * A tile promoted to the spotlight switches to full rate with {@link #setTarget(int, int)}.
+ */
+public class DecimatingVideoSink implements VideoSink {
+	private final VideoSink mTarget;
+	private final FrameDecimator mDecimator;
+
+	/**
+	 * @param target Renderer
+	 * @param targetFps Frames per second forwarded, {@link FrameDecimator#UNLIMITED} for every frame
+	 * @param maxSize Longest side of forwarded texture frames in pixels, {@link FrameDecimator#UNLIMITED} to keep the size
+	 */
+	public DecimatingVideoSink(VideoSink target, int targetFps, int maxSize) {
+		mTarget = target;
+		mDecimator = new FrameDecimator(targetFps, maxSize);
+	}
+
+	/**
+	 * Change the rate and size, e.g. when the tile moves in or out of the spotlight
+	 * @param targetFps Frames per second forwarded, {@link FrameDecimator#UNLIMITED} for every frame
+	 * @param maxSize Longest side of forwarded texture frames in pixels, {@link FrameDecimator#UNLIMITED} to keep the size
+	 */
+	public void setTarget(int targetFps, int maxSize) {
+		mDecimator.setTarget(targetFps, maxSize);
+	}
+
+	public FrameDecimator getDecimator() {
+		return mDecimator;
+	}
+
+	@Override
+	public void onFrame(VideoFrame frame) {
+		if (!mDecimator.onFrame(frame.getTimestampNs())) {
+			return;
+		}
+
+		VideoFrame scaled = scale(frame);
+		if (scaled == frame) {
+			mTarget.onFrame(frame);
+			return;
+		}
+
+		try {
+			mTarget.onFrame(scaled);
+		} finally {
+			scaled.release();
+		}
+	}
+
+	/**
+	 * @return Frame scaled to fit the maximum size or the frame itself
+	 */
+	private VideoFrame scale(VideoFrame frame) {
+		VideoFrame.Buffer buffer = frame.getBuffer();
+		int width = buffer.getWidth();
+		int height = buffer.getHeight();
+		// Scaling an I420 buffer would be a CPU pass per frame, the renderer scales those anyway
+		if (!(buffer instanceof VideoFrame.TextureBuffer) || !mDecimator.needsScaling(width, height)) {
+			return frame;
+		}
+
+		VideoFrame.Buffer scaledBuffer = buffer.cropAndScale(0, 0, width, height,
+				mDecimator.getScaledWidth(width, height), mDecimator.getScaledHeight(width, height));
+
+		return new VideoFrame(scaledBuffer, frame.getRotation(), frame.getTimestampNs());
+	}
+}
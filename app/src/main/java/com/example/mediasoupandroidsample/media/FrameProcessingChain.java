@@ -0,0 +1,155 @@
+package com.example.mediasoupandroidsample.media;
+
+import android.util.Log;
+
+import org.webrtc.CapturerObserver;
+import org.webrtc.VideoFrame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Processing stages between the camera capturer and the video source, e.g. crop, scale and blur
+ * before frames reach the preview and the encoder.
+ *
+ * Stages run in order on the capture thread. Texture frames stay textures through stages that only
+ * crop or scale, CPU stages share a bounded pool of I420 buffers. Each stage's processing time is
+ * recorded in its {@link StageMetrics}. With no active stage the capturer's frame is forwarded as is,
+ * an inactive stage costs one check per frame.
+ */
+public class FrameProcessingChain implements CapturerObserver {
+	private static final String TAG = "FrameProcessingChain";
+
+	// Frames the encoder and the preview may hold at once plus one being processed
+	private static final int DEFAULT_POOL_SIZE = 4;
+
+	private final CapturerObserver mTarget;
+	private final I420BufferPool mPool;
+
+	// Replaced on change, read without locking on every frame
+	private volatile Stage[] mStages = new Stage[0];
+
+	/**
+	 * @param target Video source's capturer observer
+	 */
+	public FrameProcessingChain(CapturerObserver target) {
+		this(target, DEFAULT_POOL_SIZE);
+	}
+
+	/**
+	 * @param target Video source's capturer observer
+	 * @param poolSize Most pooled I420 frames out at a time
+	 */
+	public FrameProcessingChain(CapturerObserver target, int poolSize) {
+		mTarget = target;
+		mPool = new I420BufferPool(poolSize);
+	}
+
+	/**
+	 * Append a stage, frames go through the stages in the order they were added
+	 * @param stage Stage
+	 */
+	public synchronized void addStage(FrameStage stage) {
+		Stage[] stages = Arrays.copyOf(mStages, mStages.length + 1);
+		stages[stages.length - 1] = new Stage(stage);
+		mStages = stages;
+		Log.d(TAG, "addStage() " + stage.getName() + " stages=" + stages.length);
+	}
+
+	/**
+	 * @param stage Stage to remove
+	 */
+	public synchronized void removeStage(FrameStage stage) {
+		List<Stage> stages = new ArrayList<>(Arrays.asList(mStages));
+		for (int i = 0; i < stages.size(); i++) {
+			if (stages.get(i).mStage == stage) {
+				stages.remove(i);
+				break;
+			}
+		}
+		mStages = stages.toArray(new Stage[0]);
+	}
+
+	/**
+	 * @return Metrics of every stage, in chain order
+	 */
+	public List<StageMetrics> getMetrics() {
+		List<StageMetrics> metrics = new ArrayList<>();
+		for (Stage stage : mStages) {
+			metrics.add(stage.mMetrics);
+		}
+
+		return metrics;
+	}
+
+	public I420BufferPool getPool() {
+		return mPool;
+	}
+
+	@Override
+	public void onCapturerStarted(boolean success) {
+		mTarget.onCapturerStarted(success);
+	}
+
+	@Override
+	public void onCapturerStopped() {
+		mTarget.onCapturerStopped();
+		mPool.clear();
+	}
+
+	@Override
+	public void onFrameCaptured(VideoFrame frame) {
+		VideoFrame current = frame;
+		for (Stage stage : mStages) {
+			if (!stage.mStage.isActive()) {
+				continue;
+			}
+
+			long start = System.nanoTime();
+			VideoFrame output;
+			try {
+				output = stage.mStage.process(current, mPool);
+			} catch (RuntimeException re) {
+				Log.e(TAG, "Stage " + stage.mStage.getName() + " failed, dropping frame", re);
+				output = null;
+			}
+			stage.mMetrics.onProcessed(System.nanoTime() - start);
+
+			if (output != current && current != frame) {
+				current.release();
+			}
+
+			if (output == null) {
+				stage.mMetrics.onDropped();
+				return;
+			}
+			current = output;
+		}
+
+		mTarget.onFrameCaptured(current);
+		if (current != frame) {
+			current.release();
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("FrameProcessingChain{").append(mPool);
+		for (Stage stage : mStages) {
+			builder.append(' ').append(stage.mMetrics);
+		}
+
+		return builder.append('}').toString();
+	}
+
+	private static class Stage {
+		private final FrameStage mStage;
+		private final StageMetrics mMetrics;
+
+		Stage(FrameStage stage) {
+			mStage = stage;
+			mMetrics = new StageMetrics(stage.getName());
+		}
+	}
+}
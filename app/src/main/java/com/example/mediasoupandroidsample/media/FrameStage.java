@@ -0,0 +1,26 @@
+package com.example.mediasoupandroidsample.media;
+
+import org.webrtc.VideoFrame;
+
+/**
+ * One step of the {@link FrameProcessingChain}, runs on the camera's capture thread
+ */
+public interface FrameStage {
+	/**
+	 * @return Name in the stage's metrics
+	 */
+	String getName();
+
+	/**
+	 * Checked per frame, an inactive stage is skipped without any work
+	 * @return true if the stage changes frames
+	 */
+	boolean isActive();
+
+	/**
+	 * @param frame Input frame, owned by the chain
+	 * @param pool Pool for the output of a CPU stage
+	 * @return Output frame released by the chain, the input itself if unchanged, null to drop the frame
+	 */
+	VideoFrame process(VideoFrame frame, I420BufferPool pool);
+}
@@ -0,0 +1,31 @@
+package com.example.mediasoupandroidsample.media;
+
+import org.webrtc.VideoFrame;
+import org.webrtc.VideoSink;
+
+/**
+ * Records every frame handed to a renderer into its {@link RenderMetrics}
+ */
+public class FrameTimingSink implements VideoSink {
+	private final VideoSink mTarget;
+	private final RenderMetrics mMetrics;
+
+	/**
+	 * @param target Renderer
+	 * @param metrics Metrics of the rendered track
+	 */
+	public FrameTimingSink(VideoSink target, RenderMetrics metrics) {
+		mTarget = target;
+		mMetrics = metrics;
+	}
+
+	public RenderMetrics getMetrics() {
+		return mMetrics;
+	}
+
+	@Override
+	public void onFrame(VideoFrame frame) {
+		mMetrics.onFrame(System.nanoTime(), frame.getRotatedWidth(), frame.getRotatedHeight());
+		mTarget.onFrame(frame);
+	}
+}
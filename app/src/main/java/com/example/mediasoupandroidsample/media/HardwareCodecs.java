@@ -0,0 +1,97 @@
+package com.example.mediasoupandroidsample.media;
+
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+import android.util.Log;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hardware video encoders and decoders available on the device, by WebRTC mime type
+ */
+public class HardwareCodecs {
+	private static final String TAG = "HardwareCodecs";
+
+	// Software implementations shipped with the platform
+	private static final String[] SOFTWARE_PREFIXES = { "OMX.google.", "c2.android.", "OMX.SEC.vp8.dec" };
+
+	private final Set<String> mEncoders;
+	private final Set<String> mDecoders;
+
+	private HardwareCodecs(Set<String> encoders, Set<String> decoders) {
+		mEncoders = encoders;
+		mDecoders = decoders;
+	}
+
+	/**
+	 * Query the platform codec list, takes a few milliseconds so keep it off the main thread
+	 * @return Hardware codecs
+	 */
+	public static HardwareCodecs query() {
+		Set<String> encoders = new HashSet<>();
+		Set<String> decoders = new HashSet<>();
+
+		for (int i = 0; i < MediaCodecList.getCodecCount(); i++) {
+			MediaCodecInfo info = MediaCodecList.getCodecInfoAt(i);
+			if (!isHardware(info)) {
+				continue;
+			}
+
+			for (String type : info.getSupportedTypes()) {
+				String mimeType = toWebRtcMimeType(type);
+				if (mimeType != null) {
+					(info.isEncoder() ? encoders : decoders).add(mimeType);
+				}
+			}
+		}
+
+		Log.d(TAG, "query() encoders=" + encoders + " decoders=" + decoders);
+		return new HardwareCodecs(encoders, decoders);
+	}
+
+	/**
+	 * @return Video mime types, most preferred first
+	 */
+	public List<String> rank() {
+		return CodecPreference.rank(mEncoders, mDecoders);
+	}
+
+	/**
+	 * @param mimeType WebRTC mime type, e.g. video/VP8
+	 * @return true if the device has a hardware encoder for it
+	 */
+	public boolean hasEncoder(String mimeType) {
+		return mEncoders.contains(mimeType);
+	}
+
+	private static boolean isHardware(MediaCodecInfo info) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+			return info.isHardwareAccelerated();
+		}
+
+		String name = info.getName();
+		for (String prefix : SOFTWARE_PREFIXES) {
+			if (name.startsWith(prefix)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static String toWebRtcMimeType(String type) {
+		switch (type) {
+			case "video/x-vnd.on2.vp8":
+				return CodecPreference.VP8;
+			case "video/x-vnd.on2.vp9":
+				return CodecPreference.VP9;
+			case "video/avc":
+				return CodecPreference.H264;
+			default:
+				return null;
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.mediasoupandroidsample.media;
+
+import org.webrtc.JavaI420Buffer;
+import org.webrtc.VideoFrame;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base of the stages that work on pixels on the CPU. The input is read as I420, a texture frame is read back
+ * once by the first such stage and later ones get the I420 output of the previous stage without a copy.
+ * The output is written into a buffer from the chain's pool, the frame is dropped if none is free.
+ */
+public abstract class I420Stage implements FrameStage {
+	@Override
+	public VideoFrame process(VideoFrame frame, I420BufferPool pool) {
+		VideoFrame.Buffer buffer = frame.getBuffer();
+		int width = buffer.getWidth();
+		int height = buffer.getHeight();
+
+		// The encoder is behind, dropping beats sending the frame unprocessed
+		ByteBuffer data = pool.acquire(width, height);
+		if (data == null) {
+			return null;
+		}
+
+		JavaI420Buffer output = wrap(data, width, height, pool);
+		VideoFrame.I420Buffer input = buffer.toI420();
+		try {
+			process(input, output);
+		} catch (RuntimeException re) {
+			output.release();
+			throw re;
+		} finally {
+			input.release();
+		}
+
+		return new VideoFrame(output, frame.getRotation(), frame.getTimestampNs());
+	}
+
+	/**
+	 * Write the processed frame
+	 * @param input Input planes, read only
+	 * @param output Output planes of the same size, tightly packed
+	 */
+	protected abstract void process(VideoFrame.I420Buffer input, VideoFrame.I420Buffer output);
+
+	/**
+	 * Copy a plane between strides
+	 */
+	protected static void copyPlane(ByteBuffer src, int srcStride, ByteBuffer dst, int dstStride, int width, int height) {
+		if (srcStride == dstStride) {
+			ByteBuffer source = src.duplicate();
+			source.position(0);
+			source.limit(Math.min(source.capacity(), srcStride * height));
+			ByteBuffer destination = dst.duplicate();
+			destination.position(0);
+			destination.put(source);
+			return;
+		}
+
+		// Absolute access, nothing is allocated per row
+		for (int y = 0; y < height; y++) {
+			int srcOffset = y * srcStride;
+			int dstOffset = y * dstStride;
+			for (int x = 0; x < width; x++) {
+				dst.put(dstOffset + x, src.get(srcOffset + x));
+			}
+		}
+	}
+
+	/**
+	 * Lay the three planes over the pooled buffer, it goes back to the pool when the last frame using it is released
+	 */
+	private static JavaI420Buffer wrap(ByteBuffer data, int width, int height, I420BufferPool pool) {
+		int chromaWidth = I420BufferPool.chromaWidth(width);
+		int lumaSize = width * height;
+		int chromaSize = chromaWidth * I420BufferPool.chromaHeight(height);
+
+		ByteBuffer dataY = slice(data, 0, lumaSize);
+		ByteBuffer dataU = slice(data, lumaSize, chromaSize);
+		ByteBuffer dataV = slice(data, lumaSize + chromaSize, chromaSize);
+
+		return JavaI420Buffer.wrap(width, height, dataY, width, dataU, chromaWidth, dataV, chromaWidth, () -> pool.release(data));
+	}
+
+	private static ByteBuffer slice(ByteBuffer data, int offset, int size) {
+		ByteBuffer view = data.duplicate();
+		view.position(offset);
+		view.limit(offset + size);
+		return view.slice();
+	}
+}
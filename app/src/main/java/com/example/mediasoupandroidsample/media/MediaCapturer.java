@@ -3,6 +3,8 @@ package com.example.mediasoupandroidsample.media;
 import android.content.Context;
 import android.util.Log;
 
+import com.example.mediasoupandroidsample.trace.Trace;
+
 import org.webrtc.AudioSource;
 import org.webrtc.AudioTrack;
 import org.webrtc.Camera1Enumerator;
@@ -19,6 +21,9 @@ import org.webrtc.VideoSource;
 import org.webrtc.VideoTrack;
 import org.webrtc.voiceengine.WebRtcAudioUtils;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Class to handle local media capturing
  */
@@ -29,15 +34,66 @@ public class MediaCapturer {
 	private static final String VIDEO_TRACK_ID = "ARDAMSv0";
 	private static final String AUDIO_TRACK_ID = "ARDAMSa0";
 
+	// Trace events
+	private static final String TRACE_CAMERA_SWITCH = "cameraSwitch";
+
 	private CameraVideoCapturer mCameraVideoCapturer;
 	private final PeerConnectionFactory mPeerConnectionFactory;
 	private final MediaStream mMediaStream;
+	private final RenderMetrics mPreviewMetrics = new RenderMetrics("preview");
+
+	private SurfaceTextureHelper mSurfaceTextureHelper;
+	private VideoSource mVideoSource;
+	private volatile FrameProcessingChain mProcessingChain;
+	private AudioSource mAudioSource;
+	private volatile VideoTrack mVideoTrack;
+	private AudioTrack mAudioTrack;
+	private volatile Listener mListener;
+	private volatile SurfaceViewRenderer mLocalVideoView;
+	private volatile boolean mFrontFacing;
+	private int mCameraCount;
+
+	// Set from switchCamera() until the new camera delivers its first frame
+	private final AtomicBoolean mSwitching = new AtomicBoolean(false);
+	private volatile long mSwitchStartNs;
+	private volatile SwitchListener mSwitchListener;
 
 	public MediaCapturer() {
 		mPeerConnectionFactory = PeerConnectionFactory.builder().createPeerConnectionFactory();
 		mMediaStream = mPeerConnectionFactory.createLocalMediaStream(MEDIA_STREAM_ID);
 	}
 
+	public void setListener(Listener listener) {
+		mListener = listener;
+	}
+
+	/**
+	 * Open the camera and start capturing into the local preview before the send transport exists,
+	 * the running track is later handed to the producer by {@link #getVideoTrack()}
+	 * @param context Context
+	 * @param localVideoView Local Video View
+	 * @param eglBaseContext EGL Context
+	 * @return VideoTrack
+	 * @throws Exception Failed to get camera device
+	 */
+	public VideoTrack prepareVideo(Context context, SurfaceViewRenderer localVideoView, EglBase.Context eglBaseContext)
+	throws Exception {
+		if (mVideoTrack != null) {
+			Log.w(TAG, "prepareVideo() video already prepared");
+			return mVideoTrack;
+		}
+
+		initCamera(context);
+		return createVideoTrack(context, localVideoView, eglBaseContext);
+	}
+
+	/**
+	 * @return Prepared local video track or null if video has not been prepared
+	 */
+	public VideoTrack getVideoTrack() {
+		return mVideoTrack;
+	}
+
 	/**
 	 * Initialize local camera
 	 * @param context Context
@@ -56,11 +112,13 @@ public class MediaCapturer {
 		}
 
 		final String[] deviceNames = cameraEnumerator.getDeviceNames();
+		mCameraCount = deviceNames.length;
 
 		for(String deviceName : deviceNames) {
 			// Get the front camera for now
 			if(cameraEnumerator.isFrontFacing(deviceName)) {
 				mCameraVideoCapturer = cameraEnumerator.createCapturer(deviceName, new MediaCapturerEventHandler());
+				mFrontFacing = true;
 
 				Log.d(TAG, "created camera video capturer deviceName=" + deviceName);
 			}
@@ -83,41 +141,168 @@ public class MediaCapturer {
 			throw new IllegalStateException("Camera must be initialized");
 		}
 
-		SurfaceTextureHelper surfaceTextureHelper = SurfaceTextureHelper.create("CaptureThread", eglBaseContext);
-		VideoSource videoSource = mPeerConnectionFactory.createVideoSource(false);
+		mSurfaceTextureHelper = SurfaceTextureHelper.create("CaptureThread", eglBaseContext);
+		mVideoSource = mPeerConnectionFactory.createVideoSource(false);
 
-		mCameraVideoCapturer.initialize(surfaceTextureHelper, context, videoSource.getCapturerObserver());
+		// Frames pass the processing chain on their way to the source, it forwards them as is until a stage is active
+		mProcessingChain = new FrameProcessingChain(mVideoSource.getCapturerObserver());
+		mCameraVideoCapturer.initialize(mSurfaceTextureHelper, context, mProcessingChain);
 
 		// Capture 640x480 @ 30fps
 		mCameraVideoCapturer.startCapture(640, 480, 30);
 
-		VideoTrack videoTrack = mPeerConnectionFactory.createVideoTrack(VIDEO_TRACK_ID, videoSource);
+		VideoTrack videoTrack = mPeerConnectionFactory.createVideoTrack(VIDEO_TRACK_ID, mVideoSource);
 		videoTrack.setEnabled(true);
-		localVideoView.setMirror(true);
+		localVideoView.setMirror(mFrontFacing);
 		localVideoView.setEnableHardwareScaler(true);
 		mMediaStream.addTrack(videoTrack);
 
-		videoTrack.addSink(localVideoView);
+		videoTrack.addSink(new FrameTimingSink(localVideoView, mPreviewMetrics));
+		mLocalVideoView = localVideoView;
+		mVideoTrack = videoTrack;
 
 		return videoTrack;
 	}
 
 	/**
-	 * Create local audio track
+	 * Change the running capture resolution and framerate, e.g. to fit the measured uplink
+	 * @param width Capture width
+	 * @param height Capture height
+	 * @param fps Capture framerate
+	 */
+	public void changeCaptureFormat(int width, int height, int fps) {
+		if (mCameraVideoCapturer == null) {
+			throw new IllegalStateException("Camera must be initialized");
+		}
+
+		mCameraVideoCapturer.changeCaptureFormat(width, height, fps);
+		Log.d(TAG, "changeCaptureFormat() " + width + "x" + height + "@" + fps);
+	}
+
+	/**
+	 * Switch to the next camera under the running video source. The track, producer and capture format
+	 * are kept so nothing is signaled, only the local preview mirroring follows the camera's facing.
+	 * @param listener Told once the new camera delivered its first frame or the switch failed
+	 * @return false if there is no other camera or a switch is already in progress
+	 */
+	public boolean switchCamera(SwitchListener listener) {
+		if (mCameraVideoCapturer == null) {
+			throw new IllegalStateException("Camera must be initialized");
+		}
+
+		if (mCameraCount < 2 || !mSwitching.compareAndSet(false, true)) {
+			return false;
+		}
+
+		mSwitchListener = listener;
+		mSwitchStartNs = System.nanoTime();
+		mCameraVideoCapturer.switchCamera(new CameraVideoCapturer.CameraSwitchHandler() {
+			@Override
+			public void onCameraSwitchDone(boolean isFrontCamera) {
+				mFrontFacing = isFrontCamera;
+
+				SurfaceViewRenderer localVideoView = mLocalVideoView;
+				if (localVideoView != null) {
+					localVideoView.setMirror(isFrontCamera);
+				}
+			}
+
+			@Override
+			public void onCameraSwitchError(String s) {
+				Log.e(TAG, "onCameraSwitchError s=" + s);
+				mSwitching.set(false);
+				listener.onCameraSwitchFailed(s);
+			}
+		});
+
+		return true;
+	}
+
+	/**
+	 * @return Stages between the camera and the video source, e.g. to add a crop or blur, null before the video is prepared
+	 */
+	public FrameProcessingChain getProcessingChain() {
+		return mProcessingChain;
+	}
+
+	/**
+	 * @return Render metrics of the local preview
+	 */
+	public RenderMetrics getPreviewMetrics() {
+		return mPreviewMetrics;
+	}
+
+	/**
+	 * @return true if the front camera is capturing
+	 */
+	public boolean isFrontFacing() {
+		return mFrontFacing;
+	}
+
+	/**
+	 * Create local audio track, rooms sharing the capturer share the one microphone track
 	 * @return AudioTrack
 	 */
-	public AudioTrack createAudioTrack() {
-		AudioSource audioSource = mPeerConnectionFactory.createAudioSource(new MediaConstraints());
+	public synchronized AudioTrack createAudioTrack() {
+		if (mAudioTrack != null) {
+			return mAudioTrack;
+		}
+
+		mAudioSource = mPeerConnectionFactory.createAudioSource(new MediaConstraints());
 		WebRtcAudioUtils.setWebRtcBasedAcousticEchoCanceler(true);
 		WebRtcAudioUtils.setWebRtcBasedNoiseSuppressor(true);
 
-		AudioTrack audioTrack = mPeerConnectionFactory.createAudioTrack(AUDIO_TRACK_ID, audioSource);
+		AudioTrack audioTrack = mPeerConnectionFactory.createAudioTrack(AUDIO_TRACK_ID, mAudioSource);
 		audioTrack.setEnabled(true);
 		mMediaStream.addTrack(audioTrack);
+		mAudioTrack = audioTrack;
 
 		return audioTrack;
 	}
 
+	/**
+	 * Stop capturing and release the capture thread, sources, tracks and factory.
+	 * Producers using the tracks must be closed first.
+	 */
+	public void dispose() {
+		if (mCameraVideoCapturer != null) {
+			try {
+				mCameraVideoCapturer.stopCapture();
+			} catch (InterruptedException ie) {
+				Log.w(TAG, "Interrupted while stopping capture");
+				Thread.currentThread().interrupt();
+			}
+
+			mCameraVideoCapturer.dispose();
+			mCameraVideoCapturer = null;
+		}
+
+		if (mSurfaceTextureHelper != null) {
+			mSurfaceTextureHelper.dispose();
+			mSurfaceTextureHelper = null;
+		}
+
+		// Disposes the tracks added to the stream
+		mMediaStream.dispose();
+		mVideoTrack = null;
+		synchronized (this) {
+			mAudioTrack = null;
+		}
+
+		if (mVideoSource != null) {
+			mVideoSource.dispose();
+			mVideoSource = null;
+		}
+
+		if (mAudioSource != null) {
+			mAudioSource.dispose();
+			mAudioSource = null;
+		}
+
+		mPeerConnectionFactory.dispose();
+		Log.d(TAG, "dispose() media capturer disposed");
+	}
+
 	private class MediaCapturerEventHandler implements CameraVideoCapturer.CameraEventsHandler {
 		@Override
 		public void onCameraOpening(String s) {
@@ -127,6 +312,20 @@ public class MediaCapturer {
 		@Override
 		public void onFirstFrameAvailable() {
 			Log.d(TAG, "onFirstFrameAvailable");
+
+			// Every camera session reports its first frame, after a switch it ends the switch
+			if (mSwitching.compareAndSet(true, false)) {
+				long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mSwitchStartNs);
+				boolean frontFacing = mFrontFacing;
+				Trace.record(Trace.PRODUCER, TRACE_CAMERA_SWITCH, frontFacing ? "front" : "back", latencyMs);
+				mSwitchListener.onCameraSwitched(frontFacing, latencyMs);
+				return;
+			}
+
+			Listener listener = mListener;
+			if (listener != null) {
+				listener.onFirstFrameAvailable();
+			}
 		}
 
 		@Override
@@ -149,4 +348,25 @@ public class MediaCapturer {
 			Log.d(TAG, "onCameraClosed");
 		}
 	}
+
+	public interface Listener {
+		/**
+		 * The camera delivered its first frame
+		 */
+		void onFirstFrameAvailable();
+	}
+
+	public interface SwitchListener {
+		/**
+		 * The new camera delivered its first frame
+		 * @param isFrontFacing Facing of the new camera
+		 * @param latencyMs Time from the switch request to the first frame
+		 */
+		void onCameraSwitched(boolean isFrontFacing, long latencyMs);
+
+		/**
+		 * @param error Camera error, the previous camera keeps capturing
+		 */
+		void onCameraSwitchFailed(String error);
+	}
 }
@@ -0,0 +1,384 @@
+package com.example.mediasoupandroidsample.room;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.mediasoupandroidsample.media.MediaCapturer;
+import com.example.mediasoupandroidsample.media.VideoEncoding;
+
+import org.mediasoup.droid.Consumer;
+import org.mediasoup.droid.Device;
+import org.mediasoup.droid.MediasoupException;
+import org.mediasoup.droid.Producer;
+import org.mediasoup.droid.RecvTransport;
+import org.mediasoup.droid.SendTransport;
+import org.mediasoup.droid.Transport;
+import org.webrtc.MediaStreamTrack;
+import org.webrtc.RTCUtils;
+import org.webrtc.RtpParameters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adapts the mediasoup SDK and the webrtc capture to the Media* interfaces {@link RoomClient} runs on.
+ *
+ * The adapters only forward, a MediasoupException is rethrown as a MediaException.
+ */
+public class MediasoupMedia {
+	private MediasoupMedia() {}
+
+	/**
+	 * @param device Loaded device
+	 * @return Device for a RoomClient
+	 */
+	public static MediaDevice device(Device device) {
+		return new DeviceAdapter(device);
+	}
+
+	/**
+	 * @param mediaCapturer Local capture
+	 * @return Local media for a RoomClient
+	 */
+	public static LocalMedia localMedia(MediaCapturer mediaCapturer) {
+		return new CapturerAdapter(mediaCapturer);
+	}
+
+	/**
+	 * @return Scheduler running a client's stats polls on the main thread, each client needs its own
+	 */
+	public static StatsScheduler mainThreadScheduler() {
+		return new HandlerScheduler(new Handler(Looper.getMainLooper()));
+	}
+
+	/**
+	 * @param track Track of a producer or consumer
+	 * @return webrtc track to render or capture into
+	 */
+	public static MediaStreamTrack unwrap(MediaTrack track) {
+		return ((TrackAdapter) track).mTrack;
+	}
+
+	private static MediaTrack wrap(MediaStreamTrack track) {
+		return track != null ? new TrackAdapter(track) : null;
+	}
+
+	private static List<RtpParameters.Encoding> toRtpEncodings(List<VideoEncoding> encodings) {
+		if (encodings == null) {
+			return null;
+		}
+
+		List<RtpParameters.Encoding> rtpEncodings = new ArrayList<>(encodings.size());
+		for (VideoEncoding encoding : encodings) {
+			RtpParameters.Encoding rtpEncoding = RTCUtils.genRtpEncodingParameters(encoding.isActive(), encoding.getMaxBitrateBps(), 0, encoding.getMaxFramerate(), 0, 0.0d, 0L);
+			rtpEncoding.active = encoding.isActive();
+			rtpEncodings.add(rtpEncoding);
+		}
+
+		return rtpEncodings;
+	}
+
+	private static class DeviceAdapter implements MediaDevice {
+		private final Device mDevice;
+
+		DeviceAdapter(Device device) {
+			mDevice = device;
+		}
+
+		@Override
+		public boolean isLoaded() {
+			return mDevice.isLoaded();
+		}
+
+		@Override
+		public String getRtpCapabilities()
+		throws MediaException {
+			try {
+				return mDevice.getRtpCapabilities();
+			} catch (MediasoupException me) {
+				throw new MediaException(me);
+			}
+		}
+
+		@Override
+		public boolean canProduce(String kind)
+		throws MediaException {
+			try {
+				return mDevice.canProduce(kind);
+			} catch (MediasoupException me) {
+				throw new MediaException(me);
+			}
+		}
+
+		@Override
+		public MediaSendTransport createSendTransport(MediaSendTransport.Listener listener, String id, String iceParameters, String iceCandidates, String dtlsParameters)
+		throws MediaException {
+			// The SDK calls back with its own transport, the listener is handed the adapter instead
+			SendTransportAdapter adapter = new SendTransportAdapter();
+			SendTransport.Listener sdkListener = new SendTransport.Listener() {
+				@Override
+				public void onConnect(Transport transport, String dtls) {
+					listener.onConnect(adapter, dtls);
+				}
+
+				@Override
+				public String onProduce(Transport transport, String kind, String rtpParameters, String appData) {
+					return listener.onProduce(adapter, kind, rtpParameters, appData);
+				}
+
+				@Override
+				public void onConnectionStateChange(Transport transport, String newState) {
+					listener.onConnectionStateChange(adapter, newState);
+				}
+			};
+
+			try {
+				adapter.mTransport = mDevice.createSendTransport(sdkListener, id, iceParameters, iceCandidates, dtlsParameters);
+			} catch (MediasoupException me) {
+				throw new MediaException(me);
+			}
+
+			return adapter;
+		}
+
+		@Override
+		public MediaRecvTransport createRecvTransport(MediaTransport.Listener listener, String id, String iceParameters, String iceCandidates, String dtlsParameters)
+		throws MediaException {
+			RecvTransportAdapter adapter = new RecvTransportAdapter();
+			RecvTransport.Listener sdkListener = new RecvTransport.Listener() {
+				@Override
+				public void onConnect(Transport transport, String dtls) {
+					listener.onConnect(adapter, dtls);
+				}
+
+				@Override
+				public void onConnectionStateChange(Transport transport, String newState) {
+					listener.onConnectionStateChange(adapter, newState);
+				}
+			};
+
+			try {
+				adapter.mTransport = mDevice.createRecvTransport(sdkListener, id, iceParameters, iceCandidates, dtlsParameters);
+			} catch (MediasoupException me) {
+				throw new MediaException(me);
+			}
+
+			return adapter;
+		}
+	}
+
+	private abstract static class TransportAdapter<T extends Transport> implements MediaTransport {
+		// Set right after the SDK created the transport, before any callback
+		volatile T mTransport;
+
+		@Override
+		public String getId() {
+			return mTransport.getId();
+		}
+
+		@Override
+		public String getStats()
+		throws MediaException {
+			try {
+				return mTransport.getStats();
+			} catch (MediasoupException me) {
+				throw new MediaException(me);
+			}
+		}
+
+		@Override
+		public void restartIce(String iceParameters)
+		throws MediaException {
+			try {
+				mTransport.restartIce(iceParameters);
+			} catch (MediasoupException me) {
+				throw new MediaException(me);
+			}
+		}
+
+		@Override
+		public boolean isClosed() {
+			return mTransport.isClosed();
+		}
+
+		@Override
+		public void close() {
+			mTransport.close();
+		}
+	}
+
+	private static class SendTransportAdapter extends TransportAdapter<SendTransport> implements MediaSendTransport {
+		@Override
+		public MediaProducer produce(MediaProducer.Listener listener, MediaTrack track, List<VideoEncoding> encodings, String codecOptions)
+		throws MediaException {
+			ProducerAdapter adapter = new ProducerAdapter(track);
+			try {
+				adapter.mProducer = mTransport.produce(producer -> listener.onTransportClose(adapter), unwrap(track), toRtpEncodings(encodings), codecOptions);
+			} catch (MediasoupException me) {
+				throw new MediaException(me);
+			}
+
+			return adapter;
+		}
+	}
+
+	private static class RecvTransportAdapter extends TransportAdapter<RecvTransport> implements MediaRecvTransport {
+		@Override
+		public MediaConsumer consume(MediaConsumer.Listener listener, String id, String producerId, String kind, String rtpParameters)
+		throws MediaException {
+			ConsumerAdapter adapter = new ConsumerAdapter();
+			try {
+				adapter.mConsumer = mTransport.consume(consumer -> listener.onTransportClose(adapter), id, producerId, kind, rtpParameters);
+			} catch (MediasoupException me) {
+				throw new MediaException(me);
+			}
+			adapter.mTrack = wrap(adapter.mConsumer.getTrack());
+
+			return adapter;
+		}
+	}
+
+	private static class ProducerAdapter implements MediaProducer {
+		private final MediaTrack mTrack;
+		volatile Producer mProducer;
+
+		ProducerAdapter(MediaTrack track) {
+			mTrack = track;
+		}
+
+		@Override
+		public String getId() {
+			return mProducer.getId();
+		}
+
+		@Override
+		public String getKind() {
+			return mProducer.getKind();
+		}
+
+		@Override
+		public MediaTrack getTrack() {
+			return mTrack;
+		}
+
+		@Override
+		public String getStats()
+		throws MediaException {
+			try {
+				return mProducer.getStats();
+			} catch (MediasoupException me) {
+				throw new MediaException(me);
+			}
+		}
+
+		@Override
+		public boolean isClosed() {
+			return mProducer.isClosed();
+		}
+
+		@Override
+		public void close() {
+			mProducer.close();
+		}
+	}
+
+	private static class ConsumerAdapter implements MediaConsumer {
+		volatile Consumer mConsumer;
+		volatile MediaTrack mTrack;
+
+		@Override
+		public String getId() {
+			return mConsumer.getId();
+		}
+
+		@Override
+		public String getKind() {
+			return mConsumer.getKind();
+		}
+
+		@Override
+		public MediaTrack getTrack() {
+			return mTrack;
+		}
+
+		@Override
+		public String getStats()
+		throws MediaException {
+			try {
+				return mConsumer.getStats();
+			} catch (MediasoupException me) {
+				throw new MediaException(me);
+			}
+		}
+
+		@Override
+		public boolean isClosed() {
+			return mConsumer.isClosed();
+		}
+
+		@Override
+		public void close() {
+			mConsumer.close();
+		}
+	}
+
+	private static class TrackAdapter implements MediaTrack {
+		private final MediaStreamTrack mTrack;
+
+		TrackAdapter(MediaStreamTrack track) {
+			mTrack = track;
+		}
+
+		@Override
+		public String getKind() {
+			return mTrack.kind();
+		}
+
+		@Override
+		public void setEnabled(boolean enabled) {
+			mTrack.setEnabled(enabled);
+		}
+	}
+
+	private static class CapturerAdapter implements LocalMedia {
+		private final MediaCapturer mMediaCapturer;
+
+		CapturerAdapter(MediaCapturer mediaCapturer) {
+			mMediaCapturer = mediaCapturer;
+		}
+
+		@Override
+		public MediaTrack getVideoTrack() {
+			return wrap(mMediaCapturer.getVideoTrack());
+		}
+
+		@Override
+		public MediaTrack createAudioTrack() {
+			return wrap(mMediaCapturer.createAudioTrack());
+		}
+	}
+
+	private static class HandlerScheduler implements StatsScheduler {
+		private final Handler mHandler;
+
+		HandlerScheduler(Handler handler) {
+			mHandler = handler;
+		}
+
+		@Override
+		public void post(Runnable runnable) {
+			mHandler.post(runnable);
+		}
+
+		@Override
+		public void postDelayed(Runnable runnable, long delayMs) {
+			mHandler.postDelayed(runnable, delayMs);
+		}
+
+		@Override
+		public void cancelAll() {
+			// Only this handler's callbacks, other clients post to the same looper
+			mHandler.removeCallbacksAndMessages(null);
+		}
+	}
+}
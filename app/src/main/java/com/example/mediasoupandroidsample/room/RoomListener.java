@@ -1,7 +0,0 @@
-package com.example.mediasoupandroidsample.room;
-
-import org.mediasoup.droid.Consumer;
-
-public interface RoomListener {
-	public void onNewConsumer(Consumer consumer);
-}
@@ -0,0 +1,242 @@
+package com.example.mediasoupandroidsample.room;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.mediasoupandroidsample.media.CodecPreference;
+import com.example.mediasoupandroidsample.media.MediaCapturer;
+import com.example.mediasoupandroidsample.request.Request;
+import com.example.mediasoupandroidsample.socket.ActionEvent;
+import com.example.mediasoupandroidsample.socket.EchoSocket;
+import com.example.mediasoupandroidsample.socket.MessageObserver;
+import com.example.mediasoupandroidsample.trace.Trace;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.mediasoup.droid.Device;
+import org.mediasoup.droid.MediasoupException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rooms open at the same time over one socket, one loaded device and one media capturer.
+ *
+ * Each room gets its own {@link RoomClient} and transports, the room's events are routed to it by roomId.
+ * The session loads the device, the socket and capturer belong to the caller and outlive the session.
+ */
+public class RoomSession {
+	private static final String TAG = "RoomSession";
+
+	// Trace events
+	private static final String TRACE_DEVICE_LOADED = "deviceLoaded";
+	private static final String TRACE_ROOM_SWITCH = "roomSwitch";
+
+	private final EchoSocket mSocket;
+	private final LocalMedia mLocalMedia;
+	private final List<String> mVideoCodecRanking;
+	private final ConcurrentHashMap<String, Room> mRooms;
+
+	// Guarded by this
+	private Device mDevice;
+	private JSONObject mRouterRtpCapabilities;
+
+	/**
+	 * @param socket Connected socket
+	 * @param mediaCapturer Local capture shared by every room
+	 * @param videoCodecRanking Video mime types, most preferred first, see {@link CodecPreference#rank}
+	 */
+	public RoomSession(EchoSocket socket, MediaCapturer mediaCapturer, List<String> videoCodecRanking) {
+		mSocket = socket;
+		mLocalMedia = MediasoupMedia.localMedia(mediaCapturer);
+		mVideoCodecRanking = videoCodecRanking;
+		mRooms = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Create the client of a room and start routing the room's events to it, the caller joins it
+	 * @param roomId Room id
+	 * @param roomRtpCapabilities Room's router RTP capabilities if already fetched, null to fetch them
+	 * @param listener Room listener
+	 * @return Room client, the open one if the room is already open
+	 * @throws Exception The room's router does not match the loaded device or the capabilities request failed
+	 */
+	public RoomClient open(String roomId, JSONObject roomRtpCapabilities, RoomListener listener)
+	throws Exception {
+		Room room = mRooms.get(roomId);
+		if (room != null) {
+			return room.mClient;
+		}
+
+		if (roomRtpCapabilities == null) {
+			roomRtpCapabilities = Request.sendGetRoomRtpCapabilitiesRequest(mSocket, roomId).getJSONObject("roomRtpCapabilities");
+		}
+
+		Room created = new Room(new RoomClient(mSocket, MediasoupMedia.device(deviceFor(roomId, roomRtpCapabilities)), roomId, mLocalMedia,
+				MediasoupMedia.mainThreadScheduler(), listener));
+		room = mRooms.putIfAbsent(roomId, created);
+		if (room != null) {
+			return room.mClient;
+		}
+
+		mSocket.register(roomId, created);
+		Log.d(TAG, "open() roomId=" + roomId + " rooms=" + mRooms.size());
+
+		return created.mClient;
+	}
+
+	/**
+	 * Move from one room to another keeping the socket, the loaded device when both routers match and the
+	 * running capture. Only the room's transports, producers and consumers are recreated, whatever the old
+	 * room produced is produced in the new one from the same tracks.
+	 * The new room's capabilities are fetched first so a failure there leaves the old room untouched.
+	 * @param fromRoomId Room to leave
+	 * @param toRoomId Room to join
+	 * @param listener Listener of the new room
+	 * @return Joined client of the new room, transports created and producing
+	 * @throws Exception Failed to join the new room, the old room is left by then and the new one closed again
+	 */
+	public RoomClient switchRoom(String fromRoomId, String toRoomId, RoomListener listener)
+	throws Exception {
+		long start = SystemClock.elapsedRealtime();
+		JSONObject roomRtpCapabilities = Request.sendGetRoomRtpCapabilitiesRequest(mSocket, toRoomId).getJSONObject("roomRtpCapabilities");
+
+		RoomClient from = getClient(fromRoomId);
+		boolean producedAudio = from != null && from.isProducing("audio");
+		boolean producedVideo = from != null && from.isProducing("video");
+		close(fromRoomId);
+		long left = SystemClock.elapsedRealtime();
+
+		RoomClient client = open(toRoomId, roomRtpCapabilities, listener);
+		try {
+			if (from != null) {
+				client.setEncodingLadder(from.getEncodingLadder());
+			}
+			client.join();
+			client.createRecvTransport();
+			client.createSendTransport();
+
+			if (producedAudio) {
+				client.produceAudio();
+			}
+			if (producedVideo) {
+				client.produceVideo();
+			}
+		} catch (Exception e) {
+			// Do not leave a half joined room open, switching to it again starts over
+			close(toRoomId);
+			throw e;
+		}
+
+		long switchMs = SystemClock.elapsedRealtime() - start;
+		Trace.record(Trace.SIGNALING, TRACE_ROOM_SWITCH, toRoomId, switchMs);
+		Log.d(TAG, "switchRoom() " + fromRoomId + " -> " + toRoomId + " in " + switchMs + "ms, leaving took " + (left - start) + "ms");
+
+		return client;
+	}
+
+	/**
+	 * @param roomId Room id
+	 * @return Client of the open room or null
+	 */
+	public RoomClient getClient(String roomId) {
+		Room room = mRooms.get(roomId);
+		return room != null ? room.mClient : null;
+	}
+
+	/**
+	 * @return Ids of the open rooms
+	 */
+	public List<String> getRoomIds() {
+		return new ArrayList<>(mRooms.keySet());
+	}
+
+	/**
+	 * Stop routing the room's events and leave it, blocks until the room's media is released
+	 * @param roomId Room id
+	 */
+	public void close(String roomId) {
+		Room room = mRooms.remove(roomId);
+		if (room == null) {
+			return;
+		}
+
+		mSocket.unregister(room);
+		room.mClient.leave();
+		Log.d(TAG, "close() roomId=" + roomId + " rooms=" + mRooms.size());
+	}
+
+	/**
+	 * Leave every room
+	 */
+	public void closeAll() {
+		for (String roomId : getRoomIds()) {
+			close(roomId);
+		}
+	}
+
+	/**
+	 * Leave every room and release the device
+	 */
+	public synchronized void dispose() {
+		closeAll();
+
+		if (mDevice != null) {
+			mDevice.dispose();
+			mDevice = null;
+		}
+	}
+
+	/**
+	 * @return Device loaded for the room's router, reused while the routers match
+	 * @throws IllegalStateException Another router is in use by an open room, a device can only be loaded once
+	 */
+	private synchronized Device deviceFor(String roomId, JSONObject roomRtpCapabilities)
+	throws JSONException, MediasoupException {
+		if (mDevice != null && CodecPreference.isSameRouter(mRouterRtpCapabilities, roomRtpCapabilities)) {
+			return mDevice;
+		}
+
+		if (!mRooms.isEmpty()) {
+			throw new IllegalStateException("Room " + roomId + " router capabilities differ from the loaded device");
+		}
+
+		if (mDevice != null) {
+			mDevice.dispose();
+		}
+
+		// Put the codecs with a hardware encoder first so the producer picks one of them
+		Device device = new Device();
+		device.load(CodecPreference.prefer(roomRtpCapabilities, mVideoCodecRanking).toString());
+		mDevice = device;
+		mRouterRtpCapabilities = roomRtpCapabilities;
+		Trace.record(Trace.SIGNALING, TRACE_DEVICE_LOADED, roomId, 0);
+
+		return device;
+	}
+
+	/**
+	 * Routed events of one room
+	 */
+	private static class Room implements MessageObserver.Observer {
+		private final RoomClient mClient;
+
+		Room(RoomClient client) {
+			mClient = client;
+		}
+
+		@Override
+		public void on(@ActionEvent.Event String event, JSONObject data) {
+			try {
+				switch (event) {
+					case ActionEvent.NEW_CONSUMER:
+						mClient.consumeTrack(data.getJSONObject("consumerData"));
+						break;
+				}
+			} catch (JSONException je) {
+				Log.e(TAG, "Failed to handle event", je);
+			}
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package com.example.mediasoupandroidsample.startup;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs startup work as a dependency graph of asynchronous stages,
+ * a stage starts as soon as all of the stages it depends on have completed
+ */
+public class StartupPipeline {
+	private static final String TAG = "StartupPipeline";
+
+	private final StartupTrace mTrace;
+	private final ExecutorService mExecutorService;
+	private final Map<String, Stage> mStages;
+	private final AtomicInteger mRemaining;
+	private final AtomicBoolean mStarted;
+	private final AtomicBoolean mFailed;
+
+	private Listener mListener;
+
+	public StartupPipeline(StartupTrace trace) {
+		mTrace = trace;
+		mExecutorService = Executors.newCachedThreadPool();
+		mStages = new LinkedHashMap<>();
+		mRemaining = new AtomicInteger();
+		mStarted = new AtomicBoolean(false);
+		mFailed = new AtomicBoolean(false);
+	}
+
+	public void setListener(Listener listener) {
+		mListener = listener;
+	}
+
+	/**
+	 * Add a stage that completes when its task returns
+	 * @param name Stage name
+	 * @param task Stage task
+	 * @param dependencies Names of the stages that must complete first
+	 */
+	public void addStage(String name, Task task, String... dependencies) {
+		addAsyncStage(name, completion -> {
+			task.run();
+			completion.complete();
+		}, dependencies);
+	}
+
+	/**
+	 * Add a stage that completes when its task calls the completion
+	 * @param name Stage name
+	 * @param task Stage task
+	 * @param dependencies Names of the stages that must complete first
+	 */
+	public void addAsyncStage(String name, AsyncTask task, String... dependencies) {
+		if (mStarted.get()) {
+			throw new IllegalStateException("Pipeline already started");
+		}
+
+		if (mStages.containsKey(name)) {
+			throw new IllegalArgumentException("Duplicate stage " + name);
+		}
+
+		mStages.put(name, new Stage(name, task, dependencies));
+	}
+
+	/**
+	 * Start every stage without dependencies
+	 */
+	public void start() {
+		if (!mStarted.compareAndSet(false, true)) {
+			throw new IllegalStateException("Pipeline already started");
+		}
+
+		for (Stage stage : mStages.values()) {
+			for (String dependency : stage.mDependencies) {
+				Stage parent = mStages.get(dependency);
+				if (parent == null) {
+					throw new IllegalStateException("Stage " + stage.mName + " depends on unknown stage " + dependency);
+				}
+
+				parent.mDependents.add(stage);
+			}
+		}
+
+		mRemaining.set(mStages.size());
+		for (Stage stage : mStages.values()) {
+			if (stage.mPending.get() == 0) {
+				schedule(stage);
+			}
+		}
+	}
+
+	/**
+	 * Stop scheduling stages, stages that are already running are interrupted
+	 */
+	public void cancel() {
+		mFailed.set(true);
+		mExecutorService.shutdownNow();
+	}
+
+	private void schedule(Stage stage) {
+		if (mFailed.get()) {
+			return;
+		}
+
+		try {
+			mExecutorService.execute(() -> {
+				mTrace.beginStage(stage.mName);
+				try {
+					stage.mTask.run(new StageCompletion(stage));
+				} catch (Exception e) {
+					onStageFailed(stage, e);
+				}
+			});
+		} catch (RejectedExecutionException ree) {
+			Log.w(TAG, "stage " + stage.mName + " not scheduled, pipeline stopped");
+		}
+	}
+
+	private void onStageCompleted(Stage stage) {
+		if (!stage.mDone.compareAndSet(false, true)) {
+			return;
+		}
+
+		mTrace.endStage(stage.mName);
+		Log.d(TAG, "stage completed " + stage.mName);
+
+		for (Stage dependent : stage.mDependents) {
+			if (dependent.mPending.decrementAndGet() == 0) {
+				schedule(dependent);
+			}
+		}
+
+		if (mRemaining.decrementAndGet() == 0) {
+			mExecutorService.shutdown();
+			if (mListener != null) {
+				mListener.onPipelineCompleted();
+			}
+		}
+	}
+
+	private void onStageFailed(Stage stage, Throwable t) {
+		if (!stage.mDone.compareAndSet(false, true)) {
+			return;
+		}
+
+		Log.e(TAG, "stage failed " + stage.mName, t);
+		// Dependents can never run, stop the rest of the pipeline
+		if (mFailed.compareAndSet(false, true)) {
+			mExecutorService.shutdown();
+			if (mListener != null) {
+				mListener.onStageFailed(stage.mName, t);
+			}
+		}
+	}
+
+	private static class Stage {
+		private final String mName;
+		private final AsyncTask mTask;
+		private final String[] mDependencies;
+		private final List<Stage> mDependents;
+		private final AtomicInteger mPending;
+		private final AtomicBoolean mDone;
+
+		Stage(String name, AsyncTask task, String[] dependencies) {
+			mName = name;
+			mTask = task;
+			mDependencies = dependencies;
+			mDependents = new ArrayList<>();
+			mPending = new AtomicInteger(dependencies.length);
+			mDone = new AtomicBoolean(false);
+		}
+	}
+
+	private class StageCompletion implements Completion {
+		private final Stage mStage;
+
+		StageCompletion(Stage stage) {
+			mStage = stage;
+		}
+
+		@Override
+		public void complete() {
+			onStageCompleted(mStage);
+		}
+
+		@Override
+		public void fail(Throwable t) {
+			onStageFailed(mStage, t);
+		}
+	}
+
+	public interface Task {
+		void run() throws Exception;
+	}
+
+	public interface AsyncTask {
+		void run(Completion completion) throws Exception;
+	}
+
+	public interface Completion {
+		/**
+		 * Stage finished successfully
+		 */
+		void complete();
+
+		/**
+		 * Stage failed
+		 * @param t Cause
+		 */
+		void fail(Throwable t);
+	}
+
+	public interface Listener {
+		/**
+		 * Every stage has completed
+		 */
+		void onPipelineCompleted();
+
+		/**
+		 * A stage failed and the remaining stages were abandoned
+		 * @param stage Stage name
+		 * @param t Cause
+		 */
+		void onStageFailed(String stage, Throwable t);
+	}
+}
@@ -0,0 +1,142 @@
+package com.example.mediasoupandroidsample.startup;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records startup stage and milestone timestamps relative to the start of the trace
+ */
+public class StartupTrace {
+	private static final String TAG = "StartupTrace";
+
+	// Room joined
+	public static final String JOINED = "joined";
+	// First frame delivered by the camera
+	public static final String FIRST_CAMERA_FRAME = "firstCameraFrame";
+	// First local frame rendered in the preview
+	public static final String FIRST_LOCAL_FRAME = "firstLocalFrame";
+	// First remote frame rendered
+	public static final String FIRST_REMOTE_FRAME = "firstRemoteFrame";
+
+	private final long mStartTime;
+	private final Map<String, Long> mStageStarts;
+	private final Map<String, Long> mStageEnds;
+	private final Map<String, Long> mMilestones;
+	private final Map<String, Long> mMetrics;
+
+	public StartupTrace() {
+		mStartTime = SystemClock.elapsedRealtime();
+		mStageStarts = new ConcurrentHashMap<>();
+		mStageEnds = new ConcurrentHashMap<>();
+		mMilestones = new ConcurrentHashMap<>();
+		mMetrics = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Mark the start of a stage
+	 * @param stage Stage name
+	 */
+	public void beginStage(String stage) {
+		mStageStarts.putIfAbsent(stage, elapsed());
+	}
+
+	/**
+	 * Mark the end of a stage
+	 * @param stage Stage name
+	 */
+	public void endStage(String stage) {
+		mStageEnds.putIfAbsent(stage, elapsed());
+	}
+
+	/**
+	 * Mark a milestone, only the first occurrence is kept
+	 * @param milestone Milestone name
+	 */
+	public void mark(String milestone) {
+		if (mMilestones.putIfAbsent(milestone, elapsed()) == null) {
+			Log.d(TAG, milestone + " at " + mMilestones.get(milestone) + "ms");
+		}
+	}
+
+	/**
+	 * @param milestone Milestone name
+	 * @return Time since the trace started in ms, or -1 if the milestone was not reached
+	 */
+	public long getMilestone(String milestone) {
+		Long time = mMilestones.get(milestone);
+		return time != null ? time : -1;
+	}
+
+	/**
+	 * Record a derived startup metric
+	 * @param metric Metric name
+	 * @param value Value in ms
+	 */
+	public void addMetric(String metric, long value) {
+		mMetrics.put(metric, value);
+	}
+
+	/**
+	 * @param stage Stage name
+	 * @return Time the stage started in ms, or -1 if the stage did not start
+	 */
+	public long getStageStart(String stage) {
+		Long time = mStageStarts.get(stage);
+		return time != null ? time : -1;
+	}
+
+	/**
+	 * @param stage Stage name
+	 * @return Time the stage ended in ms, or -1 if the stage did not finish
+	 */
+	public long getStageEnd(String stage) {
+		Long time = mStageEnds.get(stage);
+		return time != null ? time : -1;
+	}
+
+	/**
+	 * @param stage Stage name
+	 * @return Stage duration in ms, or -1 if the stage did not finish
+	 */
+	public long getStageDuration(String stage) {
+		Long start = mStageStarts.get(stage);
+		Long end = mStageEnds.get(stage);
+		return start != null && end != null ? end - start : -1;
+	}
+
+	/**
+	 * @return Startup trace summary
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder("startup trace");
+		for (Map.Entry<String, Long> stage : mStageStarts.entrySet()) {
+			Long end = mStageEnds.get(stage.getKey());
+			report.append("\n  stage ").append(stage.getKey())
+					.append(" start=").append(stage.getValue()).append("ms")
+					.append(" end=").append(end != null ? end + "ms" : "-");
+		}
+
+		report.append("\n  time-to-join=").append(getMilestone(JOINED)).append("ms");
+		report.append("\n  time-to-first-local-frame=").append(getMilestone(FIRST_LOCAL_FRAME)).append("ms");
+		report.append("\n  time-to-first-remote-frame=").append(getMilestone(FIRST_REMOTE_FRAME)).append("ms");
+		for (Map.Entry<String, Long> metric : mMetrics.entrySet()) {
+			report.append("\n  ").append(metric.getKey()).append("=").append(metric.getValue()).append("ms");
+		}
+
+		return report.toString();
+	}
+
+	/**
+	 * @return Length of the intersection of two time ranges, 0 if they do not overlap
+	 */
+	public static long overlap(long firstStart, long firstEnd, long secondStart, long secondEnd) {
+		return Math.max(0, Math.min(firstEnd, secondEnd) - Math.max(firstStart, secondStart));
+	}
+
+	private long elapsed() {
+		return SystemClock.elapsedRealtime() - mStartTime;
+	}
+}
@@ -0,0 +1,114 @@
+package com.example.mediasoupandroidsample.utils;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkInfo;
+import android.os.Build;
+import android.util.Log;
+
+/**
+ * Notifies when the device moves to a different network (e.g. Wi-Fi <-> cellular).
+ *
+ * Only the default network counts. From API 24 the default network callback reports just that one,
+ * before it the connectivity broadcast, which is sent when the default network changes, is checked
+ * against the active network.
+ */
+public class NetworkMonitor {
+	private static final String TAG = "NetworkMonitor";
+
+	private final Context mContext;
+	private final ConnectivityManager mConnectivityManager;
+	private final Listener mListener;
+
+	private ConnectivityManager.NetworkCallback mNetworkCallback;
+	private BroadcastReceiver mReceiver;
+	// Network we are currently on, the first one seen is the starting network and not a change
+	private Object mCurrentNetwork;
+
+	public NetworkMonitor(Context context, Listener listener) {
+		mContext = context.getApplicationContext();
+		mConnectivityManager = (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+		mListener = listener;
+	}
+
+	/**
+	 * Start listening for network changes
+	 */
+	public void start() {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+			mNetworkCallback = new ConnectivityManager.NetworkCallback() {
+				@Override
+				public void onAvailable(Network network) {
+					onNetwork(network);
+				}
+			};
+
+			mConnectivityManager.registerDefaultNetworkCallback(mNetworkCallback);
+		} else {
+			// A network callback would report every matching network, e.g. cellular staying up next to Wi-Fi
+			mReceiver = new BroadcastReceiver() {
+				@Override
+				public void onReceive(Context context, Intent intent) {
+					Object network = getActiveNetwork();
+					if (network != null) {
+						onNetwork(network);
+					}
+				}
+			};
+
+			mContext.registerReceiver(mReceiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+		}
+	}
+
+	/**
+	 * Stop listening for network changes
+	 */
+	public void stop() {
+		if (mNetworkCallback != null) {
+			mConnectivityManager.unregisterNetworkCallback(mNetworkCallback);
+			mNetworkCallback = null;
+		}
+
+		if (mReceiver != null) {
+			mContext.unregisterReceiver(mReceiver);
+			mReceiver = null;
+		}
+	}
+
+	/**
+	 * @return Active network, its type before API 23, null while not connected
+	 */
+	private Object getActiveNetwork() {
+		NetworkInfo networkInfo = mConnectivityManager.getActiveNetworkInfo();
+		if (networkInfo == null || !networkInfo.isConnected()) {
+			return null;
+		}
+
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+			return mConnectivityManager.getActiveNetwork();
+		}
+
+		return networkInfo.getType();
+	}
+
+	private synchronized void onNetwork(Object network) {
+		Object previous = mCurrentNetwork;
+		mCurrentNetwork = network;
+
+		if (previous != null && !previous.equals(network)) {
+			Log.d(TAG, "network changed");
+			mListener.onNetworkChanged();
+		}
+	}
+
+	public interface Listener {
+		/**
+		 * The device moved to a different network
+		 */
+		void onNetworkChanged();
+	}
+}
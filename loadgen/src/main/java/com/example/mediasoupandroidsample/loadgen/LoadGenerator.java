@@ -0,0 +1,179 @@
+package com.example.mediasoupandroidsample.loadgen;
+
+import com.example.mediasoupandroidsample.log.Log;
+import com.example.mediasoupandroidsample.socket.MockSfuServer;
+import com.example.mediasoupandroidsample.socket.NetworkConditions;
+import com.example.mediasoupandroidsample.utils.SignalingHttpClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless load generator, starts many simulated clients against a signaling server and reports
+ * per-step throughput, latency percentiles and failures.
+ *
+ * Usage: loadgen [--url=ws://host:port] [--pin=sha256/base64] [--clients=100] [--rate=20] [--room=loadtest]
+ *                [--deadline=60] [--latency=ms] [--jitter=ms] [--bandwidth=bytes/s] [--drop=probability] [--seed=1]
+ * Without --url the bundled MockSfuServer is started in-process. A wss server with a self-signed certificate
+ * needs its key pinned with --pin, which can be repeated. The impairment options put an
+ * ImpairedTransport under every client, client i uses seed + i so runs are repeatable.
+ */
+public class LoadGenerator {
+	private final String mServerUrl;
+	private final String mRoomId;
+	private final int mClients;
+	private final double mArrivalRate;
+	private final long mDeadlineSeconds;
+	private final NetworkConditions mConditions;
+	private final long mSeed;
+
+	/**
+	 * @param serverUrl Signaling server ws URL
+	 * @param roomId Room every client joins
+	 * @param clients Number of clients to start
+	 * @param arrivalRate New clients per second
+	 * @param deadlineSeconds Time to wait for all clients once the last one has started
+	 * @param conditions Network impairment applied to every client
+	 * @param seed Base seed for the impairment
+	 */
+	public LoadGenerator(String serverUrl, String roomId, int clients, double arrivalRate, long deadlineSeconds, NetworkConditions conditions, long seed) {
+		mServerUrl = serverUrl;
+		mRoomId = roomId;
+		mClients = clients;
+		mArrivalRate = arrivalRate;
+		mDeadlineSeconds = deadlineSeconds;
+		mConditions = conditions;
+		mSeed = seed;
+	}
+
+	/**
+	 * Run the load and block until every client finished or the deadline passed
+	 * @return Report
+	 * @throws InterruptedException Interrupted while waiting for the clients
+	 */
+	public LoadReport run()
+	throws InterruptedException {
+		LoadReport report = new LoadReport(SimulatedClient.STEPS);
+		List<SimulatedClient> clients = new ArrayList<>(mClients);
+		ScheduledExecutorService arrivals = Executors.newSingleThreadScheduledExecutor();
+		ExecutorService workers = Executors.newCachedThreadPool();
+		long intervalNs = (long) (TimeUnit.SECONDS.toNanos(1) / mArrivalRate);
+		long start = System.nanoTime();
+
+		for (int i = 0; i < mClients; i++) {
+			SimulatedClient client = new SimulatedClient(mServerUrl, mRoomId, report, mConditions, mSeed + i);
+			clients.add(client);
+			arrivals.schedule(() -> workers.execute(client), i * intervalNs, TimeUnit.NANOSECONDS);
+		}
+
+		arrivals.shutdown();
+		arrivals.awaitTermination(mClients * intervalNs + TimeUnit.SECONDS.toNanos(1), TimeUnit.NANOSECONDS);
+		workers.shutdown();
+
+		if (!workers.awaitTermination(mDeadlineSeconds, TimeUnit.SECONDS)) {
+			// Clients still waiting on an acknowledgement count as failed at the step they are stuck on
+			for (SimulatedClient client : clients) {
+				if (!client.isFinished()) {
+					report.getStep(client.getCurrentStep()).recordFailure("DeadlineExceeded");
+				}
+			}
+			workers.shutdownNow();
+		}
+
+		report.setWallTime(System.nanoTime() - start);
+		return report;
+	}
+
+	public static void main(String[] args)
+	throws Exception {
+		String serverUrl = null;
+		String roomId = "loadtest";
+		int clients = 100;
+		double arrivalRate = 20;
+		long deadlineSeconds = 60;
+		NetworkConditions.Builder conditions = new NetworkConditions.Builder();
+		boolean impaired = false;
+		long seed = 1;
+		List<String> pins = new ArrayList<>();
+
+		for (String arg : args) {
+			String[] option = arg.split("=", 2);
+			if (option.length != 2) {
+				throw new IllegalArgumentException("Expected --name=value but got " + arg);
+			}
+
+			switch (option[0]) {
+				case "--url":
+					serverUrl = option[1];
+					break;
+				case "--pin":
+					pins.add(option[1]);
+					break;
+				case "--room":
+					roomId = option[1];
+					break;
+				case "--clients":
+					clients = Integer.parseInt(option[1]);
+					break;
+				case "--rate":
+					arrivalRate = Double.parseDouble(option[1]);
+					break;
+				case "--deadline":
+					deadlineSeconds = Long.parseLong(option[1]);
+					break;
+				case "--latency":
+					conditions.latencyMs(Long.parseLong(option[1]));
+					impaired = true;
+					break;
+				case "--jitter":
+					conditions.jitterMs(Long.parseLong(option[1]));
+					impaired = true;
+					break;
+				case "--bandwidth":
+					conditions.bandwidthBytesPerSecond(Long.parseLong(option[1]));
+					impaired = true;
+					break;
+				case "--drop":
+					conditions.dropProbability(Double.parseDouble(option[1]));
+					impaired = true;
+					break;
+				case "--seed":
+					seed = Long.parseLong(option[1]);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + option[0]);
+			}
+		}
+
+		// Per-message debug logging from every socket would dominate the run
+		Log.setSink((priority, tag, message, t) -> {
+			if (priority >= Log.WARN) {
+				System.err.println(tag + ": " + message + (t != null ? " " + t : ""));
+			}
+		});
+
+		SignalingHttpClient.configure(pins, SignalingHttpClient.DEFAULT_PING_INTERVAL_MS);
+
+		MockSfuServer server = null;
+		if (serverUrl == null) {
+			server = new MockSfuServer();
+			serverUrl = server.start();
+		}
+
+		System.out.printf("Starting %d clients at %.1f/s against %s%n", clients, arrivalRate, serverUrl);
+		LoadReport report = new LoadGenerator(serverUrl, roomId, clients, arrivalRate, deadlineSeconds,
+				impaired ? conditions.build() : NetworkConditions.NONE, seed).run();
+		report.print(System.out);
+
+		if (server != null) {
+			System.out.printf("Server handled %d messages%n", server.getMessageCount());
+			server.shutdown();
+		}
+
+		System.exit(report.getFailureCount() == 0 ? 0 : 1);
+	}
+}
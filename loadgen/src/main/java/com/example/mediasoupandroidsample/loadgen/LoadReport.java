@@ -0,0 +1,83 @@
+package com.example.mediasoupandroidsample.loadgen;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregated results of a load run
+ */
+public class LoadReport {
+	private final Map<String, StepStats> mSteps = new LinkedHashMap<>();
+	private final StepStats mSessions = new StepStats("session");
+	private long mWallTimeNs;
+
+	LoadReport(String[] steps) {
+		for (String step : steps) {
+			mSteps.put(step, new StepStats(step));
+		}
+	}
+
+	StepStats getStep(String step) {
+		return mSteps.get(step);
+	}
+
+	void recordSession(long latencyNs) {
+		mSessions.recordSuccess(latencyNs);
+	}
+
+	void setWallTime(long wallTimeNs) {
+		mWallTimeNs = wallTimeNs;
+	}
+
+	/**
+	 * @return Number of clients that completed every step
+	 */
+	public int getCompletedSessions() {
+		return mSessions.getSuccessCount();
+	}
+
+	/**
+	 * @return Failures across all steps
+	 */
+	public int getFailureCount() {
+		int failures = 0;
+		for (StepStats step : mSteps.values()) {
+			failures += step.getFailureCount();
+		}
+
+		return failures;
+	}
+
+	public void print(PrintStream out) {
+		double seconds = mWallTimeNs / (double) TimeUnit.SECONDS.toNanos(1);
+
+		out.printf("Wall time %.2fs, %d sessions completed (%.1f/s), %d failures%n",
+				seconds, getCompletedSessions(), getCompletedSessions() / seconds, getFailureCount());
+		out.printf("%-30s %8s %8s %9s %9s %9s %9s %9s%n", "step", "ok", "failed", "ops/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+
+		for (StepStats step : mSteps.values()) {
+			printRow(out, step, seconds);
+		}
+		printRow(out, mSessions, seconds);
+
+		for (StepStats step : mSteps.values()) {
+			for (Map.Entry<String, Integer> failure : step.getFailures().entrySet()) {
+				out.printf("  %s failed %d times: %s%n", step.getName(), failure.getValue(), failure.getKey());
+			}
+		}
+	}
+
+	private static void printRow(PrintStream out, StepStats step, double seconds) {
+		out.printf("%-30s %8d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+				step.getName(),
+				step.getSuccessCount(),
+				step.getFailureCount(),
+				step.getSuccessCount() / seconds,
+				step.getPercentileMs(50),
+				step.getPercentileMs(90),
+				step.getPercentileMs(99),
+				step.getPercentileMs(100));
+	}
+}
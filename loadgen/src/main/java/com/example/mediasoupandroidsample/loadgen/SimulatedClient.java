@@ -0,0 +1,116 @@
+package com.example.mediasoupandroidsample.loadgen;
+
+import com.example.mediasoupandroidsample.request.Request;
+import com.example.mediasoupandroidsample.socket.EchoSocket;
+import com.example.mediasoupandroidsample.socket.ImpairedTransport;
+import com.example.mediasoupandroidsample.socket.NetworkConditions;
+import com.example.mediasoupandroidsample.socket.WebSocketTransport;
+
+import org.json.JSONObject;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A headless client running the same signaling sequence as RoomClient.join() and createSendTransport()
+ */
+class SimulatedClient implements Runnable {
+	static final String STEP_CONNECT = "connect";
+	static final String STEP_CAPABILITIES = "getRoomRtpCapabilities";
+	static final String STEP_LOGIN = "loginRoom";
+	static final String STEP_SEND_TRANSPORT = "createWebRtcTransport(send)";
+	static final String STEP_RECV_TRANSPORT = "createWebRtcTransport(recv)";
+	static final String STEP_PRODUCE = "produce";
+	static final String[] STEPS = {
+			STEP_CONNECT, STEP_CAPABILITIES, STEP_LOGIN, STEP_SEND_TRANSPORT, STEP_RECV_TRANSPORT, STEP_PRODUCE
+	};
+
+	private static final String AUDIO_RTP_PARAMETERS = "{\"mid\":\"0\",\"codecs\":["
+			+ "{\"mimeType\":\"audio/opus\",\"payloadType\":111,\"clockRate\":48000,\"channels\":2,\"parameters\":{\"minptime\":10,\"useinbandfec\":1,\"stereo\":1,\"usedtx\":1},\"rtcpFeedback\":[]}],"
+			+ "\"headerExtensions\":[{\"uri\":\"urn:ietf:params:rtp-hdrext:sdes:mid\",\"id\":4,\"encrypt\":false,\"parameters\":{}}],"
+			+ "\"encodings\":[{\"ssrc\":1234567890,\"dtx\":true}],"
+			+ "\"rtcp\":{\"cname\":\"loadgen\",\"reducedSize\":true}}";
+
+	private static final int CONNECT_TIMEOUT_SECONDS = 10;
+
+	private final String mServerUrl;
+	private final String mRoomId;
+	private final LoadReport mReport;
+	private final NetworkConditions mConditions;
+	private final long mSeed;
+	private volatile String mCurrentStep = STEP_CONNECT;
+	private volatile boolean mFinished;
+
+	/**
+	 * @param serverUrl Signaling server ws URL
+	 * @param roomId Room to join
+	 * @param report Report the steps are recorded in
+	 * @param conditions Network impairment, NetworkConditions.NONE for a direct connection
+	 * @param seed Seed for the impairment
+	 */
+	SimulatedClient(String serverUrl, String roomId, LoadReport report, NetworkConditions conditions, long seed) {
+		mServerUrl = serverUrl;
+		mRoomId = roomId;
+		mReport = report;
+		mConditions = conditions;
+		mSeed = seed;
+	}
+
+	/**
+	 * @return Step the client is currently waiting on
+	 */
+	String getCurrentStep() {
+		return mCurrentStep;
+	}
+
+	boolean isFinished() {
+		return mFinished;
+	}
+
+	@Override
+	public void run() {
+		EchoSocket socket = mConditions == NetworkConditions.NONE
+				? new EchoSocket()
+				: new EchoSocket(new ImpairedTransport(new WebSocketTransport(), mConditions, mSeed));
+		long sessionStart = System.nanoTime();
+
+		try {
+			long start = System.nanoTime();
+			socket.connect(mServerUrl).get(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			start = completeStep(STEP_CONNECT, start, STEP_CAPABILITIES);
+
+			JSONObject capabilities = Request.sendGetRoomRtpCapabilitiesRequest(socket, mRoomId);
+			start = completeStep(STEP_CAPABILITIES, start, STEP_LOGIN);
+
+			// The router capabilities stand in for the device capabilities a real client would derive from them
+			Request.sendLoginRoomRequest(socket, mRoomId, capabilities.getJSONObject("roomRtpCapabilities").toString());
+			start = completeStep(STEP_LOGIN, start, STEP_SEND_TRANSPORT);
+
+			JSONObject sendTransport = Request.sendCreateWebRtcTransportRequest(socket, mRoomId, "send");
+			start = completeStep(STEP_SEND_TRANSPORT, start, STEP_RECV_TRANSPORT);
+
+			Request.sendCreateWebRtcTransportRequest(socket, mRoomId, "recv");
+			start = completeStep(STEP_RECV_TRANSPORT, start, STEP_PRODUCE);
+
+			String transportId = sendTransport.getJSONObject("webRtcTransportData").getString("id");
+			Request.sendProduceWebRtcTransportRequest(socket, mRoomId, transportId, "audio", AUDIO_RTP_PARAMETERS);
+			completeStep(STEP_PRODUCE, start, null);
+
+			mReport.recordSession(System.nanoTime() - sessionStart);
+		} catch (InterruptedException ie) {
+			// Stopped at the deadline, LoadGenerator has already recorded the failure
+		} catch (Exception e) {
+			Throwable cause = e.getCause() != null ? e.getCause() : e;
+			mReport.getStep(mCurrentStep).recordFailure(cause.getClass().getSimpleName());
+		} finally {
+			mFinished = true;
+			socket.disconnect();
+		}
+	}
+
+	private long completeStep(String step, long start, String nextStep) {
+		long now = System.nanoTime();
+		mReport.getStep(step).recordSuccess(now - start);
+		mCurrentStep = nextStep;
+		return now;
+	}
+}
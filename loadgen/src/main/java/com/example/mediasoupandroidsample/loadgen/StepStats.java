@@ -0,0 +1,79 @@
+package com.example.mediasoupandroidsample.loadgen;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency samples and failures of a single signaling step across all simulated clients
+ */
+public class StepStats {
+	private final String mName;
+	private long[] mLatencies = new long[64];
+	private int mCount;
+	private final Map<String, Integer> mFailures = new TreeMap<>();
+
+	public StepStats(String name) {
+		mName = name;
+	}
+
+	public String getName() {
+		return mName;
+	}
+
+	/**
+	 * Record a successful step
+	 * @param latencyNs Step latency in nanoseconds
+	 */
+	public synchronized void recordSuccess(long latencyNs) {
+		if (mCount == mLatencies.length) {
+			mLatencies = Arrays.copyOf(mLatencies, mCount * 2);
+		}
+
+		mLatencies[mCount++] = latencyNs;
+	}
+
+	/**
+	 * Record a failed step
+	 * @param reason Failure reason, usually the exception class
+	 */
+	public synchronized void recordFailure(String reason) {
+		Integer count = mFailures.get(reason);
+		mFailures.put(reason, count == null ? 1 : count + 1);
+	}
+
+	public synchronized int getSuccessCount() {
+		return mCount;
+	}
+
+	public synchronized int getFailureCount() {
+		int failures = 0;
+		for (int count : mFailures.values()) {
+			failures += count;
+		}
+
+		return failures;
+	}
+
+	public synchronized Map<String, Integer> getFailures() {
+		return new TreeMap<>(mFailures);
+	}
+
+	/**
+	 * Latency percentile using the nearest-rank method
+	 * @param percentile 0-100
+	 * @return Latency in milliseconds or 0 if there are no samples
+	 */
+	public synchronized double getPercentileMs(double percentile) {
+		if (mCount == 0) {
+			return 0;
+		}
+
+		long[] sorted = Arrays.copyOf(mLatencies, mCount);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100.0 * mCount);
+		int index = Math.min(Math.max(rank - 1, 0), mCount - 1);
+		return sorted[index] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
@@ -0,0 +1,134 @@
+package com.example.mediasoupandroidsample.benchmark;
+
+import com.example.mediasoupandroidsample.room.FakeLocalMedia;
+import com.example.mediasoupandroidsample.room.FakeMediaDevice;
+import com.example.mediasoupandroidsample.room.ManualStatsScheduler;
+import com.example.mediasoupandroidsample.room.RoomClient;
+import com.example.mediasoupandroidsample.room.RoomListener;
+import com.example.mediasoupandroidsample.socket.EchoSocket;
+import com.example.mediasoupandroidsample.socket.MockSfuServer;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RoomClient over the fake media layer against the in-process server: the cost of the client's
+ * signaling and queueing without the SDK
+ */
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RoomClientBenchmark {
+	private static final int CONSUMER_BURST = 100;
+
+	// Consumer RTP parameters as the server sends them for a VP8 producer
+	private static final String CONSUMER_RTP_PARAMETERS = "{\"codecs\":["
+			+ "{\"mimeType\":\"video/VP8\",\"payloadType\":101,\"clockRate\":90000,\"parameters\":{},\"rtcpFeedback\":[{\"type\":\"transport-cc\",\"parameter\":\"\"},{\"type\":\"ccm\",\"parameter\":\"fir\"},{\"type\":\"nack\",\"parameter\":\"\"},{\"type\":\"nack\",\"parameter\":\"pli\"}]},"
+			+ "{\"mimeType\":\"video/rtx\",\"payloadType\":102,\"clockRate\":90000,\"parameters\":{\"apt\":101},\"rtcpFeedback\":[]}],"
+			+ "\"headerExtensions\":[{\"uri\":\"http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\",\"id\":5,\"encrypt\":false,\"parameters\":{}}],"
+			+ "\"encodings\":[{\"ssrc\":361263842,\"rtx\":{\"ssrc\":361263843}}],"
+			+ "\"rtcp\":{\"cname\":\"fkQ2w3ZWpZ0b3Ymr\",\"reducedSize\":true,\"mux\":true}}";
+
+	/**
+	 * Join, create both transports, produce audio and video, then leave
+	 */
+	@Benchmark
+	public void joinProduceLeave(ServerState signaling)
+	throws Exception {
+		FakeLocalMedia localMedia = new FakeLocalMedia();
+		localMedia.prepareVideo();
+		RoomClient client = new RoomClient(signaling.mSocket, new FakeMediaDevice(), "benchmark", localMedia, new ManualStatsScheduler(), consumer -> {});
+
+		client.join();
+		client.createRecvTransport();
+		client.createSendTransport();
+		client.produceAudio();
+		client.produceVideo();
+		client.leave();
+	}
+
+	/**
+	 * Consumers announced back to back, as when joining a busy room, until the listener saw all of them
+	 */
+	@Benchmark
+	@OperationsPerInvocation(CONSUMER_BURST)
+	public void consumeBurst(JoinedState joined)
+	throws Exception {
+		for (int i = 0; i < CONSUMER_BURST; i++) {
+			joined.mClient.consumeTrack(joined.mConsumerInfos[i]);
+		}
+
+		joined.mConsumed.acquire(CONSUMER_BURST);
+	}
+
+	/**
+	 * Client joined with a recv transport
+	 */
+	@State(Scope.Benchmark)
+	public static class JoinedState {
+		RoomClient mClient;
+		JSONObject[] mConsumerInfos;
+		final Semaphore mConsumed = new Semaphore(0);
+
+		@Setup(Level.Trial)
+		public void join(ServerState signaling)
+		throws Exception {
+			RoomListener listener = consumer -> mConsumed.release();
+			mClient = new RoomClient(signaling.mSocket, new FakeMediaDevice(), "benchmark", new FakeLocalMedia(), new ManualStatsScheduler(), listener);
+			mClient.join();
+			mClient.createRecvTransport();
+
+			mConsumerInfos = new JSONObject[CONSUMER_BURST];
+			for (int i = 0; i < CONSUMER_BURST; i++) {
+				JSONObject consumerInfo = new JSONObject();
+				consumerInfo.put("id", "consumer" + i);
+				consumerInfo.put("producerId", "producer" + i);
+				consumerInfo.put("kind", i % 2 == 0 ? "audio" : "video");
+				consumerInfo.put("rtpParameters", new JSONObject(CONSUMER_RTP_PARAMETERS));
+				mConsumerInfos[i] = consumerInfo;
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void leave() {
+			mClient.leave();
+		}
+	}
+
+	/**
+	 * EchoSocket connected to an in-process signaling server
+	 */
+	@State(Scope.Benchmark)
+	public static class ServerState {
+		MockSfuServer mServer;
+		EchoSocket mSocket;
+
+		@Setup(Level.Trial)
+		public void connect()
+		throws Exception {
+			mServer = new MockSfuServer();
+			String url = mServer.start();
+
+			mSocket = new EchoSocket();
+			mSocket.connect(url).get(10, TimeUnit.SECONDS);
+		}
+
+		@TearDown(Level.Trial)
+		public void disconnect()
+		throws Exception {
+			mSocket.disconnect();
+			mServer.shutdown();
+		}
+	}
+}
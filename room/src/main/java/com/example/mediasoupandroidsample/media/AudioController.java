@@ -0,0 +1,154 @@
+package com.example.mediasoupandroidsample.media;
+
+import com.example.mediasoupandroidsample.log.Log;
+import com.example.mediasoupandroidsample.trace.Trace;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Adapts the audio profile to the loss and RTT the server reports for the audio producer.
+ *
+ * Three levels: clean uses the base profile, lossy turns FEC on with longer packets and a lower bitrate,
+ * severe goes further. A worse level is taken after {@link #ESCALATE_SAMPLES} samples in a row and left
+ * one step at a time after {@link #RECOVER_SAMPLES} clean samples in a row, samples between the
+ * thresholds hold the current level so a link near a threshold does not flap.
+ */
+public class AudioController {
+	private static final String TAG = "AudioController";
+
+	static final int LEVEL_CLEAN = 0;
+	static final int LEVEL_LOSSY = 1;
+	static final int LEVEL_SEVERE = 2;
+
+	static final int ESCALATE_SAMPLES = 2;
+	static final int RECOVER_SAMPLES = 5;
+
+	private static final double LOSSY_FRACTION_LOST = 0.03;
+	private static final double SEVERE_FRACTION_LOST = 0.10;
+	private static final double CLEAN_FRACTION_LOST = 0.01;
+	private static final long LOSSY_RTT_MS = 300;
+	private static final long SEVERE_RTT_MS = 500;
+	private static final long CLEAN_RTT_MS = 200;
+
+	// Below this Opus has no room left for FEC
+	private static final int MIN_BITRATE = 12000;
+
+	// Trace events
+	private static final String TRACE_ADJUST = "audioAdjust";
+
+	private final AudioProfile mBase;
+	private int mLevel = LEVEL_CLEAN;
+	private int mWorseSamples;
+	private int mCleanSamples;
+	private int mAdjustments;
+
+	/**
+	 * @param base Profile chosen at produce time, used while the link is clean
+	 */
+	public AudioController(AudioProfile base) {
+		mBase = base;
+	}
+
+	/**
+	 * @return Profile for the current level
+	 */
+	public synchronized AudioProfile getProfile() {
+		return profileFor(mLevel);
+	}
+
+	/**
+	 * @return Number of profile changes so far
+	 */
+	public synchronized int getAdjustmentCount() {
+		return mAdjustments;
+	}
+
+	/**
+	 * Feed a producer stats report
+	 * @param stats Producer getStats() JSON
+	 * @return New profile if it changed, null otherwise or if the report has no remote feedback yet
+	 */
+	public AudioProfile onStatsReport(String stats) {
+		try {
+			JSONArray reports = new JSONArray(stats);
+			for (int i = 0; i < reports.length(); i++) {
+				JSONObject report = reports.getJSONObject(i);
+				if ("remote-inbound-rtp".equals(report.optString("type"))) {
+					long rttMs = Math.round(report.optDouble("roundTripTime", 0) * 1000);
+					return onStats(report.optDouble("fractionLost", 0), rttMs);
+				}
+			}
+		} catch (JSONException je) {
+			Log.w(TAG, "Failed to parse producer stats", je);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Feed one loss/RTT sample
+	 * @param fractionLost Fraction of packets lost, 0 to 1
+	 * @param rttMs Round trip time
+	 * @return New profile if it changed, null otherwise
+	 */
+	public synchronized AudioProfile onStats(double fractionLost, long rttMs) {
+		int wanted;
+		if (fractionLost >= SEVERE_FRACTION_LOST || rttMs >= SEVERE_RTT_MS) {
+			wanted = LEVEL_SEVERE;
+		} else if (fractionLost >= LOSSY_FRACTION_LOST || rttMs >= LOSSY_RTT_MS) {
+			wanted = LEVEL_LOSSY;
+		} else if (fractionLost < CLEAN_FRACTION_LOST && rttMs < CLEAN_RTT_MS) {
+			wanted = LEVEL_CLEAN;
+		} else {
+			// Between the thresholds, hold
+			mWorseSamples = 0;
+			mCleanSamples = 0;
+			return null;
+		}
+
+		int level = mLevel;
+		if (wanted > mLevel) {
+			mCleanSamples = 0;
+			if (++mWorseSamples >= ESCALATE_SAMPLES) {
+				level = wanted;
+			}
+		} else if (wanted < mLevel) {
+			mWorseSamples = 0;
+			if (++mCleanSamples >= RECOVER_SAMPLES) {
+				level = mLevel - 1;
+			}
+		} else {
+			mWorseSamples = 0;
+			mCleanSamples = 0;
+		}
+
+		if (level == mLevel) {
+			return null;
+		}
+
+		mLevel = level;
+		mWorseSamples = 0;
+		mCleanSamples = 0;
+		mAdjustments++;
+
+		AudioProfile profile = profileFor(level);
+		Trace.record(Trace.PRODUCER, TRACE_ADJUST, profile.getName(), level);
+		Log.d(TAG, "onStats() fractionLost=" + fractionLost + " rttMs=" + rttMs + " -> " + profile);
+
+		return profile;
+	}
+
+	private AudioProfile profileFor(int level) {
+		int bitrate = mBase.getMaxAverageBitrate();
+		switch (level) {
+			case LEVEL_LOSSY:
+				return mBase.adjust(true, 40, Math.max(MIN_BITRATE, bitrate * 3 / 4));
+			case LEVEL_SEVERE:
+				return mBase.adjust(true, 60, Math.max(MIN_BITRATE, bitrate / 2));
+			default:
+				return mBase;
+		}
+	}
+}
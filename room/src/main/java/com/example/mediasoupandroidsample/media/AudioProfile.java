@@ -0,0 +1,101 @@
+package com.example.mediasoupandroidsample.media;
+
+/**
+ * Opus settings of the audio producer, turned into mediasoup codec options at produce time
+ */
+public class AudioProfile {
+	// Speech: mono, silence suppressed, in-band FEC so a lost packet can be rebuilt from the next one
+	public static final AudioProfile VOICE_MONO_LOWRATE = new AudioProfile("voice-mono-lowrate", false, true, true, 20, 24000);
+	// Music: stereo, no DTX as quiet passages are not silence, no FEC overhead at the start
+	public static final AudioProfile MUSIC_STEREO = new AudioProfile("music-stereo", true, false, false, 20, 96000);
+
+	private final String mName;
+	private final boolean mStereo;
+	private final boolean mDtx;
+	private final boolean mFec;
+	private final int mPtimeMs;
+	private final int mMaxAverageBitrate;
+
+	private AudioProfile(String name, boolean stereo, boolean dtx, boolean fec, int ptimeMs, int maxAverageBitrate) {
+		mName = name;
+		mStereo = stereo;
+		mDtx = dtx;
+		mFec = fec;
+		mPtimeMs = ptimeMs;
+		mMaxAverageBitrate = maxAverageBitrate;
+	}
+
+	public String getName() {
+		return mName;
+	}
+
+	public boolean isStereo() {
+		return mStereo;
+	}
+
+	public boolean isDtx() {
+		return mDtx;
+	}
+
+	public boolean isFec() {
+		return mFec;
+	}
+
+	public int getPtimeMs() {
+		return mPtimeMs;
+	}
+
+	public int getMaxAverageBitrate() {
+		return mMaxAverageBitrate;
+	}
+
+	/**
+	 * @param fec In-band forward error correction
+	 * @param ptimeMs Packet duration
+	 * @param maxAverageBitrate Target bitrate in bits per second
+	 * @return Copy of the profile with the loss related settings changed
+	 */
+	public AudioProfile adjust(boolean fec, int ptimeMs, int maxAverageBitrate) {
+		return new AudioProfile(mName, mStereo, mDtx, fec, ptimeMs, maxAverageBitrate);
+	}
+
+	/**
+	 * @return Producer codec options, one object as the SDK looks the keys up on it
+	 */
+	public String toCodecOptions() {
+		return "{\"opusStereo\":" + mStereo + ",\"opusDtx\":" + mDtx + ",\"opusFec\":" + mFec
+				+ ",\"opusPtime\":" + mPtimeMs + ",\"opusMaxAverageBitrate\":" + mMaxAverageBitrate + "}";
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof AudioProfile)) {
+			return false;
+		}
+
+		AudioProfile that = (AudioProfile) o;
+		return mStereo == that.mStereo && mDtx == that.mDtx && mFec == that.mFec
+				&& mPtimeMs == that.mPtimeMs && mMaxAverageBitrate == that.mMaxAverageBitrate
+				&& mName.equals(that.mName);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = mName.hashCode();
+		result = 31 * result + (mStereo ? 1 : 0);
+		result = 31 * result + (mDtx ? 1 : 0);
+		result = 31 * result + (mFec ? 1 : 0);
+		result = 31 * result + mPtimeMs;
+		result = 31 * result + mMaxAverageBitrate;
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return mName + "{stereo=" + mStereo + ", dtx=" + mDtx + ", fec=" + mFec
+				+ ", ptimeMs=" + mPtimeMs + ", maxAverageBitrate=" + mMaxAverageBitrate + "}";
+	}
+}
@@ -0,0 +1,75 @@
+package com.example.mediasoupandroidsample.media;
+
+import com.example.mediasoupandroidsample.log.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Audio/video playout skew of one peer from the consumers' inbound-rtp estimatedPlayoutTimestamp.
+ *
+ * The audio and video stats are sampled at different times, so each is kept as the offset of its
+ * playout position from the local clock at sampling, the skew is the difference of the two offsets.
+ */
+public class AvSync {
+	private static final String TAG = "AvSync";
+
+	private static final long UNSET = Long.MIN_VALUE;
+
+	private volatile long mAudioOffsetMs = UNSET;
+	private volatile long mVideoOffsetMs = UNSET;
+
+	/**
+	 * @param kind audio/video
+	 * @param stats Consumer getStats() JSON
+	 * @param nowMs Local wall clock when the stats were taken
+	 */
+	public void onConsumerStats(String kind, String stats, long nowMs) {
+		long playoutMs = playoutTimestamp(stats);
+		if (playoutMs == UNSET) {
+			return;
+		}
+
+		if ("audio".equals(kind)) {
+			mAudioOffsetMs = playoutMs - nowMs;
+		} else if ("video".equals(kind)) {
+			mVideoOffsetMs = playoutMs - nowMs;
+		}
+	}
+
+	/**
+	 * @return true once both kinds reported a playout timestamp
+	 */
+	public boolean hasSkew() {
+		return mAudioOffsetMs != UNSET && mVideoOffsetMs != UNSET;
+	}
+
+	/**
+	 * @return How far video lags audio, negative when video leads
+	 */
+	public long getSkewMs() {
+		return mAudioOffsetMs - mVideoOffsetMs;
+	}
+
+	public void reset() {
+		mAudioOffsetMs = UNSET;
+		mVideoOffsetMs = UNSET;
+	}
+
+	private static long playoutTimestamp(String stats) {
+		try {
+			JSONArray reports = new JSONArray(stats);
+			for (int i = 0; i < reports.length(); i++) {
+				JSONObject report = reports.getJSONObject(i);
+				if ("inbound-rtp".equals(report.optString("type")) && report.has("estimatedPlayoutTimestamp")) {
+					return report.getLong("estimatedPlayoutTimestamp");
+				}
+			}
+		} catch (JSONException je) {
+			Log.w(TAG, "Failed to parse consumer stats", je);
+		}
+
+		return UNSET;
+	}
+}
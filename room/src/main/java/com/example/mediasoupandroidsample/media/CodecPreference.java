@@ -0,0 +1,153 @@
+package com.example.mediasoupandroidsample.media;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Orders the router's video codecs by what the device encodes cheapest.
+ *
+ * The producer sends with the first video codec the router and the device share, in the router's order,
+ * so reordering the router RTP capabilities before the device is loaded picks the codec.
+ */
+public class CodecPreference {
+	public static final String VP8 = "video/VP8";
+	public static final String VP9 = "video/VP9";
+	public static final String H264 = "video/H264";
+
+	private static final String RTX = "video/rtx";
+
+	// Bitrate for the same quality, best first. Worth it only with a hardware encoder, and VP9 is sent
+	// as a single layer so the SFU can not pick a lower layer for a receiver as it can with simulcast
+	private static final String[] BY_EFFICIENCY = { VP9, H264, VP8 };
+	// Software encoder CPU cost, cheapest first
+	private static final String[] BY_SOFTWARE_COST = { VP8, H264, VP9 };
+
+	private CodecPreference() {}
+
+	/**
+	 * Rank the video codecs, hardware encoders first by efficiency then software encoders by CPU cost.
+	 * A hardware decoder breaks ties as the device also has to decode what it is sent.
+	 * @param hardwareEncoders Mime types with a hardware encoder
+	 * @param hardwareDecoders Mime types with a hardware decoder
+	 * @return Mime types, most preferred first
+	 */
+	public static List<String> rank(Set<String> hardwareEncoders, Set<String> hardwareDecoders) {
+		List<String> ranked = new ArrayList<>();
+		for (String mimeType : BY_EFFICIENCY) {
+			if (hardwareEncoders.contains(mimeType) && hardwareDecoders.contains(mimeType)) {
+				ranked.add(mimeType);
+			}
+		}
+		for (String mimeType : BY_EFFICIENCY) {
+			if (hardwareEncoders.contains(mimeType) && !ranked.contains(mimeType)) {
+				ranked.add(mimeType);
+			}
+		}
+		for (String mimeType : BY_SOFTWARE_COST) {
+			if (!ranked.contains(mimeType)) {
+				ranked.add(mimeType);
+			}
+		}
+
+		return ranked;
+	}
+
+	/**
+	 * Reorder the video codecs of RTP capabilities, audio codecs and unranked codecs keep their order
+	 * @param rtpCapabilities Router RTP capabilities
+	 * @param ranked Mime types, most preferred first
+	 * @return Copy of the capabilities with the video codecs reordered
+	 * @throws JSONException Malformed capabilities
+	 */
+	public static JSONObject prefer(JSONObject rtpCapabilities, List<String> ranked)
+	throws JSONException {
+		JSONArray codecs = rtpCapabilities.getJSONArray("codecs");
+		List<JSONObject> ordered = new ArrayList<>(codecs.length());
+		for (int i = 0; i < codecs.length(); i++) {
+			ordered.add(codecs.getJSONObject(i));
+		}
+
+		// Stable, so codecs of equal rank (every audio codec, rtx) stay where they were relative to each other
+		Collections.sort(ordered, (a, b) -> rankOf(a, ranked) - rankOf(b, ranked));
+
+		JSONObject preferred = new JSONObject(rtpCapabilities.toString());
+		preferred.put("codecs", new JSONArray(ordered));
+
+		return preferred;
+	}
+
+	/**
+	 * @param rtpCapabilities Loaded device RTP capabilities
+	 * @return Mime type of the video codec the producer will use or null if there is none
+	 * @throws JSONException Malformed capabilities
+	 */
+	public static String firstVideoCodec(JSONObject rtpCapabilities)
+	throws JSONException {
+		JSONArray codecs = rtpCapabilities.getJSONArray("codecs");
+		for (int i = 0; i < codecs.length(); i++) {
+			JSONObject codec = codecs.getJSONObject(i);
+			String mimeType = codec.getString("mimeType");
+			if ("video".equals(codec.optString("kind")) && !RTX.equalsIgnoreCase(mimeType)) {
+				return mimeType;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Whether a device loaded with one router's capabilities can be used in another router's room.
+	 * The codecs, payload types included, and header extensions must be the same, the order does not matter
+	 * as {@link #prefer} only reorders them.
+	 * @param loaded Router RTP capabilities the device was loaded with
+	 * @param other Router RTP capabilities of the other room
+	 * @return true if the capabilities only differ in order
+	 * @throws JSONException Malformed capabilities
+	 */
+	public static boolean isSameRouter(JSONObject loaded, JSONObject other)
+	throws JSONException {
+		return entries(loaded, "codecs").equals(entries(other, "codecs"))
+				&& entries(loaded, "headerExtensions").equals(entries(other, "headerExtensions"));
+	}
+
+	/**
+	 * @return Entries of the array as sorted JSON strings, a multiset that ignores the order
+	 */
+	private static List<String> entries(JSONObject rtpCapabilities, String name)
+	throws JSONException {
+		JSONArray array = rtpCapabilities.optJSONArray(name);
+		List<String> entries = new ArrayList<>();
+		if (array != null) {
+			for (int i = 0; i < array.length(); i++) {
+				entries.add(array.getJSONObject(i).toString());
+			}
+		}
+		Collections.sort(entries);
+
+		return entries;
+	}
+
+	/**
+	 * Audio first, then ranked video codecs, then anything else
+	 */
+	private static int rankOf(JSONObject codec, List<String> ranked) {
+		if (!"video".equals(codec.optString("kind"))) {
+			return -1;
+		}
+
+		String mimeType = codec.optString("mimeType");
+		for (int i = 0; i < ranked.size(); i++) {
+			if (ranked.get(i).equalsIgnoreCase(mimeType)) {
+				return i;
+			}
+		}
+
+		return ranked.size();
+	}
+}
@@ -0,0 +1,138 @@
+package com.example.mediasoupandroidsample.media;
+
+import com.example.mediasoupandroidsample.socket.LinkEstimate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Video send settings chosen before the first frame is encoded: capture profile,
+ * encoder start bitrate and which simulcast layers are sent
+ */
+public class EncodingLadder {
+	// Simulcast layer bitrates, lowest first
+	private static final int[] LAYER_BITRATES_BPS = { 500000, 1000000, 1500000 };
+	private static final int MAX_FRAMERATE = 60;
+	private static final int MAX_START_BITRATE_KBPS = 1000;
+	private static final int MIN_START_BITRATE_KBPS = 150;
+
+	// Share of the measured uplink given to video, the rest is left for audio, RTCP and retransmissions
+	private static final double UPLINK_HEADROOM = 0.8;
+	// Above this RTT losses take long to repair, keep more headroom
+	private static final long HIGH_RTT_MS = 300;
+	private static final double HIGH_RTT_HEADROOM = 0.6;
+
+	// Capture profiles, by uplink budget
+	private static final int LOW_BUDGET_BPS = 400000;
+	private static final int MEDIUM_BUDGET_BPS = 1000000;
+
+	// Settings used when the link is not measured
+	public static final EncodingLadder DEFAULT = new EncodingLadder(640, 480, 30, MAX_START_BITRATE_KBPS, LAYER_BITRATES_BPS.length);
+
+	private final int mCaptureWidth;
+	private final int mCaptureHeight;
+	private final int mCaptureFps;
+	private final int mStartBitrateKbps;
+	private final int mActiveLayers;
+
+	private EncodingLadder(int captureWidth, int captureHeight, int captureFps, int startBitrateKbps, int activeLayers) {
+		mCaptureWidth = captureWidth;
+		mCaptureHeight = captureHeight;
+		mCaptureFps = captureFps;
+		mStartBitrateKbps = startBitrateKbps;
+		mActiveLayers = activeLayers;
+	}
+
+	/**
+	 * Pick the settings for a measured link
+	 * @param estimate Link estimate from the pre-join probe
+	 * @return Encoding ladder, {@link #DEFAULT} if the uplink was not measured
+	 */
+	public static EncodingLadder forLink(LinkEstimate estimate) {
+		if (estimate.getUplinkBps() == LinkEstimate.UNKNOWN) {
+			return DEFAULT;
+		}
+
+		double headroom = estimate.getRttMs() > HIGH_RTT_MS ? HIGH_RTT_HEADROOM : UPLINK_HEADROOM;
+		long budgetBps = (long) (estimate.getUplinkBps() * headroom);
+
+		// Add layers while they fit, the lowest is always sent
+		int activeLayers = 1;
+		long layersBps = LAYER_BITRATES_BPS[0];
+		while (activeLayers < LAYER_BITRATES_BPS.length && layersBps + LAYER_BITRATES_BPS[activeLayers] <= budgetBps) {
+			layersBps += LAYER_BITRATES_BPS[activeLayers];
+			activeLayers++;
+		}
+
+		int startBitrateKbps = (int) Math.max(MIN_START_BITRATE_KBPS, Math.min(MAX_START_BITRATE_KBPS, budgetBps / 1000));
+
+		if (budgetBps < LOW_BUDGET_BPS) {
+			return new EncodingLadder(320, 240, 15, startBitrateKbps, activeLayers);
+		} else if (budgetBps < MEDIUM_BUDGET_BPS) {
+			return new EncodingLadder(640, 480, 15, startBitrateKbps, activeLayers);
+		}
+
+		return new EncodingLadder(640, 480, 30, startBitrateKbps, activeLayers);
+	}
+
+	public int getCaptureWidth() {
+		return mCaptureWidth;
+	}
+
+	public int getCaptureHeight() {
+		return mCaptureHeight;
+	}
+
+	public int getCaptureFps() {
+		return mCaptureFps;
+	}
+
+	public int getStartBitrateKbps() {
+		return mStartBitrateKbps;
+	}
+
+	public int getActiveLayers() {
+		return mActiveLayers;
+	}
+
+	/**
+	 * @return Producer codec options, one object as the SDK looks the keys up on it
+	 */
+	public String getCodecOptions() {
+		return "{\"videoGoogleStartBitrate\":" + mStartBitrateKbps + "}";
+	}
+
+	/**
+	 * Simulcast negotiates every layer so it can be turned on later, the ones above the budget start inactive.
+	 * VP9 is a single layer, not SVC: the SDK's encodings have no scalability mode, so the producer carries
+	 * none and the SFU has no spatial or temporal layers to pick from. Only the bitrate cap of the active
+	 * layers' total applies to it.
+	 * @param mimeType Video codec the producer sends with
+	 * @return Producer encodings, lowest layer first
+	 */
+	public List<VideoEncoding> createEncodings(String mimeType) {
+		List<VideoEncoding> encodings = new ArrayList<>();
+		if (CodecPreference.VP9.equalsIgnoreCase(mimeType)) {
+			// One layer, receivers all get this stream
+			int maxBitrateBps = 0;
+			for (int i = 0; i < mActiveLayers; i++) {
+				maxBitrateBps += LAYER_BITRATES_BPS[i];
+			}
+
+			encodings.add(new VideoEncoding(maxBitrateBps, MAX_FRAMERATE, true));
+			return encodings;
+		}
+
+		for (int i = 0; i < LAYER_BITRATES_BPS.length; i++) {
+			encodings.add(new VideoEncoding(LAYER_BITRATES_BPS[i], MAX_FRAMERATE, i < mActiveLayers));
+		}
+
+		return encodings;
+	}
+
+	@Override
+	public String toString() {
+		return "EncodingLadder{capture=" + mCaptureWidth + "x" + mCaptureHeight + "@" + mCaptureFps
+				+ ", startBitrateKbps=" + mStartBitrateKbps + ", activeLayers=" + mActiveLayers + "}";
+	}
+}
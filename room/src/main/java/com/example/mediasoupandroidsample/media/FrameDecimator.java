@@ -0,0 +1,128 @@
+package com.example.mediasoupandroidsample.media;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which frames of a track a small renderer gets and how large they are, e.g. 5-10 fps
+ * thumbnails for a grid tile while only the spotlight renders at full rate.
+ *
+ * Frames are due on a fixed grid from the first forwarded one so the rate does not drift,
+ * a little early is accepted as frame timestamps jitter.
+ */
+public class FrameDecimator {
+	// Full frame rate, no size limit
+	public static final int UNLIMITED = 0;
+
+	// Share of the interval a frame may arrive early and still be due
+	private static final int EARLY_TOLERANCE_DIVISOR = 8;
+
+	private volatile long mIntervalNs;
+	private volatile int mMaxSize;
+	// Guarded by this, the target can change from another thread while frames arrive
+	private long mNextFrameNs;
+	private long mForwardedCount;
+	private long mDroppedCount;
+
+	/**
+	 * @param targetFps Frames per second forwarded, {@link #UNLIMITED} for every frame
+	 * @param maxSize Longest side of forwarded frames in pixels, {@link #UNLIMITED} to keep the size
+	 */
+	public FrameDecimator(int targetFps, int maxSize) {
+		setTarget(targetFps, maxSize);
+	}
+
+	/**
+	 * Change the rate and size, e.g. when the tile moves in or out of the spotlight
+	 * @param targetFps Frames per second forwarded, {@link #UNLIMITED} for every frame
+	 * @param maxSize Longest side of forwarded frames in pixels, {@link #UNLIMITED} to keep the size
+	 */
+	public void setTarget(int targetFps, int maxSize) {
+		if (targetFps < 0 || maxSize < 0) {
+			throw new IllegalArgumentException("Negative target targetFps=" + targetFps + " maxSize=" + maxSize);
+		}
+
+		mIntervalNs = targetFps > 0 ? TimeUnit.SECONDS.toNanos(1) / targetFps : 0;
+		mMaxSize = maxSize;
+	}
+
+	/**
+	 * Count a frame as forwarded or dropped
+	 * @param timestampNs Frame timestamp
+	 * @return true if the frame is due and should be forwarded
+	 */
+	public synchronized boolean onFrame(long timestampNs) {
+		if (isDue(timestampNs)) {
+			mForwardedCount++;
+			return true;
+		}
+
+		mDroppedCount++;
+		return false;
+	}
+
+	/**
+	 * @param width Frame width
+	 * @param height Frame height
+	 * @return true if the frame is larger than the maximum size
+	 */
+	public boolean needsScaling(int width, int height) {
+		int maxSize = mMaxSize;
+		return maxSize != UNLIMITED && Math.max(width, height) > maxSize;
+	}
+
+	/**
+	 * @param width Frame width
+	 * @param height Frame height
+	 * @return Width of the frame scaled to fit the maximum size
+	 */
+	public int getScaledWidth(int width, int height) {
+		return scale(width, Math.max(width, height));
+	}
+
+	/**
+	 * @param width Frame width
+	 * @param height Frame height
+	 * @return Height of the frame scaled to fit the maximum size
+	 */
+	public int getScaledHeight(int width, int height) {
+		return scale(height, Math.max(width, height));
+	}
+
+	public synchronized long getForwardedCount() {
+		return mForwardedCount;
+	}
+
+	public synchronized long getDroppedCount() {
+		return mDroppedCount;
+	}
+
+	private boolean isDue(long timestampNs) {
+		long intervalNs = mIntervalNs;
+		if (intervalNs == 0) {
+			return true;
+		}
+
+		// First frame, a gap or a timestamp jump back: restart the grid instead of bursting to catch up
+		if (mNextFrameNs == 0 || timestampNs < mNextFrameNs - intervalNs || timestampNs - mNextFrameNs >= intervalNs) {
+			mNextFrameNs = timestampNs + intervalNs;
+			return true;
+		}
+
+		if (timestampNs < mNextFrameNs - intervalNs / EARLY_TOLERANCE_DIVISOR) {
+			return false;
+		}
+
+		mNextFrameNs += intervalNs;
+		return true;
+	}
+
+	private int scale(int size, int longest) {
+		int maxSize = mMaxSize;
+		if (maxSize == UNLIMITED || longest <= maxSize) {
+			return size;
+		}
+
+		// Even sizes keep chroma planes aligned if the frame is converted later
+		return Math.max(2, (int) ((long) size * maxSize / longest) & ~1);
+	}
+}
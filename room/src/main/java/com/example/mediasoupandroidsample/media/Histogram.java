@@ -0,0 +1,119 @@
+package com.example.mediasoupandroidsample.media;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size histogram, recording never allocates so it can sit on a per-frame path.
+ * Bucket i counts values up to and including bound i, the last bucket counts everything above.
+ */
+public class Histogram {
+	private final long[] mUpperBounds;
+	private final AtomicLongArray mCounts;
+
+	/**
+	 * @param upperBounds Bucket upper bounds, ascending
+	 */
+	public Histogram(long... upperBounds) {
+		for (int i = 1; i < upperBounds.length; i++) {
+			if (upperBounds[i] <= upperBounds[i - 1]) {
+				throw new IllegalArgumentException("upperBounds must be ascending");
+			}
+		}
+
+		mUpperBounds = upperBounds.clone();
+		mCounts = new AtomicLongArray(upperBounds.length + 1);
+	}
+
+	public void record(long value) {
+		mCounts.incrementAndGet(bucketOf(value));
+	}
+
+	/**
+	 * @return Number of buckets, including the overflow bucket
+	 */
+	public int getBucketCount() {
+		return mCounts.length();
+	}
+
+	/**
+	 * @param bucket Bucket index
+	 * @return Values recorded in the bucket
+	 */
+	public long getCount(int bucket) {
+		return mCounts.get(bucket);
+	}
+
+	public long getTotalCount() {
+		long total = 0;
+		for (int i = 0; i < mCounts.length(); i++) {
+			total += mCounts.get(i);
+		}
+
+		return total;
+	}
+
+	/**
+	 * @param percentile 0 to 100
+	 * @return Upper bound of the bucket holding the percentile, Long.MAX_VALUE in the overflow bucket, -1 if empty
+	 */
+	public long getPercentile(double percentile) {
+		long total = getTotalCount();
+		if (total == 0) {
+			return -1;
+		}
+
+		long rank = (long) Math.ceil(percentile / 100 * total);
+		long seen = 0;
+		for (int i = 0; i < mCounts.length(); i++) {
+			seen += mCounts.get(i);
+			if (seen >= rank && seen > 0) {
+				return i < mUpperBounds.length ? mUpperBounds[i] : Long.MAX_VALUE;
+			}
+		}
+
+		return Long.MAX_VALUE;
+	}
+
+	public void reset() {
+		for (int i = 0; i < mCounts.length(); i++) {
+			mCounts.set(i, 0);
+		}
+	}
+
+	private int bucketOf(long value) {
+		// Few buckets, a linear scan beats a binary search
+		for (int i = 0; i < mUpperBounds.length; i++) {
+			if (value <= mUpperBounds[i]) {
+				return i;
+			}
+		}
+
+		return mUpperBounds.length;
+	}
+
+	/**
+	 * @return Non-empty buckets as "<=bound:count"
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = 0; i < mCounts.length(); i++) {
+			long count = mCounts.get(i);
+			if (count == 0) {
+				continue;
+			}
+
+			if (builder.length() > 1) {
+				builder.append(' ');
+			}
+			if (i < mUpperBounds.length) {
+				builder.append("<=").append(mUpperBounds[i]);
+			} else {
+				builder.append('>').append(mUpperBounds[mUpperBounds.length - 1]);
+			}
+			builder.append(':').append(count);
+		}
+
+		return builder.append(']').toString();
+	}
+}
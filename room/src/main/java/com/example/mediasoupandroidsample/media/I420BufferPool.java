@@ -0,0 +1,123 @@
+package com.example.mediasoupandroidsample.media;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Bounded pool of direct buffers holding one I420 frame each, Y plane then U then V, tightly packed.
+ *
+ * CPU processing stages write their output into pooled buffers so the capture path allocates nothing
+ * per frame once warm. At most maxBuffers frames are out at a time, the encoder holds a few frames
+ * while encoding, so a stage finding the pool empty is running ahead of it and should drop the frame.
+ * A resolution change drops the free buffers of the old size.
+ */
+public class I420BufferPool {
+	private final int mMaxBuffers;
+
+	// Guarded by this
+	private final ArrayDeque<ByteBuffer> mFree;
+	private int mFrameSize;
+	private int mInUseCount;
+	private long mAllocatedCount;
+	private long mExhaustedCount;
+
+	/**
+	 * @param maxBuffers Most frames out at the same time
+	 */
+	public I420BufferPool(int maxBuffers) {
+		if (maxBuffers < 1) {
+			throw new IllegalArgumentException("maxBuffers must be at least 1");
+		}
+
+		mMaxBuffers = maxBuffers;
+		mFree = new ArrayDeque<>(maxBuffers);
+	}
+
+	/**
+	 * @param width Frame width
+	 * @param height Frame height
+	 * @return Bytes of an I420 frame, chroma planes are rounded up for odd sizes
+	 */
+	public static int frameSize(int width, int height) {
+		return width * height + 2 * chromaWidth(width) * chromaHeight(height);
+	}
+
+	public static int chromaWidth(int width) {
+		return (width + 1) / 2;
+	}
+
+	public static int chromaHeight(int height) {
+		return (height + 1) / 2;
+	}
+
+	/**
+	 * @param width Frame width
+	 * @param height Frame height
+	 * @return Cleared buffer of {@link #frameSize} bytes, null if every buffer is out
+	 */
+	public synchronized ByteBuffer acquire(int width, int height) {
+		int frameSize = frameSize(width, height);
+		if (frameSize != mFrameSize) {
+			// Resolution changed, buffers still out are dropped when they come back
+			mFree.clear();
+			mFrameSize = frameSize;
+		}
+
+		if (mInUseCount >= mMaxBuffers) {
+			mExhaustedCount++;
+			return null;
+		}
+
+		ByteBuffer buffer = mFree.poll();
+		if (buffer == null) {
+			buffer = ByteBuffer.allocateDirect(frameSize);
+			mAllocatedCount++;
+		}
+
+		mInUseCount++;
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Give a buffer back, called once the last frame using it was released
+	 * @param buffer Buffer from {@link #acquire}
+	 */
+	public synchronized void release(ByteBuffer buffer) {
+		mInUseCount--;
+		if (buffer.capacity() == mFrameSize && mFree.size() < mMaxBuffers) {
+			mFree.push(buffer);
+		}
+	}
+
+	/**
+	 * Drop the free buffers, e.g. when capture stops. Buffers still out are released as usual.
+	 */
+	public synchronized void clear() {
+		mFree.clear();
+	}
+
+	public synchronized int getInUseCount() {
+		return mInUseCount;
+	}
+
+	/**
+	 * @return Buffers allocated since creation, stays flat while the pool is reused
+	 */
+	public synchronized long getAllocatedCount() {
+		return mAllocatedCount;
+	}
+
+	/**
+	 * @return Times a buffer was asked for while all were out
+	 */
+	public synchronized long getExhaustedCount() {
+		return mExhaustedCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "I420BufferPool{max=" + mMaxBuffers + ", inUse=" + mInUseCount + ", allocated=" + mAllocatedCount
+				+ ", exhausted=" + mExhaustedCount + "}";
+	}
+}
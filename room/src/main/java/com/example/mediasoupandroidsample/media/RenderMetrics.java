@@ -0,0 +1,153 @@
+package com.example.mediasoupandroidsample.media;
+
+import com.example.mediasoupandroidsample.trace.Trace;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What one renderer actually showed: inter-frame intervals, freezes, frame rate, resolution changes
+ * and, for a remote track, how far video plays out from audio.
+ *
+ * A freeze is an interval of at least three times the average and at least 150ms above it,
+ * the same definition WebRTC uses for its freeze stats.
+ */
+public class RenderMetrics {
+	// Inter-frame interval buckets in ms, 60/30/15 fps land in their own buckets
+	private static final long[] INTERVAL_BOUNDS_MS = { 10, 20, 34, 50, 67, 100, 150, 200, 300, 500, 1000, 2000 };
+	// How far video lags audio in ms, lip sync is noticeable outside about -125..+45ms
+	private static final long[] SKEW_BOUNDS_MS = { -500, -250, -125, -45, 0, 45, 125, 250, 500 };
+
+	private static final long FREEZE_MIN_EXCESS_MS = 150;
+	private static final int FREEZE_AVERAGE_MULTIPLIER = 3;
+	// Weight of a new interval in the running average
+	private static final double AVERAGE_WEIGHT = 1.0 / 30;
+
+	// Trace events
+	private static final String TRACE_FREEZE = "freeze";
+	private static final String TRACE_RESOLUTION = "resolution";
+
+	private final String mName;
+	private final Histogram mIntervals;
+	private final Histogram mAvSkew;
+
+	private long mLastFrameNs;
+	private double mAverageIntervalMs;
+	private long mFrameCount;
+	private long mFreezeCount;
+	private long mFreezeDurationMs;
+	private int mWidth;
+	private int mHeight;
+	private long mResolutionChanges;
+
+	/**
+	 * @param name Consumer id or other name of the rendered track, used in traces
+	 */
+	public RenderMetrics(String name) {
+		mName = name;
+		mIntervals = new Histogram(INTERVAL_BOUNDS_MS);
+		mAvSkew = new Histogram(SKEW_BOUNDS_MS);
+	}
+
+	/**
+	 * Record a frame handed to the renderer
+	 * @param nowNs System.nanoTime() at the sink
+	 * @param width Rotated frame width
+	 * @param height Rotated frame height
+	 */
+	public synchronized void onFrame(long nowNs, int width, int height) {
+		mFrameCount++;
+
+		if (width != mWidth || height != mHeight) {
+			if (mWidth != 0) {
+				mResolutionChanges++;
+				Trace.record(Trace.CONSUMER, TRACE_RESOLUTION, mName, (long) width << 32 | height);
+			}
+			mWidth = width;
+			mHeight = height;
+		}
+
+		if (mLastFrameNs != 0) {
+			long intervalMs = TimeUnit.NANOSECONDS.toMillis(nowNs - mLastFrameNs);
+			mIntervals.record(intervalMs);
+
+			if (mAverageIntervalMs > 0 && isFreeze(intervalMs)) {
+				mFreezeCount++;
+				mFreezeDurationMs += intervalMs;
+				Trace.record(Trace.CONSUMER, TRACE_FREEZE, mName, intervalMs);
+				// A freeze says nothing about the frame rate, keep it out of the average
+			} else {
+				mAverageIntervalMs = mAverageIntervalMs == 0 ? intervalMs : mAverageIntervalMs + (intervalMs - mAverageIntervalMs) * AVERAGE_WEIGHT;
+			}
+		}
+		mLastFrameNs = nowNs;
+	}
+
+	/**
+	 * Record the playout difference between the video and the audio of the same peer
+	 * @param skewMs How far video lags audio, negative when video leads
+	 */
+	public void onAvSkew(long skewMs) {
+		mAvSkew.record(skewMs);
+	}
+
+	private boolean isFreeze(long intervalMs) {
+		return intervalMs >= Math.max(FREEZE_AVERAGE_MULTIPLIER * mAverageIntervalMs, mAverageIntervalMs + FREEZE_MIN_EXCESS_MS);
+	}
+
+	public String getName() {
+		return mName;
+	}
+
+	public Histogram getIntervals() {
+		return mIntervals;
+	}
+
+	public Histogram getAvSkew() {
+		return mAvSkew;
+	}
+
+	public synchronized long getFrameCount() {
+		return mFrameCount;
+	}
+
+	/**
+	 * @return Frames per second from the running average interval, freezes excluded
+	 */
+	public synchronized double getFramesPerSecond() {
+		return mAverageIntervalMs > 0 ? 1000 / mAverageIntervalMs : 0;
+	}
+
+	public synchronized long getFreezeCount() {
+		return mFreezeCount;
+	}
+
+	public synchronized long getFreezeDurationMs() {
+		return mFreezeDurationMs;
+	}
+
+	public synchronized long getResolutionChanges() {
+		return mResolutionChanges;
+	}
+
+	public synchronized int getWidth() {
+		return mWidth;
+	}
+
+	public synchronized int getHeight() {
+		return mHeight;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "RenderMetrics{" + mName
+				+ " frames=" + mFrameCount
+				+ " fps=" + Math.round(getFramesPerSecond())
+				+ " resolution=" + mWidth + "x" + mHeight
+				+ " resolutionChanges=" + mResolutionChanges
+				+ " freezes=" + mFreezeCount + "/" + mFreezeDurationMs + "ms"
+				+ " intervalP50=" + mIntervals.getPercentile(50)
+				+ " intervalP99=" + mIntervals.getPercentile(99)
+				+ " intervals=" + mIntervals
+				+ " avSkew=" + mAvSkew + "}";
+	}
+}
@@ -0,0 +1,83 @@
+package com.example.mediasoupandroidsample.media;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Processing time of one video frame processing stage, recorded per frame without allocating
+ */
+public class StageMetrics {
+	// Processing time buckets in us, a 30fps capture has 33ms per frame for every stage together
+	private static final long[] PROCESS_BOUNDS_US = { 100, 250, 500, 1000, 2000, 4000, 8000, 16000, 33000 };
+
+	private final String mName;
+	private final Histogram mProcessTimes;
+	private final AtomicLong mTotalUs;
+	private final AtomicLong mDroppedCount;
+
+	/**
+	 * @param name Stage name
+	 */
+	public StageMetrics(String name) {
+		mName = name;
+		mProcessTimes = new Histogram(PROCESS_BOUNDS_US);
+		mTotalUs = new AtomicLong();
+		mDroppedCount = new AtomicLong();
+	}
+
+	public String getName() {
+		return mName;
+	}
+
+	/**
+	 * @param durationNs Time the stage took on one frame
+	 */
+	public void onProcessed(long durationNs) {
+		long durationUs = TimeUnit.NANOSECONDS.toMicros(durationNs);
+		mProcessTimes.record(durationUs);
+		mTotalUs.addAndGet(durationUs);
+	}
+
+	/**
+	 * The stage dropped a frame, e.g. no pooled buffer was free
+	 */
+	public void onDropped() {
+		mDroppedCount.incrementAndGet();
+	}
+
+	public long getProcessedCount() {
+		return mProcessTimes.getTotalCount();
+	}
+
+	public long getDroppedCount() {
+		return mDroppedCount.get();
+	}
+
+	/**
+	 * @return Average processing time in us, 0 before the first frame
+	 */
+	public long getAverageUs() {
+		long count = getProcessedCount();
+		return count > 0 ? mTotalUs.get() / count : 0;
+	}
+
+	/**
+	 * @param percentile 0 to 100
+	 * @return Upper bound of the processing time bucket holding the percentile in us, -1 before the first frame
+	 */
+	public long getPercentileUs(double percentile) {
+		return mProcessTimes.getPercentile(percentile);
+	}
+
+	public void reset() {
+		mProcessTimes.reset();
+		mTotalUs.set(0);
+		mDroppedCount.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return "StageMetrics{" + mName + " processed=" + getProcessedCount() + " dropped=" + getDroppedCount()
+				+ " avg=" + getAverageUs() + "us p95<=" + getPercentileUs(95) + "us " + mProcessTimes + "}";
+	}
+}
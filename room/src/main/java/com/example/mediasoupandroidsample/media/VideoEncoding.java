@@ -0,0 +1,36 @@
+package com.example.mediasoupandroidsample.media;
+
+/**
+ * One video encoding of a producer, the SDK's RtpParameters.Encoding without the webrtc dependency
+ */
+public class VideoEncoding {
+	private final int mMaxBitrateBps;
+	private final int mMaxFramerate;
+	private final boolean mActive;
+
+	public VideoEncoding(int maxBitrateBps, int maxFramerate, boolean active) {
+		mMaxBitrateBps = maxBitrateBps;
+		mMaxFramerate = maxFramerate;
+		mActive = active;
+	}
+
+	public int getMaxBitrateBps() {
+		return mMaxBitrateBps;
+	}
+
+	public int getMaxFramerate() {
+		return mMaxFramerate;
+	}
+
+	/**
+	 * @return false for a negotiated layer that is not sent yet
+	 */
+	public boolean isActive() {
+		return mActive;
+	}
+
+	@Override
+	public String toString() {
+		return "VideoEncoding{maxBitrateBps=" + mMaxBitrateBps + ", maxFramerate=" + mMaxFramerate + ", active=" + mActive + "}";
+	}
+}
@@ -0,0 +1,16 @@
+package com.example.mediasoupandroidsample.room;
+
+/**
+ * Local capture the room produces from, shared by every room of a session
+ */
+public interface LocalMedia {
+	/**
+	 * @return Running camera track or null if video has not been prepared
+	 */
+	MediaTrack getVideoTrack();
+
+	/**
+	 * @return Microphone track, created on first use
+	 */
+	MediaTrack createAudioTrack();
+}
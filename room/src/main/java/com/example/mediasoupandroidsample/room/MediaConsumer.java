@@ -0,0 +1,30 @@
+package com.example.mediasoupandroidsample.room;
+
+/**
+ * The part of a mediasoup Consumer RoomClient and its listener use
+ */
+public interface MediaConsumer {
+	String getId();
+
+	String getKind();
+
+	/**
+	 * @return Remote track, rendered by the app
+	 */
+	MediaTrack getTrack();
+
+	/**
+	 * @return RTC stats report JSON
+	 * @throws MediaException Consumer closed
+	 */
+	String getStats()
+	throws MediaException;
+
+	boolean isClosed();
+
+	void close();
+
+	interface Listener {
+		void onTransportClose(MediaConsumer consumer);
+	}
+}
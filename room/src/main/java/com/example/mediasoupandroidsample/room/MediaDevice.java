@@ -0,0 +1,29 @@
+package com.example.mediasoupandroidsample.room;
+
+/**
+ * The part of a mediasoup Device RoomClient uses, so the client can run over fakes off-device
+ */
+public interface MediaDevice {
+	boolean isLoaded();
+
+	/**
+	 * @return Device RTP capabilities JSON
+	 * @throws MediaException Device not loaded
+	 */
+	String getRtpCapabilities()
+	throws MediaException;
+
+	/**
+	 * @param kind audio/video
+	 * @return true if the device can send the kind to the loaded router
+	 * @throws MediaException Device not loaded
+	 */
+	boolean canProduce(String kind)
+	throws MediaException;
+
+	MediaSendTransport createSendTransport(MediaSendTransport.Listener listener, String id, String iceParameters, String iceCandidates, String dtlsParameters)
+	throws MediaException;
+
+	MediaRecvTransport createRecvTransport(MediaTransport.Listener listener, String id, String iceParameters, String iceCandidates, String dtlsParameters)
+	throws MediaException;
+}
@@ -0,0 +1,16 @@
+package com.example.mediasoupandroidsample.room;
+
+/**
+ * Failure of the media layer underneath RoomClient, e.g. a wrapped MediasoupException
+ */
+public class MediaException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	public MediaException(String message) {
+		super(message);
+	}
+
+	public MediaException(Throwable cause) {
+		super(cause.getMessage(), cause);
+	}
+}
@@ -0,0 +1,27 @@
+package com.example.mediasoupandroidsample.room;
+
+/**
+ * The part of a mediasoup Producer RoomClient uses
+ */
+public interface MediaProducer {
+	String getId();
+
+	String getKind();
+
+	MediaTrack getTrack();
+
+	/**
+	 * @return RTC stats report JSON
+	 * @throws MediaException Producer closed
+	 */
+	String getStats()
+	throws MediaException;
+
+	boolean isClosed();
+
+	void close();
+
+	interface Listener {
+		void onTransportClose(MediaProducer producer);
+	}
+}
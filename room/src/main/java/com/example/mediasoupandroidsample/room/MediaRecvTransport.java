@@ -0,0 +1,18 @@
+package com.example.mediasoupandroidsample.room;
+
+/**
+ * The part of a mediasoup RecvTransport RoomClient uses
+ */
+public interface MediaRecvTransport extends MediaTransport {
+	/**
+	 * @param listener Told when the transport closes under the consumer
+	 * @param id Consumer id
+	 * @param producerId Remote producer id
+	 * @param kind audio/video
+	 * @param rtpParameters Consumer RTP parameters JSON
+	 * @return Consumer
+	 * @throws MediaException Failed to consume
+	 */
+	MediaConsumer consume(MediaConsumer.Listener listener, String id, String producerId, String kind, String rtpParameters)
+	throws MediaException;
+}
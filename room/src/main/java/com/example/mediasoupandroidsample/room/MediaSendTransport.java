@@ -0,0 +1,33 @@
+package com.example.mediasoupandroidsample.room;
+
+import com.example.mediasoupandroidsample.media.VideoEncoding;
+
+import java.util.List;
+
+/**
+ * The part of a mediasoup SendTransport RoomClient uses
+ */
+public interface MediaSendTransport extends MediaTransport {
+	/**
+	 * @param listener Told when the transport closes under the producer
+	 * @param track Local track
+	 * @param encodings Video encodings, null for audio or a single default encoding
+	 * @param codecOptions Codec options JSON
+	 * @return Producer
+	 * @throws MediaException Failed to produce
+	 */
+	MediaProducer produce(MediaProducer.Listener listener, MediaTrack track, List<VideoEncoding> encodings, String codecOptions)
+	throws MediaException;
+
+	interface Listener extends MediaTransport.Listener {
+		/**
+		 * A producer needs its server side id
+		 * @param transport Transport
+		 * @param kind audio/video
+		 * @param rtpParameters Producer RTP parameters JSON
+		 * @param appData App data JSON
+		 * @return Server side producer id
+		 */
+		String onProduce(MediaTransport transport, String kind, String rtpParameters, String appData);
+	}
+}
@@ -0,0 +1,13 @@
+package com.example.mediasoupandroidsample.room;
+
+/**
+ * A local or remote media track, the app unwraps it to render or capture
+ */
+public interface MediaTrack {
+	/**
+	 * @return audio/video
+	 */
+	String getKind();
+
+	void setEnabled(boolean enabled);
+}
@@ -0,0 +1,41 @@
+package com.example.mediasoupandroidsample.room;
+
+/**
+ * The part of a mediasoup Transport RoomClient uses
+ */
+public interface MediaTransport {
+	String getId();
+
+	/**
+	 * @return RTC stats report JSON
+	 * @throws MediaException Transport closed
+	 */
+	String getStats()
+	throws MediaException;
+
+	/**
+	 * @param iceParameters Remote ICE parameters from the server's restartIce answer
+	 * @throws MediaException Transport closed
+	 */
+	void restartIce(String iceParameters)
+	throws MediaException;
+
+	boolean isClosed();
+
+	void close();
+
+	interface Listener {
+		/**
+		 * The transport is about to connect, the local DTLS parameters must be signaled
+		 * @param transport Transport
+		 * @param dtlsParameters Local DTLS parameters JSON
+		 */
+		void onConnect(MediaTransport transport, String dtlsParameters);
+
+		/**
+		 * @param transport Transport
+		 * @param newState ICE connection state, e.g. connected/disconnected/failed
+		 */
+		void onConnectionStateChange(MediaTransport transport, String newState);
+	}
+}
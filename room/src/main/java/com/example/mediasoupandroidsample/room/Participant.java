@@ -0,0 +1,90 @@
+package com.example.mediasoupandroidsample.room;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable roster entry, a change creates a new instance so listeners can keep the one they were given
+ */
+public class Participant {
+	private final String mId;
+	private final String mDisplayName;
+	// producerId -> producer
+	private final Map<String, RemoteProducer> mProducers;
+
+	Participant(String id) {
+		this(id, null, Collections.<String, RemoteProducer>emptyMap());
+	}
+
+	private Participant(String id, String displayName, Map<String, RemoteProducer> producers) {
+		mId = id;
+		mDisplayName = displayName;
+		mProducers = producers;
+	}
+
+	public String getId() {
+		return mId;
+	}
+
+	/**
+	 * @return Display name or null if the user has not set one
+	 */
+	public String getDisplayName() {
+		return mDisplayName;
+	}
+
+	/**
+	 * @return Producers by producer id
+	 */
+	public Map<String, RemoteProducer> getProducers() {
+		return mProducers;
+	}
+
+	Participant withDisplayName(String displayName) {
+		return new Participant(mId, displayName, mProducers);
+	}
+
+	Participant withProducer(RemoteProducer producer) {
+		Map<String, RemoteProducer> producers = new HashMap<>(mProducers);
+		producers.put(producer.getId(), producer);
+		return new Participant(mId, mDisplayName, Collections.unmodifiableMap(producers));
+	}
+
+	@Override
+	public String toString() {
+		return "Participant{id=" + mId + ", displayName=" + mDisplayName + ", producers=" + mProducers.values() + "}";
+	}
+
+	/**
+	 * A remote user's producer, known from the consumer created for it
+	 */
+	public static class RemoteProducer {
+		private final String mId;
+		private final String mKind;
+		private final boolean mPaused;
+
+		RemoteProducer(String id, String kind, boolean paused) {
+			mId = id;
+			mKind = kind;
+			mPaused = paused;
+		}
+
+		public String getId() {
+			return mId;
+		}
+
+		public String getKind() {
+			return mKind;
+		}
+
+		public boolean isPaused() {
+			return mPaused;
+		}
+
+		@Override
+		public String toString() {
+			return mKind + ":" + mId + (mPaused ? "(paused)" : "");
+		}
+	}
+}
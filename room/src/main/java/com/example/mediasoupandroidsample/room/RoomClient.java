@@ -0,0 +1,887 @@
+package com.example.mediasoupandroidsample.room;
+
+import com.example.mediasoupandroidsample.log.Log;
+import com.example.mediasoupandroidsample.media.AudioController;
+import com.example.mediasoupandroidsample.media.AudioProfile;
+import com.example.mediasoupandroidsample.media.AvSync;
+import com.example.mediasoupandroidsample.media.CodecPreference;
+import com.example.mediasoupandroidsample.media.EncodingLadder;
+import com.example.mediasoupandroidsample.media.RenderMetrics;
+import com.example.mediasoupandroidsample.media.VideoEncoding;
+import com.example.mediasoupandroidsample.request.Request;
+import com.example.mediasoupandroidsample.socket.EchoSocket;
+import com.example.mediasoupandroidsample.trace.Trace;
+import com.example.mediasoupandroidsample.utils.SerialExecutor;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mediasoup room client
+ *
+ * The client may be driven from any thread. The lifecycle is an atomic {@link RoomState},
+ * work on the send side (send transport, producers) and on the recv side (recv transport, consumers)
+ * is serialized on one queue per side, so the two sides never wait on each other.
+ * The mediasoup device, transports, producers, consumers and local capture are reached through the
+ * narrow Media* interfaces, the app adapts the SDK to them and tests run the client over in-memory fakes.
+ */
+public class RoomClient {
+	private static final int STATS_INTERVAL_MS = 3000;
+	// A failed ICE restart is retried after 0.5s, 1s, 2s, 4s, 8s while the transport stays disconnected
+	private static final long ICE_RESTART_RETRY_MS = 500;
+	private static final int ICE_RESTART_MAX_RETRIES = 5;
+	private static final String TAG = "RoomClient";
+
+	// Trace events
+	private static final String TRACE_CREATED = "created";
+	private static final String TRACE_REPLACED = "replaced";
+	private static final String TRACE_CONNECT = "connect";
+	private static final String TRACE_PRODUCE = "produce";
+	private static final String TRACE_SEND_STATE = "sendState";
+	private static final String TRACE_RECV_STATE = "recvState";
+	private static final String TRACE_TRANSPORT_CLOSE = "transportClose";
+	private static final String TRACE_ICE_RESTARTED = "iceRestarted";
+	private static final String TRACE_ICE_RESTART_RETRY = "iceRestartRetry";
+	private static final String TRACE_ICE_RECOVERED = "iceRecovered";
+
+	// Shared by every client, idle threads are reused across join/leave cycles
+	private static final ExecutorService sExecutorService = Executors.newCachedThreadPool();
+
+	private final EchoSocket mSocket;
+	private final String mRoomId;
+	private final LocalMedia mLocalMedia;
+	private final ConcurrentHashMap<String, MediaProducer> mProducers;
+	private final ConcurrentHashMap<String, MediaConsumer> mConsumers;
+	private final ConcurrentHashMap<String, RenderMetrics> mRenderMetrics;
+	private final AvSync mAvSync;
+	// Only accessed on the recv queue
+	private final List<JSONObject> mConsumersInfo;
+	private final MediaDevice mDevice;
+	private final RoomListener mListener;
+	private final StatsScheduler mStatsScheduler;
+	private final AtomicReference<RoomState> mState;
+	private final SerialExecutor mSendQueue;
+	private final SerialExecutor mRecvQueue;
+	private final IceRestarter mSendIceRestarter;
+	private final IceRestarter mRecvIceRestarter;
+
+	private volatile MediaSendTransport mSendTransport;
+	private volatile MediaRecvTransport mRecvTransport;
+	private volatile EncodingLadder mEncodingLadder;
+	private volatile AudioController mAudioController;
+
+	/**
+	 * @param socket Connected socket
+	 * @param device Loaded device
+	 * @param roomId Room id
+	 * @param localMedia Local capture the room produces from
+	 * @param statsScheduler Runs the stats polls and ICE restart retries, cleared when the room is left
+	 * @param listener Room listener
+	 */
+	public RoomClient(EchoSocket socket, MediaDevice device, String roomId, LocalMedia localMedia, StatsScheduler statsScheduler, RoomListener listener) {
+		mSocket = socket;
+		mRoomId = roomId;
+		mDevice = device;
+		mProducers = new ConcurrentHashMap<>();
+		mConsumers = new ConcurrentHashMap<>();
+		mRenderMetrics = new ConcurrentHashMap<>();
+		mAvSync = new AvSync();
+		mLocalMedia = localMedia;
+		mConsumersInfo = new ArrayList<>();
+		mListener = listener;
+		mStatsScheduler = statsScheduler;
+		mState = new AtomicReference<>(RoomState.IDLE);
+		mSendQueue = new SerialExecutor(sExecutorService);
+		mRecvQueue = new SerialExecutor(sExecutorService);
+		mSendIceRestarter = new IceRestarter("send", mSendQueue);
+		mRecvIceRestarter = new IceRestarter("recv", mRecvQueue);
+		mEncodingLadder = EncodingLadder.DEFAULT;
+	}
+
+	/**
+	 * @return Current room state
+	 */
+	public RoomState getState() {
+		return mState.get();
+	}
+
+	/**
+	 * Join remote room
+	 * @throws Exception Login Room Failed
+	 */
+	public void join()
+	throws Exception {
+		// Check if the device is loaded
+		if (!mDevice.isLoaded()) {
+			throw new IllegalStateException("Device is not loaded");
+		}
+
+		// Only one caller may move the room out of idle
+		if (!mState.compareAndSet(RoomState.IDLE, RoomState.JOINING)) {
+			Log.w(TAG, "join() room already joined state=" + mState.get());
+			return;
+		}
+
+		try {
+			Request.sendLoginRoomRequest(mSocket, mRoomId, mDevice.getRtpCapabilities());
+		} catch (Exception e) {
+			mState.compareAndSet(RoomState.JOINING, RoomState.IDLE);
+			throw e;
+		}
+
+		if (!mState.compareAndSet(RoomState.JOINING, RoomState.JOINED)) {
+			throw new IllegalStateException("Room left while joining");
+		}
+
+		Log.d(TAG, "join() room joined");
+	}
+
+	/**
+	 * Leave the room, releasing the room's producers, consumers and transports in dependency order.
+	 * The device, media capturer and socket belong to the caller and are left untouched.
+	 */
+	public void leave() {
+		RoomState state;
+		do {
+			state = mState.get();
+			if (state == RoomState.IDLE || state == RoomState.LEAVING) {
+				Log.w(TAG, "leave() room not joined state=" + state);
+				return;
+			}
+		} while (!mState.compareAndSet(state, RoomState.LEAVING));
+
+		// Stop the stats loops first so nothing polls a closed object
+		mStatsScheduler.cancelAll();
+
+		// Queued behind any in-flight work on each side
+		Future<Void> sendClosed = mSendQueue.submit(() -> {
+			for (MediaProducer producer : mProducers.values()) {
+				producer.close();
+			}
+			mProducers.clear();
+
+			if (mSendTransport != null) {
+				mSendTransport.close();
+				mSendTransport = null;
+			}
+			return null;
+		});
+
+		Future<Void> recvClosed = mRecvQueue.submit(() -> {
+			for (MediaConsumer consumer : mConsumers.values()) {
+				consumer.close();
+			}
+			mConsumers.clear();
+			mConsumersInfo.clear();
+			mRenderMetrics.clear();
+			mAvSync.reset();
+
+			if (mRecvTransport != null) {
+				mRecvTransport.close();
+				mRecvTransport = null;
+			}
+			return null;
+		});
+
+		try {
+			await(sendClosed);
+			await(recvClosed);
+			Request.sendLeaveRoomRequest(mSocket, mRoomId);
+		} catch (Exception e) {
+			Log.e(TAG, "Failed to leave room cleanly", e);
+		}
+
+		mState.set(RoomState.IDLE);
+		Log.d(TAG, "leave() room left");
+	}
+
+	/**
+	 * Render metrics of a consumer, fed by the app renderer's FrameTimingSink
+	 * and, for video, by the playout skew against the audio consumer
+	 * @param consumerId Consumer id
+	 * @return Render metrics, created on first use and dropped when the consumer closes
+	 */
+	public RenderMetrics getRenderMetrics(String consumerId) {
+		RenderMetrics metrics = mRenderMetrics.get(consumerId);
+		if (metrics == null) {
+			RenderMetrics created = new RenderMetrics(consumerId);
+			metrics = mRenderMetrics.putIfAbsent(consumerId, created);
+			if (metrics == null) {
+				metrics = created;
+			}
+		}
+
+		return metrics;
+	}
+
+	/**
+	 * Restart ICE on both transports, e.g. after the device moved to a different network.
+	 * Producers and consumers are kept, only the ICE parameters are renewed.
+	 */
+	public void restartIce() {
+		mSendIceRestarter.restart(mSendTransport);
+		mRecvIceRestarter.restart(mRecvTransport);
+	}
+
+	/**
+	 * Create local send transport
+	 * @throws Exception create transport request failed
+	 */
+	public void createSendTransport()
+	throws Exception {
+		await(mSendQueue.submit(() -> {
+			requireJoined();
+
+			// Do nothing if send transport is already created
+			if (mSendTransport != null) {
+				Log.w(TAG, "createSendTransport() send transport is already created..");
+				return null;
+			}
+
+			createWebRtcTransport("send");
+			onTransportCreated();
+			return null;
+		}));
+	}
+
+	/**
+	 * Create local recv Transport
+	 * @throws Exception create transport request failed
+	 */
+	public void createRecvTransport()
+	throws Exception {
+		await(mRecvQueue.submit(() -> {
+			requireJoined();
+
+			// Do nothing if recv transport is already created
+			if (mRecvTransport != null) {
+				Log.w(TAG, "createRecvTransport() recv transport is already created..");
+				return null;
+			}
+
+			createWebRtcTransport("recv");
+			onTransportCreated();
+			return null;
+		}));
+	}
+
+	/**
+	 * Set the video send settings, used by the next {@link #produceVideo} call
+	 * @param encodingLadder Encoding ladder picked for the link
+	 */
+	public void setEncodingLadder(EncodingLadder encodingLadder) {
+		mEncodingLadder = encodingLadder;
+	}
+
+	public EncodingLadder getEncodingLadder() {
+		return mEncodingLadder;
+	}
+
+	/**
+	 * @param kind audio/video
+	 * @return true if a producer of the kind is open
+	 */
+	public boolean isProducing(String kind) {
+		for (MediaProducer producer : mProducers.values()) {
+			if (producer.getKind().equals(kind)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Start producing the video track already running in the local media, the app opens the camera
+	 * ahead of the send transport
+	 * @return Produced video track
+	 * @throws Exception Video not prepared or produce failed
+	 */
+	public MediaTrack produceVideo()
+	throws Exception {
+		return await(mSendQueue.submit(() -> {
+			if (mSendTransport == null) {
+				throw new IllegalStateException("Send Transport not created");
+			}
+
+			if (!mDevice.canProduce("video")) {
+				throw new IllegalStateException("Device cannot produce video");
+			}
+
+			MediaTrack videoTrack = mLocalMedia.getVideoTrack();
+			if (videoTrack == null) {
+				throw new IllegalStateException("Video not prepared");
+			}
+
+			// The router capabilities were ordered by hardware support before the device was loaded
+			String mimeType = CodecPreference.firstVideoCodec(new JSONObject(mDevice.getRtpCapabilities()));
+			EncodingLadder encodingLadder = mEncodingLadder;
+			createProducer(videoTrack, encodingLadder.getCodecOptions(), encodingLadder.createEncodings(mimeType));
+			Log.d(TAG, "produceVideo() video produce initialized " + mimeType + " " + encodingLadder);
+
+			return videoTrack;
+		}));
+	}
+
+	/**
+	 * Pause local video
+	 */
+	public void pauseLocalVideo() {
+		mSendQueue.execute(() -> pauseProducer("video"));
+	}
+
+	/**
+	 * Resume local video
+	 */
+	public void resumeLocalVideo() {
+		mSendQueue.execute(() -> resumeProducer("video"));
+	}
+
+	/**
+	 * Start producing Audio with the voice profile
+	 * @throws Exception Failed to produce audio
+	 */
+	public void produceAudio()
+	throws Exception {
+		produceAudio(AudioProfile.VOICE_MONO_LOWRATE);
+	}
+
+	/**
+	 * Start producing Audio, the listener is told when the producer's loss and RTT call for another profile
+	 * @param profile Audio profile
+	 * @throws Exception Failed to produce audio
+	 */
+	public void produceAudio(AudioProfile profile)
+	throws Exception {
+		await(mSendQueue.submit(() -> {
+			if (mSendTransport == null) {
+				throw new IllegalStateException("Send Transport not created");
+			}
+
+			if (!mDevice.canProduce("audio")) {
+				throw new IllegalStateException("Device cannot produce audio");
+			}
+
+			mAudioController = new AudioController(profile);
+			createProducer(mLocalMedia.createAudioTrack(), profile.toCodecOptions(), null);
+			Log.d(TAG, "produceAudio() audio produce initialized " + profile);
+			return null;
+		}));
+	}
+
+	/**
+	 * Pause local audio
+	 */
+	public void pauseLocalAudio() {
+		mSendQueue.execute(() -> pauseProducer("audio"));
+	}
+
+	/**
+	 * Resume local audio
+	 */
+	public void resumeLocalAudio() {
+		mSendQueue.execute(() -> resumeProducer("audio"));
+	}
+
+	/**
+	 * Start consuming remote consumer, safe to call from the socket reader thread as the work is queued
+	 * @param consumerInfo Consumer Info
+	 */
+	public void consumeTrack(JSONObject consumerInfo) {
+		mRecvQueue.execute(() -> {
+			try {
+				consumeTrackInternal(consumerInfo);
+			} catch (Exception e) {
+				Log.e(TAG, "Failed to consume remote track", e);
+			}
+		});
+	}
+
+	/**
+	 * Pause remote video
+	 */
+	public void pauseRemoteVideo() {
+		mRecvQueue.execute(() -> pauseConsumer("video"));
+	}
+
+	/**
+	 * Resume remote video
+	 */
+	public void resumeRemoteVideo() {
+		mRecvQueue.execute(() -> resumeConsumer("video"));
+	}
+
+	/**
+	 * Pause remote audio
+	 */
+	public void pauseRemoteAudio() {
+		mRecvQueue.execute(() -> pauseConsumer("audio"));
+	}
+
+	/**
+	 * Resume remote audio
+	 */
+	public void resumeRemoteAudio() {
+		mRecvQueue.execute(() -> resumeConsumer("audio"));
+	}
+
+	/**
+	 * Consume a remote track, runs on the recv queue
+	 * @param consumerInfo Consumer Info
+	 * @throws JSONException Failed to parse consumer info
+	 * @throws MediaException Failed to consume track
+	 */
+	private void consumeTrackInternal(JSONObject consumerInfo)
+	throws JSONException, MediaException {
+		if (mState.get() == RoomState.LEAVING) {
+			return;
+		}
+
+		if (mRecvTransport == null) {
+			// User has not yet created a transport for receiving so temporarily store it
+			// and play it when the recv transport is created
+			mConsumersInfo.add(consumerInfo);
+			return;
+		}
+
+		final String kind = consumerInfo.getString("kind");
+		// If already consuming type of track remove it, TODO: support multiple remotes?
+		for (MediaConsumer consumer : mConsumers.values()) {
+			if (consumer.getKind().equals(kind)) {
+				Trace.record(Trace.CONSUMER, TRACE_REPLACED, consumer.getId(), 0);
+				mConsumers.remove(consumer.getId());
+				mRenderMetrics.remove(consumer.getId());
+				consumer.close();
+			}
+		}
+
+		final String id = consumerInfo.getString("id");
+		final String producerId = consumerInfo.getString("producerId");
+		final String rtpParameters = consumerInfo.getJSONObject("rtpParameters").toString();
+
+		final MediaConsumer.Listener listener = consumer -> Trace.record(Trace.CONSUMER, TRACE_TRANSPORT_CLOSE, consumer.getId(), 0);
+
+		MediaConsumer kindConsumer = mRecvTransport.consume(listener, id, producerId, kind, rtpParameters);
+		mConsumers.put(kindConsumer.getId(), kindConsumer);
+		Trace.record(Trace.CONSUMER, TRACE_CREATED, kindConsumer.getId(), 0);
+		mListener.onNewConsumer(kindConsumer);
+
+		// Consumer RTC Stats
+		final Runnable consumerStatsRunnable = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					String stats = kindConsumer.getStats();
+					Request.sendRTCStatsReport(mSocket, mRoomId, stats);
+
+					mAvSync.onConsumerStats(kind, stats, System.currentTimeMillis());
+					if ("video".equals(kind) && mAvSync.hasSkew() && !kindConsumer.isClosed()) {
+						getRenderMetrics(kindConsumer.getId()).onAvSkew(mAvSync.getSkewMs());
+					}
+				} catch (Exception e) {
+					Log.e(TAG, "Failed to get consumer stats", e);
+				} finally {
+					if (!kindConsumer.isClosed()) {
+						mStatsScheduler.postDelayed(this, STATS_INTERVAL_MS);
+					}
+				}
+			}
+		};
+
+		mStatsScheduler.post(consumerStatsRunnable);
+	}
+
+	/**
+	 * Create local WebRtcTransport
+	 * @param direction send/recv
+	 * @throws Exception Create transport request failed
+	 */
+	private void createWebRtcTransport(String direction)
+	throws Exception {
+		JSONObject createWebRtcTransportResponse = Request.sendCreateWebRtcTransportRequest(mSocket, mRoomId, direction);
+		JSONObject webRtcTransportData = createWebRtcTransportResponse.getJSONObject("webRtcTransportData");
+
+		String id = webRtcTransportData.getString("id");
+		String iceParametersString = webRtcTransportData.getJSONObject("iceParameters").toString();
+		String iceCandidatesArrayString = webRtcTransportData.getJSONArray("iceCandidates").toString();
+		String dtlsParametersString = webRtcTransportData.getJSONObject("dtlsParameters").toString();
+
+		switch(direction) {
+			case "send":
+				createLocalWebRtcSendTransport(id, iceParametersString, iceCandidatesArrayString, dtlsParametersString);
+				break;
+			case "recv":
+				createLocalWebRtcRecvTransport(id, iceParametersString, iceCandidatesArrayString, dtlsParametersString);
+				break;
+			default: throw new IllegalStateException("Invalid Direction");
+		}
+	}
+
+	/**
+	 * Create local send WebRtcTransport
+	 * @throws MediaException Failed to create local send transport
+	 */
+	private void createLocalWebRtcSendTransport(String id, String remoteIceParameters, String remoteIceCandidatesArray, String remoteDtlsParameters)
+	throws MediaException {
+		final MediaSendTransport.Listener listener = new MediaSendTransport.Listener() {
+			@Override
+			public void onConnect(MediaTransport transport, String dtlsParameters) {
+				Trace.record(Trace.TRANSPORT, TRACE_CONNECT, transport.getId(), 0);
+				handleLocalTransportConnectEvent(transport, dtlsParameters);
+			}
+
+			@Override
+			public String onProduce(MediaTransport transport, String kind, String rtpParameters, String s2) {
+				Trace.record(Trace.PRODUCER, TRACE_PRODUCE, kind, rtpParameters.length());
+				return handleLocalTransportProduceEvent(transport, kind, rtpParameters, s2);
+			}
+
+			@Override
+			public void onConnectionStateChange(MediaTransport transport, String newState) {
+				Trace.record(Trace.TRANSPORT, TRACE_SEND_STATE, newState, 0);
+				mSendIceRestarter.onConnectionStateChange(transport, newState);
+			}
+		};
+
+		mSendTransport = mDevice.createSendTransport(listener, id, remoteIceParameters, remoteIceCandidatesArray, remoteDtlsParameters);
+		Trace.record(Trace.TRANSPORT, TRACE_CREATED, mSendTransport.getId(), 0);
+	}
+
+	/**
+	 * Create local recv WebRtcTransport
+	 * @throws JSONException JSON Error
+	 * @throws MediaException Failed to create local recv transport
+	 */
+	private void createLocalWebRtcRecvTransport(String id, String remoteIceParameters, String remoteIceCandidatesArray, String remoteDtlsParameters)
+	throws JSONException, MediaException {
+		final MediaTransport.Listener listener = new MediaTransport.Listener() {
+			@Override
+			public void onConnect(MediaTransport transport, String dtlsParameters) {
+				Trace.record(Trace.TRANSPORT, TRACE_CONNECT, transport.getId(), 0);
+				handleLocalTransportConnectEvent(transport, dtlsParameters);
+			}
+
+			@Override
+			public void onConnectionStateChange(MediaTransport transport, String newState) {
+				Trace.record(Trace.TRANSPORT, TRACE_RECV_STATE, newState, 0);
+				mRecvIceRestarter.onConnectionStateChange(transport, newState);
+			}
+		};
+
+		mRecvTransport = mDevice.createRecvTransport(listener, id, remoteIceParameters, remoteIceCandidatesArray, remoteDtlsParameters);
+		Trace.record(Trace.TRANSPORT, TRACE_CREATED, mRecvTransport.getId(), 0);
+
+		// Recv Transport created, consume any pending consumers
+		for (JSONObject consumerInfo : mConsumersInfo) {
+			consumeTrackInternal(consumerInfo);
+		}
+		mConsumersInfo.clear();
+	}
+
+	/**
+	 * Handle local Transport connect event
+	 */
+	private void handleLocalTransportConnectEvent(MediaTransport transport, String dtlsParameters) {
+		try {
+			Request.sendConnectWebRtcTransportRequest(mSocket, mRoomId, transport.getId(), dtlsParameters);
+
+			// Transport Stats
+			final Runnable transportStatsRunnable = new Runnable() {
+				@Override
+				public void run() {
+					try {
+						Request.sendRTCStatsReport(mSocket, mRoomId, transport.getStats());
+					} catch (Exception e) {
+						Log.e(TAG, "Failed to get transport stats");
+					} finally {
+						if (!transport.isClosed()) {
+							mStatsScheduler.postDelayed(this, STATS_INTERVAL_MS);
+						}
+					}
+				}
+			};
+
+			mStatsScheduler.post(transportStatsRunnable);
+		} catch (Exception e) {
+			Log.e(TAG, "transport::onConnect failed", e);
+		}
+	}
+
+	/**
+	 * Handle local Transport produce event
+	 */
+	private String handleLocalTransportProduceEvent(MediaTransport transport, String kind, String rtpParameters, String s2) {
+		try {
+			JSONObject transportProduceResponse = Request.sendProduceWebRtcTransportRequest(mSocket, mRoomId, transport.getId(), kind, rtpParameters);
+			return transportProduceResponse.getString("producerId");
+		} catch (Exception e) {
+			Log.e(TAG, "transport::onProduce failed", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Create local Producer, runs on the send queue
+	 * @throws MediaException Failed to create producer
+	 */
+	private void createProducer(MediaTrack track, String codecOptions, List<VideoEncoding> encodings)
+	throws MediaException {
+		final MediaProducer.Listener listener = producer -> Trace.record(Trace.PRODUCER, TRACE_TRANSPORT_CLOSE, producer.getId(), 0);
+
+		MediaProducer kindProducer = mSendTransport.produce(listener, track, encodings, codecOptions);
+		mProducers.put(kindProducer.getId(), kindProducer);
+		Trace.record(Trace.PRODUCER, TRACE_CREATED, kindProducer.getId(), 0);
+
+		// Producing is possible as soon as the send transport exists, the recv side may still be in progress
+		if (!mState.compareAndSet(RoomState.TRANSPORTS_READY, RoomState.PRODUCING)) {
+			mState.compareAndSet(RoomState.JOINED, RoomState.PRODUCING);
+		}
+
+		// Periodically get RTC Stats
+		final Runnable producerStatsRunnable = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					String stats = kindProducer.getStats();
+					Request.sendRTCStatsReport(mSocket, mRoomId, stats);
+					if ("audio".equals(kindProducer.getKind())) {
+						adaptAudio(stats);
+					}
+				} catch (Exception e) {
+					Log.e(TAG, "Failed to get producer stats", e);
+				} finally {
+					if (!kindProducer.isClosed()) {
+						mStatsScheduler.postDelayed(this, STATS_INTERVAL_MS);
+					}
+				}
+			}
+		};
+
+		Log.d(TAG, "Producer stats start");
+		mStatsScheduler.post(producerStatsRunnable);
+	}
+
+	/**
+	 * Feed a stats report to the audio controller. Its profile is only advised: the SDK can not change
+	 * a running producer's codec options or reach its RTP sender, and producing again would make every
+	 * peer recreate its consumer with a gap in the audio.
+	 */
+	private void adaptAudio(String stats) {
+		AudioController controller = mAudioController;
+		AudioProfile profile = controller != null ? controller.onStatsReport(stats) : null;
+		if (profile != null && mState.get() != RoomState.LEAVING) {
+			mListener.onAudioProfileChanged(profile);
+		}
+	}
+
+	/**
+	 * Move to transports ready once both transports exist
+	 */
+	private void onTransportCreated() {
+		if (mSendTransport != null && mRecvTransport != null) {
+			mState.compareAndSet(RoomState.JOINED, RoomState.TRANSPORTS_READY);
+		}
+	}
+
+	/**
+	 * @throws IllegalStateException The room is not joined
+	 */
+	private void requireJoined() {
+		RoomState state = mState.get();
+		if (state != RoomState.JOINED && state != RoomState.TRANSPORTS_READY && state != RoomState.PRODUCING) {
+			throw new IllegalStateException("Room not joined state=" + state);
+		}
+	}
+
+	private void pauseProducer(String kind) {
+		try {
+			Request.sendPauseProducerRequest(mSocket, mRoomId, getProducerByKind(kind).getId());
+		} catch (Exception e) {
+			Log.e(TAG, "Failed to pause " + kind + " producer", e);
+		}
+	}
+
+	private void resumeProducer(String kind) {
+		try {
+			Request.sendResumeProducerRequest(mSocket, mRoomId, getProducerByKind(kind).getId());
+		} catch (Exception e) {
+			Log.e(TAG, "Failed to resume " + kind + " producer", e);
+		}
+	}
+
+	private void pauseConsumer(String kind) {
+		try {
+			Request.sendPauseConsumerRequest(mSocket, mRoomId, getConsumerByKind(kind).getId());
+		} catch (Exception e) {
+			Log.e(TAG, "Failed to pause " + kind + " consumer", e);
+		}
+	}
+
+	private void resumeConsumer(String kind) {
+		try {
+			Request.sendResumeConsumerRequest(mSocket, mRoomId, getConsumerByKind(kind).getId());
+		} catch (Exception e) {
+			Log.e(TAG, "Failed to resume " + kind + " consumer", e);
+		}
+	}
+
+	/**
+	 * Wait for queued work and rethrow its failure
+	 * @param future Queued work
+	 * @return Result
+	 * @throws Exception Queued work failed
+	 */
+	private static <T> T await(Future<T> future)
+	throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+
+			throw ee;
+		}
+	}
+
+	private static long nowMs() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+	}
+
+	/**
+	 * @param kind Producer kind
+	 * @return Producer by kind
+	 */
+	private MediaProducer getProducerByKind(String kind) {
+		for (MediaProducer producer : mProducers.values()) {
+			if (producer.getKind().equals(kind)) {
+				return producer;
+			}
+		}
+
+		throw new IllegalStateException("No " + kind + " Producer");
+	}
+
+	private MediaConsumer getConsumerByKind(String kind) {
+		for (MediaConsumer consumer : mConsumers.values()) {
+			if (consumer.getKind().equals(kind)) {
+				return consumer;
+			}
+		}
+
+		throw new IllegalStateException("No " + kind + " Consumer");
+	}
+
+	/**
+	 * Restarts ICE on one transport when it disconnects and measures how long recovery takes
+	 */
+	private class IceRestarter {
+		private final String mDirection;
+		private final SerialExecutor mQueue;
+		private final AtomicBoolean mRestarting;
+		// Time the transport dropped, 0 while connected
+		private final AtomicLong mDisconnectedAt;
+		// Failed restarts in a row
+		private final AtomicInteger mFailures;
+
+		IceRestarter(String direction, SerialExecutor queue) {
+			mDirection = direction;
+			mQueue = queue;
+			mRestarting = new AtomicBoolean(false);
+			mDisconnectedAt = new AtomicLong(0);
+			mFailures = new AtomicInteger(0);
+		}
+
+		void onConnectionStateChange(MediaTransport transport, String newState) {
+			switch (newState) {
+				case "disconnected":
+				case "failed":
+					mDisconnectedAt.compareAndSet(0, nowMs());
+					restart(transport);
+					break;
+				case "connected":
+				case "completed":
+					long disconnectedAt = mDisconnectedAt.getAndSet(0);
+					mFailures.set(0);
+					if (disconnectedAt != 0) {
+						long recoveryMs = nowMs() - disconnectedAt;
+						Trace.record(Trace.TRANSPORT, TRACE_ICE_RECOVERED, mDirection, recoveryMs);
+						mListener.onTransportRecovered(mDirection, recoveryMs);
+					}
+					break;
+			}
+		}
+
+		void restart(MediaTransport transport) {
+			if (transport == null) {
+				return;
+			}
+
+			// A restart already in flight will pick up the new network too
+			if (!mRestarting.compareAndSet(false, true)) {
+				return;
+			}
+
+			mQueue.execute(() -> {
+				boolean failed = false;
+				try {
+					if (transport.isClosed() || mState.get() == RoomState.LEAVING) {
+						return;
+					}
+
+					JSONObject restartIceResponse = Request.sendRestartIceRequest(mSocket, mRoomId, transport.getId());
+					transport.restartIce(restartIceResponse.getJSONObject("iceParameters").toString());
+					mFailures.set(0);
+					Trace.record(Trace.TRANSPORT, TRACE_ICE_RESTARTED, mDirection, 0);
+				} catch (Exception e) {
+					Log.e(TAG, "Failed to restart " + mDirection + " transport ICE", e);
+					failed = true;
+				} finally {
+					mRestarting.set(false);
+				}
+
+				if (failed) {
+					retry(transport);
+				}
+			});
+		}
+
+		/**
+		 * Try again with a doubling delay while the transport is still disconnected, leaving cancels it
+		 */
+		private void retry(MediaTransport transport) {
+			// Reconnected on its own meanwhile, or a network change restart that needs no retry
+			if (mDisconnectedAt.get() == 0 || transport.isClosed() || mState.get() == RoomState.LEAVING) {
+				return;
+			}
+
+			int failures = mFailures.incrementAndGet();
+			if (failures > ICE_RESTART_MAX_RETRIES) {
+				Log.e(TAG, "Giving up restarting " + mDirection + " transport ICE after " + ICE_RESTART_MAX_RETRIES + " retries");
+				return;
+			}
+
+			long delayMs = ICE_RESTART_RETRY_MS << (failures - 1);
+			Trace.record(Trace.TRANSPORT, TRACE_ICE_RESTART_RETRY, mDirection, delayMs);
+			mStatsScheduler.postDelayed(() -> {
+				if (mDisconnectedAt.get() != 0) {
+					restart(transport);
+				}
+			}, delayMs);
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.example.mediasoupandroidsample.room;
+
+import com.example.mediasoupandroidsample.media.AudioProfile;
+
+public interface RoomListener {
+	public void onNewConsumer(MediaConsumer consumer);
+
+	/**
+	 * A transport reconnected after an ICE restart
+	 * @param direction send/recv
+	 * @param recoveryMs Time from disconnection to reconnection
+	 */
+	public default void onTransportRecovered(String direction, long recoveryMs) {}
+
+	/**
+	 * The audio producer's loss and RTT call for another profile, a running producer keeps its codec options
+	 * @param profile Advised profile, for the next produceAudio
+	 */
+	public default void onAudioProfileChanged(AudioProfile profile) {}
+}
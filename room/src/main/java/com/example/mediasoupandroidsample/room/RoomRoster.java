@@ -0,0 +1,260 @@
+package com.example.mediasoupandroidsample.room;
+
+import com.example.mediasoupandroidsample.log.Log;
+import com.example.mediasoupandroidsample.socket.ActionEvent;
+import com.example.mediasoupandroidsample.socket.MessageObserver;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Who is in the room and what they produce, kept up to date from the room's socket events.
+ *
+ * Every event is applied as a diff in constant time: participants are indexed by user id and by producer id.
+ * Changes are collected until the listener executor runs the flush, so a burst of events reaches the
+ * listeners as one batch holding each participant's net change.
+ *
+ * newuser:    { userId, displayName? }
+ * newconsumer: { consumerData: { producerUserId, producerId, kind, producerPaused } }
+ * userleft:   { userId }
+ * userupdate: { userId, displayName?, producerId?, producerPaused? }
+ */
+public class RoomRoster implements MessageObserver.Observer {
+	private static final String TAG = "RoomRoster";
+
+	private final Executor mListenerExecutor;
+	private final List<Listener> mListeners;
+
+	// Guarded by this
+	private final Map<String, Participant> mParticipants;
+	private final Map<String, String> mUserIdByProducerId;
+	private LinkedHashMap<String, RosterChange> mPending;
+	private boolean mFlushScheduled;
+
+	/**
+	 * @param listenerExecutor Runs the listener callbacks, e.g. the main thread
+	 */
+	public RoomRoster(Executor listenerExecutor) {
+		mListenerExecutor = listenerExecutor;
+		mListeners = new CopyOnWriteArrayList<>();
+		mParticipants = new LinkedHashMap<>();
+		mUserIdByProducerId = new HashMap<>();
+		mPending = new LinkedHashMap<>();
+	}
+
+	public void addListener(Listener listener) {
+		mListeners.add(listener);
+	}
+
+	public void removeListener(Listener listener) {
+		mListeners.remove(listener);
+	}
+
+	@Override
+	public void on(@ActionEvent.Event String event, JSONObject data) {
+		try {
+			switch (event) {
+				case ActionEvent.NEW_USER:
+					onNewUser(data);
+					break;
+				case ActionEvent.NEW_CONSUMER:
+					onNewConsumer(data.getJSONObject("consumerData"));
+					break;
+				case ActionEvent.USER_LEFT:
+					onUserLeft(data.getString("userId"));
+					break;
+				case ActionEvent.USER_UPDATE:
+					onUserUpdate(data);
+					break;
+			}
+		} catch (JSONException je) {
+			Log.e(TAG, "Failed to apply " + event, je);
+		}
+	}
+
+	/**
+	 * @param userId User id
+	 * @return Participant or null if the user is not in the room
+	 */
+	public synchronized Participant getParticipant(String userId) {
+		return mParticipants.get(userId);
+	}
+
+	/**
+	 * @param producerId Remote producer id
+	 * @return Participant producing it or null if unknown
+	 */
+	public synchronized Participant getParticipantByProducer(String producerId) {
+		String userId = mUserIdByProducerId.get(producerId);
+		return userId != null ? mParticipants.get(userId) : null;
+	}
+
+	public synchronized int getParticipantCount() {
+		return mParticipants.size();
+	}
+
+	/**
+	 * @return Copy of the participants in join order, for an initial render only, follow the changes after that
+	 */
+	public synchronized List<Participant> getParticipants() {
+		return new ArrayList<>(mParticipants.values());
+	}
+
+	/**
+	 * Forget everyone, e.g. after leaving the room. Listeners get a removal for each participant.
+	 */
+	public synchronized void clear() {
+		for (Participant participant : new ArrayList<>(mParticipants.values())) {
+			remove(participant.getId());
+		}
+	}
+
+	private synchronized void onNewUser(JSONObject data)
+	throws JSONException {
+		String userId = data.getString("userId");
+		Participant participant = mParticipants.get(userId);
+		boolean added = participant == null;
+		if (added) {
+			participant = new Participant(userId);
+		}
+		if (data.has("displayName")) {
+			participant = participant.withDisplayName(data.getString("displayName"));
+		}
+
+		put(participant, added ? RosterChange.Type.ADDED : RosterChange.Type.UPDATED);
+	}
+
+	private synchronized void onNewConsumer(JSONObject consumerData)
+	throws JSONException {
+		String userId = consumerData.getString("producerUserId");
+		Participant.RemoteProducer producer = new Participant.RemoteProducer(consumerData.getString("producerId"),
+				consumerData.getString("kind"), consumerData.optBoolean("producerPaused"));
+
+		// The consumer can arrive before the user's newuser
+		Participant participant = mParticipants.get(userId);
+		boolean added = participant == null;
+		if (added) {
+			participant = new Participant(userId);
+		}
+
+		mUserIdByProducerId.put(producer.getId(), userId);
+		put(participant.withProducer(producer), added ? RosterChange.Type.ADDED : RosterChange.Type.UPDATED);
+	}
+
+	private synchronized void onUserLeft(String userId) {
+		remove(userId);
+	}
+
+	private synchronized void onUserUpdate(JSONObject data)
+	throws JSONException {
+		Participant participant = mParticipants.get(data.getString("userId"));
+		if (participant == null) {
+			Log.w(TAG, "userupdate for unknown user " + data.getString("userId"));
+			return;
+		}
+
+		if (data.has("displayName")) {
+			participant = participant.withDisplayName(data.getString("displayName"));
+		}
+		if (data.has("producerId")) {
+			Participant.RemoteProducer producer = participant.getProducers().get(data.getString("producerId"));
+			if (producer != null) {
+				participant = participant.withProducer(new Participant.RemoteProducer(producer.getId(), producer.getKind(),
+						data.optBoolean("producerPaused", producer.isPaused())));
+			}
+		}
+
+		put(participant, RosterChange.Type.UPDATED);
+	}
+
+	private void put(Participant participant, RosterChange.Type type) {
+		mParticipants.put(participant.getId(), participant);
+		addPending(new RosterChange(type, participant));
+	}
+
+	private void remove(String userId) {
+		Participant participant = mParticipants.remove(userId);
+		if (participant == null) {
+			return;
+		}
+
+		for (String producerId : participant.getProducers().keySet()) {
+			mUserIdByProducerId.remove(producerId);
+		}
+		addPending(new RosterChange(RosterChange.Type.REMOVED, participant));
+	}
+
+	/**
+	 * Merge the change into the participant's pending change so a batch holds one change per participant
+	 */
+	private void addPending(RosterChange change) {
+		String userId = change.getParticipant().getId();
+		RosterChange previous = mPending.get(userId);
+		RosterChange merged = change;
+		if (previous != null) {
+			switch (change.getType()) {
+				case ADDED:
+					// Removed and back within the batch, listeners still have the old entry
+					if (previous.getType() == RosterChange.Type.REMOVED) {
+						merged = new RosterChange(RosterChange.Type.UPDATED, change.getParticipant());
+					}
+					break;
+				case UPDATED:
+					if (previous.getType() == RosterChange.Type.ADDED) {
+						merged = new RosterChange(RosterChange.Type.ADDED, change.getParticipant());
+					}
+					break;
+				case REMOVED:
+					// Never seen by the listeners
+					if (previous.getType() == RosterChange.Type.ADDED) {
+						merged = null;
+					}
+					break;
+			}
+		}
+
+		// Re-putting keeps the participant's place in the batch
+		if (merged != null) {
+			mPending.put(userId, merged);
+		} else {
+			mPending.remove(userId);
+		}
+
+		if (!mFlushScheduled && !mPending.isEmpty()) {
+			mFlushScheduled = true;
+			mListenerExecutor.execute(this::flush);
+		}
+	}
+
+	private void flush() {
+		List<RosterChange> changes;
+		synchronized (this) {
+			changes = new ArrayList<>(mPending.values());
+			mPending = new LinkedHashMap<>();
+			mFlushScheduled = false;
+		}
+
+		if (changes.isEmpty()) {
+			return;
+		}
+
+		for (Listener listener : mListeners) {
+			listener.onRosterChanged(changes);
+		}
+	}
+
+	public interface Listener {
+		/**
+		 * @param changes Net change of each participant that changed since the last batch, in order of first change
+		 */
+		void onRosterChanged(List<RosterChange> changes);
+	}
+}
@@ -0,0 +1,19 @@
+package com.example.mediasoupandroidsample.room;
+
+/**
+ * Room client lifecycle states, transitions happen atomically in {@link RoomClient}
+ */
+public enum RoomState {
+	// Not in the room
+	IDLE,
+	// Login request in flight
+	JOINING,
+	// Logged in to the room
+	JOINED,
+	// Send and recv transports created
+	TRANSPORTS_READY,
+	// At least one local producer created
+	PRODUCING,
+	// Tearing down the room's resources
+	LEAVING
+}
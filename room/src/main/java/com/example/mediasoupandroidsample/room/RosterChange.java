@@ -0,0 +1,32 @@
+package com.example.mediasoupandroidsample.room;
+
+/**
+ * One participant's net change within a batch
+ */
+public class RosterChange {
+	public enum Type { ADDED, UPDATED, REMOVED }
+
+	private final Type mType;
+	private final Participant mParticipant;
+
+	RosterChange(Type type, Participant participant) {
+		mType = type;
+		mParticipant = participant;
+	}
+
+	public Type getType() {
+		return mType;
+	}
+
+	/**
+	 * @return Participant after the change, the last known state for {@link Type#REMOVED}
+	 */
+	public Participant getParticipant() {
+		return mParticipant;
+	}
+
+	@Override
+	public String toString() {
+		return mType + " " + mParticipant.getId();
+	}
+}
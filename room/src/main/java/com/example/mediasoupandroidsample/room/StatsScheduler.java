@@ -0,0 +1,15 @@
+package com.example.mediasoupandroidsample.room;
+
+/**
+ * Runs RoomClient's periodic stats polls and delayed retries, the main thread on the device and a manual clock in tests
+ */
+public interface StatsScheduler {
+	void post(Runnable runnable);
+
+	void postDelayed(Runnable runnable, long delayMs);
+
+	/**
+	 * Drop every runnable posted and not yet run
+	 */
+	void cancelAll();
+}
@@ -0,0 +1,101 @@
+package com.example.mediasoupandroidsample.media;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AudioControllerTest {
+	@Test
+	public void sustainedLossTurnsFecOn() {
+		AudioController controller = new AudioController(AudioProfile.MUSIC_STEREO);
+
+		assertNull(controller.onStats(0.05, 50));
+		AudioProfile profile = controller.onStats(0.05, 50);
+
+		assertNotNull(profile);
+		assertTrue(profile.isFec());
+		assertEquals(40, profile.getPtimeMs());
+		assertEquals(72000, profile.getMaxAverageBitrate());
+		assertTrue(profile.isStereo());
+		assertEquals(1, controller.getAdjustmentCount());
+	}
+
+	@Test
+	public void singleLossSpikeIsIgnored() {
+		AudioController controller = new AudioController(AudioProfile.MUSIC_STEREO);
+
+		assertNull(controller.onStats(0.20, 50));
+		assertNull(controller.onStats(0.00, 50));
+		assertNull(controller.onStats(0.20, 50));
+
+		assertEquals(AudioProfile.MUSIC_STEREO, controller.getProfile());
+	}
+
+	@Test
+	public void highRttIsSevere() {
+		AudioController controller = new AudioController(AudioProfile.VOICE_MONO_LOWRATE);
+
+		controller.onStats(0, 600);
+		AudioProfile profile = controller.onStats(0, 600);
+
+		assertEquals(60, profile.getPtimeMs());
+		assertEquals(12000, profile.getMaxAverageBitrate());
+	}
+
+	@Test
+	public void recoveryIsOneStepAtATimeAfterCleanSamples() {
+		AudioController controller = new AudioController(AudioProfile.MUSIC_STEREO);
+		controller.onStats(0.15, 50);
+		controller.onStats(0.15, 50);
+
+		for (int i = 1; i < AudioController.RECOVER_SAMPLES; i++) {
+			assertNull(controller.onStats(0, 50));
+		}
+		AudioProfile lossy = controller.onStats(0, 50);
+		assertEquals(40, lossy.getPtimeMs());
+
+		// A sample between the thresholds restarts the count
+		for (int i = 1; i < AudioController.RECOVER_SAMPLES; i++) {
+			assertNull(controller.onStats(0, 50));
+		}
+		assertNull(controller.onStats(0.02, 50));
+		assertNull(controller.onStats(0, 50));
+
+		for (int i = 2; i < AudioController.RECOVER_SAMPLES; i++) {
+			assertNull(controller.onStats(0, 50));
+		}
+		assertEquals(AudioProfile.MUSIC_STEREO, controller.onStats(0, 50));
+		assertFalse(controller.getProfile().isFec());
+		assertEquals(3, controller.getAdjustmentCount());
+	}
+
+	@Test
+	public void remoteInboundStatsAreRead() {
+		AudioController controller = new AudioController(AudioProfile.VOICE_MONO_LOWRATE);
+		String stats = "[{\"type\":\"outbound-rtp\",\"kind\":\"audio\"},"
+				+ "{\"type\":\"remote-inbound-rtp\",\"kind\":\"audio\",\"fractionLost\":0.12,\"roundTripTime\":0.08}]";
+
+		assertNull(controller.onStatsReport(stats));
+		AudioProfile profile = controller.onStatsReport(stats);
+
+		assertEquals(60, profile.getPtimeMs());
+		assertNull(controller.onStatsReport("[{\"type\":\"outbound-rtp\"}]"));
+	}
+
+	@Test
+	public void codecOptionsAreOneObject()
+	throws Exception {
+		JSONObject codecOptions = new JSONObject(AudioProfile.VOICE_MONO_LOWRATE.toCodecOptions());
+
+		assertFalse(codecOptions.getBoolean("opusStereo"));
+		assertTrue(codecOptions.getBoolean("opusDtx"));
+		assertTrue(codecOptions.getBoolean("opusFec"));
+		assertEquals(20, codecOptions.getInt("opusPtime"));
+		assertEquals(24000, codecOptions.getInt("opusMaxAverageBitrate"));
+	}
+}
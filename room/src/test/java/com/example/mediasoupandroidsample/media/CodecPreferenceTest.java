@@ -0,0 +1,79 @@
+package com.example.mediasoupandroidsample.media;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CodecPreferenceTest {
+	private static final String ROUTER_RTP_CAPABILITIES = "{\"codecs\":["
+			+ "{\"kind\":\"audio\",\"mimeType\":\"audio/opus\",\"preferredPayloadType\":100},"
+			+ "{\"kind\":\"video\",\"mimeType\":\"video/VP8\",\"preferredPayloadType\":101},"
+			+ "{\"kind\":\"video\",\"mimeType\":\"video/rtx\",\"preferredPayloadType\":102},"
+			+ "{\"kind\":\"video\",\"mimeType\":\"video/VP9\",\"preferredPayloadType\":103},"
+			+ "{\"kind\":\"video\",\"mimeType\":\"video/rtx\",\"preferredPayloadType\":104},"
+			+ "{\"kind\":\"video\",\"mimeType\":\"video/H264\",\"preferredPayloadType\":105}"
+			+ "],\"headerExtensions\":[]}";
+
+	@Test
+	public void hardwareEncodersComeFirst() {
+		List<String> ranked = CodecPreference.rank(new HashSet<>(Arrays.asList(CodecPreference.H264, CodecPreference.VP9)),
+				new HashSet<>(Collections.singletonList(CodecPreference.H264)));
+
+		// Both encoders in hardware, H264 also decodes in hardware
+		assertEquals(Arrays.asList(CodecPreference.H264, CodecPreference.VP9, CodecPreference.VP8), ranked);
+	}
+
+	@Test
+	public void softwareOnlyPrefersTheCheapestEncoder() {
+		List<String> ranked = CodecPreference.rank(Collections.emptySet(), Collections.emptySet());
+
+		assertEquals(Arrays.asList(CodecPreference.VP8, CodecPreference.H264, CodecPreference.VP9), ranked);
+	}
+
+	@Test
+	public void videoCodecsAreReordered()
+	throws Exception {
+		List<String> ranked = Arrays.asList(CodecPreference.H264, CodecPreference.VP8, CodecPreference.VP9);
+
+		JSONObject preferred = CodecPreference.prefer(new JSONObject(ROUTER_RTP_CAPABILITIES), ranked);
+
+		JSONArray codecs = preferred.getJSONArray("codecs");
+		assertEquals(105, codecs.getJSONObject(1).getInt("preferredPayloadType"));
+		assertEquals(101, codecs.getJSONObject(2).getInt("preferredPayloadType"));
+		assertEquals(103, codecs.getJSONObject(3).getInt("preferredPayloadType"));
+		assertEquals(CodecPreference.H264, CodecPreference.firstVideoCodec(preferred));
+		assertEquals(0, preferred.getJSONArray("headerExtensions").length());
+	}
+
+	@Test
+	public void rtxIsNotAVideoCodec()
+	throws Exception {
+		JSONObject rtpCapabilities = new JSONObject("{\"codecs\":["
+				+ "{\"kind\":\"video\",\"mimeType\":\"video/rtx\"},"
+				+ "{\"kind\":\"video\",\"mimeType\":\"video/VP8\"}]}");
+
+		assertEquals(CodecPreference.VP8, CodecPreference.firstVideoCodec(rtpCapabilities));
+	}
+
+	@Test
+	public void reorderedCapabilitiesAreTheSameRouter()
+	throws Exception {
+		JSONObject router = new JSONObject(ROUTER_RTP_CAPABILITIES);
+		JSONObject preferred = CodecPreference.prefer(router, Arrays.asList(CodecPreference.H264, CodecPreference.VP9));
+
+		assertTrue(CodecPreference.isSameRouter(preferred, router));
+
+		JSONObject other = new JSONObject(ROUTER_RTP_CAPABILITIES);
+		other.getJSONArray("codecs").getJSONObject(1).put("preferredPayloadType", 96);
+		assertFalse(CodecPreference.isSameRouter(preferred, other));
+	}
+}
@@ -0,0 +1,49 @@
+package com.example.mediasoupandroidsample.media;
+
+import com.example.mediasoupandroidsample.socket.LinkEstimate;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EncodingLadderTest {
+	@Test
+	public void simulcastNegotiatesEveryLayer() {
+		List<VideoEncoding> encodings = EncodingLadder.DEFAULT.createEncodings(CodecPreference.VP8);
+
+		assertEquals(3, encodings.size());
+		assertEquals(500000, encodings.get(0).getMaxBitrateBps());
+		assertTrue(encodings.get(2).isActive());
+	}
+
+	@Test
+	public void vp9IsOneLayerCappedAtTheActiveLayers() {
+		List<VideoEncoding> encodings = EncodingLadder.DEFAULT.createEncodings(CodecPreference.VP9);
+
+		assertEquals(1, encodings.size());
+		assertEquals(3000000, encodings.get(0).getMaxBitrateBps());
+		assertTrue(encodings.get(0).isActive());
+	}
+
+	@Test
+	public void codecOptionsAreOneObject()
+	throws Exception {
+		JSONObject codecOptions = new JSONObject(EncodingLadder.DEFAULT.getCodecOptions());
+
+		assertEquals(EncodingLadder.DEFAULT.getStartBitrateKbps(), codecOptions.getInt("videoGoogleStartBitrate"));
+	}
+
+	@Test
+	public void layersAboveTheBudgetStartInactive() {
+		EncodingLadder ladder = EncodingLadder.forLink(new LinkEstimate(1000000, 1000000, 50));
+		List<VideoEncoding> encodings = ladder.createEncodings(CodecPreference.H264);
+
+		assertTrue(encodings.get(0).isActive());
+		assertFalse(encodings.get(2).isActive());
+	}
+}
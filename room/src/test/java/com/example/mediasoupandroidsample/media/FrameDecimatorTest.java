@@ -0,0 +1,123 @@
+package com.example.mediasoupandroidsample.media;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrameDecimatorTest {
+	private static final long FRAME_NS = TimeUnit.SECONDS.toNanos(1) / 30;
+
+	@Test
+	public void unlimitedForwardsEveryFrame() {
+		FrameDecimator decimator = new FrameDecimator(FrameDecimator.UNLIMITED, FrameDecimator.UNLIMITED);
+
+		assertEquals(30, feed(decimator, 1, 30));
+		assertEquals(0, decimator.getDroppedCount());
+	}
+
+	@Test
+	public void thirtyFpsIsDecimatedToTheTarget() {
+		FrameDecimator decimator = new FrameDecimator(10, FrameDecimator.UNLIMITED);
+
+		assertEquals(30, feed(decimator, 1, 90));
+		assertEquals(30, decimator.getForwardedCount());
+		assertEquals(60, decimator.getDroppedCount());
+	}
+
+	@Test
+	public void jitteredTimestampsKeepTheRate() {
+		FrameDecimator decimator = new FrameDecimator(5, FrameDecimator.UNLIMITED);
+
+		long timestampNs = 1;
+		int forwarded = 0;
+		for (int i = 0; i < 300; i++) {
+			// Up to 3ms early or late
+			long jitterNs = TimeUnit.MILLISECONDS.toNanos((i * 5 % 7) - 3);
+			if (decimator.onFrame(timestampNs + jitterNs)) {
+				forwarded++;
+			}
+			timestampNs += FRAME_NS;
+		}
+
+		// 10 seconds at 5 fps
+		assertEquals(50, forwarded, 1);
+	}
+
+	@Test
+	public void gapRestartsTheGridWithoutABurst() {
+		FrameDecimator decimator = new FrameDecimator(10, FrameDecimator.UNLIMITED);
+
+		long timestampNs = 1;
+		feed(decimator, timestampNs, 30);
+		timestampNs += 30 * FRAME_NS + TimeUnit.SECONDS.toNanos(2);
+
+		// Right after the gap only the grid rate is forwarded, not the missed frames
+		assertEquals(10, feed(decimator, timestampNs, 30));
+	}
+
+	@Test
+	public void raisingTheTargetTakesEffectForTheNextFrames() {
+		FrameDecimator decimator = new FrameDecimator(5, FrameDecimator.UNLIMITED);
+		long timestampNs = 1;
+		feed(decimator, timestampNs, 30);
+
+		decimator.setTarget(FrameDecimator.UNLIMITED, FrameDecimator.UNLIMITED);
+
+		assertEquals(30, feed(decimator, timestampNs + 30 * FRAME_NS, 30));
+	}
+
+	@Test
+	public void largeFramesAreScaledToTheMaxSize() {
+		FrameDecimator decimator = new FrameDecimator(FrameDecimator.UNLIMITED, 160);
+
+		assertTrue(decimator.needsScaling(1280, 720));
+		assertEquals(160, decimator.getScaledWidth(1280, 720));
+		assertEquals(90, decimator.getScaledHeight(1280, 720));
+		// Portrait keeps the longest side at the max size
+		assertEquals(90, decimator.getScaledWidth(720, 1280));
+		assertEquals(160, decimator.getScaledHeight(720, 1280));
+	}
+
+	@Test
+	public void scaledSizesAreEven() {
+		FrameDecimator decimator = new FrameDecimator(FrameDecimator.UNLIMITED, 100);
+
+		assertEquals(100, decimator.getScaledWidth(640, 360));
+		// 56.25 rounds down to an even 56
+		assertEquals(56, decimator.getScaledHeight(640, 360));
+		assertEquals(2, decimator.getScaledHeight(10000, 10));
+	}
+
+	@Test
+	public void smallFramesAreNotScaled() {
+		FrameDecimator decimator = new FrameDecimator(FrameDecimator.UNLIMITED, 160);
+
+		assertFalse(decimator.needsScaling(160, 120));
+		assertEquals(160, decimator.getScaledWidth(160, 120));
+		assertEquals(120, decimator.getScaledHeight(160, 120));
+		assertFalse(new FrameDecimator(10, FrameDecimator.UNLIMITED).needsScaling(1920, 1080));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeTargetIsRejected() {
+		new FrameDecimator(-1, FrameDecimator.UNLIMITED);
+	}
+
+	/**
+	 * @return Number of the 30 fps frames forwarded
+	 */
+	private static int feed(FrameDecimator decimator, long startNs, int frames) {
+		int forwarded = 0;
+		for (int i = 0; i < frames; i++) {
+			if (decimator.onFrame(startNs + i * FRAME_NS)) {
+				forwarded++;
+			}
+		}
+
+		return forwarded;
+	}
+}
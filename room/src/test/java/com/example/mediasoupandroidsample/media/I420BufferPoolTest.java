@@ -0,0 +1,58 @@
+package com.example.mediasoupandroidsample.media;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class I420BufferPoolTest {
+	@Test
+	public void releasedBuffersAreReused() {
+		I420BufferPool pool = new I420BufferPool(2);
+
+		for (int i = 0; i < 100; i++) {
+			ByteBuffer buffer = pool.acquire(640, 480);
+			assertEquals(640 * 480 * 3 / 2, buffer.capacity());
+			pool.release(buffer);
+		}
+
+		assertEquals(1, pool.getAllocatedCount());
+		assertEquals(0, pool.getInUseCount());
+	}
+
+	@Test
+	public void poolIsBounded() {
+		I420BufferPool pool = new I420BufferPool(2);
+		ByteBuffer first = pool.acquire(320, 240);
+		assertNotNull(pool.acquire(320, 240));
+
+		assertNull(pool.acquire(320, 240));
+		assertEquals(1, pool.getExhaustedCount());
+
+		pool.release(first);
+		assertSame(first, pool.acquire(320, 240));
+	}
+
+	@Test
+	public void resolutionChangeDropsOldBuffers() {
+		I420BufferPool pool = new I420BufferPool(2);
+		ByteBuffer small = pool.acquire(320, 240);
+		ByteBuffer big = pool.acquire(640, 480);
+
+		// Comes back after the change, not kept
+		pool.release(small);
+		pool.release(big);
+
+		assertSame(big, pool.acquire(640, 480));
+		assertEquals(2, pool.getAllocatedCount());
+	}
+
+	@Test
+	public void oddSizesRoundChromaUp() {
+		assertEquals(3 * 3 + 2 * 2 * 2, I420BufferPool.frameSize(3, 3));
+	}
+}
@@ -0,0 +1,109 @@
+package com.example.mediasoupandroidsample.media;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RenderMetricsTest {
+	private static final long FRAME_NS = TimeUnit.MILLISECONDS.toNanos(33);
+
+	@Test
+	public void steadyFramesHaveNoFreeze() {
+		RenderMetrics metrics = new RenderMetrics("consumer");
+
+		long now = render(metrics, 1, 90, 640, 480);
+
+		assertEquals(90, metrics.getFrameCount());
+		assertEquals(0, metrics.getFreezeCount());
+		assertEquals(30, Math.round(metrics.getFramesPerSecond()));
+		assertEquals(34, metrics.getIntervals().getPercentile(99));
+		assertTrue(now > 0);
+	}
+
+	@Test
+	public void longGapIsAFreeze() {
+		RenderMetrics metrics = new RenderMetrics("consumer");
+
+		long now = render(metrics, 1, 60, 640, 480);
+		now += TimeUnit.MILLISECONDS.toNanos(400);
+		render(metrics, now, 30, 640, 480);
+
+		assertEquals(1, metrics.getFreezeCount());
+		assertEquals(400, metrics.getFreezeDurationMs());
+		// The freeze does not drag the frame rate down
+		assertEquals(30, Math.round(metrics.getFramesPerSecond()));
+	}
+
+	@Test
+	public void shortHiccupIsNotAFreeze() {
+		RenderMetrics metrics = new RenderMetrics("consumer");
+
+		long now = render(metrics, 1, 60, 640, 480);
+		now += TimeUnit.MILLISECONDS.toNanos(100);
+		render(metrics, now, 30, 640, 480);
+
+		assertEquals(0, metrics.getFreezeCount());
+	}
+
+	@Test
+	public void resolutionChangesAreCounted() {
+		RenderMetrics metrics = new RenderMetrics("consumer");
+
+		long now = render(metrics, 1, 10, 640, 480);
+		now = render(metrics, now, 10, 320, 240);
+		render(metrics, now, 10, 640, 480);
+
+		assertEquals(2, metrics.getResolutionChanges());
+		assertEquals(640, metrics.getWidth());
+	}
+
+	@Test
+	public void histogramBucketsAndPercentiles() {
+		Histogram histogram = new Histogram(10, 20, 50);
+		for (int i = 0; i < 90; i++) {
+			histogram.record(5);
+		}
+		for (int i = 0; i < 9; i++) {
+			histogram.record(20);
+		}
+		histogram.record(1000);
+
+		assertEquals(4, histogram.getBucketCount());
+		assertEquals(10, histogram.getPercentile(50));
+		assertEquals(20, histogram.getPercentile(99));
+		assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+		assertEquals("[<=10:90 <=20:9 >50:1]", histogram.toString());
+	}
+
+	@Test
+	public void avSkewComparesOffsetsNotSampleTimes() {
+		AvSync avSync = new AvSync();
+		assertFalse(avSync.hasSkew());
+
+		// Audio sampled at 10000 playing 9900, video sampled 3s later playing 12700: video 200ms behind
+		avSync.onConsumerStats("audio", "[{\"type\":\"inbound-rtp\",\"estimatedPlayoutTimestamp\":9900}]", 10000);
+		avSync.onConsumerStats("video", "[{\"type\":\"inbound-rtp\",\"estimatedPlayoutTimestamp\":12700}]", 13000);
+
+		assertTrue(avSync.hasSkew());
+		assertEquals(200, avSync.getSkewMs());
+	}
+
+	/**
+	 * @return Time of the last frame
+	 */
+	private static long render(RenderMetrics metrics, long start, int frames, int width, int height) {
+		long now = start;
+		for (int i = 0; i < frames; i++) {
+			if (i > 0) {
+				now += FRAME_NS;
+			}
+			metrics.onFrame(now, width, height);
+		}
+
+		return now;
+	}
+}
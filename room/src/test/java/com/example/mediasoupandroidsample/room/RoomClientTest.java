@@ -0,0 +1,276 @@
+package com.example.mediasoupandroidsample.room;
+
+import com.example.mediasoupandroidsample.socket.MockSfuServer;
+import com.example.mediasoupandroidsample.media.AudioProfile;
+import com.example.mediasoupandroidsample.socket.EchoSocket;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RoomClientTest {
+	private static final long STATS_INTERVAL_MS = 3000;
+
+	private MockSfuServer mServer;
+	private EchoSocket mSocket;
+	private FakeMediaDevice mDevice;
+	private FakeLocalMedia mLocalMedia;
+	private ManualStatsScheduler mScheduler;
+	private BlockingQueue<MediaConsumer> mNewConsumers;
+	private BlockingQueue<String> mRecovered;
+	private BlockingQueue<AudioProfile> mAudioProfiles;
+	private RoomClient mClient;
+
+	@Before
+	public void setUp()
+	throws Exception {
+		mServer = new MockSfuServer();
+		String url = mServer.start();
+		mSocket = new EchoSocket();
+		mSocket.connect(url).get(5, TimeUnit.SECONDS);
+
+		mDevice = new FakeMediaDevice();
+		mLocalMedia = new FakeLocalMedia();
+		mScheduler = new ManualStatsScheduler();
+		mNewConsumers = new LinkedBlockingQueue<>();
+		mRecovered = new LinkedBlockingQueue<>();
+		mAudioProfiles = new LinkedBlockingQueue<>();
+		mClient = new RoomClient(mSocket, mDevice, "room", mLocalMedia, mScheduler, new RoomListener() {
+			@Override
+			public void onNewConsumer(MediaConsumer consumer) {
+				mNewConsumers.add(consumer);
+			}
+
+			@Override
+			public void onTransportRecovered(String direction, long recoveryMs) {
+				mRecovered.add(direction);
+			}
+
+			@Override
+			public void onAudioProfileChanged(AudioProfile profile) {
+				mAudioProfiles.add(profile);
+			}
+		});
+	}
+
+	@After
+	public void tearDown()
+	throws Exception {
+		mClient.leave();
+		mSocket.disconnect();
+		mServer.shutdown();
+	}
+
+	@Test
+	public void joinCreatesTransportsAndProduces()
+	throws Exception {
+		mClient.join();
+		mClient.createRecvTransport();
+		mClient.createSendTransport();
+		assertEquals(RoomState.TRANSPORTS_READY, mClient.getState());
+
+		mClient.produceAudio();
+		mLocalMedia.prepareVideo();
+		mClient.produceVideo();
+
+		assertEquals(RoomState.PRODUCING, mClient.getState());
+		FakeSendTransport sendTransport = mDevice.getSendTransport();
+		assertTrue(sendTransport.isConnected());
+		assertEquals(2, sendTransport.getProducers().size());
+		assertTrue(mClient.isProducing("audio"));
+		assertTrue(mClient.isProducing("video"));
+
+		// VP8 is simulcast, every layer is negotiated
+		FakeProducer video = sendTransport.getProducers().get(1);
+		assertEquals("video", video.getKind());
+		assertEquals(3, video.getEncodings().size());
+	}
+
+	@Test
+	public void produceVideoNeedsAPreparedTrack()
+	throws Exception {
+		mClient.join();
+		mClient.createSendTransport();
+
+		try {
+			mClient.produceVideo();
+			fail("Produced without a video track");
+		} catch (IllegalStateException expected) {
+			// Video not prepared
+		}
+		assertFalse(mClient.isProducing("video"));
+	}
+
+	@Test
+	public void consumersBeforeTheRecvTransportAreConsumedOnceItExists()
+	throws Exception {
+		mClient.join();
+		mClient.consumeTrack(consumerInfo("c1", "video"));
+		mClient.consumeTrack(consumerInfo("c2", "audio"));
+		mClient.createRecvTransport();
+
+		assertEquals("c1", mNewConsumers.poll(5, TimeUnit.SECONDS).getId());
+		assertEquals("c2", mNewConsumers.poll(5, TimeUnit.SECONDS).getId());
+		assertTrue(mDevice.getRecvTransport().isConnected());
+	}
+
+	@Test
+	public void newConsumerOfAKindReplacesTheOldOne()
+	throws Exception {
+		mClient.join();
+		mClient.createRecvTransport();
+
+		mClient.consumeTrack(consumerInfo("c1", "video"));
+		mClient.consumeTrack(consumerInfo("c2", "video"));
+		assertNotNull(mNewConsumers.poll(5, TimeUnit.SECONDS));
+		assertNotNull(mNewConsumers.poll(5, TimeUnit.SECONDS));
+
+		FakeRecvTransport recvTransport = mDevice.getRecvTransport();
+		FakeConsumer first = recvTransport.getConsumers().get(0);
+		FakeConsumer second = recvTransport.getConsumers().get(1);
+		assertTrue(first.isClosed());
+		assertFalse(second.isClosed());
+	}
+
+	@Test
+	public void statsArePolledEveryIntervalUntilLeave()
+	throws Exception {
+		mClient.join();
+		mClient.createSendTransport();
+		mClient.produceAudio();
+
+		// First transport and producer polls run right away
+		assertEquals(2, mScheduler.runDue());
+		FakeProducer audio = mDevice.getSendTransport().getProducers().get(0);
+		assertEquals(1, audio.getStatsCount());
+
+		assertEquals(0, mScheduler.advance(STATS_INTERVAL_MS - 1));
+		assertEquals(2, mScheduler.advance(1));
+		assertEquals(2, audio.getStatsCount());
+		assertEquals(2, mDevice.getSendTransport().getStatsCount());
+
+		mClient.leave();
+		assertEquals(0, mScheduler.getPendingCount());
+		assertTrue(audio.isClosed());
+		assertTrue(mDevice.getSendTransport().isClosed());
+		assertEquals(RoomState.IDLE, mClient.getState());
+	}
+
+	@Test
+	public void sustainedLossAdvisesAProfileWithoutProducingAgain()
+	throws Exception {
+		mClient.join();
+		mClient.createSendTransport();
+		mClient.produceAudio();
+		FakeSendTransport sendTransport = mDevice.getSendTransport();
+		FakeProducer audio = sendTransport.getProducers().get(0);
+
+		audio.setLink(0.20, 50);
+		mScheduler.runDue();
+		mScheduler.advance(STATS_INTERVAL_MS);
+
+		AudioProfile advised = mAudioProfiles.poll(5, TimeUnit.SECONDS);
+		assertNotNull(advised);
+		assertTrue(advised.isFec());
+		assertNotEquals(AudioProfile.VOICE_MONO_LOWRATE, advised);
+
+		// The running producer keeps streaming, peers keep their consumers
+		assertEquals(1, sendTransport.getProducers().size());
+		assertFalse(audio.isClosed());
+		assertEquals(AudioProfile.VOICE_MONO_LOWRATE.toCodecOptions(), audio.getCodecOptions());
+	}
+
+	@Test
+	public void disconnectedTransportRestartsIceAndReportsRecovery()
+	throws Exception {
+		mClient.join();
+		mClient.createSendTransport();
+		FakeSendTransport sendTransport = mDevice.getSendTransport();
+
+		sendTransport.setConnectionState("disconnected");
+		awaitTrue(() -> sendTransport.getIceRestartCount() == 1);
+		assertTrue(new JSONObject(sendTransport.getIceParameters()).has("usernameFragment"));
+
+		sendTransport.setConnectionState("connected");
+		assertEquals("send", mRecovered.poll(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void failedIceRestartIsRetriedWithBackoffWhileDisconnected()
+	throws Exception {
+		mClient.join();
+		mClient.createSendTransport();
+		FakeSendTransport sendTransport = mDevice.getSendTransport();
+		sendTransport.failIceRestarts(2);
+
+		sendTransport.setConnectionState("disconnected");
+		awaitTrue(() -> sendTransport.getIceRestartAttempts() == 1);
+		awaitTrue(() -> mScheduler.getPendingCount() == 1);
+
+		// First retry after 500ms, the second after 1s
+		mScheduler.advance(499);
+		assertEquals(1, sendTransport.getIceRestartAttempts());
+		mScheduler.advance(1);
+		awaitTrue(() -> sendTransport.getIceRestartAttempts() == 2);
+		awaitTrue(() -> mScheduler.getPendingCount() == 1);
+
+		mScheduler.advance(999);
+		assertEquals(2, sendTransport.getIceRestartAttempts());
+		mScheduler.advance(1);
+		awaitTrue(() -> sendTransport.getIceRestartCount() == 1);
+		assertEquals(3, sendTransport.getIceRestartAttempts());
+	}
+
+	@Test
+	public void failedIceRestartIsNotRetriedOnceReconnected()
+	throws Exception {
+		mClient.join();
+		mClient.createSendTransport();
+		FakeSendTransport sendTransport = mDevice.getSendTransport();
+		sendTransport.failIceRestarts(Integer.MAX_VALUE);
+
+		sendTransport.setConnectionState("disconnected");
+		awaitTrue(() -> mScheduler.getPendingCount() == 1);
+		sendTransport.setConnectionState("connected");
+
+		// The pending retry finds the transport connected and does nothing
+		mScheduler.advance(500);
+		Thread.sleep(100);
+		assertEquals(1, sendTransport.getIceRestartAttempts());
+		assertEquals(0, mScheduler.getPendingCount());
+	}
+
+	private static JSONObject consumerInfo(String id, String kind)
+	throws Exception {
+		JSONObject consumerInfo = new JSONObject();
+		consumerInfo.put("id", id);
+		consumerInfo.put("producerId", "p-" + id);
+		consumerInfo.put("kind", kind);
+		consumerInfo.put("rtpParameters", new JSONObject());
+		return consumerInfo;
+	}
+
+	private static void awaitTrue(BooleanSupplier condition)
+	throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				fail("Condition not met in time");
+			}
+			Thread.sleep(10);
+		}
+	}
+}
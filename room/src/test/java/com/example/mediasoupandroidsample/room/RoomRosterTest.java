@@ -0,0 +1,122 @@
+package com.example.mediasoupandroidsample.room;
+
+import com.example.mediasoupandroidsample.socket.ActionEvent;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RoomRosterTest {
+	// Runs the flush when the test says so, everything before it is one batch
+	private final List<Runnable> mFlushes = new ArrayList<>();
+	private final List<List<RosterChange>> mBatches = new ArrayList<>();
+	private RoomRoster mRoster;
+
+	@Before
+	public void createRoster() {
+		mRoster = new RoomRoster(mFlushes::add);
+		mRoster.addListener(mBatches::add);
+	}
+
+	@Test
+	public void participantsAreIndexedByIdAndProducer()
+	throws Exception {
+		mRoster.on(ActionEvent.NEW_USER, new JSONObject().put("userId", "alice").put("displayName", "Alice"));
+		mRoster.on(ActionEvent.NEW_CONSUMER, consumer("alice", "p1", "video"));
+		mRoster.on(ActionEvent.NEW_CONSUMER, consumer("alice", "p2", "audio"));
+
+		assertEquals("Alice", mRoster.getParticipant("alice").getDisplayName());
+		assertEquals(2, mRoster.getParticipant("alice").getProducers().size());
+		assertEquals("alice", mRoster.getParticipantByProducer("p2").getId());
+
+		mRoster.on(ActionEvent.USER_LEFT, new JSONObject().put("userId", "alice"));
+
+		assertNull(mRoster.getParticipant("alice"));
+		assertNull(mRoster.getParticipantByProducer("p1"));
+		assertEquals(0, mRoster.getParticipantCount());
+	}
+
+	@Test
+	public void burstIsDeliveredAsOneBatchOfNetChanges()
+	throws Exception {
+		mRoster.on(ActionEvent.NEW_USER, new JSONObject().put("userId", "alice"));
+		mRoster.on(ActionEvent.NEW_USER, new JSONObject().put("userId", "bob"));
+		flush();
+		assertEquals(1, mBatches.size());
+		assertEquals(2, mBatches.get(0).size());
+
+		// alice joins and leaves unseen, bob updates twice, carol joins then produces
+		mRoster.on(ActionEvent.USER_LEFT, new JSONObject().put("userId", "alice"));
+		mRoster.on(ActionEvent.USER_UPDATE, new JSONObject().put("userId", "bob").put("displayName", "B"));
+		mRoster.on(ActionEvent.NEW_USER, new JSONObject().put("userId", "carol"));
+		mRoster.on(ActionEvent.USER_UPDATE, new JSONObject().put("userId", "bob").put("displayName", "Bob"));
+		mRoster.on(ActionEvent.NEW_CONSUMER, consumer("carol", "p3", "video"));
+		mRoster.on(ActionEvent.NEW_USER, new JSONObject().put("userId", "dave"));
+		mRoster.on(ActionEvent.USER_LEFT, new JSONObject().put("userId", "dave"));
+		assertEquals(1, mFlushes.size());
+		flush();
+
+		List<RosterChange> batch = mBatches.get(1);
+		assertEquals(3, batch.size());
+		assertEquals("REMOVED alice", batch.get(0).toString());
+		assertEquals("UPDATED bob", batch.get(1).toString());
+		assertEquals("Bob", batch.get(1).getParticipant().getDisplayName());
+		assertEquals("ADDED carol", batch.get(2).toString());
+		assertEquals(1, batch.get(2).getParticipant().getProducers().size());
+	}
+
+	@Test
+	public void producerPauseIsAnUpdate()
+	throws Exception {
+		mRoster.on(ActionEvent.NEW_CONSUMER, consumer("alice", "p1", "video"));
+		flush();
+
+		mRoster.on(ActionEvent.USER_UPDATE, new JSONObject().put("userId", "alice").put("producerId", "p1").put("producerPaused", true));
+		flush();
+
+		assertTrue(mRoster.getParticipant("alice").getProducers().get("p1").isPaused());
+		assertEquals(RosterChange.Type.UPDATED, mBatches.get(1).get(0).getType());
+	}
+
+	@Test
+	public void largeRoomChangesStayConstantPerEvent()
+	throws Exception {
+		for (int i = 0; i < 1000; i++) {
+			mRoster.on(ActionEvent.NEW_USER, new JSONObject().put("userId", "user" + i));
+		}
+		flush();
+
+		mRoster.on(ActionEvent.USER_LEFT, new JSONObject().put("userId", "user500"));
+		flush();
+
+		assertEquals(999, mRoster.getParticipantCount());
+		assertEquals(1000, mBatches.get(0).size());
+		assertEquals(1, mBatches.get(1).size());
+	}
+
+	private void flush() {
+		List<Runnable> flushes = new ArrayList<>(mFlushes);
+		mFlushes.clear();
+		for (Runnable flush : flushes) {
+			flush.run();
+		}
+	}
+
+	private static JSONObject consumer(String userId, String producerId, String kind)
+	throws Exception {
+		JSONObject consumerData = new JSONObject()
+				.put("producerUserId", userId)
+				.put("producerId", producerId)
+				.put("kind", kind)
+				.put("producerPaused", false);
+
+		return new JSONObject().put("consumerData", consumerData);
+	}
+}
@@ -0,0 +1,78 @@
+package com.example.mediasoupandroidsample.room;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consumer whose stats report a playout position advancing with the local clock
+ */
+public class FakeConsumer implements MediaConsumer {
+	private final String mId;
+	private final String mProducerId;
+	private final MediaTrack mTrack;
+	private final AtomicInteger mStatsCount;
+	private volatile long mPlayoutDelayMs;
+	private volatile boolean mClosed;
+
+	FakeConsumer(String id, String producerId, MediaTrack track) {
+		mId = id;
+		mProducerId = producerId;
+		mTrack = track;
+		mStatsCount = new AtomicInteger();
+	}
+
+	@Override
+	public String getId() {
+		return mId;
+	}
+
+	@Override
+	public String getKind() {
+		return mTrack.getKind();
+	}
+
+	@Override
+	public MediaTrack getTrack() {
+		return mTrack;
+	}
+
+	@Override
+	public String getStats()
+	throws MediaException {
+		if (mClosed) {
+			throw new MediaException("Consumer closed id=" + mId);
+		}
+
+		int count = mStatsCount.incrementAndGet();
+		long playoutMs = System.currentTimeMillis() - mPlayoutDelayMs;
+		return "[{\"type\":\"inbound-rtp\",\"kind\":\"" + getKind() + "\",\"packetsReceived\":" + count * 50
+				+ ",\"estimatedPlayoutTimestamp\":" + playoutMs + "}]";
+	}
+
+	@Override
+	public boolean isClosed() {
+		return mClosed;
+	}
+
+	@Override
+	public void close() {
+		mClosed = true;
+	}
+
+	/**
+	 * @param playoutDelayMs How far playout lags the local clock, differing audio and video delays give A/V skew
+	 */
+	public void setPlayoutDelayMs(long playoutDelayMs) {
+		mPlayoutDelayMs = playoutDelayMs;
+	}
+
+	public String getProducerId() {
+		return mProducerId;
+	}
+
+	/**
+	 * @return Number of stats polls
+	 */
+	public int getStatsCount() {
+		return mStatsCount.get();
+	}
+}
@@ -0,0 +1,26 @@
+package com.example.mediasoupandroidsample.room;
+
+/**
+ * Local capture without a camera or microphone
+ */
+public class FakeLocalMedia implements LocalMedia {
+	private final FakeTrack mAudioTrack = new FakeTrack("audio");
+	private volatile FakeTrack mVideoTrack;
+
+	/**
+	 * Start the fake camera, as the app does before producing video
+	 */
+	public void prepareVideo() {
+		mVideoTrack = new FakeTrack("video");
+	}
+
+	@Override
+	public MediaTrack getVideoTrack() {
+		return mVideoTrack;
+	}
+
+	@Override
+	public MediaTrack createAudioTrack() {
+		return mAudioTrack;
+	}
+}
@@ -0,0 +1,83 @@
+package com.example.mediasoupandroidsample.room;
+
+import com.example.mediasoupandroidsample.socket.MockSfuServer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory device for running RoomClient on a JVM, loaded with the mock server's router capabilities.
+ * Transports, producers and consumers only keep state, no media flows.
+ */
+public class FakeMediaDevice implements MediaDevice {
+	private final String mRtpCapabilities;
+	private final List<FakeTransport> mTransports;
+
+	public FakeMediaDevice() {
+		this(MockSfuServer.ROUTER_RTP_CAPABILITIES);
+	}
+
+	/**
+	 * @param rtpCapabilities Capabilities the device reports, e.g. the router's
+	 */
+	public FakeMediaDevice(String rtpCapabilities) {
+		mRtpCapabilities = rtpCapabilities;
+		mTransports = new CopyOnWriteArrayList<>();
+	}
+
+	@Override
+	public boolean isLoaded() {
+		return true;
+	}
+
+	@Override
+	public String getRtpCapabilities() {
+		return mRtpCapabilities;
+	}
+
+	@Override
+	public boolean canProduce(String kind) {
+		return "audio".equals(kind) || "video".equals(kind);
+	}
+
+	@Override
+	public MediaSendTransport createSendTransport(MediaSendTransport.Listener listener, String id, String iceParameters, String iceCandidates, String dtlsParameters)
+	throws MediaException {
+		FakeSendTransport transport = new FakeSendTransport(listener, id);
+		mTransports.add(transport);
+		return transport;
+	}
+
+	@Override
+	public MediaRecvTransport createRecvTransport(MediaTransport.Listener listener, String id, String iceParameters, String iceCandidates, String dtlsParameters)
+	throws MediaException {
+		FakeRecvTransport transport = new FakeRecvTransport(listener, id);
+		mTransports.add(transport);
+		return transport;
+	}
+
+	/**
+	 * @return Latest send transport or null
+	 */
+	public FakeSendTransport getSendTransport() {
+		return latest(FakeSendTransport.class);
+	}
+
+	/**
+	 * @return Latest recv transport or null
+	 */
+	public FakeRecvTransport getRecvTransport() {
+		return latest(FakeRecvTransport.class);
+	}
+
+	private <T extends FakeTransport> T latest(Class<T> type) {
+		T latest = null;
+		for (FakeTransport transport : mTransports) {
+			if (type.isInstance(transport)) {
+				latest = type.cast(transport);
+			}
+		}
+
+		return latest;
+	}
+}
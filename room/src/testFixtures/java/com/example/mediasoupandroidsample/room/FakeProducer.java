@@ -0,0 +1,93 @@
+package com.example.mediasoupandroidsample.room;
+
+import com.example.mediasoupandroidsample.media.VideoEncoding;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Producer whose stats report the loss and RTT the test sets, as seen by the remote end
+ */
+public class FakeProducer implements MediaProducer {
+	private final String mId;
+	private final MediaTrack mTrack;
+	private final List<VideoEncoding> mEncodings;
+	private final String mCodecOptions;
+	private final AtomicInteger mStatsCount;
+	private volatile double mFractionLost;
+	private volatile double mRoundTripTimeS = 0.05;
+	private volatile boolean mClosed;
+
+	FakeProducer(String id, MediaTrack track, List<VideoEncoding> encodings, String codecOptions) {
+		mId = id;
+		mTrack = track;
+		mEncodings = encodings;
+		mCodecOptions = codecOptions;
+		mStatsCount = new AtomicInteger();
+	}
+
+	@Override
+	public String getId() {
+		return mId;
+	}
+
+	@Override
+	public String getKind() {
+		return mTrack.getKind();
+	}
+
+	@Override
+	public MediaTrack getTrack() {
+		return mTrack;
+	}
+
+	@Override
+	public String getStats()
+	throws MediaException {
+		if (mClosed) {
+			throw new MediaException("Producer closed id=" + mId);
+		}
+
+		int count = mStatsCount.incrementAndGet();
+		return "[{\"type\":\"outbound-rtp\",\"kind\":\"" + getKind() + "\",\"packetsSent\":" + count * 50 + ",\"bytesSent\":" + count * 5000 + "},"
+				+ "{\"type\":\"remote-inbound-rtp\",\"kind\":\"" + getKind() + "\",\"fractionLost\":" + mFractionLost + ",\"roundTripTime\":" + mRoundTripTimeS + "}]";
+	}
+
+	@Override
+	public boolean isClosed() {
+		return mClosed;
+	}
+
+	@Override
+	public void close() {
+		mClosed = true;
+	}
+
+	/**
+	 * Set what the next stats polls report
+	 * @param fractionLost Fraction of packets lost, 0 to 1
+	 * @param rttMs Round trip time
+	 */
+	public void setLink(double fractionLost, long rttMs) {
+		mFractionLost = fractionLost;
+		mRoundTripTimeS = rttMs / 1000.0;
+	}
+
+	/**
+	 * @return Encodings produced with, null for audio
+	 */
+	public List<VideoEncoding> getEncodings() {
+		return mEncodings;
+	}
+
+	public String getCodecOptions() {
+		return mCodecOptions;
+	}
+
+	/**
+	 * @return Number of stats polls
+	 */
+	public int getStatsCount() {
+		return mStatsCount.get();
+	}
+}
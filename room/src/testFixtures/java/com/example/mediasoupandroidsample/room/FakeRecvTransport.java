@@ -0,0 +1,31 @@
+package com.example.mediasoupandroidsample.room;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class FakeRecvTransport extends FakeTransport implements MediaRecvTransport {
+	private final List<FakeConsumer> mConsumers;
+
+	FakeRecvTransport(Listener listener, String id) {
+		super(listener, id);
+		mConsumers = new CopyOnWriteArrayList<>();
+	}
+
+	@Override
+	public MediaConsumer consume(MediaConsumer.Listener listener, String id, String producerId, String kind, String rtpParameters)
+	throws MediaException {
+		requireOpen();
+		connectIfNeeded();
+
+		FakeConsumer consumer = new FakeConsumer(id, producerId, new FakeTrack(kind));
+		mConsumers.add(consumer);
+		return consumer;
+	}
+
+	/**
+	 * @return Every consumer created, closed ones included
+	 */
+	public List<FakeConsumer> getConsumers() {
+		return mConsumers;
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.mediasoupandroidsample.room;
+
+import com.example.mediasoupandroidsample.media.VideoEncoding;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class FakeSendTransport extends FakeTransport implements MediaSendTransport {
+	static final String RTP_PARAMETERS = "{\"mid\":\"0\",\"codecs\":[],\"headerExtensions\":[],\"encodings\":[{\"ssrc\":1234567890}],\"rtcp\":{\"cname\":\"fake\"}}";
+
+	private final MediaSendTransport.Listener mListener;
+	private final List<FakeProducer> mProducers;
+
+	FakeSendTransport(MediaSendTransport.Listener listener, String id) {
+		super(listener, id);
+		mListener = listener;
+		mProducers = new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * Connect if needed and get the producer id from the listener, as the SDK does
+	 */
+	@Override
+	public MediaProducer produce(MediaProducer.Listener listener, MediaTrack track, List<VideoEncoding> encodings, String codecOptions)
+	throws MediaException {
+		requireOpen();
+		connectIfNeeded();
+
+		String id = mListener.onProduce(this, track.getKind(), RTP_PARAMETERS, "{}");
+		if (id == null) {
+			throw new MediaException("No producer id for " + track.getKind());
+		}
+
+		FakeProducer producer = new FakeProducer(id, track, encodings, codecOptions);
+		mProducers.add(producer);
+		return producer;
+	}
+
+	/**
+	 * @return Every producer created, closed ones included
+	 */
+	public List<FakeProducer> getProducers() {
+		return mProducers;
+	}
+}
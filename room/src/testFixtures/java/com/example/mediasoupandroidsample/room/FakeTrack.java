@@ -0,0 +1,24 @@
+package com.example.mediasoupandroidsample.room;
+
+public class FakeTrack implements MediaTrack {
+	private final String mKind;
+	private volatile boolean mEnabled = true;
+
+	public FakeTrack(String kind) {
+		mKind = kind;
+	}
+
+	@Override
+	public String getKind() {
+		return mKind;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		mEnabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return mEnabled;
+	}
+}
@@ -0,0 +1,132 @@
+package com.example.mediasoupandroidsample.room;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transport state of the fake device. Like the SDK it connects on its first producer or consumer,
+ * connection state changes are driven by the test.
+ */
+public abstract class FakeTransport implements MediaTransport {
+	static final String DTLS_PARAMETERS = "{\"role\":\"client\",\"fingerprints\":[{\"algorithm\":\"sha-256\",\"value\":\"00:11:22:33:44:55:66:77:88:99:AA:BB:CC:DD:EE:FF:00:11:22:33:44:55:66:77:88:99:AA:BB:CC:DD:EE:FF\"}]}";
+
+	private final Listener mListener;
+	private final String mId;
+	private final AtomicBoolean mConnected;
+	private final AtomicInteger mStatsCount;
+	private final AtomicInteger mIceRestartCount;
+	private final AtomicInteger mIceRestartAttempts;
+	private final AtomicInteger mIceRestartFailures;
+	private volatile boolean mClosed;
+	private volatile String mIceParameters;
+
+	FakeTransport(Listener listener, String id) {
+		mListener = listener;
+		mId = id;
+		mConnected = new AtomicBoolean(false);
+		mStatsCount = new AtomicInteger();
+		mIceRestartCount = new AtomicInteger();
+		mIceRestartAttempts = new AtomicInteger();
+		mIceRestartFailures = new AtomicInteger();
+	}
+
+	@Override
+	public String getId() {
+		return mId;
+	}
+
+	@Override
+	public String getStats()
+	throws MediaException {
+		requireOpen();
+		int count = mStatsCount.incrementAndGet();
+		return "[{\"type\":\"transport\",\"id\":\"" + mId + "\",\"bytesSent\":" + count * 1000 + ",\"bytesReceived\":" + count * 1000 + "}]";
+	}
+
+	@Override
+	public void restartIce(String iceParameters)
+	throws MediaException {
+		requireOpen();
+		mIceRestartAttempts.incrementAndGet();
+		if (mIceRestartFailures.getAndUpdate(failures -> Math.max(0, failures - 1)) > 0) {
+			throw new MediaException("ICE restart failed id=" + mId);
+		}
+		mIceParameters = iceParameters;
+		mIceRestartCount.incrementAndGet();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return mClosed;
+	}
+
+	@Override
+	public void close() {
+		mClosed = true;
+	}
+
+	/**
+	 * Report an ICE connection state as the SDK would, e.g. disconnected to trigger a restart
+	 * @param state ICE connection state
+	 */
+	public void setConnectionState(String state) {
+		mListener.onConnectionStateChange(this, state);
+	}
+
+	public boolean isConnected() {
+		return mConnected.get();
+	}
+
+	/**
+	 * @return Number of stats polls
+	 */
+	public int getStatsCount() {
+		return mStatsCount.get();
+	}
+
+	/**
+	 * @return Number of successful ICE restarts
+	 */
+	public int getIceRestartCount() {
+		return mIceRestartCount.get();
+	}
+
+	/**
+	 * @return Number of ICE restarts tried, failed ones included
+	 */
+	public int getIceRestartAttempts() {
+		return mIceRestartAttempts.get();
+	}
+
+	/**
+	 * Make the next ICE restarts fail
+	 * @param failures Number of restarts to fail
+	 */
+	public void failIceRestarts(int failures) {
+		mIceRestartFailures.set(failures);
+	}
+
+	/**
+	 * @return Remote ICE parameters of the latest restart or null
+	 */
+	public String getIceParameters() {
+		return mIceParameters;
+	}
+
+	/**
+	 * Connect on first use, the listener signals the DTLS parameters
+	 */
+	void connectIfNeeded() {
+		if (mConnected.compareAndSet(false, true)) {
+			mListener.onConnect(this, DTLS_PARAMETERS);
+			mListener.onConnectionStateChange(this, "connected");
+		}
+	}
+
+	void requireOpen()
+	throws MediaException {
+		if (mClosed) {
+			throw new MediaException("Transport closed id=" + mId);
+		}
+	}
+}
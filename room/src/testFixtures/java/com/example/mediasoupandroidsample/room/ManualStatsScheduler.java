@@ -0,0 +1,96 @@
+package com.example.mediasoupandroidsample.room;
+
+import java.util.PriorityQueue;
+
+/**
+ * Stats scheduler on a virtual clock, posted runnables only run when the test advances the clock
+ */
+public class ManualStatsScheduler implements StatsScheduler {
+	// Guarded by this
+	private final PriorityQueue<Task> mTasks = new PriorityQueue<>();
+	private long mNowMs;
+	private long mSequence;
+
+	@Override
+	public void post(Runnable runnable) {
+		postDelayed(runnable, 0);
+	}
+
+	@Override
+	public synchronized void postDelayed(Runnable runnable, long delayMs) {
+		mTasks.add(new Task(mNowMs + delayMs, mSequence++, runnable));
+	}
+
+	@Override
+	public synchronized void cancelAll() {
+		mTasks.clear();
+	}
+
+	/**
+	 * Run everything due now, e.g. the first poll of a new producer
+	 * @return Number of runnables run
+	 */
+	public int runDue() {
+		return advance(0);
+	}
+
+	/**
+	 * Move the clock forward running the runnables that fall due, in time order.
+	 * Runnables posted while advancing run too if they fall due within the step.
+	 * @param ms Time to advance
+	 * @return Number of runnables run
+	 */
+	public int advance(long ms) {
+		long targetMs;
+		synchronized (this) {
+			targetMs = mNowMs + ms;
+		}
+
+		int run = 0;
+		while (true) {
+			Task task;
+			synchronized (this) {
+				task = mTasks.peek();
+				if (task == null || task.mDueMs > targetMs) {
+					mNowMs = targetMs;
+					return run;
+				}
+
+				mTasks.poll();
+				mNowMs = task.mDueMs;
+			}
+
+			// Outside the lock, the runnable posts its next run
+			task.mRunnable.run();
+			run++;
+		}
+	}
+
+	/**
+	 * @return Number of runnables waiting
+	 */
+	public synchronized int getPendingCount() {
+		return mTasks.size();
+	}
+
+	private static class Task implements Comparable<Task> {
+		private final long mDueMs;
+		private final long mSequence;
+		private final Runnable mRunnable;
+
+		Task(long dueMs, long sequence, Runnable runnable) {
+			mDueMs = dueMs;
+			mSequence = sequence;
+			mRunnable = runnable;
+		}
+
+		@Override
+		public int compareTo(Task other) {
+			if (mDueMs != other.mDueMs) {
+				return Long.compare(mDueMs, other.mDueMs);
+			}
+
+			return Long.compare(mSequence, other.mSequence);
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package com.example.mediasoupandroidsample.benchmark;
+
+import com.example.mediasoupandroidsample.request.Request;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request/acknowledgement round trips against the in-process server
+ */
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AckRoundTripBenchmark {
+	@Benchmark
+	public JSONObject produceRoundTrip(SignalingState state)
+	throws Exception {
+		return Request.sendProduceWebRtcTransportRequest(state.mSocket, "benchmark", "transport", "video", Payloads.VIDEO_RTP_PARAMETERS);
+	}
+
+	@Benchmark
+	public JSONObject getRoomRtpCapabilitiesRoundTrip(SignalingState state)
+	throws Exception {
+		return Request.sendGetRoomRtpCapabilitiesRequest(state.mSocket, "benchmark");
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.mediasoupandroidsample.benchmark;
+
+import com.example.mediasoupandroidsample.request.MessageWriter;
+import com.example.mediasoupandroidsample.request.Request;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound encoding and inbound decoding of signaling messages
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageCodecBenchmark {
+	/**
+	 * connectWebRtcTransport: build, serialize and enqueue on the socket
+	 */
+	@Benchmark
+	public void encodeConnectWebRtcTransport(SignalingState state)
+	throws Exception {
+		Request.sendConnectWebRtcTransportRequest(state.mSocket, "benchmark", "transport", Payloads.DTLS_PARAMETERS);
+	}
+
+	/**
+	 * produce message built the old way, parsing rtpParameters into a tree and serializing it again
+	 */
+	@Benchmark
+	public String buildProduceWithJSONObject()
+	throws Exception {
+		JSONObject produceRequest = new JSONObject();
+		produceRequest.put("action", "produce");
+		produceRequest.put("roomId", "benchmark");
+		produceRequest.put("transportId", "transport");
+		produceRequest.put("kind", "video");
+		produceRequest.put("rtpParameters", new JSONObject(Payloads.VIDEO_RTP_PARAMETERS));
+
+		return produceRequest.toString();
+	}
+
+	/**
+	 * produce message with rtpParameters spliced in as text
+	 */
+	@Benchmark
+	public String buildProduceWithMessageWriter()
+	throws Exception {
+		return MessageWriter.obtain("produce")
+				.string("roomId", "benchmark")
+				.string("transportId", "transport")
+				.string("kind", "video")
+				.raw("rtpParameters", Payloads.VIDEO_RTP_PARAMETERS)
+				.build();
+	}
+
+	/**
+	 * Parse an inbound newconsumer notification and read the fields the room client uses
+	 */
+	@Benchmark
+	public String decodeNewConsumer()
+	throws Exception {
+		JSONObject message = new JSONObject(Payloads.NEW_CONSUMER_MESSAGE);
+		JSONObject consumerData = message.getJSONObject("consumerData");
+
+		return message.getString("action") + consumerData.getString("id") + consumerData.getJSONObject("rtpParameters").toString();
+	}
+}
@@ -0,0 +1,49 @@
+package com.example.mediasoupandroidsample.benchmark;
+
+import com.example.mediasoupandroidsample.socket.EchoSocket;
+import com.example.mediasoupandroidsample.socket.WebSocketTransport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbound frame handling on the reader thread: decode and hand the event to every registered observer,
+ * either running them inline or queueing them on the dispatch executor
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ObserverDispatchBenchmark {
+	@Param({ "1", "8", "32" })
+	public int observerCount;
+
+	@Param({ "inline", "queued" })
+	public String dispatch;
+
+	private EchoSocket mSocket;
+
+	@Setup(Level.Trial)
+	public void registerObservers(Blackhole blackhole) {
+		mSocket = "inline".equals(dispatch)
+				? new EchoSocket(new WebSocketTransport(), Runnable::run)
+				: new EchoSocket();
+		for (int i = 0; i < observerCount; i++) {
+			mSocket.register((event, data) -> blackhole.consume(data));
+		}
+	}
+
+	@Benchmark
+	public void dispatchNewConsumer() {
+		mSocket.onMessage(Payloads.NEW_CONSUMER_MESSAGE);
+	}
+}
@@ -0,0 +1,27 @@
+package com.example.mediasoupandroidsample.benchmark;
+
+/**
+ * Representative signaling payloads, sized like the ones libmediasoupclient produces
+ */
+final class Payloads {
+	static final String DTLS_PARAMETERS = "{\"role\":\"client\",\"fingerprints\":["
+			+ "{\"algorithm\":\"sha-256\",\"value\":\"82:5A:68:3D:36:C3:0A:DE:AF:E7:32:43:D2:88:83:57:B2:33:B1:BA:2A:25:59:3C:2C:1F:E0:9F:3A:5A:5B:8F\"}]}";
+
+	static final String VIDEO_RTP_PARAMETERS = "{\"mid\":\"1\",\"codecs\":["
+			+ "{\"mimeType\":\"video/VP8\",\"payloadType\":96,\"clockRate\":90000,\"parameters\":{},\"rtcpFeedback\":[{\"type\":\"goog-remb\",\"parameter\":\"\"},{\"type\":\"transport-cc\",\"parameter\":\"\"},{\"type\":\"ccm\",\"parameter\":\"fir\"},{\"type\":\"nack\",\"parameter\":\"\"},{\"type\":\"nack\",\"parameter\":\"pli\"}]},"
+			+ "{\"mimeType\":\"video/rtx\",\"payloadType\":97,\"clockRate\":90000,\"parameters\":{\"apt\":96},\"rtcpFeedback\":[]}],"
+			+ "\"headerExtensions\":[{\"uri\":\"urn:ietf:params:rtp-hdrext:sdes:mid\",\"id\":4,\"encrypt\":false,\"parameters\":{}},"
+			+ "{\"uri\":\"http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\",\"id\":2,\"encrypt\":false,\"parameters\":{}},"
+			+ "{\"uri\":\"http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\",\"id\":3,\"encrypt\":false,\"parameters\":{}}],"
+			+ "\"encodings\":[{\"active\":true,\"maxBitrate\":500000,\"rid\":\"r0\",\"scalabilityMode\":\"S1T3\",\"dtx\":false},"
+			+ "{\"active\":true,\"maxBitrate\":1000000,\"rid\":\"r1\",\"scalabilityMode\":\"S1T3\",\"dtx\":false},"
+			+ "{\"active\":true,\"maxBitrate\":1500000,\"rid\":\"r2\",\"scalabilityMode\":\"S1T3\",\"dtx\":false}],"
+			+ "\"rtcp\":{\"cname\":\"fkQ2w3ZWpZ0b3Ymr\",\"reducedSize\":true}}";
+
+	static final String NEW_CONSUMER_MESSAGE = "{\"action\":\"newconsumer\",\"consumerData\":{"
+			+ "\"consumerUserId\":\"android\",\"producerUserId\":\"web\",\"producerId\":\"8c1a8e5e-7d1b-4b2e-9a43-8f3f3e0f5c11\","
+			+ "\"id\":\"0c4d3a2b-1e5f-4a6b-8c7d-9e0f1a2b3c4d\",\"kind\":\"video\",\"type\":\"simulcast\",\"producerPaused\":false,"
+			+ "\"rtpParameters\":" + VIDEO_RTP_PARAMETERS + "}}";
+
+	private Payloads() {}
+}
@@ -0,0 +1,38 @@
+package com.example.mediasoupandroidsample.benchmark;
+
+import com.example.mediasoupandroidsample.socket.MockSfuServer;
+import com.example.mediasoupandroidsample.socket.EchoSocket;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EchoSocket connected to an in-process signaling server
+ */
+@State(Scope.Benchmark)
+public class SignalingState {
+	MockSfuServer mServer;
+	EchoSocket mSocket;
+
+	@Setup(Level.Trial)
+	public void connect()
+	throws Exception {
+		mServer = new MockSfuServer();
+		String url = mServer.start();
+
+		mSocket = new EchoSocket();
+		mSocket.connect(url).get(10, TimeUnit.SECONDS);
+	}
+
+	@TearDown(Level.Trial)
+	public void disconnect()
+	throws Exception {
+		mSocket.disconnect();
+		mServer.shutdown();
+	}
+}
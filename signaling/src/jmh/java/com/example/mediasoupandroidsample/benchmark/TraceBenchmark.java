@@ -0,0 +1,53 @@
+package com.example.mediasoupandroidsample.benchmark;
+
+import com.example.mediasoupandroidsample.trace.Trace;
+import com.example.mediasoupandroidsample.trace.TraceRecorder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a trace call site with tracing on and off
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TraceBenchmark {
+	@Param({"false", "true"})
+	public boolean enabled;
+
+	private final String mAction = "produce";
+	private final long mSize = 1024;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Trace.start(new TraceRecorder(4096), enabled ? Trace.ALL : 0);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		Trace.stop();
+	}
+
+	@Benchmark
+	public void record() {
+		Trace.record(Trace.SIGNALING, "send", mAction, mSize);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void recordContended() {
+		Trace.record(Trace.SIGNALING, "send", mAction, mSize);
+	}
+}
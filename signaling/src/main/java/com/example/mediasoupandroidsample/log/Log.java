@@ -0,0 +1,91 @@
+package com.example.mediasoupandroidsample.log;
+
+/**
+ * Logging facade for code that must also run off-device, mirrors the android.util.Log calls it replaces.
+ * The app installs a sink that forwards to logcat, on a plain JVM messages go to stdout/stderr.
+ */
+public final class Log {
+	public static final int DEBUG = 3;
+	public static final int WARN = 5;
+	public static final int ERROR = 6;
+
+	private static volatile Sink sSink = new ConsoleSink();
+	private static volatile int sMinPriority = DEBUG;
+
+	private Log() {}
+
+	/**
+	 * Replace the log sink
+	 * @param sink Sink
+	 */
+	public static void setSink(Sink sink) {
+		sSink = sink;
+	}
+
+	/**
+	 * Drop messages below a priority, e.g. WARN in release builds
+	 * @param priority DEBUG/WARN/ERROR
+	 */
+	public static void setMinPriority(int priority) {
+		sMinPriority = priority;
+	}
+
+	/**
+	 * Check before building a message that is only needed at this priority
+	 * @param priority DEBUG/WARN/ERROR
+	 * @return true if messages of this priority are written
+	 */
+	public static boolean isLoggable(int priority) {
+		return priority >= sMinPriority;
+	}
+
+	public static void d(String tag, String message) {
+		if (DEBUG >= sMinPriority) {
+			sSink.log(DEBUG, tag, message, null);
+		}
+	}
+
+	public static void w(String tag, String message) {
+		sSink.log(WARN, tag, message, null);
+	}
+
+	public static void w(String tag, String message, Throwable t) {
+		sSink.log(WARN, tag, message, t);
+	}
+
+	public static void e(String tag, String message) {
+		sSink.log(ERROR, tag, message, null);
+	}
+
+	public static void e(String tag, String message, Throwable t) {
+		sSink.log(ERROR, tag, message, t);
+	}
+
+	public interface Sink {
+		/**
+		 * Write a log message
+		 * @param priority DEBUG/WARN/ERROR
+		 * @param tag Tag
+		 * @param message Message
+		 * @param t Throwable or null
+		 */
+		void log(int priority, String tag, String message, Throwable t);
+	}
+
+	/**
+	 * Sink used off-device
+	 */
+	private static class ConsoleSink implements Sink {
+		@Override
+		public void log(int priority, String tag, String message, Throwable t) {
+			if (priority >= WARN) {
+				System.err.println(tag + ": " + message);
+				if (t != null) {
+					t.printStackTrace();
+				}
+			} else {
+				System.out.println(tag + ": " + message);
+			}
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.example.mediasoupandroidsample.request;
+
+import org.json.JSONException;
+
+/**
+ * Builds outbound signaling messages as text in a reusable per-thread buffer.
+ * JSON that libmediasoupclient already serialized (RTP capabilities, DTLS and RTP parameters) is
+ * spliced in as is instead of being parsed into a JSONObject only to be serialized again.
+ */
+public final class MessageWriter {
+	private static final int INITIAL_CAPACITY = 4096;
+	// Buffers that grew past this are not kept for the next message
+	private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static final ThreadLocal<MessageWriter> sWriter = new ThreadLocal<MessageWriter>() {
+		@Override
+		protected MessageWriter initialValue() {
+			return new MessageWriter();
+		}
+	};
+
+	private StringBuilder mBuffer = new StringBuilder(INITIAL_CAPACITY);
+
+	private MessageWriter() {}
+
+	/**
+	 * Start a message on the calling thread's writer, the previous message must have been built
+	 * @param action Message action
+	 * @return Writer
+	 */
+	public static MessageWriter obtain(String action) {
+		MessageWriter writer = sWriter.get();
+		if (writer.mBuffer.capacity() > MAX_RETAINED_CAPACITY) {
+			writer.mBuffer = new StringBuilder(INITIAL_CAPACITY);
+		}
+
+		writer.mBuffer.setLength(0);
+		writer.mBuffer.append("{\"action\":");
+		writer.appendQuoted(action);
+		return writer;
+	}
+
+	/**
+	 * Add a string field
+	 * @param name Field name
+	 * @param value Value, escaped as needed
+	 * @return this
+	 */
+	public MessageWriter string(String name, String value) {
+		appendName(name);
+		appendQuoted(value);
+		return this;
+	}
+
+	/**
+	 * Add a number field
+	 * @param name Field name
+	 * @param value Value
+	 * @return this
+	 */
+	public MessageWriter number(String name, long value) {
+		appendName(name);
+		mBuffer.append(value);
+		return this;
+	}
+
+	/**
+	 * Add a field whose value is already serialized JSON
+	 * @param name Field name
+	 * @param json JSON object or array text
+	 * @return this
+	 * @throws JSONException The value is not a JSON object or array
+	 */
+	public MessageWriter raw(String name, String json)
+	throws JSONException {
+		int start = 0;
+		int end = json.length() - 1;
+		while (start <= end && Character.isWhitespace(json.charAt(start))) {
+			start++;
+		}
+		while (end >= start && Character.isWhitespace(json.charAt(end))) {
+			end--;
+		}
+
+		// A cheap shape check, the fragment comes from libmediasoupclient and is not parsed again
+		if (start >= end
+				|| !((json.charAt(start) == '{' && json.charAt(end) == '}') || (json.charAt(start) == '[' && json.charAt(end) == ']'))) {
+			throw new JSONException("Field " + name + " is not a JSON object or array");
+		}
+
+		appendName(name);
+		mBuffer.append(json, start, end + 1);
+		return this;
+	}
+
+	/**
+	 * Close the message
+	 * @return Message text
+	 */
+	public String build() {
+		mBuffer.append('}');
+		return mBuffer.toString();
+	}
+
+	private void appendName(String name) {
+		mBuffer.append(',');
+		appendQuoted(name);
+		mBuffer.append(':');
+	}
+
+	private void appendQuoted(String value) {
+		mBuffer.append('"');
+		for (int i = 0, length = value.length(); i < length; i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					mBuffer.append("\\\"");
+					break;
+				case '\\':
+					mBuffer.append("\\\\");
+					break;
+				case '\n':
+					mBuffer.append("\\n");
+					break;
+				case '\r':
+					mBuffer.append("\\r");
+					break;
+				case '\t':
+					mBuffer.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						mBuffer.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+					} else {
+						mBuffer.append(c);
+					}
+			}
+		}
+		mBuffer.append('"');
+	}
+}
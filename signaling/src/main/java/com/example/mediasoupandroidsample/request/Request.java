@@ -2,12 +2,13 @@ package com.example.mediasoupandroidsample.request;
 
 import com.example.mediasoupandroidsample.socket.ActionEvent;
 import com.example.mediasoupandroidsample.socket.EchoSocket;
+import com.example.mediasoupandroidsample.socket.Heartbeat;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -15,9 +16,18 @@ import java.util.concurrent.TimeoutException;
  */
 public class Request {
 	/**
-	 * Socket request acknowledgement response timeout
+	 * Acknowledgement deadlines per action, in milliseconds
 	 */
-	private static final int REQUEST_TIMEOUT_SECONDS = 3000;
+	public static final long GET_ROOM_RTP_CAPABILITIES_DEADLINE_MS = 5000;
+	public static final long LOGIN_ROOM_DEADLINE_MS = 5000;
+	public static final long CREATE_WEBRTC_TRANSPORT_DEADLINE_MS = 5000;
+	public static final long RESTART_ICE_DEADLINE_MS = 3000;
+	public static final long PRODUCE_DEADLINE_MS = 5000;
+
+	/**
+	 * getRoomRtpCapabilities is idempotent, resend it when the first acknowledgement is this late
+	 */
+	public static final long GET_ROOM_RTP_CAPABILITIES_HEDGE_MS = 1000;
 
 	// Send getRoomRtpCapabilities request
 	public static JSONObject sendGetRoomRtpCapabilitiesRequest(EchoSocket socket, String roomId)
@@ -26,18 +36,28 @@ public class Request {
 		getRoomRtpCapabilitiesRequest.put("action", "getRoomRtpCapabilities");
 		getRoomRtpCapabilitiesRequest.put("roomId", roomId);
 
-		return socket.sendWithFuture(getRoomRtpCapabilitiesRequest).get(Request.REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		return await(socket.sendHedged(getRoomRtpCapabilitiesRequest, GET_ROOM_RTP_CAPABILITIES_DEADLINE_MS, GET_ROOM_RTP_CAPABILITIES_HEDGE_MS));
 	}
 
 	// Send loginRoom request
 	public static JSONObject sendLoginRoomRequest(EchoSocket socket, String roomId, String deviceRtpCapabilities)
 	throws JSONException, InterruptedException, ExecutionException, TimeoutException{
-		JSONObject loginRoomRequest = new JSONObject();
-		loginRoomRequest.put("action", ActionEvent.LOGIN_ROOM);
-		loginRoomRequest.put("roomId", roomId);
-		loginRoomRequest.put("rtpCapabilities", new JSONObject(deviceRtpCapabilities));
+		String loginRoomRequest = MessageWriter.obtain(ActionEvent.LOGIN_ROOM)
+				.string("roomId", roomId)
+				.raw("rtpCapabilities", deviceRtpCapabilities)
+				.build();
+
+		return await(socket.sendWithFuture(ActionEvent.LOGIN_ROOM, loginRoomRequest, LOGIN_ROOM_DEADLINE_MS));
+	}
+
+	// Send leaveRoom request
+	public static void sendLeaveRoomRequest(EchoSocket socket, String roomId)
+	throws JSONException {
+		JSONObject leaveRoomRequest = new JSONObject();
+		leaveRoomRequest.put("action", ActionEvent.LEAVE_ROOM);
+		leaveRoomRequest.put("roomId", roomId);
 
-		return socket.sendWithFuture(loginRoomRequest).get(Request.REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		socket.send(leaveRoomRequest);
 	}
 
 	// Send createWebRtcTransport request
@@ -48,32 +68,43 @@ public class Request {
 		createWebRtcTransportRequest.put("roomId", roomId);
 		createWebRtcTransportRequest.put("direction", direction);
 
-		return socket.sendWithFuture(createWebRtcTransportRequest).get(Request.REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		return await(socket.sendWithFuture(createWebRtcTransportRequest, CREATE_WEBRTC_TRANSPORT_DEADLINE_MS));
 	}
 
 	// Send connectWebRtcTransport request
 	public static void sendConnectWebRtcTransportRequest(EchoSocket socket, String roomId, String transportId, String dtlsParameters)
 	throws JSONException {
-		JSONObject connectWebRtcTransportRequest = new JSONObject();
-		connectWebRtcTransportRequest.put("action", ActionEvent.CONNECT_WEBRTC_TRANSPORT);
-		connectWebRtcTransportRequest.put("roomId", roomId);
-		connectWebRtcTransportRequest.put("transportId", transportId);
-		connectWebRtcTransportRequest.put("dtlsParameters", new JSONObject(dtlsParameters));
+		String connectWebRtcTransportRequest = MessageWriter.obtain(ActionEvent.CONNECT_WEBRTC_TRANSPORT)
+				.string("roomId", roomId)
+				.string("transportId", transportId)
+				.raw("dtlsParameters", dtlsParameters)
+				.build();
 
 		socket.send(connectWebRtcTransportRequest);
 	}
 
+	// Send restartIce request
+	public static JSONObject sendRestartIceRequest(EchoSocket socket, String roomId, String transportId)
+	throws JSONException, InterruptedException, ExecutionException, TimeoutException {
+		JSONObject restartIceRequest = new JSONObject();
+		restartIceRequest.put("action", ActionEvent.RESTART_ICE);
+		restartIceRequest.put("roomId", roomId);
+		restartIceRequest.put("transportId", transportId);
+
+		return await(socket.sendWithFuture(restartIceRequest, RESTART_ICE_DEADLINE_MS));
+	}
+
 	// Send produce request
 	public static JSONObject sendProduceWebRtcTransportRequest(EchoSocket socket, String roomId, String transportId, String kind, String rtpParameters)
 	throws JSONException, InterruptedException, ExecutionException, TimeoutException {
-		JSONObject produceWebRtcTransportRequest = new JSONObject();
-		produceWebRtcTransportRequest.put("action", ActionEvent.PRODUCE);
-		produceWebRtcTransportRequest.put("roomId", roomId);
-		produceWebRtcTransportRequest.put("transportId", transportId);
-		produceWebRtcTransportRequest.put("kind", kind);
-		produceWebRtcTransportRequest.put("rtpParameters", new JSONObject(rtpParameters));
-
-		return socket.sendWithFuture(produceWebRtcTransportRequest).get(Request.REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		String produceWebRtcTransportRequest = MessageWriter.obtain(ActionEvent.PRODUCE)
+				.string("roomId", roomId)
+				.string("transportId", transportId)
+				.string("kind", kind)
+				.raw("rtpParameters", rtpParameters)
+				.build();
+
+		return await(socket.sendWithFuture(ActionEvent.PRODUCE, produceWebRtcTransportRequest, PRODUCE_DEADLINE_MS));
 	}
 
 	// Pause producer
@@ -128,6 +159,39 @@ public class Request {
 		rtcStatsReportRequest.put("roomId", roomId);
 		rtcStatsReportRequest.put("rtcStatsReport", rtcStatsReport);
 
+		// Stamp the report so it can be lined up with server side stats
+		long clientTimestamp = System.currentTimeMillis();
+		rtcStatsReportRequest.put("clientTimestamp", clientTimestamp);
+		Heartbeat heartbeat = socket.getHeartbeat();
+		if (heartbeat != null && heartbeat.hasEstimate()) {
+			rtcStatsReportRequest.put("serverTimestamp", heartbeat.toServerTime(clientTimestamp));
+			rtcStatsReportRequest.put("signalingRttMs", heartbeat.getSmoothedRttMs());
+			rtcStatsReportRequest.put("clockOffsetMs", heartbeat.getClockOffsetMs());
+		}
+
 		socket.send(rtcStatsReportRequest);
 	}
+
+	/**
+	 * Wait for an acknowledgement, the future's own deadline bounds the wait
+	 * @param future Acknowledgement future
+	 * @return Acknowledgement response
+	 * @throws TimeoutException Deadline exceeded
+	 */
+	private static JSONObject await(Future<JSONObject> future)
+	throws InterruptedException, ExecutionException, TimeoutException {
+		try {
+			return future.get();
+		} catch (InterruptedException ie) {
+			// Stop waiting for the acknowledgement
+			future.cancel(true);
+			throw ie;
+		} catch (ExecutionException ee) {
+			if (ee.getCause() instanceof TimeoutException) {
+				throw (TimeoutException) ee.getCause();
+			}
+
+			throw ee;
+		}
+	}
 }
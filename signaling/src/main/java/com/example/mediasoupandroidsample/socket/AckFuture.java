@@ -0,0 +1,134 @@
+package com.example.mediasoupandroidsample.socket;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Future completed by the socket's callbacks, no thread waits on it unless get() is called.
+ * The first completion wins, later ones are ignored.
+ */
+class AckFuture<T> implements Future<T> {
+	private static final Object CANCELLED = new Object();
+
+	private final CountDownLatch mDone = new CountDownLatch(1);
+	private final AtomicReference<Object> mOutcome = new AtomicReference<>();
+	private final AtomicBoolean mOnDoneRun = new AtomicBoolean();
+	private volatile Runnable mOnDone;
+	private volatile long mDoneNanos;
+
+	/**
+	 * @param onDone Run once when the future completes, fails or is cancelled, right away if it already has
+	 */
+	void setOnDone(Runnable onDone) {
+		mOnDone = onDone;
+		if (isDone()) {
+			runOnDone();
+		}
+	}
+
+	/**
+	 * @return System.nanoTime() when the future completed, failed or was cancelled
+	 */
+	long getDoneNanos() {
+		return mDoneNanos;
+	}
+
+	boolean complete(T value) {
+		return finish(new Result(value));
+	}
+
+	boolean fail(Throwable t) {
+		return finish(new Failure(t));
+	}
+
+	private boolean finish(Object outcome) {
+		long doneNanos = System.nanoTime();
+		if (!mOutcome.compareAndSet(null, outcome)) {
+			return false;
+		}
+		mDoneNanos = doneNanos;
+
+		// Clean up before waking waiters so they see the socket without this request
+		if (mOnDone != null) {
+			runOnDone();
+		}
+		mDone.countDown();
+
+		return true;
+	}
+
+	private void runOnDone() {
+		if (mOnDoneRun.compareAndSet(false, true)) {
+			mOnDone.run();
+		}
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return finish(CANCELLED);
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return mOutcome.get() == CANCELLED;
+	}
+
+	@Override
+	public boolean isDone() {
+		return mOutcome.get() != null;
+	}
+
+	@Override
+	public T get()
+	throws InterruptedException, ExecutionException {
+		mDone.await();
+		return report();
+	}
+
+	@Override
+	public T get(long timeout, TimeUnit unit)
+	throws InterruptedException, ExecutionException, TimeoutException {
+		if (!mDone.await(timeout, unit)) {
+			throw new TimeoutException();
+		}
+
+		return report();
+	}
+
+	@SuppressWarnings("unchecked")
+	private T report()
+	throws ExecutionException {
+		Object outcome = mOutcome.get();
+		if (outcome == CANCELLED) {
+			throw new CancellationException();
+		}
+
+		if (outcome instanceof Failure) {
+			throw new ExecutionException(((Failure) outcome).mCause);
+		}
+
+		return (T) ((Result) outcome).mValue;
+	}
+
+	private static class Result {
+		final Object mValue;
+
+		Result(Object value) {
+			mValue = value;
+		}
+	}
+
+	private static class Failure {
+		final Throwable mCause;
+
+		Failure(Throwable cause) {
+			mCause = cause;
+		}
+	}
+}
@@ -11,18 +11,28 @@ import java.lang.annotation.RetentionPolicy;
 public class ActionEvent {
 	// Socket connected to the server
 	public static final String OPEN = "open";
+	// Socket closed or connection lost
+	public static final String CLOSE = "close";
 	// Mediasoup router rtpCapabilities
 	public static final String ROOM_RTP_CAPABILITIES = "roomRtpCapabilities";
 	// Room Login
 	public static final String LOGIN_ROOM = "loginRoom";
+	// Room Leave
+	public static final String LEAVE_ROOM = "leaveRoom";
 	// Create new WebRtcTransport
 	public static final String CREATE_WEBRTC_TRANSPORT = "createWebRtcTransport";
 	// Connect WebRtcTransport
 	public static final String CONNECT_WEBRTC_TRANSPORT = "connectWebRtcTransport";
+	// Get new ICE parameters for a transport
+	public static final String RESTART_ICE = "restartIce";
 	// Send media to mediasoup
 	public static final String PRODUCE = "produce";
 	// newuser notification
 	public static final String NEW_USER = "newuser";
+	// userleft notification
+	public static final String USER_LEFT = "userleft";
+	// userupdate notification, display name or producer paused state changed
+	public static final String USER_UPDATE = "userupdate";
 	// newconsumer notification
 	public static final String NEW_CONSUMER = "newconsumer";
 	// pause producer
@@ -35,8 +45,15 @@ public class ActionEvent {
 	public static final String RESUME_CONSUMER = "resumeConsumer";
 	// rtc stats
 	public static final String RTC_STATS = "rtcStats";
+	// heartbeat request, carries the client send time
+	public static final String PING = "ping";
+	// heartbeat response, echoes the client send time and adds the server receive/send times
+	public static final String PONG = "pong";
 
-	@StringDef({ OPEN, ROOM_RTP_CAPABILITIES, LOGIN_ROOM, CREATE_WEBRTC_TRANSPORT, CONNECT_WEBRTC_TRANSPORT, PRODUCE, NEW_USER, NEW_CONSUMER, PAUSE_PRODUCER, RESUME_PRODUCER, PAUSE_CONSUMER, RESUME_CONSUMER, RTC_STATS })
+	// link capacity probe, padded in the direction being measured
+	public static final String PROBE = "probe";
+
+	@StringDef({ OPEN, CLOSE, ROOM_RTP_CAPABILITIES, LOGIN_ROOM, LEAVE_ROOM, CREATE_WEBRTC_TRANSPORT, CONNECT_WEBRTC_TRANSPORT, RESTART_ICE, PRODUCE, NEW_USER, USER_LEFT, USER_UPDATE, NEW_CONSUMER, PAUSE_PRODUCER, RESUME_PRODUCER, PAUSE_CONSUMER, RESUME_CONSUMER, RTC_STATS, PING, PONG, PROBE })
 	@Retention(RetentionPolicy.SOURCE)
 	public @interface Event {}
 }
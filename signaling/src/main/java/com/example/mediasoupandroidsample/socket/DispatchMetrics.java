@@ -0,0 +1,74 @@
+package com.example.mediasoupandroidsample.socket;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for inbound event dispatch, shared by all of a socket's observer queues
+ */
+public class DispatchMetrics {
+	private final AtomicInteger mQueueDepth = new AtomicInteger();
+	private final AtomicInteger mMaxQueueDepth = new AtomicInteger();
+	private final AtomicLong mDispatchedCount = new AtomicLong();
+	private final AtomicLong mHandlerTimeNs = new AtomicLong();
+	private final AtomicLong mMaxHandlerTimeNs = new AtomicLong();
+
+	void onQueued() {
+		int depth = mQueueDepth.incrementAndGet();
+		int max;
+		while (depth > (max = mMaxQueueDepth.get()) && !mMaxQueueDepth.compareAndSet(max, depth)) {
+			// Retry, another thread raised the maximum
+		}
+	}
+
+	void onSkipped() {
+		mQueueDepth.decrementAndGet();
+	}
+
+	void onHandled(long handlerTimeNs) {
+		mQueueDepth.decrementAndGet();
+		mDispatchedCount.incrementAndGet();
+		mHandlerTimeNs.addAndGet(handlerTimeNs);
+
+		long max;
+		while (handlerTimeNs > (max = mMaxHandlerTimeNs.get()) && !mMaxHandlerTimeNs.compareAndSet(max, handlerTimeNs)) {
+			// Retry, another thread raised the maximum
+		}
+	}
+
+	/**
+	 * @return Events queued for observers and not yet handled
+	 */
+	public int getQueueDepth() {
+		return mQueueDepth.get();
+	}
+
+	public int getMaxQueueDepth() {
+		return mMaxQueueDepth.get();
+	}
+
+	/**
+	 * @return Observer calls completed
+	 */
+	public long getDispatchedCount() {
+		return mDispatchedCount.get();
+	}
+
+	public long getAverageHandlerTimeNs() {
+		long count = mDispatchedCount.get();
+		return count == 0 ? 0 : mHandlerTimeNs.get() / count;
+	}
+
+	public long getMaxHandlerTimeNs() {
+		return mMaxHandlerTimeNs.get();
+	}
+
+	@Override
+	public String toString() {
+		return "DispatchMetrics{queueDepth=" + getQueueDepth()
+				+ ", maxQueueDepth=" + getMaxQueueDepth()
+				+ ", dispatched=" + getDispatchedCount()
+				+ ", avgHandlerUs=" + getAverageHandlerTimeNs() / 1000
+				+ ", maxHandlerUs=" + getMaxHandlerTimeNs() / 1000 + "}";
+	}
+}
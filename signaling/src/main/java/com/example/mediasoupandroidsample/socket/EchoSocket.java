@@ -0,0 +1,611 @@
+package com.example.mediasoupandroidsample.socket;
+
+import com.example.mediasoupandroidsample.log.Log;
+import com.example.mediasoupandroidsample.trace.Trace;
+import com.example.mediasoupandroidsample.utils.SerialExecutor;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signaling socket, runs over an OkHttp3 WebSocket unless another transport is given.
+ *
+ * Every request sent for an acknowledgement carries a requestId. A server echoing it back gets each
+ * acknowledgement matched to its request, whatever order it answers in, so rooms sharing the socket never
+ * get each other's transports or producers. Acknowledgements without a requestId complete the oldest
+ * request of their action.
+ */
+public class EchoSocket implements SignalingTransport.Listener, MessageObserver.Subscriber {
+	private static final String TAG = "EchoSocket";
+
+	/**
+	 * Acknowledgement deadline used when the caller does not give one
+	 */
+	public static final long DEFAULT_ACK_DEADLINE_MS = 10_000;
+	private static final long CONNECT_DEADLINE_MS = 10_000;
+	// "requestId":<long>, so splicing it in does not grow the buffer
+	private static final int REQUEST_ID_CAPACITY = 32;
+
+	// Trace events
+	private static final String TRACE_SEND = "send";
+	private static final String TRACE_RECV = "recv";
+	private static final String TRACE_ACK_TIMEOUT = "ackTimeout";
+	private static final String TRACE_HEDGE = "hedge";
+	private static final String TRACE_CLOSED = "closed";
+	private static final String TRACE_SLOW_HANDLER = "slowHandler";
+	private static final String TRACE_HEARTBEAT_LOST = "heartbeatLost";
+	private static final String TRACE_OPENED = "opened";
+
+	// Handlers slower than a frame are traced
+	private static final long SLOW_HANDLER_NS = TimeUnit.MILLISECONDS.toNanos(16);
+
+	// Default dispatch threads, shared by all sockets, each observer still sees its events in order
+	private static final ExecutorService sDispatchExecutor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "EchoSocketDispatch");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final SignalingTransport mTransport;
+	private final Executor mDispatchExecutor;
+	private final ConcurrentHashMap<MessageObserver.Observer, ObserverQueue> mObservers;
+	private final DispatchMetrics mDispatchMetrics;
+	// Requests waiting for an acknowledgement per action, in send order for acknowledgements without a requestId
+	private final Map<String, Queue<AckFuture<JSONObject>>> mPendingAcks;
+	private final ConcurrentHashMap<Long, AckFuture<JSONObject>> mAcksById;
+	private final AtomicLong mNextRequestId;
+	private final ScheduledThreadPoolExecutor mScheduler;
+
+	private volatile boolean mConnected;
+	// Set by the first acknowledgement carrying a requestId, duplicates are only sent from then on
+	private volatile boolean mServerEchoesRequestId;
+	private volatile AckFuture<Void> mOpenFuture;
+	private volatile long mConnectStartNs;
+	private volatile Heartbeat mHeartbeat;
+	private volatile ScheduledFuture<?> mHeartbeatTask;
+
+	public EchoSocket() {
+		this(new WebSocketTransport());
+	}
+
+	/**
+	 * @param transport Transport carrying the messages, e.g. an ImpairedTransport in tests
+	 */
+	public EchoSocket(SignalingTransport transport) {
+		this(transport, sDispatchExecutor);
+	}
+
+	/**
+	 * @param transport Transport carrying the messages, e.g. an ImpairedTransport in tests
+	 * @param dispatchExecutor Executor running the observers, off the transport's reader thread
+	 */
+	public EchoSocket(SignalingTransport transport, Executor dispatchExecutor) {
+		mTransport = transport;
+		mDispatchExecutor = dispatchExecutor;
+		mObservers = new ConcurrentHashMap<>();
+		mDispatchMetrics = new DispatchMetrics();
+		mPendingAcks = new ConcurrentHashMap<>();
+		mAcksById = new ConcurrentHashMap<>();
+		mNextRequestId = new AtomicLong();
+		// Only fires deadlines and heartbeats, nothing blocks on it
+		mScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, TAG);
+			thread.setDaemon(true);
+			return thread;
+		});
+		mScheduler.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Connect to the socket server
+	 * @param wsUrl ws/wss URL
+	 * @return Future<Void>, fails if the connection fails or is not open within the connect deadline
+	 */
+	public Future<Void> connect (String wsUrl) {
+		Log.d(TAG, "connect wsUrl=" + wsUrl);
+		if (!wsUrl.startsWith("ws://") && !wsUrl.startsWith("wss://")) {
+			throw new RuntimeException("Socket url must start with ws/wss");
+		}
+
+		if(mConnected) {
+			throw new IllegalStateException("Socket is already defined");
+		}
+
+		AckFuture<Void> openFuture = new AckFuture<>();
+		mOpenFuture = openFuture;
+		ScheduledFuture<?> deadline = schedule(() -> {
+			if (openFuture.fail(new TimeoutException("Not connected within " + CONNECT_DEADLINE_MS + "ms"))) {
+				mTransport.close(1000, "connect timeout");
+				mConnected = false;
+			}
+		}, CONNECT_DEADLINE_MS);
+		openFuture.setOnDone(() -> cancel(deadline));
+
+		mConnected = true;
+		mConnectStartNs = System.nanoTime();
+		mTransport.open(wsUrl, this);
+		Log.d(TAG, "Connecting webSocket to server");
+
+		return openFuture;
+	}
+
+	/**
+	 * Send a message to the server, without acknowledgement
+	 * @param message JSON message to send
+	 */
+	public void send (JSONObject message) {
+		String text = message.toString();
+		Trace.record(Trace.SIGNALING, TRACE_SEND, message.optString("action"), text.length());
+		mTransport.send(text);
+	}
+
+	/**
+	 * Send an already serialized message to the server, without acknowledgement
+	 * @param message JSON message text
+	 */
+	public void send (String message) {
+		Trace.record(Trace.SIGNALING, TRACE_SEND, null, message.length());
+		mTransport.send(message);
+	}
+
+	/**
+	 * Send a message to the server, with acknowledgement
+	 * @param message JSON message to send
+	 * @return Acknowledgement response
+	 * @throws JSONException Failed to parse message
+	 */
+	public Future<JSONObject> sendWithFuture (JSONObject message)
+	throws JSONException {
+		return sendWithFuture(message, DEFAULT_ACK_DEADLINE_MS);
+	}
+
+	/**
+	 * Send a message to the server, with acknowledgement.
+	 * The future fails with a TimeoutException once the deadline passes and with an IOException
+	 * when the connection is lost, cancelling it stops waiting for the acknowledgement.
+	 * @param message JSON message to send
+	 * @param deadlineMs Time allowed for the acknowledgement
+	 * @return Acknowledgement response
+	 * @throws JSONException Failed to parse message
+	 */
+	public Future<JSONObject> sendWithFuture (JSONObject message, long deadlineMs)
+	throws JSONException {
+		return sendHedged(message.getString("action"), message.toString(), deadlineMs, 0);
+	}
+
+	/**
+	 * Send an already serialized message to the server, with acknowledgement
+	 * @param action Action of the message, the acknowledgement has the same action
+	 * @param message JSON message text
+	 * @param deadlineMs Time allowed for the acknowledgement
+	 * @return Acknowledgement response
+	 */
+	public Future<JSONObject> sendWithFuture (String action, String message, long deadlineMs) {
+		return sendHedged(action, message, deadlineMs, 0);
+	}
+
+	/**
+	 * Send an idempotent request and send it again if no acknowledgement arrived after hedgeDelayMs,
+	 * the first acknowledgement completes the future. Only use it for requests whose responses are
+	 * interchangeable. The duplicate is only sent once the server has echoed a requestId, so that the
+	 * second acknowledgement is recognised and dropped instead of being taken for another request.
+	 * @param message JSON message to send
+	 * @param deadlineMs Time allowed for the acknowledgement
+	 * @param hedgeDelayMs Delay before the duplicate is sent, 0 to disable hedging
+	 * @return Acknowledgement response
+	 * @throws JSONException Failed to parse message
+	 */
+	public Future<JSONObject> sendHedged (JSONObject message, long deadlineMs, long hedgeDelayMs)
+	throws JSONException {
+		return sendHedged(message.getString("action"), message.toString(), deadlineMs, hedgeDelayMs);
+	}
+
+	AckFuture<JSONObject> sendHedged (String action, String message, long deadlineMs, long hedgeDelayMs) {
+		long requestId = mNextRequestId.incrementAndGet();
+		String text = withRequestId(message, requestId);
+		Queue<AckFuture<JSONObject>> pending = getPendingAcks(action);
+		AckFuture<JSONObject> future = new AckFuture<>();
+		mAcksById.put(requestId, future);
+		pending.add(future);
+
+		Trace.record(Trace.SIGNALING, TRACE_SEND, action, text.length());
+		if (!mTransport.send(text)) {
+			mAcksById.remove(requestId);
+			pending.remove(future);
+			future.fail(new IOException("Socket is not connected"));
+			return future;
+		}
+
+		ScheduledFuture<?> hedge = null;
+		if (hedgeDelayMs > 0 && hedgeDelayMs < deadlineMs) {
+			hedge = schedule(() -> {
+				// Without the echo the duplicate's acknowledgement would complete the action's next request
+				if (!future.isDone() && mServerEchoesRequestId) {
+					Trace.record(Trace.SIGNALING, TRACE_HEDGE, action, hedgeDelayMs);
+					mTransport.send(text);
+				}
+			}, hedgeDelayMs);
+		}
+
+		ScheduledFuture<?> deadline = schedule(() -> {
+			if (future.fail(new TimeoutException("No acknowledgement for " + action + " within " + deadlineMs + "ms"))) {
+				Trace.record(Trace.SIGNALING, TRACE_ACK_TIMEOUT, action, deadlineMs);
+			}
+
+			pending.remove(future);
+		}, deadlineMs);
+
+		final ScheduledFuture<?> pendingHedge = hedge;
+		future.setOnDone(() -> {
+			cancel(pendingHedge);
+			// A duplicate or late acknowledgement finds nothing and is dropped
+			mAcksById.remove(requestId);
+			pending.remove(future);
+			cancel(deadline);
+		});
+
+		return future;
+	}
+
+	/**
+	 * Start sending heartbeats on the open connection, they stop when the connection closes
+	 * @param intervalMs Time between pings
+	 * @param missedLimit Unanswered pings in a row after which the connection is failed,
+	 *                    only once the server has answered a ping
+	 */
+	public void startHeartbeat(long intervalMs, int missedLimit) {
+		stopHeartbeat();
+
+		Heartbeat heartbeat = new Heartbeat(intervalMs, missedLimit);
+		mHeartbeat = heartbeat;
+		try {
+			mHeartbeatTask = mScheduler.scheduleWithFixedDelay(() -> {
+				if (heartbeat.isDead()) {
+					onHeartbeatLost(heartbeat);
+					return;
+				}
+
+				mTransport.send(heartbeat.nextPing());
+			}, 0, intervalMs, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException ree) {
+			// Disconnected
+		}
+	}
+
+	public void stopHeartbeat() {
+		cancel(mHeartbeatTask);
+		mHeartbeatTask = null;
+	}
+
+	/**
+	 * @return Heartbeat with the RTT and clock offset estimates, null if heartbeats were never started
+	 */
+	public Heartbeat getHeartbeat() {
+		return mHeartbeat;
+	}
+
+	private void onHeartbeatLost(Heartbeat heartbeat) {
+		Trace.record(Trace.SIGNALING, TRACE_HEARTBEAT_LOST, null, heartbeat.getMissedCount());
+		stopHeartbeat();
+		mTransport.close(1001, "heartbeat lost");
+		onFailure(new IOException("No heartbeat answer for " + heartbeat.getMissedCount() * heartbeat.getIntervalMs() + "ms"));
+	}
+
+	/**
+	 * Disconnect socket from server and release the socket's threads
+	 */
+	public void disconnect () {
+		stopHeartbeat();
+		if (mConnected) {
+			mTransport.close(1000, "disconnect");
+			mConnected = false;
+		}
+
+		for (ObserverQueue queue : mObservers.values()) {
+			queue.mActive = false;
+		}
+		mObservers.clear();
+		// Wake up any request still waiting for an acknowledgement
+		failPending(new IOException("Socket disconnected"));
+		mScheduler.shutdownNow();
+		mTransport.release();
+		Log.d(TAG, "WebSocket service shutdown");
+	}
+
+	/**
+	 * Socket successfully connected to the server
+	 */
+	@Override
+	public void onOpen() {
+		// DNS, TCP and TLS are traced by the HTTP client, this is the whole connect up to the WebSocket upgrade
+		Trace.record(Trace.SIGNALING, TRACE_OPENED, null, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mConnectStartNs));
+
+		// Observers registered once connect() returned must not get the open event
+		notifyObservers(ActionEvent.OPEN, null);
+
+		AckFuture<Void> openFuture = mOpenFuture;
+		if (openFuture != null) {
+			openFuture.complete(null);
+		}
+	}
+
+	/**
+	 * Got a message from the server, completes the oldest request waiting for it and notifies all observers listening
+	 * @param text message
+	 */
+	@Override
+	public void onMessage(String text) {
+		try {
+			JSONObject jsonObject = new JSONObject(text);
+			String action = jsonObject.getString("action");
+			Trace.record(Trace.SIGNALING, TRACE_RECV, action, text.length());
+
+			// Handled on the reader thread so observer queueing does not inflate the RTT
+			if (ActionEvent.PONG.equals(action)) {
+				Heartbeat heartbeat = mHeartbeat;
+				if (heartbeat != null) {
+					heartbeat.onPong(jsonObject);
+				}
+				return;
+			}
+
+			Queue<AckFuture<JSONObject>> pending = mPendingAcks.get(action);
+			AckFuture<JSONObject> future;
+			if (jsonObject.has("requestId")) {
+				mServerEchoesRequestId = true;
+				// Null for a late or duplicate acknowledgement, it must not complete another request
+				future = mAcksById.remove(jsonObject.getLong("requestId"));
+				if (future != null && pending != null) {
+					pending.remove(future);
+				}
+			} else {
+				future = pending != null ? pending.poll() : null;
+			}
+			if (future != null) {
+				future.complete(jsonObject);
+			}
+
+			notifyObservers(action, jsonObject);
+		} catch (JSONException je) {
+			Log.e(TAG, "Failed to handle message", je);
+		}
+	}
+
+	/**
+	 * Socket connection closed
+	 * @param code ExitCode
+	 * @param reason Reason
+	 */
+	@Override
+	public void onClosed(int code, String reason) {
+		Trace.record(Trace.SIGNALING, TRACE_CLOSED, reason, code);
+		stopHeartbeat();
+		mConnected = false;
+		failPending(new IOException("Socket closed code=" + code + " reason=" + reason));
+		notifyObservers(ActionEvent.CLOSE, null);
+	}
+
+	/**
+	 * Socket Error
+	 * @param t Throwable
+	 */
+	@Override
+	public void onFailure(Throwable t) {
+		Log.w(TAG, "Socket failure", t);
+		stopHeartbeat();
+		mConnected = false;
+		failPending(t);
+		notifyObservers(ActionEvent.CLOSE, null);
+	}
+
+	/**
+	 * register an event observer
+	 * @param observer Observer
+	 */
+	@Override
+	public void register(MessageObserver.Observer observer) {
+		mObservers.putIfAbsent(observer, new ObserverQueue(observer, null));
+	}
+
+	/**
+	 * Register an observer of one room, so several rooms can share the socket.
+	 * It gets the room's events and the events without a roomId, e.g. open/close.
+	 * @param roomId Room id
+	 * @param observer Observer
+	 */
+	public void register(String roomId, MessageObserver.Observer observer) {
+		mObservers.putIfAbsent(observer, new ObserverQueue(observer, roomId));
+	}
+
+	/**
+	 * Unregister an event observer
+	 * @param observer Observer
+	 */
+	@Override
+	public void unregister(MessageObserver.Observer observer) {
+		ObserverQueue queue = mObservers.remove(observer);
+		if (queue != null) {
+			// Events already queued for it are dropped
+			queue.mActive = false;
+		}
+	}
+
+	/**
+	 * Queue an event for all listening observers, each observer runs on the dispatch executor
+	 * and gets its events one at a time in order
+	 * @param event Event
+	 * @param data JSONData
+	 */
+	@Override
+	public void notifyObservers(@ActionEvent.Event String event, JSONObject data) {
+		String roomId = roomOf(data);
+		for (final ObserverQueue queue : mObservers.values()) {
+			if (roomId == null || queue.mRoomId == null || queue.mRoomId.equals(roomId)) {
+				queue.dispatch(event, data);
+			}
+		}
+	}
+
+	/**
+	 * @param data Event data
+	 * @return Room the event belongs to, from its roomId or its consumerData's, null if not room scoped
+	 */
+	static String roomOf(JSONObject data) {
+		if (data == null) {
+			return null;
+		}
+
+		JSONObject scoped = data.has("roomId") ? data : data.optJSONObject("consumerData");
+		return scoped != null && scoped.has("roomId") ? scoped.optString("roomId") : null;
+	}
+
+	/**
+	 * @return Dispatch queue depth and handler time
+	 */
+	public DispatchMetrics getDispatchMetrics() {
+		return mDispatchMetrics;
+	}
+
+	/**
+	 * @return Number of requests waiting for an acknowledgement
+	 */
+	public int getPendingAckCount() {
+		int count = 0;
+		for (Queue<AckFuture<JSONObject>> pending : mPendingAcks.values()) {
+			count += pending.size();
+		}
+
+		return count;
+	}
+
+	/**
+	 * @return Number of requests an echoed requestId can still complete
+	 */
+	int getRequestIdCount() {
+		return mAcksById.size();
+	}
+
+	private Queue<AckFuture<JSONObject>> getPendingAcks(String action) {
+		Queue<AckFuture<JSONObject>> pending = mPendingAcks.get(action);
+		if (pending == null) {
+			Queue<AckFuture<JSONObject>> created = new ConcurrentLinkedQueue<>();
+			pending = mPendingAcks.putIfAbsent(action, created);
+			if (pending == null) {
+				pending = created;
+			}
+		}
+
+		return pending;
+	}
+
+	/**
+	 * @param message JSON object text
+	 * @param requestId Request id
+	 * @return Message with the requestId as its first member, spliced in with one copy instead of parsing the message again
+	 */
+	static String withRequestId(String message, long requestId) {
+		int start = message.indexOf('{');
+		if (start < 0) {
+			throw new IllegalArgumentException("Message is not a JSON object");
+		}
+
+		int next = start + 1;
+		int length = message.length();
+		while (next < length && Character.isWhitespace(message.charAt(next))) {
+			next++;
+		}
+		boolean empty = next < length && message.charAt(next) == '}';
+
+		StringBuilder text = new StringBuilder(length + REQUEST_ID_CAPACITY);
+		text.append(message, 0, start + 1).append("\"requestId\":").append(requestId);
+		if (!empty) {
+			text.append(',');
+		}
+		text.append(message, start + 1, length);
+		return text.toString();
+	}
+
+	private void failPending(Throwable cause) {
+		AckFuture<Void> openFuture = mOpenFuture;
+		if (openFuture != null) {
+			openFuture.fail(cause);
+		}
+
+		for (Queue<AckFuture<JSONObject>> pending : mPendingAcks.values()) {
+			AckFuture<JSONObject> future;
+			while ((future = pending.poll()) != null) {
+				future.fail(cause);
+			}
+		}
+		mAcksById.clear();
+	}
+
+	private static void cancel(ScheduledFuture<?> task) {
+		if (task != null) {
+			task.cancel(false);
+		}
+	}
+
+	private ScheduledFuture<?> schedule(Runnable runnable, long delayMs) {
+		try {
+			return mScheduler.schedule(runnable, delayMs, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException ree) {
+			// Disconnected
+			return null;
+		}
+	}
+
+	/**
+	 * Serial event queue of one observer
+	 */
+	private class ObserverQueue {
+		private final MessageObserver.Observer mObserver;
+		// Null for observers of every room
+		private final String mRoomId;
+		private final SerialExecutor mQueue;
+		private volatile boolean mActive = true;
+
+		ObserverQueue(MessageObserver.Observer observer, String roomId) {
+			mObserver = observer;
+			mRoomId = roomId;
+			mQueue = new SerialExecutor(mDispatchExecutor);
+		}
+
+		void dispatch(String event, JSONObject data) {
+			mDispatchMetrics.onQueued();
+			mQueue.execute(() -> {
+				if (!mActive) {
+					mDispatchMetrics.onSkipped();
+					return;
+				}
+
+				long start = System.nanoTime();
+				try {
+					mObserver.on(event, data);
+				} finally {
+					long handlerTimeNs = System.nanoTime() - start;
+					mDispatchMetrics.onHandled(handlerTimeNs);
+					if (handlerTimeNs > SLOW_HANDLER_NS) {
+						Trace.record(Trace.SIGNALING, TRACE_SLOW_HANDLER, event, TimeUnit.NANOSECONDS.toMillis(handlerTimeNs));
+					}
+				}
+			});
+		}
+	}
+}
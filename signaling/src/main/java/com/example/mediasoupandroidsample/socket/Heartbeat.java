@@ -0,0 +1,157 @@
+package com.example.mediasoupandroidsample.socket;
+
+import com.example.mediasoupandroidsample.request.MessageWriter;
+
+import org.json.JSONObject;
+
+/**
+ * Application-level ping/pong on the signaling socket. Keeps a smoothed round trip time,
+ * an NTP-style estimate of the server clock offset and counts unanswered pings.
+ *
+ * ping: { action, seq, clientTime }
+ * pong: { action, seq, clientTime, serverReceiveTime, serverSendTime }
+ */
+public class Heartbeat {
+	// Offset samples kept, the one with the lowest network delay is used
+	private static final int OFFSET_SAMPLES = 8;
+
+	private final long mIntervalMs;
+	private final int mMissedLimit;
+
+	private long mNextSequence;
+	private long mOutstandingSequence = -1;
+	private long mOutstandingSentNs;
+	private int mMissed;
+	private boolean mConfirmed;
+
+	private double mSmoothedRttMs = -1;
+	private double mRttVarianceMs;
+	private final long[] mSampleDelays = new long[OFFSET_SAMPLES];
+	private final long[] mSampleOffsets = new long[OFFSET_SAMPLES];
+	private int mSampleCount;
+	private long mClockOffsetMs;
+
+	/**
+	 * @param intervalMs Time between pings
+	 * @param missedLimit Unanswered pings in a row after which the connection is considered dead
+	 */
+	Heartbeat(long intervalMs, int missedLimit) {
+		mIntervalMs = intervalMs;
+		mMissedLimit = missedLimit;
+	}
+
+	public long getIntervalMs() {
+		return mIntervalMs;
+	}
+
+	/**
+	 * Build the next ping, called once per interval
+	 * @return Ping message
+	 */
+	synchronized String nextPing() {
+		if (mOutstandingSequence >= 0) {
+			mMissed++;
+		}
+
+		mOutstandingSequence = mNextSequence++;
+		mOutstandingSentNs = System.nanoTime();
+
+		return MessageWriter.obtain(ActionEvent.PING)
+				.number("seq", mOutstandingSequence)
+				.number("clientTime", System.currentTimeMillis())
+				.build();
+	}
+
+	/**
+	 * A server that never answered may not support heartbeats, it is not declared dead
+	 * @return true if the connection should be considered dead
+	 */
+	synchronized boolean isDead() {
+		return mConfirmed && mMissed >= mMissedLimit;
+	}
+
+	/**
+	 * Handle a pong
+	 * @param pong Pong message
+	 */
+	synchronized void onPong(JSONObject pong) {
+		long receivedNs = System.nanoTime();
+		long clientReceiveTime = System.currentTimeMillis();
+
+		// A late pong for an older ping does not count
+		if (pong.optLong("seq", -1) != mOutstandingSequence) {
+			return;
+		}
+
+		mOutstandingSequence = -1;
+		mMissed = 0;
+		mConfirmed = true;
+
+		double rttMs = (receivedNs - mOutstandingSentNs) / 1_000_000.0;
+		if (mSmoothedRttMs < 0) {
+			mSmoothedRttMs = rttMs;
+			mRttVarianceMs = rttMs / 2;
+		} else {
+			// RFC 6298 smoothing
+			mRttVarianceMs = 0.75 * mRttVarianceMs + 0.25 * Math.abs(mSmoothedRttMs - rttMs);
+			mSmoothedRttMs = 0.875 * mSmoothedRttMs + 0.125 * rttMs;
+		}
+
+		long clientSendTime = pong.optLong("clientTime");
+		long serverReceiveTime = pong.optLong("serverReceiveTime");
+		long serverSendTime = pong.optLong("serverSendTime");
+		long delay = (clientReceiveTime - clientSendTime) - (serverSendTime - serverReceiveTime);
+		long offset = ((serverReceiveTime - clientSendTime) + (serverSendTime - clientReceiveTime)) / 2;
+
+		int slot = mSampleCount % OFFSET_SAMPLES;
+		mSampleDelays[slot] = delay;
+		mSampleOffsets[slot] = offset;
+		mSampleCount++;
+
+		// Queueing delay skews the offset, trust the sample that saw the least of it
+		int best = 0;
+		for (int i = 1; i < Math.min(mSampleCount, OFFSET_SAMPLES); i++) {
+			if (mSampleDelays[i] < mSampleDelays[best]) {
+				best = i;
+			}
+		}
+		mClockOffsetMs = mSampleOffsets[best];
+	}
+
+	/**
+	 * @return true once at least one pong was received
+	 */
+	public synchronized boolean hasEstimate() {
+		return mSampleCount > 0;
+	}
+
+	/**
+	 * @return Smoothed signaling round trip time, -1 before the first pong
+	 */
+	public synchronized double getSmoothedRttMs() {
+		return mSmoothedRttMs;
+	}
+
+	public synchronized double getRttVarianceMs() {
+		return mRttVarianceMs;
+	}
+
+	/**
+	 * @return Server clock minus client clock
+	 */
+	public synchronized long getClockOffsetMs() {
+		return mClockOffsetMs;
+	}
+
+	/**
+	 * @param clientTimeMs Client wall clock time
+	 * @return Estimated server wall clock time
+	 */
+	public synchronized long toServerTime(long clientTimeMs) {
+		return clientTimeMs + mClockOffsetMs;
+	}
+
+	public synchronized int getMissedCount() {
+		return mMissed;
+	}
+}
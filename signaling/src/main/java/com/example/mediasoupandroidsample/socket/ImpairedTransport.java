@@ -0,0 +1,271 @@
+package com.example.mediasoupandroidsample.socket;
+
+import com.example.mediasoupandroidsample.log.Log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SignalingTransport decorator that delays, reorders and drops traffic to reproduce bad networks locally.
+ * Random decisions come from a seeded generator per direction so a run can be repeated exactly,
+ * condition changes and connection drops can be scripted with at() and dropAt().
+ */
+public class ImpairedTransport implements SignalingTransport {
+	private static final String TAG = "ImpairedTransport";
+
+	private final SignalingTransport mDelegate;
+	private final ScheduledExecutorService mScheduler;
+	private final Link mUplink;
+	private final Link mDownlink;
+
+	private volatile NetworkConditions mConditions;
+	private volatile Listener mListener;
+	private volatile boolean mDropped;
+
+	/**
+	 * @param delegate Transport carrying the traffic
+	 * @param conditions Initial conditions
+	 * @param seed Seed for the random decisions
+	 */
+	public ImpairedTransport(SignalingTransport delegate, NetworkConditions conditions, long seed) {
+		mDelegate = delegate;
+		mConditions = conditions;
+		mUplink = new Link(new Random(seed));
+		mDownlink = new Link(new Random(~seed));
+		// One delivery thread, ties are run in submission order which keeps messages FIFO
+		mScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, TAG);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public NetworkConditions getConditions() {
+		return mConditions;
+	}
+
+	/**
+	 * Change the conditions, applies to messages sent or received from now on
+	 * @param conditions Conditions
+	 */
+	public void setConditions(NetworkConditions conditions) {
+		Log.d(TAG, "setConditions " + conditions);
+		mConditions = conditions;
+	}
+
+	/**
+	 * Script a change of conditions
+	 * @param delayMs Delay from now
+	 * @param conditions Conditions
+	 * @return this
+	 */
+	public ImpairedTransport at(long delayMs, NetworkConditions conditions) {
+		mScheduler.schedule(() -> setConditions(conditions), delayMs, TimeUnit.MILLISECONDS);
+		return this;
+	}
+
+	/**
+	 * Script a connection drop
+	 * @param delayMs Delay from now
+	 * @return this
+	 */
+	public ImpairedTransport dropAt(long delayMs) {
+		mScheduler.schedule(this::dropConnection, delayMs, TimeUnit.MILLISECONDS);
+		return this;
+	}
+
+	/**
+	 * Drop the connection as a lost network would, the listener gets onFailure and pending traffic is discarded
+	 */
+	public void dropConnection() {
+		if (mDropped) {
+			return;
+		}
+
+		mDropped = true;
+		Log.d(TAG, "dropConnection");
+		mDelegate.close(1001, "impairment drop");
+
+		Listener listener = mListener;
+		if (listener != null) {
+			listener.onFailure(new IOException("Connection dropped by network impairment"));
+		}
+	}
+
+	@Override
+	public void open(String url, Listener listener) {
+		mListener = listener;
+		mDropped = false;
+		mUplink.reset();
+		mDownlink.reset();
+
+		mDelegate.open(url, new Listener() {
+			@Override
+			public void onOpen() {
+				// The handshake costs a round trip
+				long delayMs = mConditions.getLatencyMs() * 2;
+				mScheduler.schedule(() -> {
+					if (!mDropped) {
+						listener.onOpen();
+					}
+				}, delayMs, TimeUnit.MILLISECONDS);
+			}
+
+			@Override
+			public void onMessage(String text) {
+				transmit(mDownlink, text, () -> listener.onMessage(text));
+			}
+
+			@Override
+			public void onClosed(int code, String reason) {
+				transmit(mDownlink, "", () -> listener.onClosed(code, reason));
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				if (!mDropped) {
+					mDropped = true;
+					listener.onFailure(t);
+				}
+			}
+		});
+	}
+
+	@Override
+	public boolean send(String text) {
+		if (mDropped) {
+			return false;
+		}
+
+		if (mUplink.nextDouble() < mConditions.getDropProbability()) {
+			// The message is lost with the connection, like a write on a dead mobile link
+			mScheduler.execute(this::dropConnection);
+			return true;
+		}
+
+		transmit(mUplink, text, () -> mDelegate.send(text));
+		return true;
+	}
+
+	@Override
+	public void close(int code, String reason) {
+		mDelegate.close(code, reason);
+	}
+
+	@Override
+	public void release() {
+		mScheduler.shutdownNow();
+		mDelegate.release();
+	}
+
+	private void transmit(Link link, String text, Runnable delivery) {
+		long delayNs = link.schedule(mConditions, text.getBytes(StandardCharsets.UTF_8).length, delivery);
+
+		try {
+			mScheduler.schedule(() -> drain(link), delayNs, TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException ree) {
+			// Released, nothing is delivered any more
+		}
+	}
+
+	/**
+	 * Run every delivery that is due, earliest first
+	 * @param link Link
+	 */
+	private void drain(Link link) {
+		Runnable delivery;
+		while ((delivery = link.pollDue(System.nanoTime())) != null) {
+			if (!mDropped) {
+				delivery.run();
+			}
+		}
+	}
+
+	/**
+	 * One direction of the connection
+	 */
+	private static class Link {
+		private final Random mRandom;
+		// Deliveries ordered by due time then by sequence so equal due times stay FIFO
+		private final PriorityQueue<Delivery> mPending = new PriorityQueue<>();
+		private long mSequence;
+		private long mFreeAtNs;
+		private long mLastDeliveryNs;
+
+		Link(Random random) {
+			mRandom = random;
+		}
+
+		synchronized void reset() {
+			mPending.clear();
+			mFreeAtNs = 0;
+			mLastDeliveryNs = 0;
+		}
+
+		synchronized Runnable pollDue(long nowNs) {
+			Delivery head = mPending.peek();
+			if (head == null || head.mDueNs > nowNs) {
+				return null;
+			}
+
+			return mPending.poll().mRunnable;
+		}
+
+		synchronized double nextDouble() {
+			return mRandom.nextDouble();
+		}
+
+		/**
+		 * Work out when a message of the given size arrives and queue its delivery
+		 * @return Delay from now in nanoseconds
+		 */
+		synchronized long schedule(NetworkConditions conditions, int bytes, Runnable delivery) {
+			long now = System.nanoTime();
+			long sendStart = Math.max(now, mFreeAtNs);
+			long transmitNs = conditions.getBandwidthBytesPerSecond() > 0
+					? bytes * TimeUnit.SECONDS.toNanos(1) / conditions.getBandwidthBytesPerSecond()
+					: 0;
+			mFreeAtNs = sendStart + transmitNs;
+
+			long deliveryNs = mFreeAtNs + TimeUnit.MILLISECONDS.toNanos(conditions.getLatencyMs());
+			if (conditions.getJitterMs() > 0) {
+				deliveryNs += (long) (mRandom.nextDouble() * TimeUnit.MILLISECONDS.toNanos(conditions.getJitterMs()));
+			}
+
+			if (mRandom.nextDouble() < conditions.getReorderProbability()) {
+				// Held back without moving the in-order watermark so later messages overtake it
+				deliveryNs += TimeUnit.MILLISECONDS.toNanos(conditions.getReorderDelayMs());
+			} else {
+				deliveryNs = Math.max(deliveryNs, mLastDeliveryNs);
+				mLastDeliveryNs = deliveryNs;
+			}
+
+			mPending.add(new Delivery(deliveryNs, mSequence++, delivery));
+			return deliveryNs - now;
+		}
+	}
+
+	private static class Delivery implements Comparable<Delivery> {
+		final long mDueNs;
+		final long mSequence;
+		final Runnable mRunnable;
+
+		Delivery(long dueNs, long sequence, Runnable runnable) {
+			mDueNs = dueNs;
+			mSequence = sequence;
+			mRunnable = runnable;
+		}
+
+		@Override
+		public int compareTo(Delivery other) {
+			int byDue = Long.compare(mDueNs, other.mDueNs);
+			return byDue != 0 ? byDue : Long.compare(mSequence, other.mSequence);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.mediasoupandroidsample.socket;
+
+/**
+ * Link capacity measured by {@link LinkProbe}
+ */
+public class LinkEstimate {
+	// Not measured, the probe ran out of time or the server did not answer
+	public static final long UNKNOWN = -1;
+
+	private final long mUplinkBps;
+	private final long mDownlinkBps;
+	private final long mRttMs;
+
+	public LinkEstimate(long uplinkBps, long downlinkBps, long rttMs) {
+		mUplinkBps = uplinkBps;
+		mDownlinkBps = downlinkBps;
+		mRttMs = rttMs;
+	}
+
+	/**
+	 * @return Client to server bits per second or {@link #UNKNOWN}
+	 */
+	public long getUplinkBps() {
+		return mUplinkBps;
+	}
+
+	/**
+	 * @return Server to client bits per second or {@link #UNKNOWN}
+	 */
+	public long getDownlinkBps() {
+		return mDownlinkBps;
+	}
+
+	/**
+	 * @return Signaling round trip time or {@link #UNKNOWN}
+	 */
+	public long getRttMs() {
+		return mRttMs;
+	}
+
+	@Override
+	public String toString() {
+		return "LinkEstimate{uplinkBps=" + mUplinkBps + ", downlinkBps=" + mDownlinkBps + ", rttMs=" + mRttMs + "}";
+	}
+}
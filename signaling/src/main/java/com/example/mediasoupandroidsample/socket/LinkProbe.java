@@ -0,0 +1,226 @@
+package com.example.mediasoupandroidsample.socket;
+
+import com.example.mediasoupandroidsample.log.Log;
+import com.example.mediasoupandroidsample.request.MessageWriter;
+import com.example.mediasoupandroidsample.trace.Trace;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Short packet-train probe over the signaling socket, run before producing to pick the encoding ladder.
+ *
+ * rtt:  { action, direction: "rtt" } -> { action, serverReceiveTime }
+ * up:   { action, direction: "up", padding } -> { action, serverReceiveTime }
+ * down: { action, direction: "down", size } -> { action, serverReceiveTime, padding }
+ *
+ * A burst of padded messages is queued at the bottleneck, the rate they leave it at is the capacity.
+ * The uplink is timed by the server's receive times, the downlink by the acknowledgement arrival times.
+ * The first message of a burst only marks its start. The phases share one time budget, once a phase
+ * runs out of time the later ones are skipped so a late acknowledgement can not be taken for theirs.
+ */
+public class LinkProbe {
+	private static final String TAG = "LinkProbe";
+
+	private static final int DEFAULT_MESSAGES = 6;
+	private static final int DEFAULT_MESSAGE_BYTES = 8 * 1024;
+
+	// Trace events
+	private static final String TRACE_RTT = "probeRtt";
+	private static final String TRACE_UPLINK = "probeUplink";
+	private static final String TRACE_DOWNLINK = "probeDownlink";
+
+	private final EchoSocket mSocket;
+	private final int mMessages;
+	private final int mMessageBytes;
+
+	public LinkProbe(EchoSocket socket) {
+		this(socket, DEFAULT_MESSAGES, DEFAULT_MESSAGE_BYTES);
+	}
+
+	/**
+	 * @param socket Connected socket
+	 * @param messages Messages per burst, at least 2
+	 * @param messageBytes Padding per message
+	 */
+	public LinkProbe(EchoSocket socket, int messages, int messageBytes) {
+		if (messages < 2) {
+			throw new IllegalArgumentException("messages must be at least 2");
+		}
+
+		mSocket = socket;
+		mMessages = messages;
+		mMessageBytes = messageBytes;
+	}
+
+	/**
+	 * Measure the link, directions that could not be measured within the budget are {@link LinkEstimate#UNKNOWN}
+	 * @param budgetMs Time allowed for the whole probe
+	 * @return Link estimate
+	 * @throws InterruptedException Interrupted while waiting for the server
+	 */
+	public LinkEstimate run(long budgetMs)
+	throws InterruptedException {
+		long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+
+		long rttMs = probeRtt(deadlineNanos);
+		long uplinkBps = System.nanoTime() < deadlineNanos ? probeUplink(deadlineNanos) : LinkEstimate.UNKNOWN;
+		long downlinkBps = System.nanoTime() < deadlineNanos ? probeDownlink(deadlineNanos) : LinkEstimate.UNKNOWN;
+
+		LinkEstimate estimate = new LinkEstimate(uplinkBps, downlinkBps, rttMs);
+		Log.d(TAG, "run() " + estimate);
+
+		return estimate;
+	}
+
+	private long probeRtt(long deadlineNanos)
+	throws InterruptedException {
+		String message = MessageWriter.obtain(ActionEvent.PROBE)
+				.string("direction", "rtt")
+				.build();
+
+		long sentNanos = System.nanoTime();
+		AckFuture<JSONObject> future = mSocket.sendHedged(ActionEvent.PROBE, message, remainingMs(deadlineNanos), 0);
+		JSONObject ack;
+		try {
+			ack = await(future, deadlineNanos);
+		} finally {
+			future.cancel(false);
+		}
+
+		if (ack == null) {
+			return LinkEstimate.UNKNOWN;
+		}
+
+		long rttMs = TimeUnit.NANOSECONDS.toMillis(future.getDoneNanos() - sentNanos);
+		Trace.record(Trace.SIGNALING, TRACE_RTT, null, rttMs);
+
+		return rttMs;
+	}
+
+	private long probeUplink(long deadlineNanos)
+	throws InterruptedException {
+		char[] padding = new char[mMessageBytes];
+		Arrays.fill(padding, 'x');
+		String message = MessageWriter.obtain(ActionEvent.PROBE)
+				.string("direction", "up")
+				.string("padding", new String(padding))
+				.build();
+
+		List<AckFuture<JSONObject>> futures = sendBurst(message, deadlineNanos);
+		long firstMs = -1;
+		long lastMs = -1;
+		long bytes = 0;
+		try {
+			for (AckFuture<JSONObject> future : futures) {
+				JSONObject ack = await(future, deadlineNanos);
+				if (ack == null) {
+					break;
+				}
+
+				long receivedMs = ack.optLong("serverReceiveTime", -1);
+				if (firstMs < 0) {
+					firstMs = receivedMs;
+				} else {
+					lastMs = receivedMs;
+					bytes += message.length();
+				}
+			}
+		} finally {
+			cancel(futures);
+		}
+
+		long bps = rate(bytes, lastMs - firstMs);
+		Trace.record(Trace.SIGNALING, TRACE_UPLINK, null, bps);
+
+		return bps;
+	}
+
+	private long probeDownlink(long deadlineNanos)
+	throws InterruptedException {
+		String message = MessageWriter.obtain(ActionEvent.PROBE)
+				.string("direction", "down")
+				.number("size", mMessageBytes)
+				.build();
+
+		List<AckFuture<JSONObject>> futures = sendBurst(message, deadlineNanos);
+		long firstNanos = 0;
+		long lastNanos = 0;
+		long bytes = 0;
+		boolean first = true;
+		try {
+			for (AckFuture<JSONObject> future : futures) {
+				JSONObject ack = await(future, deadlineNanos);
+				if (ack == null) {
+					break;
+				}
+
+				if (first) {
+					firstNanos = future.getDoneNanos();
+					first = false;
+				} else {
+					lastNanos = future.getDoneNanos();
+					bytes += ack.optString("padding").length();
+				}
+			}
+		} finally {
+			cancel(futures);
+		}
+
+		long bps = rate(bytes, TimeUnit.NANOSECONDS.toMillis(lastNanos - firstNanos));
+		Trace.record(Trace.SIGNALING, TRACE_DOWNLINK, null, bps);
+
+		return bps;
+	}
+
+	private List<AckFuture<JSONObject>> sendBurst(String message, long deadlineNanos) {
+		List<AckFuture<JSONObject>> futures = new ArrayList<>(mMessages);
+		long deadlineMs = remainingMs(deadlineNanos);
+		for (int i = 0; i < mMessages; i++) {
+			futures.add(mSocket.sendHedged(ActionEvent.PROBE, message, deadlineMs, 0));
+		}
+
+		return futures;
+	}
+
+	/**
+	 * @return Acknowledgement or null if it failed or did not arrive before the deadline
+	 */
+	private static JSONObject await(AckFuture<JSONObject> future, long deadlineNanos)
+	throws InterruptedException {
+		try {
+			return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (ExecutionException | TimeoutException e) {
+			future.cancel(false);
+			return null;
+		}
+	}
+
+	private static void cancel(List<AckFuture<JSONObject>> futures) {
+		for (AckFuture<JSONObject> future : futures) {
+			future.cancel(false);
+		}
+	}
+
+	/**
+	 * @return Bits per second or {@link LinkEstimate#UNKNOWN} without a timed byte
+	 */
+	private static long rate(long bytes, long elapsedMs) {
+		if (bytes == 0 || elapsedMs < 0) {
+			return LinkEstimate.UNKNOWN;
+		}
+
+		// The whole burst inside one clock tick, the link is at least this fast
+		return bytes * 8 * 1000 / Math.max(1, elapsedMs);
+	}
+
+	private static long remainingMs(long deadlineNanos) {
+		return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+	}
+}
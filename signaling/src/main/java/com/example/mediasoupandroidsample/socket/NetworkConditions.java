@@ -0,0 +1,122 @@
+package com.example.mediasoupandroidsample.socket;
+
+/**
+ * Network impairment applied by ImpairedTransport, each value applies to both directions
+ */
+public class NetworkConditions {
+	public static final NetworkConditions NONE = new Builder().build();
+
+	private final long mLatencyMs;
+	private final long mJitterMs;
+	private final long mBandwidthBytesPerSecond;
+	private final double mReorderProbability;
+	private final long mReorderDelayMs;
+	private final double mDropProbability;
+
+	private NetworkConditions(Builder builder) {
+		mLatencyMs = builder.mLatencyMs;
+		mJitterMs = builder.mJitterMs;
+		mBandwidthBytesPerSecond = builder.mBandwidthBytesPerSecond;
+		mReorderProbability = builder.mReorderProbability;
+		mReorderDelayMs = builder.mReorderDelayMs;
+		mDropProbability = builder.mDropProbability;
+	}
+
+	public long getLatencyMs() {
+		return mLatencyMs;
+	}
+
+	public long getJitterMs() {
+		return mJitterMs;
+	}
+
+	public long getBandwidthBytesPerSecond() {
+		return mBandwidthBytesPerSecond;
+	}
+
+	public double getReorderProbability() {
+		return mReorderProbability;
+	}
+
+	public long getReorderDelayMs() {
+		return mReorderDelayMs;
+	}
+
+	public double getDropProbability() {
+		return mDropProbability;
+	}
+
+	public Builder newBuilder() {
+		return new Builder()
+				.latencyMs(mLatencyMs)
+				.jitterMs(mJitterMs)
+				.bandwidthBytesPerSecond(mBandwidthBytesPerSecond)
+				.reorder(mReorderProbability, mReorderDelayMs)
+				.dropProbability(mDropProbability);
+	}
+
+	@Override
+	public String toString() {
+		return "NetworkConditions{latencyMs=" + mLatencyMs
+				+ ", jitterMs=" + mJitterMs
+				+ ", bandwidthBytesPerSecond=" + mBandwidthBytesPerSecond
+				+ ", reorderProbability=" + mReorderProbability
+				+ ", reorderDelayMs=" + mReorderDelayMs
+				+ ", dropProbability=" + mDropProbability + "}";
+	}
+
+	public static class Builder {
+		private long mLatencyMs;
+		private long mJitterMs;
+		private long mBandwidthBytesPerSecond;
+		private double mReorderProbability;
+		private long mReorderDelayMs;
+		private double mDropProbability;
+
+		/**
+		 * @param latencyMs One-way delay added to every message
+		 */
+		public Builder latencyMs(long latencyMs) {
+			mLatencyMs = latencyMs;
+			return this;
+		}
+
+		/**
+		 * @param jitterMs Upper bound of a uniformly random extra delay, messages stay in order
+		 */
+		public Builder jitterMs(long jitterMs) {
+			mJitterMs = jitterMs;
+			return this;
+		}
+
+		/**
+		 * @param bandwidthBytesPerSecond Link capacity, 0 for unlimited
+		 */
+		public Builder bandwidthBytesPerSecond(long bandwidthBytesPerSecond) {
+			mBandwidthBytesPerSecond = bandwidthBytesPerSecond;
+			return this;
+		}
+
+		/**
+		 * @param probability Chance a message is held back and overtaken by the following ones
+		 * @param delayMs How long a reordered message is held back
+		 */
+		public Builder reorder(double probability, long delayMs) {
+			mReorderProbability = probability;
+			mReorderDelayMs = delayMs;
+			return this;
+		}
+
+		/**
+		 * @param dropProbability Chance the connection drops while sending a message, the message is lost
+		 */
+		public Builder dropProbability(double dropProbability) {
+			mDropProbability = dropProbability;
+			return this;
+		}
+
+		public NetworkConditions build() {
+			return new NetworkConditions(this);
+		}
+	}
+}
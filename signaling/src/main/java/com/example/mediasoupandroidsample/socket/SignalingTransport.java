@@ -0,0 +1,39 @@
+package com.example.mediasoupandroidsample.socket;
+
+/**
+ * Text message transport underneath EchoSocket
+ */
+public interface SignalingTransport {
+	/**
+	 * Open a connection, events for it are delivered to the listener
+	 * @param url ws/wss URL
+	 * @param listener Listener
+	 */
+	void open(String url, Listener listener);
+
+	/**
+	 * Queue a text message
+	 * @param text Message
+	 * @return false if the connection is not open
+	 */
+	boolean send(String text);
+
+	/**
+	 * Start a graceful close of the connection
+	 * @param code Close code
+	 * @param reason Reason
+	 */
+	void close(int code, String reason);
+
+	/**
+	 * Release what the transport holds for its connection, it can not be reopened afterwards
+	 */
+	void release();
+
+	interface Listener {
+		void onOpen();
+		void onMessage(String text);
+		void onClosed(int code, String reason);
+		void onFailure(Throwable t);
+	}
+}
@@ -0,0 +1,87 @@
+package com.example.mediasoupandroidsample.socket;
+
+import com.example.mediasoupandroidsample.utils.SignalingHttpClient;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+/**
+ * SignalingTransport backed by an OkHttp3 WebSocket
+ */
+public class WebSocketTransport extends WebSocketListener implements SignalingTransport {
+	private final OkHttpClient mClient;
+
+	private volatile WebSocket mSocket;
+	private volatile Listener mListener;
+
+	public WebSocketTransport() {
+		this(SignalingHttpClient.get());
+	}
+
+	/**
+	 * @param client Client opening the WebSocket, it is not shut down by {@link #release()}
+	 */
+	public WebSocketTransport(OkHttpClient client) {
+		mClient = client;
+	}
+
+	@Override
+	public void open(String url, Listener listener) {
+		mListener = listener;
+		Request request = new Request.Builder().url(url).build();
+		mSocket = mClient.newWebSocket(request, this);
+	}
+
+	@Override
+	public boolean send(String text) {
+		WebSocket socket = mSocket;
+		return socket != null && socket.send(text);
+	}
+
+	@Override
+	public void close(int code, String reason) {
+		WebSocket socket = mSocket;
+		if (socket != null) {
+			socket.close(code, reason);
+			mSocket = null;
+		}
+	}
+
+	/**
+	 * Drop the connection if a graceful close did not finish, the client's threads and pooled
+	 * connections are shared with other sockets and stay up
+	 */
+	@Override
+	public void release() {
+		WebSocket socket = mSocket;
+		if (socket != null) {
+			socket.cancel();
+			mSocket = null;
+		}
+	}
+
+	@Override
+	public void onOpen(WebSocket webSocket, Response response) {
+		mListener.onOpen();
+	}
+
+	@Override
+	public void onMessage(WebSocket webSocket, String text) {
+		mListener.onMessage(text);
+	}
+
+	@Override
+	public void onClosed(WebSocket webSocket, int code, String reason) {
+		mSocket = null;
+		mListener.onClosed(code, reason);
+	}
+
+	@Override
+	public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+		mSocket = null;
+		mListener.onFailure(t);
+	}
+}
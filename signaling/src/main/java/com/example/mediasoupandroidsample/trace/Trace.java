@@ -0,0 +1,85 @@
+package com.example.mediasoupandroidsample.trace;
+
+/**
+ * Structured tracing facade. Call sites pass values they already hold, nothing is formatted
+ * while recording, and a disabled category costs one volatile read.
+ */
+public final class Trace {
+	public static final int SIGNALING = 1;
+	public static final int TRANSPORT = 1 << 1;
+	public static final int PRODUCER = 1 << 2;
+	public static final int CONSUMER = 1 << 3;
+	public static final int ALL = SIGNALING | TRANSPORT | PRODUCER | CONSUMER;
+
+	private static volatile int sCategories;
+	private static volatile TraceRecorder sRecorder;
+
+	private Trace() {}
+
+	/**
+	 * Start recording
+	 * @param recorder Recorder that keeps the events
+	 * @param categories Categories to record, e.g. Trace.ALL
+	 */
+	public static void start(TraceRecorder recorder, int categories) {
+		sRecorder = recorder;
+		sCategories = categories;
+	}
+
+	public static void stop() {
+		sCategories = 0;
+	}
+
+	/**
+	 * @return Recorder or null if tracing was never started
+	 */
+	public static TraceRecorder getRecorder() {
+		return sRecorder;
+	}
+
+	/**
+	 * Check before computing a value that is only needed for tracing
+	 * @param category Category
+	 * @return true if the category is recorded
+	 */
+	public static boolean isEnabled(int category) {
+		return (sCategories & category) != 0;
+	}
+
+	/**
+	 * Record an event
+	 * @param category Category
+	 * @param event Event name, a constant
+	 * @param subject What the event is about, e.g. an action or transport id
+	 * @param value Event value, e.g. a size or a state ordinal
+	 */
+	public static void record(int category, String event, String subject, long value) {
+		if ((sCategories & category) == 0) {
+			return;
+		}
+
+		TraceRecorder recorder = sRecorder;
+		if (recorder != null) {
+			recorder.record(category, event, subject, value);
+		}
+	}
+
+	/**
+	 * @param category Category
+	 * @return Category name
+	 */
+	public static String categoryName(int category) {
+		switch (category) {
+			case SIGNALING:
+				return "signaling";
+			case TRANSPORT:
+				return "transport";
+			case PRODUCER:
+				return "producer";
+			case CONSUMER:
+				return "consumer";
+			default:
+				return String.valueOf(category);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package com.example.mediasoupandroidsample.trace;
+
+/**
+ * A recorded trace event
+ */
+public class TraceEvent {
+	private final long mTimestampNs;
+	private final int mCategory;
+	private final String mEvent;
+	private final String mSubject;
+	private final long mValue;
+
+	TraceEvent(long timestampNs, int category, String event, String subject, long value) {
+		mTimestampNs = timestampNs;
+		mCategory = category;
+		mEvent = event;
+		mSubject = subject;
+		mValue = value;
+	}
+
+	/**
+	 * @return System.nanoTime() when the event was recorded
+	 */
+	public long getTimestampNs() {
+		return mTimestampNs;
+	}
+
+	public int getCategory() {
+		return mCategory;
+	}
+
+	public String getEvent() {
+		return mEvent;
+	}
+
+	public String getSubject() {
+		return mSubject;
+	}
+
+	public long getValue() {
+		return mValue;
+	}
+
+	@Override
+	public String toString() {
+		return mTimestampNs + " " + Trace.categoryName(mCategory) + " " + mEvent + " " + mSubject + " " + mValue;
+	}
+}
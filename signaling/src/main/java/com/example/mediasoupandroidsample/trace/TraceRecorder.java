@@ -0,0 +1,121 @@
+package com.example.mediasoupandroidsample.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring of trace events, the oldest events are overwritten once the ring is full.
+ *
+ * Writers take a sequence number with one atomic increment and claim its slot with a CAS, they never
+ * block: if a writer a whole ring behind still holds the slot, the newer event is dropped instead.
+ * The fields are written with ordered stores before the sequence is published, and read back between
+ * two reads of the sequence, so a snapshot only contains whole events.
+ */
+public class TraceRecorder {
+	// Slot sequence before the first event
+	private static final long EMPTY = -2;
+	// Slot sequence while a writer is filling it
+	private static final long WRITING = -1;
+
+	private final int mMask;
+	private final AtomicLong mNext;
+	// Sequence number of the event in each slot, read before and after the fields to detect overwrites
+	private final AtomicLongArray mSequences;
+	private final AtomicLongArray mTimestamps;
+	private final AtomicIntegerArray mCategories;
+	private final AtomicReferenceArray<String> mEvents;
+	private final AtomicReferenceArray<String> mSubjects;
+	private final AtomicLongArray mValues;
+
+	/**
+	 * @param capacity Number of events kept, rounded up to a power of two
+	 */
+	public TraceRecorder(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		mMask = size - 1;
+		mNext = new AtomicLong();
+		mSequences = new AtomicLongArray(size);
+		mTimestamps = new AtomicLongArray(size);
+		mCategories = new AtomicIntegerArray(size);
+		mEvents = new AtomicReferenceArray<>(size);
+		mSubjects = new AtomicReferenceArray<>(size);
+		mValues = new AtomicLongArray(size);
+
+		for (int i = 0; i < size; i++) {
+			mSequences.set(i, EMPTY);
+		}
+	}
+
+	public int getCapacity() {
+		return mMask + 1;
+	}
+
+	/**
+	 * @return Number of events recorded since creation, including overwritten ones
+	 */
+	public long getRecordedCount() {
+		return mNext.get();
+	}
+
+	void record(int category, String event, String subject, long value) {
+		long sequence = mNext.getAndIncrement();
+		int slot = (int) (sequence & mMask);
+
+		long current;
+		do {
+			current = mSequences.get(slot);
+			// A writer lapped by the ring is still in the slot, or a newer event already took it
+			if (current == WRITING || current > sequence) {
+				return;
+			}
+		} while (!mSequences.compareAndSet(slot, current, WRITING));
+
+		// Ordered stores, none of them moves before the claim or after the publish
+		mTimestamps.lazySet(slot, System.nanoTime());
+		mCategories.lazySet(slot, category);
+		mEvents.lazySet(slot, event);
+		mSubjects.lazySet(slot, subject);
+		mValues.lazySet(slot, value);
+		mSequences.lazySet(slot, sequence);
+	}
+
+	/**
+	 * Copy the events in the ring, oldest first. Events being written or overwritten while
+	 * copying are skipped, as are events dropped by a writer that found its slot taken.
+	 * @return Events
+	 */
+	public List<TraceEvent> snapshot() {
+		long end = mNext.get();
+		long start = Math.max(0, end - getCapacity());
+		List<TraceEvent> events = new ArrayList<>((int) (end - start));
+
+		for (long sequence = start; sequence < end; sequence++) {
+			int slot = (int) (sequence & mMask);
+			if (mSequences.get(slot) != sequence) {
+				continue;
+			}
+
+			TraceEvent event = new TraceEvent(mTimestamps.get(slot), mCategories.get(slot), mEvents.get(slot), mSubjects.get(slot), mValues.get(slot));
+			// The field reads are volatile, so this second read of the sequence can not happen before them
+			if (mSequences.get(slot) == sequence) {
+				events.add(event);
+			}
+		}
+
+		return events;
+	}
+
+	/**
+	 * Write the events in the ring, oldest first, one per line
+	 * @param out Output
+	 */
+	public void dump(StringBuilder out) {
+		for (TraceEvent event : snapshot()) {
+			out.append(event).append('\n');
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package com.example.mediasoupandroidsample.utils;
+
+import com.example.mediasoupandroidsample.log.Log;
+import com.example.mediasoupandroidsample.trace.Trace;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import okhttp3.Dns;
+
+/**
+ * Times the DNS lookup, TCP connect and TLS handshake of signaling connects.
+ *
+ * OkHttp does not report call events for WebSocket calls, so the timer wraps the client's DNS,
+ * socket factory and TLS socket factory instead. A connect runs its phases on one dispatcher thread,
+ * a thread local ties them together. A phase that did not happen, e.g. TLS for ws://, is reported as 0.
+ */
+public class ConnectTimer {
+	private static final String TAG = "ConnectTimer";
+
+	// Trace events
+	private static final String TRACE_DNS = "dns";
+	private static final String TRACE_TCP = "tcp";
+	private static final String TRACE_TLS = "tls";
+
+	private static final ThreadLocal<Phases> sPhases = new ThreadLocal<>();
+	private static volatile ConnectTiming sLastTiming;
+
+	private ConnectTimer() {}
+
+	/**
+	 * @return Timing of the latest connect, null before the first one
+	 */
+	public static ConnectTiming getLastTiming() {
+		return sLastTiming;
+	}
+
+	static Dns dns(Dns delegate) {
+		return hostname -> {
+			// Every connect starts with a lookup, even of an IP address
+			Phases phases = new Phases();
+			sPhases.set(phases);
+
+			long start = System.nanoTime();
+			List<InetAddress> addresses = delegate.lookup(hostname);
+			phases.mDnsMs = sinceMs(start);
+			Trace.record(Trace.SIGNALING, TRACE_DNS, hostname, phases.mDnsMs);
+
+			return addresses;
+		};
+	}
+
+	static SocketFactory socketFactory(SocketFactory delegate) {
+		return new TimedSocketFactory(delegate);
+	}
+
+	static SSLSocketFactory sslSocketFactory(SSLSocketFactory delegate) {
+		return new TimedSslSocketFactory(delegate);
+	}
+
+	private static Phases currentPhases() {
+		Phases phases = sPhases.get();
+		if (phases == null) {
+			phases = new Phases();
+			sPhases.set(phases);
+		}
+
+		return phases;
+	}
+
+	private static long sinceMs(long startNs) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+	}
+
+	private static void publish(Phases phases) {
+		ConnectTiming timing = new ConnectTiming(phases.mDnsMs, phases.mTcpMs, phases.mTlsMs, phases.mTlsResumed);
+		sLastTiming = timing;
+		Log.d(TAG, timing.toString());
+	}
+
+	/**
+	 * Phases of the connect in progress on a thread
+	 */
+	private static class Phases {
+		private volatile long mDnsMs;
+		private volatile long mTcpMs;
+		private volatile long mTlsMs;
+		private volatile boolean mTlsResumed;
+	}
+
+	private static class TimedSocketFactory extends SocketFactory {
+		private final SocketFactory mDelegate;
+
+		TimedSocketFactory(SocketFactory delegate) {
+			mDelegate = delegate;
+		}
+
+		/**
+		 * OkHttp creates an unconnected socket and connects it, the connect is timed
+		 */
+		@Override
+		public Socket createSocket() {
+			return new Socket() {
+				@Override
+				public void connect(SocketAddress endpoint, int timeout)
+				throws IOException {
+					Phases phases = currentPhases();
+					long start = System.nanoTime();
+					super.connect(endpoint, timeout);
+					phases.mTcpMs = sinceMs(start);
+					Trace.record(Trace.SIGNALING, TRACE_TCP, String.valueOf(endpoint), phases.mTcpMs);
+
+					// Complete for ws://, a TLS handshake updates it
+					publish(phases);
+				}
+			};
+		}
+
+		@Override
+		public Socket createSocket(String host, int port)
+		throws IOException {
+			return mDelegate.createSocket(host, port);
+		}
+
+		@Override
+		public Socket createSocket(String host, int port, InetAddress localHost, int localPort)
+		throws IOException {
+			return mDelegate.createSocket(host, port, localHost, localPort);
+		}
+
+		@Override
+		public Socket createSocket(InetAddress host, int port)
+		throws IOException {
+			return mDelegate.createSocket(host, port);
+		}
+
+		@Override
+		public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+		throws IOException {
+			return mDelegate.createSocket(address, port, localAddress, localPort);
+		}
+	}
+
+	private static class TimedSslSocketFactory extends SSLSocketFactory {
+		private final SSLSocketFactory mDelegate;
+
+		TimedSslSocketFactory(SSLSocketFactory delegate) {
+			mDelegate = delegate;
+		}
+
+		/**
+		 * OkHttp layers TLS over the connected socket and starts the handshake right after,
+		 * the handshake runs from here to the completion callback
+		 */
+		@Override
+		public Socket createSocket(Socket socket, String host, int port, boolean autoClose)
+		throws IOException {
+			SSLSocket sslSocket = (SSLSocket) mDelegate.createSocket(socket, host, port, autoClose);
+
+			Phases phases = currentPhases();
+			long start = System.nanoTime();
+			long startMs = System.currentTimeMillis();
+			sslSocket.addHandshakeCompletedListener(event -> {
+				phases.mTlsMs = sinceMs(start);
+				// A session taken from the cache was created by an earlier handshake
+				phases.mTlsResumed = event.getSession().getCreationTime() < startMs;
+				Trace.record(Trace.SIGNALING, TRACE_TLS, event.getCipherSuite(), phases.mTlsMs);
+				publish(phases);
+			});
+
+			return sslSocket;
+		}
+
+		@Override
+		public String[] getDefaultCipherSuites() {
+			return mDelegate.getDefaultCipherSuites();
+		}
+
+		@Override
+		public String[] getSupportedCipherSuites() {
+			return mDelegate.getSupportedCipherSuites();
+		}
+
+		@Override
+		public Socket createSocket(String host, int port)
+		throws IOException, UnknownHostException {
+			return mDelegate.createSocket(host, port);
+		}
+
+		@Override
+		public Socket createSocket(String host, int port, InetAddress localHost, int localPort)
+		throws IOException, UnknownHostException {
+			return mDelegate.createSocket(host, port, localHost, localPort);
+		}
+
+		@Override
+		public Socket createSocket(InetAddress host, int port)
+		throws IOException {
+			return mDelegate.createSocket(host, port);
+		}
+
+		@Override
+		public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+		throws IOException {
+			return mDelegate.createSocket(address, port, localAddress, localPort);
+		}
+	}
+
+	/**
+	 * Phases of one connect in ms
+	 */
+	public static class ConnectTiming {
+		private final long mDnsMs;
+		private final long mTcpMs;
+		private final long mTlsMs;
+		private final boolean mTlsResumed;
+
+		ConnectTiming(long dnsMs, long tcpMs, long tlsMs, boolean tlsResumed) {
+			mDnsMs = dnsMs;
+			mTcpMs = tcpMs;
+			mTlsMs = tlsMs;
+			mTlsResumed = tlsResumed;
+		}
+
+		public long getDnsMs() {
+			return mDnsMs;
+		}
+
+		public long getTcpMs() {
+			return mTcpMs;
+		}
+
+		/**
+		 * @return TLS handshake time, a session resumed from the cache shows up as a shorter handshake
+		 */
+		public long getTlsMs() {
+			return mTlsMs;
+		}
+
+		/**
+		 * @return true if the TLS session was resumed from the cache instead of negotiated
+		 */
+		public boolean isTlsResumed() {
+			return mTlsResumed;
+		}
+
+		@Override
+		public String toString() {
+			return "ConnectTiming{dns=" + mDnsMs + "ms tcp=" + mTcpMs + "ms tls=" + mTlsMs + "ms resumed=" + mTlsResumed + "}";
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.mediasoupandroidsample.utils;
+
+import com.example.mediasoupandroidsample.log.Log;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks one at a time in submission order on a shared executor, without holding a lock
+ */
+public class SerialExecutor implements Executor {
+	private static final String TAG = "SerialExecutor";
+
+	private final Executor mExecutor;
+	private final Queue<Runnable> mTasks;
+	private final AtomicBoolean mRunning;
+	// ConcurrentLinkedQueue.size() walks the queue, keep a count instead
+	private final AtomicInteger mPending;
+
+	public SerialExecutor(Executor executor) {
+		mExecutor = executor;
+		mTasks = new ConcurrentLinkedQueue<>();
+		mRunning = new AtomicBoolean(false);
+		mPending = new AtomicInteger();
+	}
+
+	/**
+	 * @return Number of tasks queued and not yet started
+	 */
+	public int getPendingCount() {
+		return mPending.get();
+	}
+
+	/**
+	 * Queue a task
+	 * @param task Task
+	 */
+	@Override
+	public void execute(Runnable task) {
+		mPending.incrementAndGet();
+		mTasks.offer(task);
+		scheduleDrain();
+	}
+
+	/**
+	 * Queue a task with a result
+	 * @param task Task
+	 * @return Future of the task result
+	 */
+	public <T> Future<T> submit(Callable<T> task) {
+		FutureTask<T> future = new FutureTask<>(task);
+		execute(future);
+		return future;
+	}
+
+	private void scheduleDrain() {
+		// Only one drain may run at a time, whoever wins the flag schedules it
+		if (mRunning.compareAndSet(false, true)) {
+			mExecutor.execute(this::drain);
+		}
+	}
+
+	private void drain() {
+		try {
+			Runnable task;
+			while ((task = mTasks.poll()) != null) {
+				mPending.decrementAndGet();
+				try {
+					task.run();
+				} catch (RuntimeException re) {
+					Log.e(TAG, "Serial task failed", re);
+				}
+			}
+		} finally {
+			mRunning.set(false);
+			// A task may have been queued after the last poll but before the flag was cleared
+			if (!mTasks.isEmpty()) {
+				scheduleDrain();
+			}
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package com.example.mediasoupandroidsample.utils;
+
+import com.example.mediasoupandroidsample.log.Log;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import okhttp3.Dispatcher;
+import okhttp3.Dns;
+import okhttp3.OkHttpClient;
+import okhttp3.internal.tls.OkHostnameVerifier;
+import okio.ByteString;
+
+/**
+ * Process-wide OkHttp client for signaling.
+ *
+ * Every socket shares one client, so sockets share its dispatcher threads, connection pool and one TLS context
+ * whose session cache lets a reconnect resume the TLS session with an abbreviated handshake.
+ * The server is trusted by the pinned public key of its leaf certificate, which also covers a self-signed
+ * certificate, or by the platform's CAs when no pins are configured. Either way the certificate must name
+ * the host, a self-signed certificate for an IP address needs it as an IP subjectAltName.
+ * Connects are timed by {@link ConnectTimer}.
+ */
+public class SignalingHttpClient {
+	private static final String TAG = "SignalingHttpClient";
+
+	/**
+	 * WebSocket ping interval used when none is configured
+	 */
+	public static final long DEFAULT_PING_INTERVAL_MS = 30_000;
+
+	/**
+	 * Pins are the base64 SHA-256 of the certificate's SubjectPublicKeyInfo, as in OkHttp's CertificatePinner
+	 */
+	public static final String PIN_PREFIX = "sha256/";
+
+	private static final int TLS_SESSION_CACHE_SIZE = 16;
+	private static final int TLS_SESSION_TIMEOUT_S = (int) TimeUnit.HOURS.toSeconds(24);
+
+	// Guarded by SignalingHttpClient.class
+	private static List<String> sPins = Collections.emptyList();
+	private static long sPingIntervalMs = DEFAULT_PING_INTERVAL_MS;
+	private static OkHttpClient sClient;
+
+	private SignalingHttpClient() {}
+
+	/**
+	 * Set up the shared client, before the first socket connects. Sockets connecting after a later call
+	 * use the new settings, the threads and pooled connections stay shared.
+	 * @param pins Pinned server public keys as "sha256/<base64>", empty to trust the platform's CAs
+	 * @param pingIntervalMs WebSocket ping interval, 0 to disable pings
+	 */
+	public static synchronized void configure(List<String> pins, long pingIntervalMs) {
+		for (String pin : pins) {
+			if (!pin.startsWith(PIN_PREFIX)) {
+				throw new IllegalArgumentException("Pin must start with " + PIN_PREFIX + " pin=" + pin);
+			}
+		}
+
+		sPins = new ArrayList<>(pins);
+		sPingIntervalMs = pingIntervalMs;
+		if (sClient != null) {
+			sClient = build(sClient.newBuilder());
+		}
+	}
+
+	/**
+	 * @return Shared signaling client
+	 */
+	public static synchronized OkHttpClient get() {
+		if (sClient == null) {
+			// A WebSocket holds its dispatcher slot for as long as it is open, do not cap the sockets per host
+			Dispatcher dispatcher = new Dispatcher();
+			dispatcher.setMaxRequests(Integer.MAX_VALUE);
+			dispatcher.setMaxRequestsPerHost(Integer.MAX_VALUE);
+
+			OkHttpClient.Builder builder = new OkHttpClient.Builder()
+					.dispatcher(dispatcher)
+					.dns(ConnectTimer.dns(Dns.SYSTEM))
+					.socketFactory(ConnectTimer.socketFactory(SocketFactory.getDefault()));
+			sClient = build(builder);
+		}
+
+		return sClient;
+	}
+
+	/**
+	 * @param certificate Server certificate
+	 * @return Pin of the certificate's public key
+	 */
+	public static String pinOf(X509Certificate certificate) {
+		return PIN_PREFIX + ByteString.of(certificate.getPublicKey().getEncoded()).sha256().base64();
+	}
+
+	private static OkHttpClient build(OkHttpClient.Builder builder) {
+		X509TrustManager trustManager = sPins.isEmpty() ? platformTrustManager() : new PinningTrustManager(sPins);
+
+		SSLContext sslContext;
+		try {
+			sslContext = SSLContext.getInstance("TLS");
+			sslContext.init(null, new TrustManager[] { trustManager }, null);
+		} catch (GeneralSecurityException gse) {
+			throw new IllegalStateException("Failed to create the TLS context", gse);
+		}
+
+		SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+		sessionContext.setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+		sessionContext.setSessionTimeout(TLS_SESSION_TIMEOUT_S);
+
+		builder.sslSocketFactory(ConnectTimer.sslSocketFactory(sslContext.getSocketFactory()), trustManager)
+				.hostnameVerifier(OkHostnameVerifier.INSTANCE)
+				.pingInterval(sPingIntervalMs, TimeUnit.MILLISECONDS);
+
+		Log.d(TAG, "build() pins=" + sPins.size() + " pingIntervalMs=" + sPingIntervalMs);
+		return builder.build();
+	}
+
+	private static X509TrustManager platformTrustManager() {
+		try {
+			TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+			factory.init((KeyStore) null);
+			for (TrustManager trustManager : factory.getTrustManagers()) {
+				if (trustManager instanceof X509TrustManager) {
+					return (X509TrustManager) trustManager;
+				}
+			}
+		} catch (GeneralSecurityException gse) {
+			throw new IllegalStateException("Failed to load the platform trust manager", gse);
+		}
+
+		throw new IllegalStateException("No platform X509TrustManager");
+	}
+
+	/**
+	 * Trusts a server whose leaf certificate has a pinned public key, no CA is involved.
+	 * Only the leaf counts: the handshake proves the server holds the leaf's private key, any other
+	 * certificate in the chain is merely sent along and a pinned one there proves nothing.
+	 */
+	private static class PinningTrustManager implements X509TrustManager {
+		private final List<String> mPins;
+
+		PinningTrustManager(List<String> pins) {
+			mPins = pins;
+		}
+
+		@Override
+		public void checkClientTrusted(X509Certificate[] chain, String authType)
+		throws CertificateException {
+			throw new CertificateException("Client certificates are not trusted");
+		}
+
+		@Override
+		public void checkServerTrusted(X509Certificate[] chain, String authType)
+		throws CertificateException {
+			if (chain == null || chain.length == 0) {
+				throw new CertificateException("Empty server certificate chain");
+			}
+
+			X509Certificate leaf = chain[0];
+			if (!mPins.contains(pinOf(leaf))) {
+				throw new CertificateException("Server certificate public key is not pinned, leaf=" + pinOf(leaf));
+			}
+			leaf.checkValidity();
+		}
+
+		@Override
+		public X509Certificate[] getAcceptedIssuers() {
+			return new X509Certificate[0];
+		}
+	}
+}
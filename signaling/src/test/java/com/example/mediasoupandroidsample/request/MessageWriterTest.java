@@ -0,0 +1,55 @@
+package com.example.mediasoupandroidsample.request;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MessageWriterTest {
+	private static final String DTLS_PARAMETERS = "{\"role\":\"client\",\"fingerprints\":[{\"algorithm\":\"sha-256\",\"value\":\"82:5A\"}]}";
+
+	@Test
+	public void splicedMessageMatchesTheTreeBuiltOne()
+	throws Exception {
+		String spliced = MessageWriter.obtain("connectWebRtcTransport")
+				.string("roomId", "room")
+				.string("transportId", "transport")
+				.raw("dtlsParameters", DTLS_PARAMETERS)
+				.build();
+
+		JSONObject expected = new JSONObject();
+		expected.put("action", "connectWebRtcTransport");
+		expected.put("roomId", "room");
+		expected.put("transportId", "transport");
+		expected.put("dtlsParameters", new JSONObject(DTLS_PARAMETERS));
+
+		assertEquals(expected.toString(), new JSONObject(spliced).toString());
+	}
+
+	@Test
+	public void stringsAreEscaped()
+	throws Exception {
+		String value = "quote\" backslash\\ newline\n control\u0001";
+
+		String message = MessageWriter.obtain("loginRoom").string("roomId", value).build();
+
+		assertEquals(value, new JSONObject(message).getString("roomId"));
+	}
+
+	@Test
+	public void writerIsReusedForTheNextMessage()
+	throws Exception {
+		MessageWriter.obtain("produce").string("kind", "video").build();
+
+		String message = MessageWriter.obtain("produce").string("kind", "audio").build();
+
+		assertEquals("{\"action\":\"produce\",\"kind\":\"audio\"}", message);
+	}
+
+	@Test(expected = JSONException.class)
+	public void nonJsonFragmentIsRejected()
+	throws Exception {
+		MessageWriter.obtain("produce").raw("rtpParameters", "not json");
+	}
+}
@@ -0,0 +1,397 @@
+package com.example.mediasoupandroidsample.socket;
+
+import com.example.mediasoupandroidsample.request.Request;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.WebSocket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EchoSocketTest {
+	private MockSfuServer mServer;
+	private EchoSocket mSocket;
+
+	@Before
+	public void connect()
+	throws Exception {
+		mServer = new MockSfuServer();
+		String url = mServer.start();
+
+		mSocket = new EchoSocket();
+		mSocket.connect(url).get(5, TimeUnit.SECONDS);
+	}
+
+	@After
+	public void disconnect()
+	throws Exception {
+		mSocket.disconnect();
+		mServer.shutdown();
+	}
+
+	@Test
+	public void ackResponseIsReturned()
+	throws Exception {
+		JSONObject response = Request.sendGetRoomRtpCapabilitiesRequest(mSocket, "room");
+
+		assertEquals("getRoomRtpCapabilities", response.getString("action"));
+		assertTrue(response.has("roomRtpCapabilities"));
+	}
+
+	@Test
+	public void concurrentAcksAreMatchedToTheirRequests()
+	throws Exception {
+		JSONObject capabilitiesRequest = new JSONObject();
+		capabilitiesRequest.put("action", "getRoomRtpCapabilities");
+		JSONObject transportRequest = new JSONObject();
+		transportRequest.put("action", ActionEvent.CREATE_WEBRTC_TRANSPORT);
+
+		Future<JSONObject> capabilities = mSocket.sendWithFuture(capabilitiesRequest);
+		Future<JSONObject> transport = mSocket.sendWithFuture(transportRequest);
+
+		assertTrue(capabilities.get(5, TimeUnit.SECONDS).has("roomRtpCapabilities"));
+		assertTrue(transport.get(5, TimeUnit.SECONDS).has("webRtcTransportData"));
+	}
+
+	@Test
+	public void observersAreNotified()
+	throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		mSocket.register((event, data) -> {
+			if (ActionEvent.NEW_USER.equals(event)) {
+				latch.countDown();
+			}
+		});
+
+		mSocket.onMessage("{\"action\":\"newuser\",\"userId\":\"user\"}");
+
+		assertTrue(latch.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void roomObserversOnlyGetTheirRoomsEvents()
+	throws Exception {
+		List<String> roomA = Collections.synchronizedList(new ArrayList<>());
+		List<String> roomB = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch latch = new CountDownLatch(4);
+		mSocket.register("a", (event, data) -> {
+			roomA.add(event);
+			latch.countDown();
+		});
+		mSocket.register("b", (event, data) -> {
+			roomB.add(event);
+			latch.countDown();
+		});
+
+		mSocket.onMessage("{\"action\":\"newuser\",\"roomId\":\"a\",\"userId\":\"user\"}");
+		mSocket.onMessage("{\"action\":\"newconsumer\",\"consumerData\":{\"roomId\":\"b\"}}");
+		// Not room scoped, every room gets it
+		mSocket.onMessage("{\"action\":\"userleft\",\"userId\":\"user\"}");
+
+		assertTrue(latch.await(1, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(ActionEvent.NEW_USER, ActionEvent.USER_LEFT), roomA);
+		assertEquals(Arrays.asList(ActionEvent.NEW_CONSUMER, ActionEvent.USER_LEFT), roomB);
+	}
+
+	@Test
+	public void sameActionAcksCompleteInOrder()
+	throws Exception {
+		JSONObject sendRequest = new JSONObject().put("action", ActionEvent.CREATE_WEBRTC_TRANSPORT).put("direction", "send");
+		JSONObject recvRequest = new JSONObject().put("action", ActionEvent.CREATE_WEBRTC_TRANSPORT).put("direction", "recv");
+
+		Future<JSONObject> send = mSocket.sendWithFuture(sendRequest);
+		Future<JSONObject> recv = mSocket.sendWithFuture(recvRequest);
+
+		String sendId = send.get(5, TimeUnit.SECONDS).getJSONObject("webRtcTransportData").getString("id");
+		String recvId = recv.get(5, TimeUnit.SECONDS).getJSONObject("webRtcTransportData").getString("id");
+		assertNotEquals(sendId, recvId);
+		assertEquals(0, mSocket.getPendingAckCount());
+	}
+
+	@Test
+	public void roomsSharingTheSocketGetTheirOwnAcksAnsweredOutOfOrder()
+	throws Exception {
+		List<JSONObject> held = new ArrayList<>();
+		MockSfuServer server = new MockSfuServer() {
+			@Override
+			public void onMessage(WebSocket webSocket, String text) {
+				try {
+					JSONObject request = new JSONObject(text);
+					if (!ActionEvent.CREATE_WEBRTC_TRANSPORT.equals(request.getString("action"))) {
+						super.onMessage(webSocket, text);
+						return;
+					}
+
+					// Hold both rooms' requests, then answer the last one first
+					held.add(request);
+					if (held.size() == 2) {
+						for (int i = held.size() - 1; i >= 0; i--) {
+							JSONObject transportData = new JSONObject().put("id", held.get(i).getString("roomId") + "-transport");
+							webSocket.send(new JSONObject()
+									.put("action", ActionEvent.CREATE_WEBRTC_TRANSPORT)
+									.put("requestId", held.get(i).getLong("requestId"))
+									.put("webRtcTransportData", transportData)
+									.toString());
+						}
+					}
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		EchoSocket socket = new EchoSocket();
+
+		try {
+			socket.connect(server.start()).get(5, TimeUnit.SECONDS);
+			JSONObject roomA = new JSONObject().put("action", ActionEvent.CREATE_WEBRTC_TRANSPORT).put("roomId", "a");
+			JSONObject roomB = new JSONObject().put("action", ActionEvent.CREATE_WEBRTC_TRANSPORT).put("roomId", "b");
+
+			Future<JSONObject> transportA = socket.sendWithFuture(roomA);
+			Future<JSONObject> transportB = socket.sendWithFuture(roomB);
+
+			assertEquals("a-transport", transportA.get(5, TimeUnit.SECONDS).getJSONObject("webRtcTransportData").getString("id"));
+			assertEquals("b-transport", transportB.get(5, TimeUnit.SECONDS).getJSONObject("webRtcTransportData").getString("id"));
+			assertEquals(0, socket.getPendingAckCount());
+		} finally {
+			socket.disconnect();
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void requestSentWhileDisconnectedLeavesNothingPending()
+	throws Exception {
+		mSocket.disconnect();
+
+		Future<JSONObject> future = mSocket.sendWithFuture(new JSONObject().put("action", ActionEvent.CREATE_WEBRTC_TRANSPORT));
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("Sent without a connection");
+		} catch (ExecutionException ee) {
+			assertTrue(ee.getCause() instanceof IOException);
+		}
+
+		assertEquals(0, mSocket.getPendingAckCount());
+		assertEquals(0, mSocket.getRequestIdCount());
+	}
+
+	@Test
+	public void requestIdIsSplicedIntoTheMessage()
+	throws Exception {
+		assertEquals("{\"requestId\":7}", EchoSocket.withRequestId("{}", 7));
+		assertEquals("{\"requestId\":7 }", EchoSocket.withRequestId("{ }", 7));
+		JSONObject message = new JSONObject(EchoSocket.withRequestId("{\"action\":\"produce\",\"kind\":\"audio\"}", 8));
+		assertEquals(8, message.getLong("requestId"));
+		assertEquals("produce", message.getString("action"));
+		assertEquals("audio", message.getString("kind"));
+	}
+
+	@Test
+	public void unansweredRequestFailsAtItsDeadline()
+	throws Exception {
+		// The server does not acknowledge pauseProducer
+		JSONObject request = new JSONObject().put("action", ActionEvent.PAUSE_PRODUCER);
+		Future<JSONObject> future = mSocket.sendWithFuture(request, 200);
+
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("Expected the deadline to fail the request");
+		} catch (ExecutionException ee) {
+			assertTrue(ee.getCause() instanceof TimeoutException);
+		}
+		assertEquals(0, mSocket.getPendingAckCount());
+	}
+
+	@Test
+	public void cancelDeregistersTheRequest()
+	throws Exception {
+		JSONObject request = new JSONObject().put("action", ActionEvent.PAUSE_PRODUCER);
+		Future<JSONObject> future = mSocket.sendWithFuture(request);
+
+		assertEquals(1, mSocket.getPendingAckCount());
+		assertTrue(future.cancel(true));
+		assertEquals(0, mSocket.getPendingAckCount());
+	}
+
+	@Test
+	public void disconnectFailsPendingRequests()
+	throws Exception {
+		JSONObject request = new JSONObject().put("action", ActionEvent.PAUSE_PRODUCER);
+		Future<JSONObject> future = mSocket.sendWithFuture(request);
+
+		mSocket.disconnect();
+
+		try {
+			future.get(1, TimeUnit.SECONDS);
+			fail("Expected the request to fail");
+		} catch (ExecutionException ee) {
+			assertTrue(ee.getCause() instanceof IOException);
+		}
+	}
+
+	@Test
+	public void hedgedRequestIsSentAgainWhenTheFirstIsNotAnswered()
+	throws Exception {
+		AtomicInteger received = new AtomicInteger();
+		MockSfuServer server = new MockSfuServer() {
+			@Override
+			public void onMessage(WebSocket webSocket, String text) {
+				// Lose the second request, the first shows the server echoes requestIds
+				if (received.incrementAndGet() != 2) {
+					super.onMessage(webSocket, text);
+				}
+			}
+		};
+		EchoSocket socket = new EchoSocket();
+
+		try {
+			socket.connect(server.start()).get(5, TimeUnit.SECONDS);
+			JSONObject request = new JSONObject().put("action", "getRoomRtpCapabilities");
+			socket.sendWithFuture(request).get(5, TimeUnit.SECONDS);
+
+			JSONObject response = socket.sendHedged(request, 5000, 100).get(5, TimeUnit.SECONDS);
+
+			assertTrue(response.has("roomRtpCapabilities"));
+			assertEquals(3, received.get());
+		} finally {
+			socket.disconnect();
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void unansweredDuplicateDoesNotTakeTheNextRequestsAck()
+	throws Exception {
+		AtomicInteger received = new AtomicInteger();
+		ScheduledExecutorService delayed = Executors.newSingleThreadScheduledExecutor();
+		MockSfuServer server = new MockSfuServer() {
+			@Override
+			public void onMessage(WebSocket webSocket, String text) {
+				int count = received.incrementAndGet();
+				if (count == 2) {
+					// Answer the hedged request after its duplicate was sent, and never the duplicate
+					delayed.schedule(() -> super.onMessage(webSocket, text), 300, TimeUnit.MILLISECONDS);
+				} else if (count != 3) {
+					super.onMessage(webSocket, text);
+				}
+			}
+		};
+		EchoSocket socket = new EchoSocket();
+
+		try {
+			socket.connect(server.start()).get(5, TimeUnit.SECONDS);
+			JSONObject request = new JSONObject().put("action", "getRoomRtpCapabilities");
+			socket.sendWithFuture(request).get(5, TimeUnit.SECONDS);
+
+			assertTrue(socket.sendHedged(request, 5000, 100).get(5, TimeUnit.SECONDS).has("roomRtpCapabilities"));
+			assertEquals(3, received.get());
+			assertEquals(0, socket.getPendingAckCount());
+
+			assertTrue(socket.sendWithFuture(request, 1000).get(5, TimeUnit.SECONDS).has("roomRtpCapabilities"));
+		} finally {
+			delayed.shutdownNow();
+			socket.disconnect();
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void requestIsNotHedgedUntilTheServerEchoesRequestIds()
+	throws Exception {
+		AtomicInteger received = new AtomicInteger();
+		MockSfuServer server = new MockSfuServer() {
+			@Override
+			public void onMessage(WebSocket webSocket, String text) {
+				received.incrementAndGet();
+				try {
+					// A server answering in order without echoing the id
+					JSONObject request = new JSONObject(text);
+					request.remove("requestId");
+					Thread.sleep(200);
+					super.onMessage(webSocket, request.toString());
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		EchoSocket socket = new EchoSocket();
+
+		try {
+			socket.connect(server.start()).get(5, TimeUnit.SECONDS);
+			JSONObject request = new JSONObject().put("action", "getRoomRtpCapabilities");
+
+			assertTrue(socket.sendHedged(request, 5000, 50).get(5, TimeUnit.SECONDS).has("roomRtpCapabilities"));
+			assertTrue(socket.sendWithFuture(request, 1000).get(5, TimeUnit.SECONDS).has("roomRtpCapabilities"));
+			assertEquals(2, received.get());
+		} finally {
+			socket.disconnect();
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void slowObserverDoesNotHoldUpAcks()
+	throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		mSocket.register((event, data) -> {
+			try {
+				release.await();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		try {
+			JSONObject first = Request.sendGetRoomRtpCapabilitiesRequest(mSocket, "room");
+			JSONObject second = Request.sendCreateWebRtcTransportRequest(mSocket, "room", "send");
+
+			assertTrue(first.has("roomRtpCapabilities"));
+			assertTrue(second.has("webRtcTransportData"));
+			assertTrue(mSocket.getDispatchMetrics().getQueueDepth() >= 1);
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void observerSeesEventsInOrder()
+	throws Exception {
+		List<String> received = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(100);
+		mSocket.register((event, data) -> {
+			if (ActionEvent.NEW_USER.equals(event)) {
+				received.add(data.optString("userId"));
+				done.countDown();
+			}
+		});
+
+		List<String> sent = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			sent.add("user" + i);
+			mSocket.onMessage("{\"action\":\"newuser\",\"userId\":\"user" + i + "\"}");
+		}
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(sent, received);
+	}
+}
@@ -0,0 +1,104 @@
+package com.example.mediasoupandroidsample.socket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.WebSocket;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HeartbeatTest {
+	private final AtomicBoolean mAnswerPings = new AtomicBoolean(true);
+	private MockSfuServer mServer;
+	private EchoSocket mSocket;
+
+	@Before
+	public void connect()
+	throws Exception {
+		mServer = new MockSfuServer() {
+			@Override
+			public void onMessage(WebSocket webSocket, String text) {
+				if (mAnswerPings.get() || !text.contains("\"ping\"")) {
+					super.onMessage(webSocket, text);
+				}
+			}
+		};
+		String url = mServer.start();
+
+		mSocket = new EchoSocket();
+		mSocket.connect(url).get(5, TimeUnit.SECONDS);
+	}
+
+	@After
+	public void disconnect()
+	throws Exception {
+		mSocket.disconnect();
+		mServer.shutdown();
+	}
+
+	@Test
+	public void clockOffsetIsEstimated()
+	throws Exception {
+		mServer.setClockOffsetMs(5000);
+		mSocket.startHeartbeat(20, 3);
+
+		Heartbeat heartbeat = awaitEstimate();
+
+		// Loopback delay is far below the tolerance
+		assertTrue(Math.abs(heartbeat.getClockOffsetMs() - 5000) < 100);
+		assertTrue(heartbeat.getSmoothedRttMs() >= 0);
+		assertTrue(Math.abs(heartbeat.toServerTime(1000) - 6000) < 100);
+	}
+
+	@Test
+	public void connectionIsFailedWhenPongsStop()
+	throws Exception {
+		CountDownLatch closed = new CountDownLatch(1);
+		mSocket.register((event, data) -> {
+			if (ActionEvent.CLOSE.equals(event)) {
+				closed.countDown();
+			}
+		});
+		mSocket.startHeartbeat(20, 3);
+		awaitEstimate();
+
+		mAnswerPings.set(false);
+
+		assertTrue(closed.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void silentServerIsNotDeclaredDead()
+	throws Exception {
+		CountDownLatch closed = new CountDownLatch(1);
+		mSocket.register((event, data) -> {
+			if (ActionEvent.CLOSE.equals(event)) {
+				closed.countDown();
+			}
+		});
+		mAnswerPings.set(false);
+		mSocket.startHeartbeat(20, 3);
+
+		assertFalse(closed.await(300, TimeUnit.MILLISECONDS));
+		assertFalse(mSocket.getHeartbeat().hasEstimate());
+		assertTrue(mSocket.getHeartbeat().getMissedCount() >= 3);
+	}
+
+	private Heartbeat awaitEstimate()
+	throws InterruptedException {
+		Heartbeat heartbeat = mSocket.getHeartbeat();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!heartbeat.hasEstimate() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(heartbeat.hasEstimate());
+
+		return heartbeat;
+	}
+}
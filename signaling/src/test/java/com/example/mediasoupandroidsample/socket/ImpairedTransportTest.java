@@ -0,0 +1,175 @@
+package com.example.mediasoupandroidsample.socket;
+
+import com.example.mediasoupandroidsample.request.Request;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ImpairedTransportTest {
+	private static final int MESSAGES = 50;
+
+	@Test
+	public void latencyDelaysTheAcknowledgement()
+	throws Exception {
+		MockSfuServer server = new MockSfuServer();
+		String url = server.start();
+		NetworkConditions conditions = new NetworkConditions.Builder().latencyMs(100).build();
+		EchoSocket socket = new EchoSocket(new ImpairedTransport(new WebSocketTransport(), conditions, 1));
+
+		try {
+			socket.connect(url).get(5, TimeUnit.SECONDS);
+
+			long start = System.nanoTime();
+			Request.sendGetRoomRtpCapabilitiesRequest(socket, "room");
+			long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+			assertTrue("round trip took " + elapsedMs + "ms", elapsedMs >= 200);
+		} finally {
+			socket.disconnect();
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void jitterKeepsMessagesInOrder()
+	throws Exception {
+		NetworkConditions conditions = new NetworkConditions.Builder().latencyMs(5).jitterMs(20).build();
+
+		assertEquals(sequence(), deliver(conditions, 7));
+	}
+
+	@Test
+	public void reorderingIsRepeatableForASeed()
+	throws Exception {
+		NetworkConditions conditions = new NetworkConditions.Builder().reorder(0.2, 30).build();
+
+		List<String> first = deliver(conditions, 7);
+		List<String> second = deliver(conditions, 7);
+
+		assertEquals(first, second);
+		assertNotEquals(sequence(), first);
+		List<String> sorted = new ArrayList<>(first);
+		Collections.sort(sorted, (a, b) -> Integer.parseInt(a) - Integer.parseInt(b));
+		assertEquals(sequence(), sorted);
+	}
+
+	@Test
+	public void bandwidthCapSpacesMessages()
+	throws Exception {
+		NetworkConditions conditions = new NetworkConditions.Builder().bandwidthBytesPerSecond(10_000).build();
+		RecordingTransport delegate = new RecordingTransport();
+		ImpairedTransport transport = new ImpairedTransport(delegate, conditions, 1);
+		transport.open("ws://test", new NoopListener());
+
+		char[] payload = new char[1000];
+		long start = System.nanoTime();
+		for (int i = 0; i < 5; i++) {
+			transport.send(new String(payload));
+		}
+		for (int i = 0; i < 5; i++) {
+			delegate.mSent.poll(5, TimeUnit.SECONDS);
+		}
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		transport.release();
+
+		// 5000 bytes at 10000 bytes/s
+		assertTrue("delivery took " + elapsedMs + "ms", elapsedMs >= 450);
+	}
+
+	@Test
+	public void scriptedDropClosesTheSocket()
+	throws Exception {
+		ImpairedTransport transport = new ImpairedTransport(new RecordingTransport(), NetworkConditions.NONE, 1);
+		EchoSocket socket = new EchoSocket(transport);
+		CountDownLatch closed = new CountDownLatch(1);
+		socket.register((event, data) -> {
+			if (ActionEvent.CLOSE.equals(event)) {
+				closed.countDown();
+			}
+		});
+
+		socket.connect("ws://test").get(5, TimeUnit.SECONDS);
+		transport.dropAt(50);
+
+		assertTrue(closed.await(5, TimeUnit.SECONDS));
+		assertFalse(transport.send("lost"));
+		socket.disconnect();
+	}
+
+	private static List<String> deliver(NetworkConditions conditions, long seed)
+	throws InterruptedException {
+		RecordingTransport delegate = new RecordingTransport();
+		ImpairedTransport transport = new ImpairedTransport(delegate, conditions, seed);
+		transport.open("ws://test", new NoopListener());
+
+		for (String message : sequence()) {
+			transport.send(message);
+		}
+
+		List<String> delivered = new ArrayList<>();
+		for (int i = 0; i < MESSAGES; i++) {
+			delivered.add(delegate.mSent.poll(5, TimeUnit.SECONDS));
+		}
+
+		transport.release();
+		return delivered;
+	}
+
+	private static List<String> sequence() {
+		List<String> messages = new ArrayList<>();
+		for (int i = 0; i < MESSAGES; i++) {
+			messages.add(String.valueOf(i));
+		}
+
+		return messages;
+	}
+
+	/**
+	 * Transport that opens immediately and records what is sent through it
+	 */
+	private static class RecordingTransport implements SignalingTransport {
+		final BlockingQueue<String> mSent = new LinkedBlockingQueue<>();
+
+		@Override
+		public void open(String url, Listener listener) {
+			listener.onOpen();
+		}
+
+		@Override
+		public boolean send(String text) {
+			return mSent.add(text);
+		}
+
+		@Override
+		public void close(int code, String reason) {}
+
+		@Override
+		public void release() {}
+	}
+
+	private static class NoopListener implements SignalingTransport.Listener {
+		@Override
+		public void onOpen() {}
+
+		@Override
+		public void onMessage(String text) {}
+
+		@Override
+		public void onClosed(int code, String reason) {}
+
+		@Override
+		public void onFailure(Throwable t) {}
+	}
+}
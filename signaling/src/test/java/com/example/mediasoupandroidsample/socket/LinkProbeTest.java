@@ -0,0 +1,91 @@
+package com.example.mediasoupandroidsample.socket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.WebSocket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LinkProbeTest {
+	private MockSfuServer mServer;
+	private String mUrl;
+
+	@Before
+	public void start()
+	throws Exception {
+		mServer = new MockSfuServer();
+		mUrl = mServer.start();
+	}
+
+	@After
+	public void shutdown()
+	throws Exception {
+		mServer.shutdown();
+	}
+
+	@Test
+	public void capacityAndRttAreMeasured()
+	throws Exception {
+		// 400kbit/s each way with 50ms one way delay
+		NetworkConditions conditions = new NetworkConditions.Builder()
+				.latencyMs(50)
+				.bandwidthBytesPerSecond(50_000)
+				.build();
+		EchoSocket socket = new EchoSocket(new ImpairedTransport(new WebSocketTransport(), conditions, 1));
+
+		try {
+			socket.connect(mUrl).get(5, TimeUnit.SECONDS);
+
+			LinkEstimate estimate = new LinkProbe(socket, 4, 4096).run(5000);
+
+			assertTrue(estimate.toString(), estimate.getRttMs() >= 100 && estimate.getRttMs() < 400);
+			assertWithin(400_000, estimate.getUplinkBps());
+			assertWithin(400_000, estimate.getDownlinkBps());
+			assertEquals(0, socket.getPendingAckCount());
+		} finally {
+			socket.disconnect();
+		}
+	}
+
+	@Test
+	public void unansweredProbeIsUnknown()
+	throws Exception {
+		MockSfuServer server = new MockSfuServer() {
+			@Override
+			public void onMessage(WebSocket webSocket, String text) {
+				// Server without probe support
+				if (!text.contains("\"probe\"")) {
+					super.onMessage(webSocket, text);
+				}
+			}
+		};
+		EchoSocket socket = new EchoSocket();
+
+		try {
+			socket.connect(server.start()).get(5, TimeUnit.SECONDS);
+
+			long start = System.nanoTime();
+			LinkEstimate estimate = new LinkProbe(socket).run(200);
+			long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+			assertEquals(LinkEstimate.UNKNOWN, estimate.getRttMs());
+			assertEquals(LinkEstimate.UNKNOWN, estimate.getUplinkBps());
+			assertEquals(LinkEstimate.UNKNOWN, estimate.getDownlinkBps());
+			assertTrue("probe took " + elapsedMs + "ms", elapsedMs < 1000);
+			assertEquals(0, socket.getPendingAckCount());
+		} finally {
+			socket.disconnect();
+			server.shutdown();
+		}
+	}
+
+	private static void assertWithin(long expectedBps, long actualBps) {
+		assertTrue("expected about " + expectedBps + " but was " + actualBps,
+				actualBps > expectedBps * 0.6 && actualBps < expectedBps * 1.5);
+	}
+}
@@ -0,0 +1,118 @@
+package com.example.mediasoupandroidsample.trace;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TraceRecorderTest {
+	@After
+	public void stopTracing() {
+		Trace.stop();
+	}
+
+	@Test
+	public void disabledCategoryIsNotRecorded() {
+		TraceRecorder recorder = new TraceRecorder(16);
+		Trace.start(recorder, Trace.SIGNALING);
+
+		Trace.record(Trace.TRANSPORT, "state", "connected", 0);
+		Trace.record(Trace.SIGNALING, "recv", "newuser", 42);
+
+		List<TraceEvent> events = recorder.snapshot();
+		assertEquals(1, events.size());
+		assertEquals("recv", events.get(0).getEvent());
+		assertEquals("newuser", events.get(0).getSubject());
+		assertEquals(42, events.get(0).getValue());
+	}
+
+	@Test
+	public void ringKeepsTheNewestEventsInOrder() {
+		TraceRecorder recorder = new TraceRecorder(8);
+		Trace.start(recorder, Trace.ALL);
+
+		for (int i = 0; i < 20; i++) {
+			Trace.record(Trace.PRODUCER, "created", "producer", i);
+		}
+
+		List<TraceEvent> events = recorder.snapshot();
+		assertEquals(8, events.size());
+		for (int i = 0; i < 8; i++) {
+			assertEquals(12 + i, events.get(i).getValue());
+		}
+		assertEquals(20, recorder.getRecordedCount());
+	}
+
+	@Test
+	public void concurrentWritersDoNotCorruptEvents()
+	throws Exception {
+		TraceRecorder recorder = new TraceRecorder(1024);
+		Trace.start(recorder, Trace.ALL);
+
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; t++) {
+			final String subject = "writer" + t;
+			final long base = t * 1_000_000L;
+			writers[t] = new Thread(() -> {
+				for (int i = 0; i < 100_000; i++) {
+					Trace.record(Trace.SIGNALING, "send", subject, base + i);
+				}
+			});
+			writers[t].start();
+		}
+
+		// Snapshots taken while writing must only contain whole events
+		while (writers[0].isAlive()) {
+			for (TraceEvent event : recorder.snapshot()) {
+				assertEquals("writer" + event.getValue() / 1_000_000L, event.getSubject());
+			}
+		}
+
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		assertEquals(400_000, recorder.getRecordedCount());
+		assertTrue(recorder.snapshot().size() <= recorder.getCapacity());
+	}
+
+	@Test
+	public void writersLappingEachOtherDoNotTearEvents()
+	throws Exception {
+		// Two slots for eight writers, most writes land on a slot another writer is filling
+		TraceRecorder recorder = new TraceRecorder(2);
+		Trace.start(recorder, Trace.ALL);
+
+		Thread[] writers = new Thread[8];
+		for (int t = 0; t < writers.length; t++) {
+			final String event = "event" + t;
+			final String subject = "writer" + t;
+			final long base = t * 1_000_000L;
+			writers[t] = new Thread(() -> {
+				for (int i = 0; i < 100_000; i++) {
+					Trace.record(Trace.SIGNALING, event, subject, base + i);
+				}
+			});
+			writers[t].start();
+		}
+
+		while (writers[0].isAlive()) {
+			for (TraceEvent event : recorder.snapshot()) {
+				long writer = event.getValue() / 1_000_000L;
+				assertEquals("event" + writer, event.getEvent());
+				assertEquals("writer" + writer, event.getSubject());
+				assertEquals(Trace.SIGNALING, event.getCategory());
+			}
+		}
+
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		assertEquals(800_000, recorder.getRecordedCount());
+		assertTrue(recorder.snapshot().size() <= recorder.getCapacity());
+	}
+}
@@ -0,0 +1,276 @@
+package com.example.mediasoupandroidsample.utils;
+
+import com.example.mediasoupandroidsample.request.Request;
+import com.example.mediasoupandroidsample.socket.EchoSocket;
+import com.example.mediasoupandroidsample.socket.MockSfuServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.Socket;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.X509ExtendedKeyManager;
+import javax.net.ssl.X509KeyManager;
+
+import okhttp3.Dispatcher;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SignalingHttpClientTest {
+	private MockSfuServer mServer;
+	private String mUrl;
+
+	@Before
+	public void startServer()
+	throws Exception {
+		mServer = new MockSfuServer();
+		mUrl = mServer.start();
+	}
+
+	@After
+	public void stopServer()
+	throws Exception {
+		mServer.shutdown();
+	}
+
+	@Test
+	public void disconnectLeavesTheSharedClientUp()
+	throws Exception {
+		EchoSocket first = new EchoSocket();
+		first.connect(mUrl).get(5, TimeUnit.SECONDS);
+		first.disconnect();
+
+		assertFalse(SignalingHttpClient.get().dispatcher().executorService().isShutdown());
+
+		EchoSocket second = new EchoSocket();
+		second.connect(mUrl).get(5, TimeUnit.SECONDS);
+		assertTrue(Request.sendGetRoomRtpCapabilitiesRequest(second, "room").has("roomRtpCapabilities"));
+		second.disconnect();
+	}
+
+	@Test
+	public void socketsAreNotCappedPerHost()
+	throws Exception {
+		// More than OkHttp's default of 5 calls per host, each open WebSocket holds one
+		EchoSocket[] sockets = new EchoSocket[8];
+		for (int i = 0; i < sockets.length; i++) {
+			sockets[i] = new EchoSocket();
+			sockets[i].connect(mUrl).get(5, TimeUnit.SECONDS);
+		}
+
+		for (EchoSocket socket : sockets) {
+			socket.disconnect();
+		}
+	}
+
+	@Test
+	public void connectIsTimed()
+	throws Exception {
+		EchoSocket socket = new EchoSocket();
+		socket.connect(mUrl).get(5, TimeUnit.SECONDS);
+		socket.disconnect();
+
+		ConnectTimer.ConnectTiming timing = ConnectTimer.getLastTiming();
+		assertNotNull(timing);
+		assertEquals(0, timing.getTlsMs());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void pinsMustBeSha256()
+	throws Exception {
+		SignalingHttpClient.configure(Collections.singletonList("md5/abc"), SignalingHttpClient.DEFAULT_PING_INTERVAL_MS);
+	}
+
+	@Test
+	public void pinnedServerKeyIsTrusted()
+	throws Exception {
+		HeldCertificate serverCertificate = certificate(null);
+		MockSfuServer server = tlsServer(serverCertificate);
+
+		try {
+			pin(serverCertificate);
+			EchoSocket socket = new EchoSocket();
+			socket.connect(server.start()).get(5, TimeUnit.SECONDS);
+			assertTrue(Request.sendGetRoomRtpCapabilitiesRequest(socket, "room").has("roomRtpCapabilities"));
+			socket.disconnect();
+		} finally {
+			unpin();
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void otherServerKeyIsRejected()
+	throws Exception {
+		MockSfuServer server = tlsServer(certificate(null));
+
+		try {
+			pin(certificate(null));
+			assertConnectFails(server.start());
+		} finally {
+			unpin();
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void pinnedCertificateBehindAForeignLeafIsRejected()
+	throws Exception {
+		// The attacker's own leaf, with the real server's certificate appended to the chain
+		HeldCertificate attackerCa = new HeldCertificate.Builder().certificateAuthority(0).build();
+		HeldCertificate attackerLeaf = certificate(attackerCa);
+		HeldCertificate serverCertificate = certificate(null);
+		X509Certificate[] chain = { attackerLeaf.certificate(), serverCertificate.certificate() };
+		MockSfuServer server = new MockSfuServer();
+		server.useTls(sslSocketFactory(chain, attackerLeaf.keyPair().getPrivate()));
+
+		try {
+			pin(serverCertificate);
+			assertConnectFails(server.start());
+		} finally {
+			unpin();
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void reconnectResumesTheTlsSession()
+	throws Exception {
+		HeldCertificate serverCertificate = certificate(null);
+		MockSfuServer server = tlsServer(serverCertificate);
+
+		try {
+			pin(serverCertificate);
+			String url = server.start();
+
+			EchoSocket first = new EchoSocket();
+			first.connect(url).get(5, TimeUnit.SECONDS);
+			first.disconnect();
+			assertFalse(ConnectTimer.getLastTiming().isTlsResumed());
+
+			EchoSocket second = new EchoSocket();
+			second.connect(url).get(5, TimeUnit.SECONDS);
+			second.disconnect();
+			assertTrue(ConnectTimer.getLastTiming().isTlsResumed());
+		} finally {
+			unpin();
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void reconfiguringKeepsTheDispatcher()
+	throws Exception {
+		Dispatcher dispatcher = SignalingHttpClient.get().dispatcher();
+
+		SignalingHttpClient.configure(Collections.emptyList(), 1000);
+
+		assertSame(dispatcher, SignalingHttpClient.get().dispatcher());
+		assertEquals(1000, SignalingHttpClient.get().pingIntervalMillis());
+		SignalingHttpClient.configure(Collections.emptyList(), SignalingHttpClient.DEFAULT_PING_INTERVAL_MS);
+	}
+
+	private static HeldCertificate certificate(HeldCertificate signedBy) {
+		HeldCertificate.Builder builder = new HeldCertificate.Builder().addSubjectAlternativeName("localhost");
+		if (signedBy != null) {
+			builder.signedBy(signedBy);
+		}
+
+		return builder.build();
+	}
+
+	private static MockSfuServer tlsServer(HeldCertificate certificate) {
+		HandshakeCertificates handshakeCertificates = new HandshakeCertificates.Builder()
+				.heldCertificate(certificate)
+				.build();
+		MockSfuServer server = new MockSfuServer();
+		server.useTls(handshakeCertificates.sslSocketFactory());
+		return server;
+	}
+
+	/**
+	 * A KeyStore refuses a chain whose certificates do not sign each other, the key manager serves it as is
+	 */
+	private static SSLSocketFactory sslSocketFactory(X509Certificate[] chain, PrivateKey privateKey)
+	throws Exception {
+		X509KeyManager keyManager = new X509ExtendedKeyManager() {
+			@Override
+			public String[] getClientAliases(String keyType, Principal[] issuers) {
+				return null;
+			}
+
+			@Override
+			public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
+				return null;
+			}
+
+			@Override
+			public String[] getServerAliases(String keyType, Principal[] issuers) {
+				return new String[] { "server" };
+			}
+
+			@Override
+			public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+				return "server";
+			}
+
+			@Override
+			public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+				return "server";
+			}
+
+			@Override
+			public X509Certificate[] getCertificateChain(String alias) {
+				return chain;
+			}
+
+			@Override
+			public PrivateKey getPrivateKey(String alias) {
+				return privateKey;
+			}
+		};
+
+		SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(new KeyManager[] { keyManager }, null, null);
+		return sslContext.getSocketFactory();
+	}
+
+	private static void pin(HeldCertificate certificate) {
+		SignalingHttpClient.configure(Collections.singletonList(SignalingHttpClient.pinOf(certificate.certificate())), SignalingHttpClient.DEFAULT_PING_INTERVAL_MS);
+	}
+
+	private static void unpin() {
+		SignalingHttpClient.configure(Collections.emptyList(), SignalingHttpClient.DEFAULT_PING_INTERVAL_MS);
+	}
+
+	private static void assertConnectFails(String url)
+	throws Exception {
+		EchoSocket socket = new EchoSocket();
+		try {
+			socket.connect(url).get(5, TimeUnit.SECONDS);
+			fail("Connected to a server whose key is not pinned");
+		} catch (ExecutionException expected) {
+			// Handshake failed
+		} finally {
+			socket.disconnect();
+		}
+	}
+}
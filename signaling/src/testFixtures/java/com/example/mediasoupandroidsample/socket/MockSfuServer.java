@@ -0,0 +1,168 @@
+package com.example.mediasoupandroidsample.socket;
+
+import com.example.mediasoupandroidsample.log.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLSocketFactory;
+
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Local stand-in for the signaling server, answers the room client actions with canned responses.
+ * Every connection is accepted so it can serve any number of clients.
+ */
+public class MockSfuServer extends WebSocketListener {
+	private static final String TAG = "MockSfuServer";
+
+	public static final String ROUTER_RTP_CAPABILITIES = "{\"codecs\":["
+			+ "{\"kind\":\"audio\",\"mimeType\":\"audio/opus\",\"clockRate\":48000,\"channels\":2,\"preferredPayloadType\":100,\"rtcpFeedback\":[],\"parameters\":{}},"
+			+ "{\"kind\":\"video\",\"mimeType\":\"video/VP8\",\"clockRate\":90000,\"preferredPayloadType\":101,\"rtcpFeedback\":[{\"type\":\"nack\"},{\"type\":\"nack\",\"parameter\":\"pli\"},{\"type\":\"ccm\",\"parameter\":\"fir\"},{\"type\":\"goog-remb\"}],\"parameters\":{}},"
+			+ "{\"kind\":\"video\",\"mimeType\":\"video/rtx\",\"clockRate\":90000,\"preferredPayloadType\":102,\"rtcpFeedback\":[],\"parameters\":{\"apt\":101}}"
+			+ "],\"headerExtensions\":[],\"fecMechanisms\":[]}";
+
+	private static final String ICE_PARAMETERS = "{\"usernameFragment\":\"mockufrag0123456\",\"password\":\"mockpassword0123456789abcdefghij\",\"iceLite\":true}";
+	private static final String ICE_CANDIDATES = "[{\"foundation\":\"udpcandidate\",\"ip\":\"127.0.0.1\",\"port\":40000,\"priority\":1076302079,\"protocol\":\"udp\",\"type\":\"host\"}]";
+	private static final String DTLS_PARAMETERS = "{\"role\":\"auto\",\"fingerprints\":[{\"algorithm\":\"sha-256\",\"value\":\"82:5A:68:3D:36:C3:0A:DE:AF:E7:32:43:D2:88:83:57:B2:33:B1:BA:2A:25:59:3C:2C:1F:E0:9F:3A:5A:5B:8F\"}]}";
+
+	// Largest padding sent back for a downlink probe
+	private static final int MAX_PROBE_BYTES = 64 * 1024;
+
+	private final MockWebServer mServer;
+	private final AtomicLong mMessageCount;
+	private volatile long mClockOffsetMs;
+	private boolean mTls;
+
+	public MockSfuServer() {
+		mServer = new MockWebServer();
+		mMessageCount = new AtomicLong();
+		mServer.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				return new MockResponse().withWebSocketUpgrade(MockSfuServer.this);
+			}
+		});
+	}
+
+	/**
+	 * Serve wss, call before start
+	 * @param sslSocketFactory Factory with the server's certificate
+	 */
+	public void useTls(SSLSocketFactory sslSocketFactory) {
+		mServer.useHttps(sslSocketFactory, false);
+		mTls = true;
+	}
+
+	/**
+	 * Start the server
+	 * @return ws or wss URL of the server
+	 * @throws IOException Failed to start the server
+	 */
+	public String start()
+	throws IOException {
+		mServer.start();
+		return (mTls ? "wss://" : "ws://") + mServer.getHostName() + ":" + mServer.getPort();
+	}
+
+	public void shutdown()
+	throws IOException {
+		mServer.shutdown();
+	}
+
+	/**
+	 * Skew the server clock reported in heartbeat answers
+	 * @param clockOffsetMs Server clock minus real time
+	 */
+	public void setClockOffsetMs(long clockOffsetMs) {
+		mClockOffsetMs = clockOffsetMs;
+	}
+
+	/**
+	 * @return Number of messages received from all clients
+	 */
+	public long getMessageCount() {
+		return mMessageCount.get();
+	}
+
+	private static String padding(int size) {
+		char[] padding = new char[Math.min(size, MAX_PROBE_BYTES)];
+		Arrays.fill(padding, 'x');
+		return new String(padding);
+	}
+
+	@Override
+	public void onClosing(WebSocket webSocket, int code, String reason) {
+		webSocket.close(code, reason);
+	}
+
+	@Override
+	public void onMessage(WebSocket webSocket, String text) {
+		mMessageCount.incrementAndGet();
+		long receiveTime = System.currentTimeMillis() + mClockOffsetMs;
+
+		try {
+			JSONObject request = new JSONObject(text);
+			String action = request.getString("action");
+			JSONObject response = new JSONObject();
+			response.put("action", action);
+			// Acknowledgements are matched to their request by the echoed id
+			if (request.has("requestId")) {
+				response.put("requestId", request.getLong("requestId"));
+			}
+
+			switch (action) {
+				case "getRoomRtpCapabilities":
+					response.put("roomRtpCapabilities", new JSONObject(ROUTER_RTP_CAPABILITIES));
+					break;
+				case ActionEvent.LOGIN_ROOM:
+					break;
+				case ActionEvent.CREATE_WEBRTC_TRANSPORT:
+					JSONObject webRtcTransportData = new JSONObject();
+					webRtcTransportData.put("id", UUID.randomUUID().toString());
+					webRtcTransportData.put("iceParameters", new JSONObject(ICE_PARAMETERS));
+					webRtcTransportData.put("iceCandidates", new JSONArray(ICE_CANDIDATES));
+					webRtcTransportData.put("dtlsParameters", new JSONObject(DTLS_PARAMETERS));
+					response.put("webRtcTransportData", webRtcTransportData);
+					break;
+				case ActionEvent.RESTART_ICE:
+					response.put("iceParameters", new JSONObject(ICE_PARAMETERS));
+					break;
+				case ActionEvent.PRODUCE:
+					response.put("producerId", UUID.randomUUID().toString());
+					break;
+				case ActionEvent.PING:
+					response.put("action", ActionEvent.PONG);
+					response.put("seq", request.getLong("seq"));
+					response.put("clientTime", request.getLong("clientTime"));
+					response.put("serverReceiveTime", receiveTime);
+					response.put("serverSendTime", System.currentTimeMillis() + mClockOffsetMs);
+					break;
+				case ActionEvent.PROBE:
+					response.put("serverReceiveTime", receiveTime);
+					if ("down".equals(request.optString("direction"))) {
+						response.put("padding", padding(request.getInt("size")));
+					}
+					break;
+				default:
+					// Notification without acknowledgement
+					return;
+			}
+
+			webSocket.send(response.toString());
+		} catch (JSONException je) {
+			Log.e(TAG, "Failed to handle message", je);
+		}
+	}
+}